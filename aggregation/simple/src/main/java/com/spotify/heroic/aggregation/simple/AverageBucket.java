@@ -45,7 +45,12 @@ public class AverageBucket extends AbstractBucket implements DoubleBucket {
 
     @Override
     public void updatePoint(Map<String, String> key, Point d) {
-        value.addAndGet(d.getValue());
+        updatePoint(key, d.getTimestamp(), d.getValue());
+    }
+
+    @Override
+    public void updatePoint(Map<String, String> key, long timestamp, double v) {
+        value.addAndGet(v);
         count.incrementAndGet();
     }
 
@@ -28,6 +28,7 @@ import com.spotify.heroic.aggregation.EmptyInstance;
 import com.spotify.heroic.aggregation.RetainQuotaWatcher;
 import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.ColumnarPointCollection;
 import com.spotify.heroic.metric.MetricCollection;
 import com.spotify.heroic.metric.MetricGroup;
 import com.spotify.heroic.metric.Event;
@@ -109,6 +110,14 @@ public class DeltaInstance implements AggregationInstance {
             this.childSession.updatePoints(key, series, values);
         }
 
+        @Override
+        public void updatePoints(
+            final Map<String, String> key, final Set<Series> series,
+            final ColumnarPointCollection values
+        ) {
+            this.childSession.updatePoints(key, series, values);
+        }
+
         @Override
         public void updateEvents(
             final Map<String, String> key, final Set<Series> series, final List<Event> values
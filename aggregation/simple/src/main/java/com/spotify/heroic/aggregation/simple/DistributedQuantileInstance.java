@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.aggregation.simple;
+
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.aggregation.BucketAggregationInstance;
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Payload;
+import java.beans.ConstructorProperties;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Distributed part of the quantile aggregation.
+ * <p>
+ * Emits an encoded {@link QuantileSketch} per bucket, which are merged by {@link
+ * ReduceQuantileInstance}.
+ * <p>
+ * The sketches guarantee a relative accuracy on values, which is a different measure than the rank
+ * error used by the local {@link QuantileInstance}. It is therefore configured separately through
+ * {@code accuracy}.
+ */
+@Data
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+public class DistributedQuantileInstance extends BucketAggregationInstance<QuantileSketchBucket> {
+    public static final String NAME = "distributed-quantile";
+
+    private final double accuracy;
+
+    @ConstructorProperties({"size", "extent", "accuracy"})
+    public DistributedQuantileInstance(final long size, final long extent, final double accuracy) {
+        super(size, extent, ImmutableSet.of(MetricType.POINT), MetricType.CARDINALITY);
+        this.accuracy = QuantileSketch.checkRelativeAccuracy(accuracy);
+    }
+
+    @Override
+    protected QuantileSketchBucket buildBucket(long timestamp) {
+        return new QuantileSketchBucket(timestamp, accuracy);
+    }
+
+    @Override
+    protected Metric build(QuantileSketchBucket bucket) {
+        if (bucket.isEmpty()) {
+            return Metric.invalid();
+        }
+
+        return new Payload(bucket.timestamp(), bucket.state());
+    }
+}
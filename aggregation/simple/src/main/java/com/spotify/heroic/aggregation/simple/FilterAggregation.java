@@ -30,6 +30,7 @@ import com.spotify.heroic.aggregation.EmptyInstance;
 import com.spotify.heroic.aggregation.RetainQuotaWatcher;
 import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.ColumnarPointCollection;
 import com.spotify.heroic.metric.Event;
 import com.spotify.heroic.metric.MetricGroup;
 import com.spotify.heroic.metric.Payload;
@@ -103,6 +104,13 @@ public abstract class FilterAggregation implements AggregationInstance {
             childSession.updatePoints(key, series, values);
         }
 
+        @Override
+        public void updatePoints(
+            Map<String, String> key, Set<Series> series, ColumnarPointCollection values
+        ) {
+            childSession.updatePoints(key, series, values);
+        }
+
         @Override
         public void updateEvents(
             Map<String, String> key, Set<Series> series, List<Event> values
@@ -29,6 +29,7 @@ import com.spotify.heroic.aggregation.AggregationOutput;
 import com.spotify.heroic.aggregation.RetainQuotaWatcher;
 import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.ColumnarPointCollection;
 import com.spotify.heroic.metric.Event;
 import com.spotify.heroic.metric.MetricGroup;
 import com.spotify.heroic.metric.Payload;
@@ -82,6 +83,14 @@ public abstract class MetricMappingAggregation implements AggregationInstance {
             this.childSession.updatePoints(key, series, values);
         }
 
+        @Override
+        public void updatePoints(
+            final Map<String, String> key, final Set<Series> series,
+            final ColumnarPointCollection values
+        ) {
+            this.childSession.updatePoints(key, series, values);
+        }
+
         @Override
         public void updateEvents(
             final Map<String, String> key, final Set<Series> series, final List<Event> values
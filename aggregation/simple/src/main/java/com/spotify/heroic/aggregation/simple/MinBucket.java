@@ -47,14 +47,19 @@ public class MinBucket extends AbstractBucket implements DoubleBucket {
 
     @Override
     public void updatePoint(Map<String, String> key, Point d) {
+        updatePoint(key, d.getTimestamp(), d.getValue());
+    }
+
+    @Override
+    public void updatePoint(Map<String, String> key, long timestamp, double v) {
         while (true) {
             double current = value.get();
 
-            if (current < d.getValue()) {
+            if (current < v) {
                 break;
             }
 
-            if (value.compareAndSet(current, d.getValue())) {
+            if (value.compareAndSet(current, v)) {
                 break;
             }
         }
@@ -105,10 +105,17 @@ public class Module implements HeroicModule {
                         final Optional<Double> error = args
                             .positionalOrKeyword("error", DoubleExpression.class)
                             .map(DoubleExpression::getValue);
-                        return new Quantile(Optional.empty(), size, extent, q, error);
+                        final Optional<Double> accuracy = args
+                            .keyword("accuracy", DoubleExpression.class)
+                            .map(DoubleExpression::getValue);
+                        return new Quantile(Optional.empty(), size, extent, q, error,
+                            accuracy);
                     }
                 });
 
+            c.registerInstance(DistributedQuantileInstance.NAME,
+                DistributedQuantileInstance.class);
+
             c.register(Delta.NAME, Delta.class, DeltaInstance.class, args -> new Delta());
 
             c.register(TopK.NAME, TopK.class, TopKInstance.class,
@@ -40,27 +40,34 @@ public class Quantile extends SamplingAggregation {
 
     public static final double DEFAULT_QUANTILE = 0.5;
     public static final double DEFAULT_ERROR = 0.01;
+    /**
+     * Default relative accuracy of values estimated by distributed quantiles.
+     */
+    public static final double DEFAULT_ACCURACY = 0.01;
 
     private final Optional<Double> q;
     private final Optional<Double> error;
+    private final Optional<Double> accuracy;
 
     @JsonCreator
     public Quantile(
         @JsonProperty("sampling") Optional<SamplingQuery> sampling,
         @JsonProperty("size") Optional<Duration> size,
         @JsonProperty("extent") Optional<Duration> extent, @JsonProperty("q") Optional<Double> q,
-        @JsonProperty("error") Optional<Double> error
+        @JsonProperty("error") Optional<Double> error,
+        @JsonProperty("accuracy") Optional<Double> accuracy
     ) {
         super(Optionals.firstPresent(size, sampling.flatMap(SamplingQuery::getSize)),
             Optionals.firstPresent(extent, sampling.flatMap(SamplingQuery::getExtent)));
         this.q = q;
         this.error = error;
+        this.accuracy = accuracy.map(QuantileSketch::checkRelativeAccuracy);
     }
 
     @Override
     public QuantileInstance apply(AggregationContext context, final long size, final long extent) {
         return new QuantileInstance(size, extent, q.orElse(DEFAULT_QUANTILE),
-            error.orElse(DEFAULT_ERROR));
+            error.orElse(DEFAULT_ERROR), accuracy.orElse(DEFAULT_ACCURACY));
     }
 
     private String percentage(double v) {
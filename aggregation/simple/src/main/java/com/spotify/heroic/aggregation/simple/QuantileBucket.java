@@ -38,6 +38,7 @@
 package com.spotify.heroic.aggregation.simple;
 
 import com.spotify.heroic.aggregation.AbstractBucket;
+import com.spotify.heroic.metric.ColumnarPointCollection;
 import com.spotify.heroic.metric.Point;
 import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
@@ -82,14 +83,19 @@ public class QuantileBucket extends AbstractBucket {
     private double[] batch = new double[500];
     private int index = 0;
 
+    @Override
+    public void updatePoint(Map<String, String> key, Point d) {
+        updatePoint(key, d.getTimestamp(), d.getValue());
+    }
+
     /**
      * Add a new data point from the stream.
      *
-     * @param d data point to add.
+     * @param value value of the data point to add.
      */
     @Override
-    public synchronized void updatePoint(Map<String, String> key, Point d) {
-        batch[index] = d.getValue();
+    public synchronized void updatePoint(Map<String, String> key, long timestamp, double value) {
+        batch[index] = value;
         index++;
         count++;
 
@@ -98,6 +104,27 @@ public class QuantileBucket extends AbstractBucket {
         }
     }
 
+    @Override
+    public synchronized void updatePoints(
+        Map<String, String> key, ColumnarPointCollection points, int from, int to
+    ) {
+        for (int i = from; i < to; i++) {
+            final double value = points.getValue(i);
+
+            if (!Double.isFinite(value)) {
+                continue;
+            }
+
+            batch[index] = value;
+            index++;
+            count++;
+
+            if (index == batch.length) {
+                compact();
+            }
+        }
+    }
+
     @Override
     public long timestamp() {
         return timestamp;
@@ -22,6 +22,7 @@
 package com.spotify.heroic.aggregation.simple;
 
 import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.aggregation.AggregationInstance;
 import com.spotify.heroic.aggregation.BucketAggregationInstance;
 import com.spotify.heroic.metric.Metric;
 import com.spotify.heroic.metric.MetricType;
@@ -32,20 +33,53 @@ import lombok.ToString;
 
 import java.beans.ConstructorProperties;
 
+/**
+ * Quantile aggregation.
+ * <p>
+ * Locally, quantiles are estimated with a CKMS sketch with the given rank {@code error}. When
+ * distributed, mergeable {@link QuantileSketch}es are used instead, which guarantee a relative
+ * {@code accuracy} on the estimated values.
+ */
 @Data
 @ToString(callSuper = true)
 @EqualsAndHashCode(callSuper = true)
 public class QuantileInstance extends BucketAggregationInstance<QuantileBucket> {
     private final double q;
     private final double error;
+    private final double accuracy;
 
-    @ConstructorProperties({"size", "extent", "q", "error"})
     public QuantileInstance(
         final long size, final long extent, final double q, double error
+    ) {
+        this(size, extent, q, error, Quantile.DEFAULT_ACCURACY);
+    }
+
+    /**
+     * Instances serialized by nodes which predate distributed quantiles have no {@code accuracy},
+     * in which case the default is used.
+     */
+    @ConstructorProperties({"size", "extent", "q", "error", "accuracy"})
+    public QuantileInstance(
+        final long size, final long extent, final double q, double error, Double accuracy
     ) {
         super(size, extent, ImmutableSet.of(MetricType.POINT), MetricType.POINT);
         this.q = q;
         this.error = error;
+        this.accuracy = QuantileSketch.checkRelativeAccuracy(
+            accuracy != null ? accuracy : Quantile.DEFAULT_ACCURACY);
+    }
+
+    /**
+     * Quantiles are distributed by emitting mergeable sketches, which are combined by the reducer.
+     */
+    @Override
+    public AggregationInstance distributed() {
+        return new DistributedQuantileInstance(size, extent, accuracy);
+    }
+
+    @Override
+    public AggregationInstance reducer() {
+        return new ReduceQuantileInstance(size, extent, q, accuracy);
     }
 
     @Override
@@ -0,0 +1,397 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.aggregation.simple;
+
+import static com.spotify.heroic.common.VarInts.readVarLong;
+import static com.spotify.heroic.common.VarInts.unZigZag;
+import static com.spotify.heroic.common.VarInts.writeVarLong;
+import static com.spotify.heroic.common.VarInts.zigZag;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * A mergeable quantile sketch with relative-error guarantees.
+ * <p>
+ * Values are mapped into logarithmically sized bins, where bin {@code i} covers the range
+ * {@code (gamma^(i-1), gamma^i]} with {@code gamma = (1 + a) / (1 - a)}. Any quantile that is
+ * estimated from the sketch is within a relative error of {@code a} of the true value. Merging two
+ * sketches is exact, which makes the sketch suitable for distributed aggregations.
+ * <p>
+ * To bound memory, each sign keeps at most {@code maxBins} bins. When exceeded, the bins closest
+ * to zero are collapsed.
+ * <p>
+ * This is an implementation of the DDSketch algorithm by Masson, Rim, and Lee, "DDSketch: A Fast
+ * and Fully-Mergeable Quantile Sketch with Relative-Error Guarantees" in VLDB 2019.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class QuantileSketch {
+    static final byte VERSION = 1;
+    static final int DEFAULT_MAX_BINS = 2048;
+
+    private final double relativeAccuracy;
+    private final int maxBins;
+    private final double gamma;
+    private final double logGamma;
+
+    private final Store positive;
+    private final Store negative;
+    private long zeroCount = 0;
+
+    public QuantileSketch(final double relativeAccuracy) {
+        this(relativeAccuracy, DEFAULT_MAX_BINS);
+    }
+
+    public QuantileSketch(final double relativeAccuracy, final int maxBins) {
+        checkRelativeAccuracy(relativeAccuracy);
+
+        if (maxBins < 1) {
+            throw new IllegalArgumentException("maxBins must be positive: " + maxBins);
+        }
+
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxBins = maxBins;
+        this.gamma = (1D + relativeAccuracy) / (1D - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.positive = new Store(maxBins);
+        this.negative = new Store(maxBins);
+    }
+
+    /**
+     * Check that the given value is a valid relative accuracy for a sketch.
+     *
+     * @throws IllegalArgumentException if the accuracy is not in the range (0, 1).
+     */
+    public static double checkRelativeAccuracy(final double relativeAccuracy) {
+        if (!(relativeAccuracy > 0D && relativeAccuracy < 1D)) {
+            throw new IllegalArgumentException(
+                "relative accuracy must be in the range (0, 1): " + relativeAccuracy);
+        }
+
+        return relativeAccuracy;
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * Add a single value to the sketch. Non-finite values are ignored.
+     */
+    public void add(final double value) {
+        if (value >= Double.MIN_NORMAL) {
+            if (value != Double.POSITIVE_INFINITY) {
+                positive.add(index(value), 1L);
+            }
+        } else if (value <= -Double.MIN_NORMAL) {
+            if (value != Double.NEGATIVE_INFINITY) {
+                negative.add(index(-value), 1L);
+            }
+        } else if (!Double.isNaN(value)) {
+            zeroCount++;
+        }
+    }
+
+    /**
+     * Merge the content of the other sketch into this sketch.
+     *
+     * @throws IllegalArgumentException if the sketches have different accuracies.
+     */
+    public void merge(final QuantileSketch other) {
+        if (Double.compare(relativeAccuracy, other.relativeAccuracy) != 0) {
+            throw new IllegalArgumentException(
+                "cannot merge sketches with different accuracies (" + relativeAccuracy + " != " +
+                    other.relativeAccuracy + ")");
+        }
+
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeroCount += other.zeroCount;
+    }
+
+    /**
+     * Total number of values added to the sketch.
+     */
+    public long count() {
+        return positive.total + negative.total + zeroCount;
+    }
+
+    public boolean isEmpty() {
+        return count() == 0;
+    }
+
+    /**
+     * Estimate the value at the given quantile.
+     *
+     * @param quantile Queried quantile, e.g. 0.50 or 0.99.
+     * @return Estimated value at that quantile, or {@code NaN} if the sketch is empty.
+     */
+    public double quantile(final double quantile) {
+        final long count = count();
+
+        if (count == 0) {
+            return Double.NaN;
+        }
+
+        final long rank = (long) (Math.max(0D, Math.min(1D, quantile)) * (count - 1));
+
+        long seen = 0;
+
+        for (int i = negative.maxIndex; negative.total > 0 && i >= negative.minIndex; i--) {
+            seen += negative.get(i);
+
+            if (seen > rank) {
+                return -value(i);
+            }
+        }
+
+        seen += zeroCount;
+
+        if (seen > rank) {
+            return 0D;
+        }
+
+        for (int i = positive.minIndex; positive.total > 0 && i <= positive.maxIndex; i++) {
+            seen += positive.get(i);
+
+            if (seen > rank) {
+                return value(i);
+            }
+        }
+
+        throw new IllegalStateException("rank out of bounds");
+    }
+
+    /**
+     * Encode the sketch into its compact binary form.
+     * <p>
+     * Bin indexes and counts are stored as variable length integers, so the size of the encoded
+     * sketch is proportional to the range of values seen rather than the number of values.
+     */
+    public byte[] encode() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(VERSION);
+        writeLong(out, Double.doubleToLongBits(relativeAccuracy));
+
+        try {
+            writeVarLong(out, maxBins);
+            writeVarLong(out, zeroCount);
+            positive.encode(out);
+            negative.encode(out);
+        } catch (final IOException e) {
+            throw new IllegalStateException("writing to memory failed", e);
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a sketch that was encoded using {@link #encode()}.
+     *
+     * @throws IllegalArgumentException if the input is not a valid sketch.
+     */
+    public static QuantileSketch decode(final byte[] bytes) {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        try {
+            final byte version = buffer.get();
+
+            if (version != VERSION) {
+                throw new IllegalArgumentException("unsupported sketch version: " + version);
+            }
+
+            final double relativeAccuracy = Double.longBitsToDouble(buffer.getLong());
+            final int maxBins = (int) readVarLong(buffer);
+
+            final QuantileSketch sketch = new QuantileSketch(relativeAccuracy, maxBins);
+            sketch.zeroCount = readVarLong(buffer);
+            sketch.positive.decode(buffer);
+            sketch.negative.decode(buffer);
+            return sketch;
+        } catch (final BufferUnderflowException e) {
+            throw new IllegalArgumentException("truncated sketch", e);
+        }
+    }
+
+    private int index(final double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    /**
+     * The value which minimizes the relative error for every value in the given bin.
+     */
+    private double value(final int index) {
+        return 2D * Math.pow(gamma, index) / (gamma + 1D);
+    }
+
+    private static void writeLong(final ByteArrayOutputStream out, final long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+
+
+
+    /**
+     * Dense, bounded counts for a contiguous range of bin indexes.
+     */
+    static class Store {
+        private static final int INITIAL_CAPACITY = 32;
+
+        private final int maxBins;
+
+        private long[] counts = null;
+        /* the bin index of counts[0] */
+        private int offset = 0;
+
+        private int minIndex = 0;
+        private int maxIndex = 0;
+        private long total = 0;
+
+        Store(final int maxBins) {
+            this.maxBins = maxBins;
+        }
+
+        long get(final int index) {
+            if (counts == null || index < offset || index >= offset + counts.length) {
+                return 0L;
+            }
+
+            return counts[index - offset];
+        }
+
+        void add(int index, final long count) {
+            if (count == 0) {
+                return;
+            }
+
+            if (total == 0) {
+                minIndex = index;
+                maxIndex = index;
+            } else if (index > maxIndex) {
+                final int floor = index - maxBins + 1;
+
+                if (floor > minIndex) {
+                    collapse(floor);
+                }
+
+                maxIndex = index;
+            } else if (index < minIndex) {
+                /* collapse values closest to zero into the lowest retained bin */
+                index = Math.max(index, maxIndex - maxBins + 1);
+                minIndex = Math.min(minIndex, index);
+            }
+
+            ensureCapacity(minIndex, maxIndex);
+            counts[index - offset] += count;
+            total += count;
+        }
+
+        void merge(final Store other) {
+            if (other.total == 0) {
+                return;
+            }
+
+            for (int i = other.minIndex; i <= other.maxIndex; i++) {
+                add(i, other.get(i));
+            }
+        }
+
+        void encode(final ByteArrayOutputStream out) throws IOException {
+            if (total == 0) {
+                writeVarLong(out, 0L);
+                return;
+            }
+
+            writeVarLong(out, maxIndex - minIndex + 1);
+            /* zig-zag encode, since indexes for values below one are negative */
+            writeVarLong(out, zigZag(minIndex));
+
+            for (int i = minIndex; i <= maxIndex; i++) {
+                writeVarLong(out, get(i));
+            }
+        }
+
+        void decode(final ByteBuffer buffer) {
+            final long bins = readVarLong(buffer);
+
+            if (bins == 0) {
+                return;
+            }
+
+            if (bins < 0 || bins > maxBins) {
+                throw new IllegalArgumentException("invalid number of bins: " + bins);
+            }
+
+            final int start = (int) unZigZag(readVarLong(buffer));
+
+            for (int i = 0; i < bins; i++) {
+                add(start + i, readVarLong(buffer));
+            }
+        }
+
+        /**
+         * Move the counts of all bins below the given floor into the floor bin.
+         */
+        private void collapse(final int floor) {
+            long collapsed = 0;
+
+            for (int i = minIndex; i < floor && i <= maxIndex; i++) {
+                collapsed += get(i);
+
+                if (counts != null && i >= offset && i < offset + counts.length) {
+                    counts[i - offset] = 0L;
+                }
+            }
+
+            minIndex = floor;
+            maxIndex = Math.max(maxIndex, floor);
+            ensureCapacity(minIndex, maxIndex);
+            counts[floor - offset] += collapsed;
+        }
+
+        private void ensureCapacity(final int low, final int high) {
+            if (counts != null && low >= offset && high < offset + counts.length) {
+                return;
+            }
+
+            final int required = high - low + 1;
+            final int length = Math.max(INITIAL_CAPACITY, required + required / 2);
+            final int newOffset = low - (length - required) / 2;
+            final long[] newCounts = new long[length];
+
+            if (counts != null) {
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] != 0) {
+                        newCounts[offset + i - newOffset] = counts[i];
+                    }
+                }
+            }
+
+            counts = newCounts;
+            offset = newOffset;
+        }
+    }
+}
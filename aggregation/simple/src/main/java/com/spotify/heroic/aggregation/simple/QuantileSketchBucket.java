@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.aggregation.simple;
+
+import com.spotify.heroic.aggregation.AbstractBucket;
+import com.spotify.heroic.metric.ColumnarPointCollection;
+import com.spotify.heroic.metric.Payload;
+import com.spotify.heroic.metric.Point;
+import java.util.Map;
+
+/**
+ * Bucket that builds a mergeable {@link QuantileSketch}.
+ * <p>
+ * Points are added to the sketch, and payloads are expected to contain encoded sketches from
+ * sub-aggregations which are merged in.
+ */
+public class QuantileSketchBucket extends AbstractBucket {
+    private final long timestamp;
+    private final QuantileSketch sketch;
+
+    public QuantileSketchBucket(final long timestamp, final double error) {
+        this.timestamp = timestamp;
+        this.sketch = new QuantileSketch(error);
+    }
+
+    @Override
+    public void updatePoint(Map<String, String> key, Point d) {
+        updatePoint(key, d.getTimestamp(), d.getValue());
+    }
+
+    @Override
+    public synchronized void updatePoint(Map<String, String> key, long timestamp, double value) {
+        sketch.add(value);
+    }
+
+    @Override
+    public synchronized void updatePoints(
+        Map<String, String> key, ColumnarPointCollection points, int from, int to
+    ) {
+        for (int i = from; i < to; i++) {
+            sketch.add(points.getValue(i));
+        }
+    }
+
+    @Override
+    public void updatePayload(Map<String, String> key, Payload sample) {
+        final QuantileSketch other = QuantileSketch.decode(sample.getState());
+
+        synchronized (this) {
+            sketch.merge(other);
+        }
+    }
+
+    @Override
+    public long timestamp() {
+        return timestamp;
+    }
+
+    public synchronized boolean isEmpty() {
+        return sketch.isEmpty();
+    }
+
+    public synchronized double value(final double quantile) {
+        return sketch.quantile(quantile);
+    }
+
+    public synchronized byte[] state() {
+        return sketch.encode();
+    }
+}
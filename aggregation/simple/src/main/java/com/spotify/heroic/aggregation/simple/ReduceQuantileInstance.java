@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.aggregation.simple;
+
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.aggregation.BucketAggregationInstance;
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Point;
+import java.beans.ConstructorProperties;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Reducer for the quantile aggregation, merges the sketches emitted by {@link
+ * DistributedQuantileInstance}.
+ */
+@Data
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+public class ReduceQuantileInstance extends BucketAggregationInstance<QuantileSketchBucket> {
+    private final double q;
+    private final double accuracy;
+
+    @ConstructorProperties({"size", "extent", "q", "accuracy"})
+    public ReduceQuantileInstance(
+        final long size, final long extent, final double q, final double accuracy
+    ) {
+        super(size, extent, ImmutableSet.of(MetricType.CARDINALITY), MetricType.POINT);
+        this.q = q;
+        this.accuracy = QuantileSketch.checkRelativeAccuracy(accuracy);
+    }
+
+    @Override
+    protected QuantileSketchBucket buildBucket(long timestamp) {
+        return new QuantileSketchBucket(timestamp, accuracy);
+    }
+
+    @Override
+    protected Metric build(QuantileSketchBucket bucket) {
+        final double value = bucket.value(q);
+
+        if (Double.isNaN(value)) {
+            return Metric.invalid();
+        }
+
+        return new Point(bucket.timestamp(), value);
+    }
+}
@@ -70,8 +70,11 @@ public class SpreadBucket extends AbstractBucket {
 
     @Override
     public void updatePoint(Map<String, String> key, Point d) {
-        final double value = d.getValue();
+        updatePoint(key, d.getTimestamp(), d.getValue());
+    }
 
+    @Override
+    public void updatePoint(Map<String, String> key, long timestamp, double value) {
         if (!Double.isFinite(value)) {
             return;
         }
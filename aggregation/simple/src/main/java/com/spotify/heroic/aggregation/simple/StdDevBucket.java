@@ -45,8 +45,11 @@ public class StdDevBucket extends AbstractBucket implements DoubleBucket {
 
     @Override
     public void updatePoint(Map<String, String> key, Point d) {
-        final double value = d.getValue();
+        updatePoint(key, d.getTimestamp(), d.getValue());
+    }
 
+    @Override
+    public void updatePoint(Map<String, String> key, long timestamp, double value) {
         while (true) {
             final Cell c = cell.get();
 
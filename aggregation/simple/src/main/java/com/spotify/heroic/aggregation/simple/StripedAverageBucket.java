@@ -23,6 +23,7 @@ package com.spotify.heroic.aggregation.simple;
 
 import com.spotify.heroic.aggregation.AbstractBucket;
 import com.spotify.heroic.aggregation.DoubleBucket;
+import com.spotify.heroic.metric.ColumnarPointCollection;
 import com.spotify.heroic.metric.Point;
 import com.spotify.heroic.metric.Spread;
 import lombok.RequiredArgsConstructor;
@@ -49,10 +50,37 @@ public class StripedAverageBucket extends AbstractBucket implements DoubleBucket
 
     @Override
     public void updatePoint(Map<String, String> key, Point d) {
-        value.add(d.getValue());
+        updatePoint(key, d.getTimestamp(), d.getValue());
+    }
+
+    @Override
+    public void updatePoint(Map<String, String> key, long timestamp, double v) {
+        value.add(v);
         count.increment();
     }
 
+    @Override
+    public void updatePoints(
+        Map<String, String> key, ColumnarPointCollection points, int from, int to
+    ) {
+        double runSum = 0D;
+        long runCount = 0L;
+
+        for (int i = from; i < to; i++) {
+            final double v = points.getValue(i);
+
+            if (Double.isFinite(v)) {
+                runSum += v;
+                runCount++;
+            }
+        }
+
+        if (runCount > 0) {
+            value.add(runSum);
+            count.add(runCount);
+        }
+    }
+
     @Override
     public void updateSpread(Map<String, String> key, Spread sample) {
         value.add(sample.getSum());
@@ -23,6 +23,7 @@ package com.spotify.heroic.aggregation.simple;
 
 import com.spotify.heroic.aggregation.AbstractBucket;
 import com.spotify.heroic.aggregation.DoubleBucket;
+import com.spotify.heroic.metric.ColumnarPointCollection;
 import com.spotify.heroic.metric.Point;
 import com.spotify.heroic.metric.Spread;
 import lombok.RequiredArgsConstructor;
@@ -52,7 +53,31 @@ public class StripedMaxBucket extends AbstractBucket implements DoubleBucket {
 
     @Override
     public void updatePoint(Map<String, String> key, Point d) {
-        max.accumulate(d.getValue());
+        updatePoint(key, d.getTimestamp(), d.getValue());
+    }
+
+    @Override
+    public void updatePoint(Map<String, String> key, long timestamp, double value) {
+        max.accumulate(value);
+    }
+
+    @Override
+    public void updatePoints(
+        Map<String, String> key, ColumnarPointCollection points, int from, int to
+    ) {
+        double run = Double.NEGATIVE_INFINITY;
+
+        for (int i = from; i < to; i++) {
+            final double value = points.getValue(i);
+
+            if (Double.isFinite(value)) {
+                run = Math.max(run, value);
+            }
+        }
+
+        if (Double.isFinite(run)) {
+            max.accumulate(run);
+        }
     }
 
     @Override
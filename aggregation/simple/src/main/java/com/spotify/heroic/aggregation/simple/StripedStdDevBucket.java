@@ -55,10 +55,13 @@ public class StripedStdDevBucket extends AbstractBucket implements DoubleBucket
 
     @Override
     public void updatePoint(Map<String, String> key, Point d) {
-        final double v = d.getValue();
+        updatePoint(key, d.getTimestamp(), d.getValue());
+    }
 
-        sum.add(v);
-        sum2.add(v * v);
+    @Override
+    public void updatePoint(Map<String, String> key, long timestamp, double value) {
+        sum.add(value);
+        sum2.add(value * value);
         count.increment();
     }
 
@@ -23,6 +23,7 @@ package com.spotify.heroic.aggregation.simple;
 
 import com.spotify.heroic.aggregation.AbstractBucket;
 import com.spotify.heroic.aggregation.DoubleBucket;
+import com.spotify.heroic.metric.ColumnarPointCollection;
 import com.spotify.heroic.metric.Point;
 import com.spotify.heroic.metric.Spread;
 import lombok.RequiredArgsConstructor;
@@ -52,8 +53,35 @@ public class StripedSumBucket extends AbstractBucket implements DoubleBucket {
 
     @Override
     public void updatePoint(Map<String, String> key, Point d) {
+        updatePoint(key, d.getTimestamp(), d.getValue());
+    }
+
+    @Override
+    public void updatePoint(Map<String, String> key, long timestamp, double value) {
         valid = true;
-        sum.add(d.getValue());
+        sum.add(value);
+    }
+
+    @Override
+    public void updatePoints(
+        Map<String, String> key, ColumnarPointCollection points, int from, int to
+    ) {
+        double runSum = 0D;
+        boolean runValid = false;
+
+        for (int i = from; i < to; i++) {
+            final double value = points.getValue(i);
+
+            if (Double.isFinite(value)) {
+                runSum += value;
+                runValid = true;
+            }
+        }
+
+        if (runValid) {
+            valid = true;
+            sum.add(runSum);
+        }
     }
 
     @Override
@@ -54,8 +54,13 @@ public class SumBucket extends AbstractBucket implements DoubleBucket {
 
     @Override
     public void updatePoint(Map<String, String> key, Point d) {
+        updatePoint(key, d.getTimestamp(), d.getValue());
+    }
+
+    @Override
+    public void updatePoint(Map<String, String> key, long timestamp, double value) {
         valid = true;
-        sum.addAndGet(d.getValue());
+        sum.addAndGet(value);
     }
 
     @Override
@@ -0,0 +1,19 @@
+package com.spotify.heroic.aggregation.simple;
+
+import com.spotify.heroic.test.ValueSuppliers;
+
+import java.lang.reflect.Type;
+import java.util.Optional;
+
+public class AccuracySupplier implements ValueSuppliers.ValueSupplier {
+    @Override
+    public Optional<Object> supply(
+        final Type type, final boolean secondary, final String name
+    ) {
+        if ("accuracy".equals(name)) {
+            return Optional.of(secondary ? 0.05D : 0.01D);
+        }
+
+        return Optional.empty();
+    }
+}
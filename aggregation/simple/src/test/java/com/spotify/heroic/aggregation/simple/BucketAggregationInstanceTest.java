@@ -37,7 +37,9 @@ public class BucketAggregationInstanceTest {
 
     @Test
     public void testQuantileInstance() {
-        verifyClassBuilder(QuantileInstance.class).verify();
+        verifyClassBuilder(QuantileInstance.class)
+            .valueSupplier(new AccuracySupplier())
+            .verify();
     }
 
     @Test
@@ -1,12 +1,44 @@
 package com.spotify.heroic.aggregation.simple;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.test.FakeModuleLoader;
 import org.junit.Test;
 
 import static com.spotify.heroic.test.LombokDataTest.verifyClassBuilder;
+import static org.junit.Assert.assertEquals;
 
 public class QuantileInstanceTest {
+    private final FakeModuleLoader m = FakeModuleLoader.builder().module(Module.class).build();
+
     @Test
     public void lombokDataTest() {
-        verifyClassBuilder(QuantileInstance.class).verify();
+        verifyClassBuilder(QuantileInstance.class)
+            .valueSupplier(new AccuracySupplier())
+            .verify();
+        verifyClassBuilder(DistributedQuantileInstance.class)
+            .valueSupplier(new AccuracySupplier())
+            .verify();
+        verifyClassBuilder(ReduceQuantileInstance.class)
+            .valueSupplier(new AccuracySupplier())
+            .verify();
+    }
+
+    @Test
+    public void testMissingAccuracy() throws Exception {
+        final ObjectMapper mapper = m.json();
+
+        /* as serialized by nodes which predate distributed quantiles */
+        final String json = m
+            .jsonObject()
+            .put("type", Quantile.NAME)
+            .put("size", 100L)
+            .put("extent", 100L)
+            .put("q", 0.5D)
+            .put("error", 0.01D)
+            .string();
+
+        assertEquals(new QuantileInstance(100L, 100L, 0.5D, 0.01D, Quantile.DEFAULT_ACCURACY),
+            mapper.readValue(json, AggregationInstance.class));
     }
 }
@@ -0,0 +1,190 @@
+package com.spotify.heroic.aggregation.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.aggregation.AggregationResult;
+import com.spotify.heroic.aggregation.AggregationSession;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class QuantileSketchTest {
+    private static final Map<String, String> TAGS = ImmutableMap.of();
+    private static final double ERROR = 0.01;
+
+    @Test
+    public void testEmpty() {
+        final QuantileSketch sketch = new QuantileSketch(ERROR);
+        assertTrue(sketch.isEmpty());
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+    }
+
+    @Test
+    public void testRelativeAccuracy() {
+        final QuantileSketch sketch = new QuantileSketch(ERROR);
+
+        for (int i = 1; i <= 10000; i++) {
+            sketch.add(i);
+        }
+
+        assertEquals(10000, sketch.count());
+        assertEquals(5000D, sketch.quantile(0.5), 5000D * ERROR);
+        assertEquals(9900D, sketch.quantile(0.99), 9900D * ERROR);
+        assertEquals(1D, sketch.quantile(0D), ERROR);
+        assertEquals(10000D, sketch.quantile(1D), 10000D * ERROR);
+    }
+
+    @Test
+    public void testNegativeAndZero() {
+        final QuantileSketch sketch = new QuantileSketch(ERROR);
+
+        for (int i = -100; i <= 100; i++) {
+            sketch.add(i);
+        }
+
+        assertEquals(-100D, sketch.quantile(0D), 100D * ERROR);
+        assertEquals(0D, sketch.quantile(0.5), 0D);
+        assertEquals(50D, sketch.quantile(0.75), 50D * ERROR);
+    }
+
+    @Test
+    public void testIgnoresNonFinite() {
+        final QuantileSketch sketch = new QuantileSketch(ERROR);
+        sketch.add(Double.NaN);
+        sketch.add(Double.POSITIVE_INFINITY);
+        sketch.add(Double.NEGATIVE_INFINITY);
+        assertTrue(sketch.isEmpty());
+    }
+
+    @Test
+    public void testMerge() {
+        final QuantileSketch all = new QuantileSketch(ERROR);
+        final QuantileSketch a = new QuantileSketch(ERROR);
+        final QuantileSketch b = new QuantileSketch(ERROR);
+
+        for (int i = 1; i <= 10000; i++) {
+            all.add(i);
+            (i % 3 == 0 ? a : b).add(i);
+        }
+
+        a.merge(b);
+
+        assertEquals(all.count(), a.count());
+
+        for (final double q : new double[]{0D, 0.1, 0.5, 0.9, 0.99, 1D}) {
+            assertEquals(all.quantile(q), a.quantile(q), 0D);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeDifferentAccuracy() {
+        new QuantileSketch(0.01).merge(new QuantileSketch(0.02));
+    }
+
+    @Test
+    public void testCollapseBounded() {
+        final QuantileSketch sketch = new QuantileSketch(ERROR, 64);
+
+        for (int i = 1; i <= 10000; i++) {
+            sketch.add(i);
+        }
+
+        /* high quantiles are retained, low quantiles are collapsed */
+        assertEquals(9900D, sketch.quantile(0.99), 9900D * ERROR);
+        assertEquals(10000, sketch.count());
+    }
+
+    @Test
+    public void testEncodeDecode() {
+        final QuantileSketch sketch = new QuantileSketch(ERROR);
+
+        for (int i = -1000; i <= 1000; i++) {
+            sketch.add(i * 1.5);
+        }
+
+        final byte[] bytes = sketch.encode();
+        final QuantileSketch decoded = QuantileSketch.decode(bytes);
+
+        assertEquals(sketch.count(), decoded.count());
+        assertEquals(ERROR, decoded.getRelativeAccuracy(), 0D);
+
+        for (final double q : new double[]{0D, 0.25, 0.5, 0.75, 1D}) {
+            assertEquals(sketch.quantile(q), decoded.quantile(q), 0D);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeTruncated() {
+        final QuantileSketch sketch = new QuantileSketch(ERROR);
+        sketch.add(42D);
+        final byte[] bytes = sketch.encode();
+        QuantileSketch.decode(Arrays.copyOf(bytes, bytes.length - 1));
+    }
+
+    /**
+     * Quantiles computed from distributed sketches should be the same as if computed on a single
+     * sketch.
+     */
+    @Test
+    public void testDistributedQuantile() {
+        final QuantileInstance quantile = new QuantileInstance(100, 100, 0.9, ERROR, ERROR);
+        final DateRange range = new DateRange(0, 200);
+
+        final AggregationInstance distributed = quantile.distributed();
+        final AggregationInstance reducer = quantile.reducer();
+
+        final AggregationSession reduce = reducer.session(range);
+        final QuantileSketch expected = new QuantileSketch(ERROR);
+
+        for (int shard = 0; shard < 3; shard++) {
+            final List<Point> points = new ArrayList<>();
+
+            for (int i = shard; i < 300; i += 3) {
+                points.add(new Point(50, i));
+                expected.add(i);
+            }
+
+            final AggregationSession session = distributed.session(range);
+            MetricCollection.points(points).updateAggregation(session, TAGS, ImmutableSet.of());
+
+            final AggregationResult partial = session.result();
+            final MetricCollection metrics = partial.getResult().get(0).getMetrics();
+            assertEquals(MetricType.CARDINALITY, metrics.getType());
+            metrics.updateAggregation(reduce, TAGS, ImmutableSet.of());
+        }
+
+        final MetricCollection result = reduce.result().getResult().get(0).getMetrics();
+        assertEquals(MetricType.POINT, result.getType());
+
+        final List<Point> data = result.getDataAs(Point.class);
+        assertEquals(1, data.size());
+        assertEquals(expected.quantile(0.9), data.get(0).getValue(), 0D);
+    }
+
+    /**
+     * The rank error of the local quantile must not leak into the distributed sketches.
+     */
+    @Test
+    public void testDistributedAccuracy() {
+        final QuantileInstance quantile = new QuantileInstance(100, 100, 0.9, 0.5, ERROR);
+
+        assertEquals(ERROR,
+            ((DistributedQuantileInstance) quantile.distributed()).getAccuracy(), 0D);
+        assertEquals(ERROR, ((ReduceQuantileInstance) quantile.reducer()).getAccuracy(), 0D);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidAccuracy() {
+        new QuantileInstance(100, 100, 0.9, ERROR, 1D);
+    }
+}
@@ -29,6 +29,9 @@ import com.spotify.heroic.time.Clock;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
 import eu.toolchain.async.ResolvableFuture;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -71,6 +74,14 @@ public final class ConsumerThread extends Thread {
     // Thread-local copy of the above timestamp
     private long nextOffsetsCommitTSThreadLocal;
 
+    // Messages are consumed in batches when batchSize is greater than one
+    private final int batchSize;
+    private final long batchTime;
+    // Messages that have been read, but not yet handed to the schema
+    private List<byte[]> batch = new ArrayList<>();
+    // When the current batch should be consumed, even if it is not full
+    private long batchDeadline;
+
     @Setter
     private ConsumerThreadCoordinator coordinator;
 
@@ -79,7 +90,8 @@ public final class ConsumerThread extends Thread {
         final ConsumerReporter reporter, final KafkaStream<byte[]> stream,
         final ConsumerSchema.Consumer schema, final AtomicInteger active, final AtomicLong errors,
         final LongAdder consumed, final boolean enablePeriodicCommit,
-        final long periodicCommitInterval, final AtomicLong nextOffsetsCommitTSGlobal
+        final long periodicCommitInterval, final AtomicLong nextOffsetsCommitTSGlobal,
+        final int batchSize, final long batchTime
     ) {
         super(String.format("%s: %s", ConsumerThread.class.getCanonicalName(), name));
 
@@ -99,6 +111,9 @@ public final class ConsumerThread extends Thread {
         this.nextOffsetsCommitTSThreadLocal = this.nextOffsetsCommitTSGlobal.get();
         this.coordinator = null;
 
+        this.batchSize = batchSize;
+        this.batchTime = batchTime;
+
         this.hasStopped = async.future();
     }
 
@@ -174,19 +189,97 @@ public final class ConsumerThread extends Thread {
     }
 
     private void guardedRun() throws Exception {
-        for (final byte[] messageBody : stream.messageIterable()) {
-            if (shouldStop.getCount() == 0 || messageBody == null) {
+        final Iterator<byte[]> messages = stream.messageIterable().iterator();
+
+        while (shouldStop.getCount() > 0) {
+            final byte[] messageBody;
+
+            try {
+                if (!messages.hasNext()) {
+                    break;
+                }
+
+                messageBody = messages.next();
+            } catch (final KafkaStreamTimeoutException e) {
+                /* no message arrived in time, but a partial batch might be due */
+                maybeFlushBatch();
+                maybePause();
+                continue;
+            }
+
+            if (messageBody == null) {
                 // Kafka will send a null message when connection is closing
                 break;
             }
 
-            consumeOneWithRetry(messageBody);
+            if (batchSize > 1) {
+                addToBatch(messageBody);
+            } else {
+                consumeOneWithRetry(messageBody);
+            }
 
             maybePause();
             if (shouldStop.getCount() == 0) {
                 break;
             }
         }
+
+        /* make a single attempt at writing what has been read so far, a failure here leaves the
+         * batch outstanding which prevents its offsets from being committed */
+        final List<byte[]> remaining = takeBatch();
+
+        if (!remaining.isEmpty()) {
+            consumeBatch(remaining);
+        }
+    }
+
+    /**
+     * Add a message to the current batch, and consume the batch if it is full or has been pending
+     * for longer than the configured batch time.
+     * <p>
+     * A started batch counts as an outstanding consumption request, which prevents offsets from
+     * being committed for messages that have been read but not yet written.
+     */
+    private void addToBatch(final byte[] body) throws InterruptedException {
+        maybePrepareToCommitConsumerOffsets();
+
+        if (batch.isEmpty()) {
+            if (enablePeriodicCommit) {
+                outstandingConsumptionRequests.incrementAndGet();
+            }
+
+            batchDeadline = clock.currentTimeMillis() + batchTime;
+        }
+
+        batch.add(body);
+
+        if (batch.size() >= batchSize) {
+            consumeBatchWithRetry(takeBatch());
+            return;
+        }
+
+        maybeFlushBatch();
+    }
+
+    /**
+     * Consume the current batch if it has been pending for longer than the configured batch time.
+     * <p>
+     * This is called on the consumer thread whenever the stream hands back control, including
+     * when no message arrived within {@code consumer.timeout.ms}, so an idle stream doesn't hold
+     * on to a partial batch.
+     */
+    private void maybeFlushBatch() throws InterruptedException {
+        if (batch.isEmpty() || clock.currentTimeMillis() < batchDeadline) {
+            return;
+        }
+
+        consumeBatchWithRetry(takeBatch());
+    }
+
+    private List<byte[]> takeBatch() {
+        final List<byte[]> taken = batch;
+        batch = new ArrayList<>();
+        return taken;
     }
 
     private void maybePause() throws InterruptedException {
@@ -198,6 +291,13 @@ public final class ConsumerThread extends Thread {
 
         log.info("Pausing");
 
+        /* write the current batch, so that it doesn't hold up a pending offsets commit */
+        final List<byte[]> partial = takeBatch();
+
+        if (!partial.isEmpty()) {
+            consumeBatchWithRetry(partial);
+        }
+
         /* block on stop signal while shouldPause, re-check since multiple calls to
          * {#link #pauseConsumption()} might swap it */
         while (p != null && shouldStop.getCount() > 0) {
@@ -239,14 +339,7 @@ public final class ConsumerThread extends Thread {
 
             if (enablePeriodicCommit) {
                 outstandingConsumptionRequests.incrementAndGet();
-
-                future.onFinished(() -> {
-                    long value = outstandingConsumptionRequests.decrementAndGet();
-                    if (value == 0) {
-                        // If applicable, commit consumer offsets
-                        coordinator.commitConsumerOffsets();
-                    }
-                });
+                future.onFinished(this::consumptionFinished);
             }
 
             future.onDone(consumptionContext);
@@ -267,6 +360,70 @@ public final class ConsumerThread extends Thread {
         }
     }
 
+    private void consumeBatchWithRetry(final List<byte[]> batch) throws InterruptedException {
+        long sleep = RETRY_INITIAL_SLEEP;
+
+        while (shouldStop.getCount() > 0) {
+            final boolean retry = consumeBatch(batch);
+
+            if (retry) {
+                handleRetry(sleep);
+                sleep = Math.min(sleep * 2, RETRY_MAX_SLEEP);
+                continue;
+            }
+
+            break;
+        }
+    }
+
+    /**
+     * Consume a batch. The batch was counted as an outstanding consumption request when it was
+     * started, which is released once the batch has been written.
+     */
+    private boolean consumeBatch(final List<byte[]> batch) {
+        try {
+            final FutureReporter.Context consumptionContext = reporter.reportConsumption();
+
+            final AsyncFuture<Void> future = schema.consumeBatch(batch);
+
+            if (enablePeriodicCommit) {
+                future.onFinished(this::consumptionFinished);
+            }
+
+            future.onDone(consumptionContext);
+
+            for (final byte[] body : batch) {
+                reporter.reportMessageSize(body.length);
+            }
+
+            consumed.add(batch.size());
+
+            return false;
+        } catch (final ConsumerSchemaValidationException e) {
+            /* these messages should be ignored */
+            reporter.reportConsumerSchemaError();
+
+            if (enablePeriodicCommit) {
+                consumptionFinished();
+            }
+
+            return false;
+        } catch (final Exception e) {
+            errors.incrementAndGet();
+            log.error("{}: Failed to consume batch", name, e);
+            reporter.reportMessageError();
+            return true;
+        }
+    }
+
+    private void consumptionFinished() {
+        long value = outstandingConsumptionRequests.decrementAndGet();
+        if (value == 0) {
+            // If applicable, commit consumer offsets
+            coordinator.commitConsumerOffsets();
+        }
+    }
+
     /* There's a timestamp, nextOffsetsCommitTSGlobal, saying when we should commit consumer offsets
      * the next time. This method looks at a thread local cached copy of that timestamp, to make
      * this check as fast as possible. When the cached copy says that we should commit, we check the
@@ -73,7 +73,10 @@ public class KafkaConsumerModule implements ConsumerModule {
     private static final Boolean DEFAULT_TRANSACTIONAL = false;
     public static final long DEFAULT_COMMIT_INTERVAL = TimeUnit.SECONDS.toMillis(30);
     private static final long COMMIT_INITIAL_DELAY = TimeUnit.SECONDS.toMillis(2);
+    public static final int DEFAULT_BATCH_SIZE = 1;
+    public static final long DEFAULT_BATCH_TIME = 100;
     private static final String AUTO_COMMIT_ENABLE = "auto.commit.enable";
+    private static final String CONSUMER_TIMEOUT_MS = "consumer.timeout.ms";
 
     private final Optional<String> id;
     private final List<String> topics;
@@ -83,6 +86,8 @@ public class KafkaConsumerModule implements ConsumerModule {
     private final Boolean transactional;
     private final long transactionCommitInterval;
     private final Optional<KafkaConnection> fakeKafkaConnection;
+    private final int batchSize;
+    private final long batchTime;
 
     @Override
     public Exposed module(
@@ -277,6 +282,12 @@ public class KafkaConsumerModule implements ConsumerModule {
                         }
                     }
 
+                    /* wake up consumer threads while the stream is idle, so that they can consume
+                     * partial batches */
+                    if (batchSize > 1 && !properties.containsKey(CONSUMER_TIMEOUT_MS)) {
+                        properties.setProperty(CONSUMER_TIMEOUT_MS, Long.toString(batchTime));
+                    }
+
                     final ConsumerConfig config = new ConsumerConfig(properties);
                     final ConsumerConnector connector =
                         Consumer.createJavaConsumerConnector(config);
@@ -328,7 +339,7 @@ public class KafkaConsumerModule implements ConsumerModule {
                 threads.add(
                     new ConsumerThread(async, clock, name, reporter, stream, consumer, consuming,
                         errors, consumed, enablePeriodicCommit, periodicCommitInterval,
-                        nextOffsetsCommitTS));
+                        nextOffsetsCommitTS, batchSize, batchTime));
             }
         }
 
@@ -359,6 +370,8 @@ public class KafkaConsumerModule implements ConsumerModule {
         private Optional<Boolean> transactional = Optional.empty();
         private Optional<Long> transactionCommitInterval = Optional.empty();
         private Optional<KafkaConnection> fakeKafkaConnection = Optional.empty();
+        private Optional<Integer> batchSize = Optional.empty();
+        private Optional<Long> batchTime = Optional.empty();
 
         @JsonCreator
         public Builder(
@@ -368,7 +381,9 @@ public class KafkaConsumerModule implements ConsumerModule {
             @JsonProperty("threadsPerTopic") Optional<Integer> threads,
             @JsonProperty("config") Optional<Map<String, String>> config,
             @JsonProperty("transactional") Optional<Boolean> transactional,
-            @JsonProperty("transactionCommitInterval") Optional<Long> transactionCommitInterval
+            @JsonProperty("transactionCommitInterval") Optional<Long> transactionCommitInterval,
+            @JsonProperty("batchSize") Optional<Integer> batchSize,
+            @JsonProperty("batchTime") Optional<Long> batchTime
         ) {
             this.id = id;
             this.threads = threads;
@@ -377,6 +392,8 @@ public class KafkaConsumerModule implements ConsumerModule {
             this.schema = schema.map(s -> ReflectionUtils.buildInstance(s, ConsumerSchema.class));
             this.transactional = transactional;
             this.transactionCommitInterval = transactionCommitInterval;
+            this.batchSize = batchSize;
+            this.batchTime = batchTime;
         }
 
         public Builder id(String id) {
@@ -420,6 +437,28 @@ public class KafkaConsumerModule implements ConsumerModule {
             return this;
         }
 
+        /**
+         * Consume messages in batches of up to the given size. Points in a batch are grouped by
+         * series, and each series is written once.
+         * <p>
+         * A batch size of one, which is the default, consumes every message individually.
+         */
+        public Builder batchSize(int batchSize) {
+            this.batchSize = Optional.of(batchSize);
+            return this;
+        }
+
+        /**
+         * The longest time in milliseconds to wait for a batch to fill up before consuming it.
+         * <p>
+         * Unless configured, {@code consumer.timeout.ms} is set to the same value, so that idle
+         * consumer threads wake up to consume partial batches.
+         */
+        public Builder batchTime(long batchTime) {
+            this.batchTime = Optional.of(batchTime);
+            return this;
+        }
+
         public Builder fakeKafkaConnection(KafkaConnection fakeKafkaConnection) {
             this.fakeKafkaConnection = Optional.of(fakeKafkaConnection);
             return this;
@@ -435,6 +474,14 @@ public class KafkaConsumerModule implements ConsumerModule {
                 throw new RuntimeException("Schema is not defined");
             }
 
+            if (batchSize.orElse(DEFAULT_BATCH_SIZE) < 1) {
+                throw new RuntimeException("batchSize must be positive");
+            }
+
+            if (batchTime.orElse(DEFAULT_BATCH_TIME) <= 0) {
+                throw new RuntimeException("batchTime must be positive");
+            }
+
             // @formatter:off
             return new KafkaConsumerModule(
                 id,
@@ -444,7 +491,9 @@ public class KafkaConsumerModule implements ConsumerModule {
                 schema.get(),
                 transactional.orElse(DEFAULT_TRANSACTIONAL),
                 transactionCommitInterval.orElse(DEFAULT_COMMIT_INTERVAL),
-                fakeKafkaConnection
+                fakeKafkaConnection,
+                batchSize.orElse(DEFAULT_BATCH_SIZE),
+                batchTime.orElse(DEFAULT_BATCH_TIME)
             );
             // @formatter:on
         }
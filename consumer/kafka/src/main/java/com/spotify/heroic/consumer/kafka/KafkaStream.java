@@ -22,5 +22,11 @@
 package com.spotify.heroic.consumer.kafka;
 
 public interface KafkaStream<V> {
+    /**
+     * Iterate over the messages of the stream.
+     * <p>
+     * If {@code consumer.timeout.ms} is configured, the iterator throws {@link
+     * KafkaStreamTimeoutException} when no message arrives in time.
+     */
     Iterable<V> messageIterable();
 }
@@ -22,6 +22,7 @@
 package com.spotify.heroic.consumer.kafka;
 
 import java.util.Iterator;
+import kafka.consumer.ConsumerTimeoutException;
 
 public class RealKafkaStream<V> implements KafkaStream<V> {
     private final kafka.consumer.KafkaStream<byte[], V> stream;
@@ -50,12 +51,20 @@ public class RealKafkaStream<V> implements KafkaStream<V> {
 
         @Override
         public boolean hasNext() {
-            return stream.iterator().hasNext();
+            try {
+                return stream.iterator().hasNext();
+            } catch (final ConsumerTimeoutException e) {
+                throw new KafkaStreamTimeoutException();
+            }
         }
 
         @Override
         public V next() {
-            return stream.iterator().next().message();
+            try {
+                return stream.iterator().next().message();
+            } catch (final ConsumerTimeoutException e) {
+                throw new KafkaStreamTimeoutException();
+            }
         }
     }
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.aggregation;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.aggregation.simple.AverageInstance;
+import com.spotify.heroic.aggregation.simple.MaxInstance;
+import com.spotify.heroic.aggregation.simple.QuantileInstance;
+import com.spotify.heroic.aggregation.simple.SumInstance;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.metric.ColumnarPointCollection;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the per-sample cost of feeding points into bucket aggregations.
+ * <p>
+ * {@code perSample} feeds a list of points, which updates buckets one point at a time. {@code
+ * batched} feeds the same points in columnar form, which hands each bucket its run of points in a
+ * single update.
+ * <p>
+ * Run with {@code -prof gc} to verify that neither path allocates per sample.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BucketAggregationBenchmark {
+    private static final int SAMPLES = 100000;
+    private static final long CADENCE = 10L;
+
+    @Param({"sum", "average", "max", "quantile"})
+    private String aggregation;
+
+    /**
+     * Number of samples per bucket, which is the length of each run in the batched case.
+     */
+    @Param({"1", "10", "100"})
+    private int samplesPerBucket;
+
+    private AggregationInstance instance;
+    private DateRange range;
+
+    private MetricCollection list;
+    private MetricCollection columnar;
+
+    @Setup
+    public void setup() {
+        final long size = CADENCE * samplesPerBucket;
+
+        switch (aggregation) {
+            case "sum":
+                instance = new SumInstance(size, size);
+                break;
+            case "average":
+                instance = new AverageInstance(size, size);
+                break;
+            case "max":
+                instance = new MaxInstance(size, size);
+                break;
+            case "quantile":
+                instance = new QuantileInstance(size, size, 0.5, 0.01);
+                break;
+            default:
+                throw new IllegalArgumentException(aggregation);
+        }
+
+        final Random random = new Random(0x1234L);
+
+        final List<Point> points = new ArrayList<>(SAMPLES);
+        final ColumnarPointCollection.Builder builder = ColumnarPointCollection.builder(SAMPLES);
+
+        for (int i = 0; i < SAMPLES; i++) {
+            final long timestamp = (i + 1) * CADENCE;
+            final double value = random.nextDouble();
+
+            points.add(new Point(timestamp, value));
+            builder.add(timestamp, value);
+        }
+
+        range = new DateRange(0L, (SAMPLES + 1) * CADENCE).rounded(size);
+        list = MetricCollection.points(points);
+        columnar = builder.build();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public AggregationResult perSample() {
+        return aggregate(list);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public AggregationResult batched() {
+        return aggregate(columnar);
+    }
+
+    private AggregationResult aggregate(final MetricCollection collection) {
+        final AggregationSession session = instance.session(range);
+        collection.updateAggregation(session, ImmutableMap.of(), ImmutableSet.of());
+        return session.result();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.consumer.schemas;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.Point;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares decoding {@link Spotify100} messages through {@link Spotify100Decoder} with mapping
+ * them to {@link Spotify100.JsonMetric} using an {@link ObjectMapper}.
+ * <p>
+ * Scores are in messages per second. Run with {@code -prof gc} to compare bytes allocated per
+ * message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class Spotify100Benchmark {
+    private static final int MESSAGES = 10000;
+
+    /**
+     * Number of distinct series among the messages.
+     */
+    @Param({"100", "100000"})
+    private int series;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Spotify100Decoder decoder = new Spotify100Decoder();
+
+    private byte[][] messages;
+
+    @Setup
+    public void setup() throws Exception {
+        final Random random = new Random(0x1234L);
+
+        messages = new byte[MESSAGES][];
+
+        for (int i = 0; i < MESSAGES; i++) {
+            final int s = random.nextInt(series);
+
+            final Map<String, String> attributes =
+                ImmutableMap.of("what", "cpu-usage", "unit", "%", "role", "role-" + (s % 10),
+                    "instance", "instance-" + s);
+
+            messages[i] = mapper.writeValueAsBytes(
+                new Spotify100.JsonMetric(Spotify100.SCHEMA_VERSION, "system", "host-" + (s % 50),
+                    1500000000000L + i * 1000L, attributes, random.nextDouble()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void objectMapper(final Blackhole bh) throws Exception {
+        for (final byte[] message : messages) {
+            final Spotify100.JsonMetric metric =
+                mapper.readValue(message, Spotify100.JsonMetric.class);
+
+            final Map<String, String> tags = new HashMap<>(metric.getAttributes());
+            tags.put("host", metric.getHost());
+
+            bh.consume(Series.of(metric.getKey(), tags));
+            bh.consume(new Point(metric.getTime(), metric.getValue()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void decoder(final Blackhole bh) throws Exception {
+        for (final byte[] message : messages) {
+            decoder.decode(message);
+
+            bh.consume(decoder.getSeries());
+            bh.consume(new Point(decoder.getTime(), decoder.getValue()));
+        }
+    }
+}
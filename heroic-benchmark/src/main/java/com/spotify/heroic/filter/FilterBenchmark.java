@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.filter;
+
+import com.spotify.heroic.common.Series;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link Filter#apply(Series)} with the {@link CompiledFilter} of the same filter.
+ * <p>
+ * Scores are in series filtered per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FilterBenchmark {
+    private static final int SERIES = 10000;
+
+    @Param({"tag", "regex", "and", "or", "mixed"})
+    private String filter;
+
+    private Series[] series;
+    private Filter source;
+    private CompiledFilter compiled;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(0x1234L);
+
+        series = new Series[SERIES];
+
+        for (int i = 0; i < SERIES; i++) {
+            final Map<String, String> tags = new HashMap<>();
+            tags.put("host", "host" + random.nextInt(1000));
+            tags.put("role", "role" + random.nextInt(20));
+            tags.put("site", "site" + random.nextInt(5));
+            tags.put("what", "what" + random.nextInt(100));
+            series[i] = Series.of("key" + random.nextInt(10), tags);
+        }
+
+        source = filter(filter).optimize();
+        compiled = CompiledFilter.of(source);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SERIES)
+    public int apply() {
+        int matches = 0;
+
+        for (final Series s : series) {
+            if (source.apply(s)) {
+                matches++;
+            }
+        }
+
+        return matches;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SERIES)
+    public int compiled() {
+        int matches = 0;
+
+        for (final Series s : series) {
+            if (compiled.apply(s)) {
+                matches++;
+            }
+        }
+
+        return matches;
+    }
+
+    private static Filter filter(final String name) {
+        switch (name) {
+            case "tag":
+                return Filter.matchTag("role", "role1");
+            case "regex":
+                return Filter.regex("host", "host1[0-9]+");
+            case "and":
+                return Filter.and(Filter.matchKey("key1"), Filter.matchTag("site", "site1"),
+                    Filter.startsWith("host", "host1"), Filter.hasTag("what"));
+            case "or":
+                return Filter.or(Filter.matchTag("role", "role1"),
+                    Filter.matchTag("role", "role2"), Filter.matchTag("role", "role3"),
+                    Filter.matchTag("role", "role4"), Filter.matchTag("site", "site1"));
+            case "mixed":
+                return Filter.and(Filter.regex("host", "host[0-9]*1"),
+                    Filter.or(Filter.matchTag("role", "role1"), Filter.matchTag("role", "role2")),
+                    Filter.not(Filter.matchTag("site", "site2")),
+                    Filter.startsWith("what", "what1"));
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.http.write;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.spotify.heroic.HeroicConfig;
+import com.spotify.heroic.HeroicCore;
+import com.spotify.heroic.HeroicCoreInstance;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricManagerModule;
+import com.spotify.heroic.metric.MetricModule;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.memory.MemoryMetricModule;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares writing series one request at a time through {@code POST /write} with writing all of
+ * them in a single {@code POST /write/batch} request, using either encoding.
+ * <p>
+ * Requests go over HTTP to a local instance which writes to the in-memory metric backend. Scores
+ * are in series per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class WriteResourceBenchmark {
+    private static final int SERIES = 1000;
+
+    @Param({"1", "100"})
+    private int points;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private HeroicCoreInstance instance;
+    private String base;
+
+    private byte[][] single;
+    private byte[] ndjson;
+    private byte[] binary;
+
+    @Setup
+    public void setup() throws Exception {
+        final int port;
+
+        try (final ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        final MetricModule memory = MemoryMetricModule.builder().build();
+
+        instance = HeroicCore
+            .builder()
+            .setupShellServer(false)
+            .setupService(true)
+            .host("127.0.0.1")
+            .port(port)
+            .oneshot(true)
+            .executor(executor)
+            .configFragment(HeroicConfig
+                .builder()
+                .metrics(MetricManagerModule
+                    .builder()
+                    .backends(ImmutableList.<MetricModule>of(memory))))
+            .build()
+            .newInstance();
+
+        instance.start().get();
+        base = "http://127.0.0.1:" + port;
+
+        final ObjectMapper mapper = instance.inject(c -> c.jsonMapper());
+
+        single = new byte[SERIES][];
+
+        final ByteArrayOutputStream json = new ByteArrayOutputStream();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final BinaryWriteBatchWriter writer = new BinaryWriteBatchWriter(bytes);
+
+        for (int i = 0; i < SERIES; i++) {
+            final Series series = Series.of("benchmark",
+                ImmutableMap.of("host", "host" + i, "what", "writes"));
+
+            final List<Point> data = new ArrayList<>();
+
+            for (int p = 0; p < points; p++) {
+                data.add(new Point(1000L * p, p));
+            }
+
+            single[i] = mapper.writeValueAsBytes(
+                ImmutableMap.of("series", series, "data", MetricCollection.points(data)));
+
+            json.write(single[i]);
+            json.write('\n');
+            writer.write(series, data);
+        }
+
+        writer.flush();
+
+        ndjson = json.toByteArray();
+        binary = bytes.toByteArray();
+    }
+
+    @TearDown
+    public void teardown() throws Exception {
+        instance.shutdown().get();
+        executor.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SERIES)
+    public void singleSeries() throws IOException {
+        for (final byte[] body : single) {
+            post("/write", "application/json", body);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SERIES)
+    public void batchJson() throws IOException {
+        post("/write/batch", WriteResource.NDJSON, ndjson);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SERIES)
+    public void batchBinary() throws IOException {
+        post("/write/batch", WriteResource.BINARY, binary);
+    }
+
+    private void post(final String path, final String contentType, final byte[] body)
+        throws IOException {
+        final HttpURLConnection c = (HttpURLConnection) new URL(base + path).openConnection();
+        c.setRequestMethod("POST");
+        c.setDoOutput(true);
+        c.setRequestProperty("Content-Type", contentType);
+        c.setFixedLengthStreamingMode(body.length);
+
+        try (final OutputStream out = c.getOutputStream()) {
+            out.write(body);
+        }
+
+        if (c.getResponseCode() != 200) {
+            throw new IOException("Request failed: " + c.getResponseCode());
+        }
+
+        /* drain the response so that the connection can be reused */
+        try (final InputStream in = c.getInputStream()) {
+            ByteStreams.copy(in, ByteStreams.nullOutputStream());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metadata.memory;
+
+import com.spotify.heroic.common.OptionalLimit;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.common.SeriesIndex;
+import com.spotify.heroic.filter.AndFilter;
+import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.filter.MatchKeyFilter;
+import com.spotify.heroic.filter.MatchTagFilter;
+import com.spotify.heroic.filter.NotFilter;
+import com.spotify.heroic.filter.OrFilter;
+import com.spotify.heroic.filter.StartsWithFilter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares scanning a set of series with looking them up in a {@link SeriesIndex}.
+ * <p>
+ * Series are generated with a few keys, a high cardinality {@code host} tag, and low cardinality
+ * {@code role} and {@code site} tags.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SeriesStorageBenchmark {
+    private static final int KEYS = 10;
+    private static final int ROLES = 20;
+    private static final String[] SITES = {"lon", "sto", "ash", "sjc"};
+
+    @Param({"10000", "1000000"})
+    private int series;
+
+    @Param({"set", "indexed"})
+    private String storage;
+
+    @Param({"tag", "and", "or", "not", "prefix"})
+    private String filter;
+
+    private SeriesStorage target;
+    private Filter query;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(0x1234L);
+
+        target = "indexed".equals(storage) ? new IndexedSeriesStorage()
+            : new SetSeriesStorage(new ConcurrentSkipListSet<>());
+
+        final int hosts = Math.max(1, series / 10);
+
+        for (int i = 0; i < series; i++) {
+            final Map<String, String> tags = new HashMap<>();
+            tags.put("host", "host-" + random.nextInt(hosts));
+            tags.put("role", "role-" + random.nextInt(ROLES));
+            tags.put("site", SITES[random.nextInt(SITES.length)]);
+            tags.put("id", Integer.toString(i));
+            target.add(Series.of("key-" + random.nextInt(KEYS), tags));
+        }
+
+        query = buildFilter(filter);
+    }
+
+    @Benchmark
+    public long count() {
+        return target.count(query);
+    }
+
+    @Benchmark
+    public long lookupLimited() {
+        return target.lookup(query, OptionalLimit.of(100)).count();
+    }
+
+    private Filter buildFilter(final String name) {
+        switch (name) {
+            case "tag":
+                return new MatchTagFilter("host", "host-1");
+            case "and":
+                return AndFilter.of(new MatchKeyFilter("key-1"),
+                    new MatchTagFilter("role", "role-1"), new MatchTagFilter("site", "lon"));
+            case "or":
+                return OrFilter.of(new MatchTagFilter("role", "role-1"),
+                    new MatchTagFilter("role", "role-2"));
+            case "not":
+                return AndFilter.of(new MatchTagFilter("role", "role-1"),
+                    NotFilter.of(new MatchTagFilter("site", "lon")));
+            case "prefix":
+                return new StartsWithFilter("host", "host-12");
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+}
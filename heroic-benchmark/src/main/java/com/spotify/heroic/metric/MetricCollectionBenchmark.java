@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.HeroicMappers;
+import com.spotify.heroic.aggregation.AggregationResult;
+import com.spotify.heroic.aggregation.AggregationSession;
+import com.spotify.heroic.aggregation.simple.SumInstance;
+import com.spotify.heroic.common.DateRange;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the list-of-objects representation of points with {@link ColumnarPointCollection}.
+ * <p>
+ * Run with {@code -prof gc} to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MetricCollectionBenchmark {
+    private static final long CADENCE = 10L;
+    private static final int SHARDS = 4;
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private final ObjectMapper mapper =
+        new ObjectMapper().registerModule(HeroicMappers.jsonSerializers());
+    private final SumInstance aggregation = new SumInstance(CADENCE * 60, CADENCE * 60);
+
+    private DateRange range;
+
+    private MetricCollection list;
+    private MetricCollection columnar;
+    private List<MetricCollection> listShards;
+    private List<MetricCollection> columnarShards;
+
+    private byte[] serialized;
+
+    @Setup
+    public void setup() throws Exception {
+        final Random random = new Random(0x1234L);
+
+        final List<Point> points = new ArrayList<>(size);
+        final long[] timestamps = new long[size];
+        final double[] values = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            final long timestamp = (i + 1) * CADENCE;
+            final double value = random.nextDouble();
+
+            points.add(new Point(timestamp, value));
+            timestamps[i] = timestamp;
+            values[i] = value;
+        }
+
+        range = new DateRange(0L, (size + 1) * CADENCE);
+        list = MetricCollection.points(points);
+        columnar = MetricCollection.points(timestamps, values);
+
+        listShards = new ArrayList<>(SHARDS);
+        columnarShards = new ArrayList<>(SHARDS);
+
+        for (int shard = 0; shard < SHARDS; shard++) {
+            final List<Point> shardPoints = new ArrayList<>();
+            final ColumnarPointCollection.Builder builder = ColumnarPointCollection.builder();
+
+            for (int i = shard; i < size; i += SHARDS) {
+                shardPoints.add(points.get(i));
+                builder.add(timestamps[i], values[i]);
+            }
+
+            listShards.add(MetricCollection.points(shardPoints));
+            columnarShards.add(builder.build());
+        }
+
+        serialized = mapper.writeValueAsBytes(list);
+    }
+
+    @Benchmark
+    public AggregationResult aggregateList() {
+        return aggregate(list);
+    }
+
+    @Benchmark
+    public AggregationResult aggregateColumnar() {
+        return aggregate(columnar);
+    }
+
+    @Benchmark
+    public MetricCollection mergeSortedList() {
+        return MetricCollection.mergeSorted(MetricType.POINT, listShards);
+    }
+
+    @Benchmark
+    public MetricCollection mergeSortedColumnar() {
+        return MetricCollection.mergeSorted(MetricType.POINT, columnarShards);
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws Exception {
+        return mapper.writeValueAsBytes(list);
+    }
+
+    @Benchmark
+    public byte[] serializeColumnar() throws Exception {
+        return mapper.writeValueAsBytes(columnar);
+    }
+
+    @Benchmark
+    public MetricCollection deserialize() throws Exception {
+        return mapper.readValue(serialized, MetricCollection.class);
+    }
+
+    private AggregationResult aggregate(final MetricCollection collection) {
+        final AggregationSession session = aggregation.session(range);
+        collection.updateAggregation(session, ImmutableMap.of(), ImmutableSet.of());
+        return session.result();
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.bigtable;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the encoding of a chunk window as {@link PointChunkCodec} chunks with one cell per
+ * point.
+ * <p>
+ * The size of a chunk in bytes per point is printed when each trial ends, a cell costs at least
+ * four bytes of qualifier and eight bytes of value per point.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PointChunkCodecBenchmark {
+    private static final long CADENCE = 10000L;
+
+    /* two hours at a ten second cadence, the default chunk window */
+    @Param({"720"})
+    private int size;
+
+    @Param({"constant", "counter", "gauge"})
+    private String values;
+
+    private long[] timestamps;
+    private double[] data;
+    private byte[] chunk;
+    private byte[][] cells;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final Random random = new Random(0x1234L);
+
+        timestamps = new long[size];
+        data = new double[size];
+
+        double counter = 0D;
+
+        for (int i = 0; i < size; i++) {
+            /* points mostly arrive at the cadence, with some jitter */
+            timestamps[i] = i * CADENCE + (random.nextInt(10) == 0 ? random.nextInt(100) : 0);
+
+            switch (values) {
+                case "constant":
+                    data[i] = 1D;
+                    break;
+                case "counter":
+                    counter += random.nextInt(100);
+                    data[i] = counter;
+                    break;
+                default:
+                    data[i] = Math.round(random.nextGaussian() * 10000D) / 100D;
+                    break;
+            }
+        }
+
+        chunk = PointChunkCodec.encode(timestamps, data, size);
+
+        cells = new byte[size][];
+
+        for (int i = 0; i < size; i++) {
+            cells[i] = encodeCell(data[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.printf("%n%s: %.2f bytes per point (%d points in %d bytes)%n", values,
+            (double) chunk.length / size, size, chunk.length);
+    }
+
+    @Benchmark
+    public byte[] encodeChunk() {
+        return PointChunkCodec.encode(timestamps, data, size);
+    }
+
+    @Benchmark
+    public void decodeChunk(final Blackhole bh) {
+        PointChunkCodec.decode(chunk, (timestamp, value) -> {
+            bh.consume(timestamp);
+            bh.consume(value);
+        });
+    }
+
+    @Benchmark
+    public byte[][] encodeCells() {
+        final byte[][] result = new byte[size][];
+
+        for (int i = 0; i < size; i++) {
+            result[i] = encodeCell(data[i]);
+        }
+
+        return result;
+    }
+
+    @Benchmark
+    public void decodeCells(final Blackhole bh) {
+        for (int i = 0; i < size; i++) {
+            bh.consume(timestamps[i]);
+            bh.consume(Double.longBitsToDouble(ByteBuffer.wrap(cells[i]).getLong()));
+        }
+    }
+
+    private static byte[] encodeCell(final double value) {
+        return ByteBuffer.allocate(Double.BYTES).putLong(Double.doubleToLongBits(value)).array();
+    }
+}
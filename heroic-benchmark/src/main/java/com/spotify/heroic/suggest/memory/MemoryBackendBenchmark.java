@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.suggest.memory;
+
+import com.google.common.collect.ImmutableList;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Groups;
+import com.spotify.heroic.common.OptionalLimit;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.filter.AndFilter;
+import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.filter.MatchKeyFilter;
+import com.spotify.heroic.filter.MatchTagFilter;
+import com.spotify.heroic.filter.TrueFilter;
+import com.spotify.heroic.suggest.TagKeyCount;
+import com.spotify.heroic.suggest.TagValuesSuggest;
+import com.spotify.heroic.suggest.WriteSuggest;
+import eu.toolchain.async.TinyAsync;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures tag value suggestions and tag key counts against the memory suggest backend.
+ * <p>
+ * Series are generated with a few keys, a high cardinality {@code host} tag, and low cardinality
+ * {@code role} and {@code site} tags.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MemoryBackendBenchmark {
+    private static final int KEYS = 10;
+    private static final int ROLES = 20;
+    private static final String[] SITES = {"lon", "sto", "ash", "sjc"};
+
+    @Param({"100000"})
+    private int series;
+
+    @Param({"true", "tag", "and"})
+    private String filter;
+
+    private MemoryBackend backend;
+    private TagValuesSuggest.Request tagValues;
+    private TagKeyCount.Request tagKeyCount;
+
+    @Setup
+    public void setup() throws Exception {
+        final Random random = new Random(0x1234L);
+        final DateRange range = new DateRange(0L, 0L);
+
+        backend = new MemoryBackend(Groups.empty(), TinyAsync.builder().build());
+
+        final int hosts = Math.max(1, series / 10);
+
+        for (int i = 0; i < series; i++) {
+            final Map<String, String> tags = new HashMap<>();
+            tags.put("host", "host-" + random.nextInt(hosts));
+            tags.put("role", "role-" + random.nextInt(ROLES));
+            tags.put("site", SITES[random.nextInt(SITES.length)]);
+            final Series s = Series.of("key-" + random.nextInt(KEYS), tags);
+            backend.write(new WriteSuggest.Request(s, range)).get();
+        }
+
+        final Filter query = buildFilter(filter);
+
+        tagValues = new TagValuesSuggest.Request(query, range, OptionalLimit.empty(),
+            OptionalLimit.of(100), ImmutableList.of());
+        tagKeyCount = new TagKeyCount.Request(query, range, OptionalLimit.empty(),
+            OptionalLimit.empty());
+    }
+
+    @Benchmark
+    public TagValuesSuggest tagValuesSuggest() throws Exception {
+        return backend.tagValuesSuggest(tagValues).get();
+    }
+
+    @Benchmark
+    public TagKeyCount tagKeyCount() throws Exception {
+        return backend.tagKeyCount(tagKeyCount).get();
+    }
+
+    private Filter buildFilter(final String name) {
+        switch (name) {
+            case "true":
+                return TrueFilter.get();
+            case "tag":
+                return new MatchTagFilter("role", "role-1");
+            case "and":
+                return AndFilter.of(new MatchKeyFilter("key-1"),
+                    new MatchTagFilter("site", "lon"));
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+}
@@ -30,6 +30,7 @@ import com.spotify.heroic.metadata.FindSeries;
 import com.spotify.heroic.metadata.FindTags;
 import com.spotify.heroic.metadata.WriteMetadata;
 import com.spotify.heroic.metric.QueryResult;
+import com.spotify.heroic.metric.ShardedResultGroup;
 import com.spotify.heroic.metric.WriteMetric;
 import com.spotify.heroic.querylogging.QueryContext;
 import com.spotify.heroic.suggest.KeySuggest;
@@ -40,6 +41,7 @@ import com.spotify.heroic.suggest.TagValuesSuggest;
 import eu.toolchain.async.AsyncFuture;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface QueryManager extends UsableGroupManager<QueryManager.Group> {
     QueryBuilder newQueryFromString(String query);
@@ -47,6 +49,18 @@ public interface QueryManager extends UsableGroupManager<QueryManager.Group> {
     interface Group {
         AsyncFuture<QueryResult> query(Query query, QueryContext queryContext);
 
+        /**
+         * Run the given query, streaming combined result groups to the consumer as soon as all
+         * shards have contributed to them.
+         * <p>
+         * The consumer is never called concurrently.
+         *
+         * @return A future that resolves to the remainder of the result, without any groups.
+         */
+        AsyncFuture<QueryResult> queryStream(
+            Query query, QueryContext queryContext, Consumer<List<ShardedResultGroup>> consumer
+        );
+
         AsyncFuture<FindTags> findTags(final FindTags.Request request);
 
         AsyncFuture<FindKeys> findKeys(final FindKeys.Request request);
@@ -24,11 +24,36 @@ package com.spotify.heroic.aggregation;
 import com.google.common.collect.ImmutableList;
 import com.spotify.heroic.metric.ShardedResultGroup;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public interface AggregationCombiner {
     List<ShardedResultGroup> combine(List<List<ShardedResultGroup>> all);
 
+    /**
+     * Start an incremental combine, where groups are added as they become available.
+     * <p>
+     * The default implementation buffers every part and combines them when finished.
+     *
+     * @return A new session.
+     */
+    default Session session() {
+        final List<List<ShardedResultGroup>> all = new ArrayList<>();
+
+        return new Session() {
+            @Override
+            public List<ShardedResultGroup> add(final List<ShardedResultGroup> groups) {
+                all.add(groups);
+                return ImmutableList.of();
+            }
+
+            @Override
+            public List<ShardedResultGroup> finish() {
+                return combine(all);
+            }
+        };
+    }
+
     AggregationCombiner DEFAULT = new AggregationCombiner() {
         @Override
         public List<ShardedResultGroup> combine(
@@ -43,9 +68,45 @@ public interface AggregationCombiner {
             return combined.build();
         }
 
+        @Override
+        public Session session() {
+            return new Session() {
+                @Override
+                public List<ShardedResultGroup> add(final List<ShardedResultGroup> groups) {
+                    return groups;
+                }
+
+                @Override
+                public List<ShardedResultGroup> finish() {
+                    return ImmutableList.of();
+                }
+            };
+        }
+
         @Override
         public String toString() {
             return "DEFAULT";
         }
     };
+
+    /**
+     * An incremental combine.
+     * <p>
+     * Implementations are not thread-safe, callers are expected to serialize access.
+     */
+    interface Session {
+        /**
+         * Add the groups from a single part.
+         *
+         * @return Groups which are already complete and can be emitted.
+         */
+        List<ShardedResultGroup> add(List<ShardedResultGroup> groups);
+
+        /**
+         * Finish the combine, after all parts have been added.
+         *
+         * @return Remaining groups.
+         */
+        List<ShardedResultGroup> finish();
+    }
 }
@@ -118,4 +118,15 @@ public interface AggregationInstance {
     default boolean distributable() {
         return true;
     }
+
+    /**
+     * Indicates if the aggregation can be evaluated independently over adjacent time ranges which
+     * are aligned to its cadence, and the results concatenated.
+     * <p>
+     * This holds when the value of every output sample only depends on input within its own
+     * cadence interval, and is used to cache results in time slices.
+     */
+    default boolean sliceable() {
+        return false;
+    }
 }
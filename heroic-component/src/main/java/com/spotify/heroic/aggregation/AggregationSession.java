@@ -22,6 +22,7 @@
 package com.spotify.heroic.aggregation;
 
 import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.ColumnarPointCollection;
 import com.spotify.heroic.metric.Payload;
 import com.spotify.heroic.metric.Event;
 import com.spotify.heroic.metric.MetricGroup;
@@ -35,6 +36,19 @@ import java.util.Set;
 public interface AggregationSession {
     void updatePoints(Map<String, String> key, Set<Series> series, List<Point> values);
 
+    /**
+     * Update the session with points stored in columnar form.
+     * <p>
+     * The default implementation falls back to {@link #updatePoints(Map, Set, List)}, which
+     * materializes a {@link Point} for every sample. Sessions that can consume the columns
+     * directly should override this.
+     */
+    default void updatePoints(
+        Map<String, String> key, Set<Series> series, ColumnarPointCollection values
+    ) {
+        updatePoints(key, series, values.getDataAs(Point.class));
+    }
+
     void updateEvents(Map<String, String> key, Set<Series> series, List<Event> values);
 
     void updateSpreads(Map<String, String> key, Set<Series> series, List<Spread> values);
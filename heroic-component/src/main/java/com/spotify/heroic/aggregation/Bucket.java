@@ -21,9 +21,10 @@
 
 package com.spotify.heroic.aggregation;
 
-import com.spotify.heroic.metric.Payload;
+import com.spotify.heroic.metric.ColumnarPointCollection;
 import com.spotify.heroic.metric.Event;
 import com.spotify.heroic.metric.MetricGroup;
+import com.spotify.heroic.metric.Payload;
 import com.spotify.heroic.metric.Point;
 import com.spotify.heroic.metric.Spread;
 
@@ -32,6 +33,36 @@ import java.util.Map;
 public interface Bucket {
     void updatePoint(Map<String, String> key, Point sample);
 
+    /**
+     * Update the bucket with a single point, without requiring a {@link Point} instance.
+     * <p>
+     * The default implementation delegates to {@link #updatePoint(Map, Point)}, buckets which
+     * only care about the value of a point should override this.
+     */
+    default void updatePoint(Map<String, String> key, long timestamp, double value) {
+        updatePoint(key, new Point(timestamp, value));
+    }
+
+    /**
+     * Update the bucket with a run of points which all belong to this bucket.
+     * <p>
+     * The run is the range {@code [from, to)} of the given collection, in timestamp order.
+     * Implementations must ignore non-finite values. Buckets which can fold a run into a single
+     * update should override this, to pay for synchronization once per run instead of once per
+     * point.
+     */
+    default void updatePoints(
+        Map<String, String> key, ColumnarPointCollection points, int from, int to
+    ) {
+        for (int i = from; i < to; i++) {
+            final double value = points.getValue(i);
+
+            if (Double.isFinite(value)) {
+                updatePoint(key, points.getTimestamp(i), value);
+            }
+        }
+    }
+
     void updateEvent(Map<String, String> key, Event sample);
 
     void updateSpread(Map<String, String> key, Spread sample);
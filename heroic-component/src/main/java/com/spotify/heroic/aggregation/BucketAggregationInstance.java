@@ -28,6 +28,7 @@ import com.google.common.collect.Iterables;
 import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Series;
 import com.spotify.heroic.common.Statistics;
+import com.spotify.heroic.metric.ColumnarPointCollection;
 import com.spotify.heroic.metric.Event;
 import com.spotify.heroic.metric.Metric;
 import com.spotify.heroic.metric.MetricCollection;
@@ -83,7 +84,8 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
         private final ConcurrentLinkedQueue<Set<Series>> series = new ConcurrentLinkedQueue<>();
         private final LongAdder sampleSize = new LongAdder();
 
-        private final List<B> buckets;
+        /* array instead of list to keep the per-sample path free from interface dispatch */
+        private final Bucket[] buckets;
         private final long offset;
 
         @Override
@@ -91,7 +93,72 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
             Map<String, String> key, Set<Series> s, List<Point> values
         ) {
             series.add(s);
-            feed(MetricType.POINT, values, (bucket, m) -> bucket.updatePoint(key, m));
+
+            if (!input.contains(MetricType.POINT)) {
+                return;
+            }
+
+            int sampleSize = 0;
+
+            for (final Point m : values) {
+                if (!m.valid()) {
+                    continue;
+                }
+
+                final long timestamp = m.getTimestamp();
+                final int end = endBucket(timestamp);
+
+                for (int i = startBucket(timestamp); i < end; i++) {
+                    buckets[i].updatePoint(key, m);
+                }
+
+                sampleSize += 1;
+            }
+
+            this.sampleSize.add(sampleSize);
+        }
+
+        /**
+         * Feed columnar points into the buckets.
+         * <p>
+         * Since the timestamps are sorted, the points belonging to each bucket form a contiguous
+         * run, which is handed to the bucket in a single call through {@link
+         * Bucket#updatePoints(Map, ColumnarPointCollection, int, int)}.
+         */
+        @Override
+        public void updatePoints(
+            Map<String, String> key, Set<Series> s, ColumnarPointCollection values
+        ) {
+            series.add(s);
+
+            if (!input.contains(MetricType.POINT)) {
+                return;
+            }
+
+            final int size = values.size();
+
+            int sampleSize = 0;
+            boolean sorted = true;
+            long last = Long.MIN_VALUE;
+
+            for (int p = 0; p < size; p++) {
+                final long timestamp = values.getTimestamp(p);
+
+                sorted = sorted && timestamp >= last;
+                last = timestamp;
+
+                if (Double.isFinite(values.getValue(p))) {
+                    sampleSize += 1;
+                }
+            }
+
+            if (sorted) {
+                feedRuns(key, values);
+            } else {
+                feedEach(key, values);
+            }
+
+            this.sampleSize.add(sampleSize);
         }
 
         @Override
@@ -99,7 +166,7 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
             Map<String, String> key, Set<Series> s, List<Event> values
         ) {
             series.add(s);
-            feed(MetricType.EVENT, values, (bucket, m) -> bucket.updateEvent(key, m));
+            feed(MetricType.EVENT, key, values, Bucket::updateEvent);
         }
 
         @Override
@@ -107,7 +174,7 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
             Map<String, String> key, Set<Series> s, List<Spread> values
         ) {
             series.add(s);
-            feed(MetricType.SPREAD, values, (bucket, m) -> bucket.updateSpread(key, m));
+            feed(MetricType.SPREAD, key, values, Bucket::updateSpread);
         }
 
         @Override
@@ -115,7 +182,7 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
             Map<String, String> key, Set<Series> s, List<MetricGroup> values
         ) {
             series.add(s);
-            feed(MetricType.GROUP, values, (bucket, m) -> bucket.updateGroup(key, m));
+            feed(MetricType.GROUP, key, values, Bucket::updateGroup);
         }
 
         @Override
@@ -123,11 +190,12 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
             Map<String, String> key, Set<Series> s, List<Payload> values
         ) {
             series.add(s);
-            feed(MetricType.CARDINALITY, values, (bucket, m) -> bucket.updatePayload(key, m));
+            feed(MetricType.CARDINALITY, key, values, Bucket::updatePayload);
         }
 
         private <T extends Metric> void feed(
-            final MetricType type, List<T> values, final BucketConsumer<B, T> consumer
+            final MetricType type, final Map<String, String> key, final List<T> values,
+            final BucketConsumer<T> consumer
         ) {
             if (!input.contains(type)) {
                 return;
@@ -140,10 +208,11 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
                     continue;
                 }
 
-                final StartEnd startEnd = mapTimestamp(m.getTimestamp());
+                final long timestamp = m.getTimestamp();
+                final int end = endBucket(timestamp);
 
-                for (int i = startEnd.start; i < startEnd.end; i++) {
-                    consumer.apply(buckets.get(i), m);
+                for (int i = startBucket(timestamp); i < end; i++) {
+                    consumer.apply(buckets[i], key, m);
                 }
 
                 sampleSize += 1;
@@ -152,12 +221,66 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
             this.sampleSize.add(sampleSize);
         }
 
+        /**
+         * Feed sorted points, one run per bucket.
+         * <p>
+         * Both the first and the last bucket of a point are non-decreasing with its timestamp, so
+         * the points of bucket {@code i} are exactly the ones between the first point whose last
+         * bucket is at or after {@code i}, and the first point whose first bucket is after it.
+         */
+        private void feedRuns(final Map<String, String> key, final ColumnarPointCollection values) {
+            final int size = values.size();
+
+            if (size == 0) {
+                return;
+            }
+
+            final int first = startBucket(values.getTimestamp(0));
+            final int last = endBucket(values.getTimestamp(size - 1));
+
+            int lo = 0;
+            int hi = 0;
+
+            for (int i = first; i < last; i++) {
+                while (hi < size && startBucket(values.getTimestamp(hi)) <= i) {
+                    hi++;
+                }
+
+                while (lo < hi && endBucket(values.getTimestamp(lo)) <= i) {
+                    lo++;
+                }
+
+                if (lo < hi) {
+                    buckets[i].updatePoints(key, values, lo, hi);
+                }
+            }
+        }
+
+        private void feedEach(final Map<String, String> key, final ColumnarPointCollection values) {
+            final int size = values.size();
+
+            for (int p = 0; p < size; p++) {
+                final double value = values.getValue(p);
+
+                if (!Double.isFinite(value)) {
+                    continue;
+                }
+
+                final long timestamp = values.getTimestamp(p);
+                final int end = endBucket(timestamp);
+
+                for (int i = startBucket(timestamp); i < end; i++) {
+                    buckets[i].updatePoint(key, timestamp, value);
+                }
+            }
+        }
+
         @Override
         public AggregationResult result() {
-            final List<Metric> result = new ArrayList<>(buckets.size());
+            final List<Metric> result = new ArrayList<>(buckets.length);
 
-            for (final B bucket : buckets) {
-                final Metric d = build(bucket);
+            for (final Bucket bucket : buckets) {
+                @SuppressWarnings("unchecked") final Metric d = build((B) bucket);
 
                 if (!d.valid()) {
                     continue;
@@ -187,13 +310,28 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
          * @return a start end and index
          */
         protected StartEnd mapTimestamp(final long timestamp) {
+            return new StartEnd(startBucket(timestamp), endBucket(timestamp));
+        }
+
+        /**
+         * First bucket (inclusive) that the given timestamp should be seeded into.
+         *
+         * @see #mapTimestamp(long)
+         */
+        int startBucket(final long timestamp) {
             /* adjust the timestamp to the number of buckets */
             final long adjusted = timestamp - offset;
+            return Math.max((int) ((adjusted - 1) / size), 0);
+        }
 
-            final int start = Math.max((int) ((adjusted - 1) / size), 0);
-            final int end = Math.min((int) ((adjusted + extent - 1) / size), buckets.size());
-
-            return new StartEnd(start, end);
+        /**
+         * Last bucket (exclusive) that the given timestamp should be seeded into.
+         *
+         * @see #mapTimestamp(long)
+         */
+        int endBucket(final long timestamp) {
+            final long adjusted = timestamp - offset;
+            return Math.min((int) ((adjusted + extent - 1) / size), buckets.length);
         }
     }
 
@@ -208,8 +346,8 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
 
     @Override
     public Session session(DateRange range, RetainQuotaWatcher quotaWatcher) {
-        final List<B> buckets = buildBuckets(range, size);
-        quotaWatcher.retainData(buckets.size());
+        final Bucket[] buckets = buildBuckets(range, size);
+        quotaWatcher.retainData(buckets.length);
         return new Session(buckets, range.start());
     }
 
@@ -223,12 +361,21 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
         return size;
     }
 
+    /**
+     * Buckets only depend on samples within their extent, which must not reach into the previous
+     * bucket.
+     */
+    @Override
+    public boolean sliceable() {
+        return extent <= size;
+    }
+
     @Override
     public String toString() {
         return String.format("%s(size=%d, extent=%d)", getClass().getSimpleName(), size, extent);
     }
 
-    private List<B> buildBuckets(final DateRange range, long size) {
+    private Bucket[] buildBuckets(final DateRange range, long size) {
         final long start = range.start() + size;
         final long count = (range.diff() + size) / size - 1;
 
@@ -236,10 +383,10 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
             throw new IllegalArgumentException(String.format("range %s, size %d", range, size));
         }
 
-        final List<B> buckets = new ArrayList<>((int) count);
+        final Bucket[] buckets = new Bucket[(int) count];
 
         for (int i = 0; i < count; i++) {
-            buckets.add(buildBucket(start + size * i));
+            buckets[i] = buildBucket(start + size * i);
         }
 
         return buckets;
@@ -249,8 +396,8 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
 
     protected abstract Metric build(B bucket);
 
-    private interface BucketConsumer<B extends Bucket, M extends Metric> {
-        void apply(B bucket, M metric);
+    private interface BucketConsumer<M extends Metric> {
+        void apply(Bucket bucket, Map<String, String> key, M metric);
     }
 
     /**
@@ -27,6 +27,7 @@ import com.google.common.collect.ImmutableList;
 import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Series;
 import com.spotify.heroic.common.Statistics;
+import com.spotify.heroic.metric.ColumnarPointCollection;
 import com.spotify.heroic.metric.Event;
 import com.spotify.heroic.metric.MetricGroup;
 import com.spotify.heroic.metric.Payload;
@@ -72,6 +73,27 @@ public class ChainInstance implements AggregationInstance {
             .orElse(-1L);
     }
 
+    /**
+     * A chain is sliceable if every aggregation in it is, and the cadence of every aggregation
+     * evenly divides the cadence of the chain.
+     */
+    @Override
+    public boolean sliceable() {
+        final long cadence = cadence();
+
+        if (cadence <= 0) {
+            return false;
+        }
+
+        for (final AggregationInstance a : chain) {
+            if (!a.sliceable() || a.cadence() <= 0 || cadence % a.cadence() != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     @Override
     public AggregationInstance distributed() {
         final Iterator<AggregationInstance> it = chain.iterator();
@@ -208,6 +230,13 @@ public class ChainInstance implements AggregationInstance {
             first.updatePoints(key, series, values);
         }
 
+        @Override
+        public void updatePoints(
+            Map<String, String> key, Set<Series> series, ColumnarPointCollection values
+        ) {
+            first.updatePoints(key, series, values);
+        }
+
         @Override
         public void updateEvents(
             Map<String, String> key, Set<Series> series, List<Event> values
@@ -75,4 +75,37 @@ public class DistributedAggregationCombiner implements AggregationCombiner {
 
         return groups.build();
     }
+
+    /**
+     * Feed every part into the reducer as it arrives, so that parts can be released immediately.
+     * <p>
+     * Reduced groups are only complete once all parts have been added.
+     */
+    @Override
+    public Session session() {
+        final AggregationSession session = reducer.session(range);
+
+        return new Session() {
+            @Override
+            public List<ShardedResultGroup> add(final List<ShardedResultGroup> groups) {
+                for (final ShardedResultGroup g : groups) {
+                    g.getMetrics().updateAggregation(session, g.getKey(), g.getSeries());
+                }
+
+                return ImmutableList.of();
+            }
+
+            @Override
+            public List<ShardedResultGroup> finish() {
+                final ImmutableList.Builder<ShardedResultGroup> groups = ImmutableList.builder();
+
+                for (final AggregationOutput out : session.result().getResult()) {
+                    groups.add(new ShardedResultGroup(ImmutableMap.of(), out.getKey(),
+                        out.getSeries(), out.getMetrics(), cadence));
+                }
+
+                return groups.build();
+            }
+        };
+    }
 }
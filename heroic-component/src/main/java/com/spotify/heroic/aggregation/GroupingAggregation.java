@@ -27,6 +27,7 @@ import com.google.common.collect.ImmutableSet;
 import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Series;
 import com.spotify.heroic.common.Statistics;
+import com.spotify.heroic.metric.ColumnarPointCollection;
 import com.spotify.heroic.metric.Event;
 import com.spotify.heroic.metric.MetricGroup;
 import com.spotify.heroic.metric.Payload;
@@ -92,6 +93,11 @@ public abstract class GroupingAggregation implements AggregationInstance {
         return each.cadence();
     }
 
+    @Override
+    public boolean sliceable() {
+        return each.sliceable();
+    }
+
     @Override
     public AggregationInstance distributed() {
         return newInstance(of, each.distributed());
@@ -125,6 +131,14 @@ public abstract class GroupingAggregation implements AggregationInstance {
             session(key).updatePoints(key, series, values);
         }
 
+        @Override
+        public void updatePoints(
+            Map<String, String> group, Set<Series> series, ColumnarPointCollection values
+        ) {
+            final Map<String, String> key = key(group);
+            session(key).updatePoints(key, series, values);
+        }
+
         @Override
         public void updateEvents(
             Map<String, String> group, Set<Series> series, List<Event> values
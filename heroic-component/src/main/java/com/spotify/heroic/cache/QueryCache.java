@@ -25,10 +25,20 @@ import com.spotify.heroic.metric.FullQuery;
 import com.spotify.heroic.metric.QueryResult;
 import eu.toolchain.async.AsyncFuture;
 
-import java.util.function.Supplier;
+import java.util.function.Function;
 
 public interface QueryCache {
+    /**
+     * Load the result for the given request, possibly from cache.
+     * <p>
+     * The loader may be invoked any number of times, with the given request or with the same
+     * request narrowed to a sub-range of it.
+     *
+     * @param request Request to load.
+     * @param loader Loads the result for a request from the backends.
+     * @return A future that resolves to the result of the request.
+     */
     AsyncFuture<QueryResult> load(
-        FullQuery.Request request, Supplier<AsyncFuture<QueryResult>> loader
+        FullQuery.Request request, Function<FullQuery.Request, AsyncFuture<QueryResult>> loader
     );
 }
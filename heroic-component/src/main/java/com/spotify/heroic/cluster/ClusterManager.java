@@ -46,6 +46,7 @@ public interface ClusterManager extends UsableGroupManager<List<ClusterShard>> {
     class Statistics {
         private final int onlineNodes;
         private final int offlineNodes;
+        private final ClusterRouting.Statistics routing;
     }
 
     /**
@@ -0,0 +1,388 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.cluster;
+
+import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.scheduler.Scheduler;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.FutureDone;
+import eu.toolchain.async.ResolvableFuture;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import lombok.Data;
+
+/**
+ * Decides which replicas in a shard that requests are sent to.
+ * <p>
+ * The latency of every request to a node is tracked as an exponentially weighted moving average,
+ * and replicas are tried in order of their average latency. A failed request counts as at least
+ * {@link #FAILURE_PENALTY_MILLIS}, so that a replica which fails fast is not preferred.
+ * Optionally, a request may be hedged by sending it to a second replica if the first one has not
+ * responded within a given percentile of its recently observed latencies. Whichever replica
+ * responds first wins, and the other request is cancelled.
+ */
+public class ClusterRouting {
+    /* weight of a new sample in the moving average */
+    static final double ALPHA = 0.2D;
+    /* number of recent samples to keep for percentile estimation */
+    static final int WINDOW = 128;
+    /* number of samples required before requests to a node are hedged */
+    static final int MIN_SAMPLES = 10;
+    /* latency which a failed request counts as, at the least */
+    static final long FAILURE_PENALTY_MILLIS = 1000L;
+
+    private final AsyncFramework async;
+    private final Scheduler scheduler;
+    private final boolean latencyAware;
+    private final Optional<Double> hedgePercentile;
+
+    private final ConcurrentMap<UUID, NodeLatency> latencies = new ConcurrentHashMap<>();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgesWon = new AtomicLong();
+
+    public ClusterRouting(
+        final AsyncFramework async, final Scheduler scheduler, final boolean latencyAware,
+        final Optional<Double> hedgePercentile
+    ) {
+        hedgePercentile.ifPresent(p -> {
+            if (!(p > 0D && p < 1D)) {
+                throw new IllegalArgumentException(
+                    "hedge percentile must be in the range (0, 1): " + p);
+            }
+        });
+
+        this.async = async;
+        this.scheduler = scheduler;
+        this.latencyAware = latencyAware;
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    /**
+     * Order the given replicas in the order that they should be tried.
+     * <p>
+     * Replicas for which no latency has been observed are tried first, so that they are probed.
+     * The sort is stable, so replicas with equal latency are tried in the given order.
+     */
+    public List<ClusterNode.Group> order(final List<ClusterNode.Group> groups) {
+        if (!latencyAware || groups.size() < 2) {
+            return groups;
+        }
+
+        final List<ClusterNode.Group> ordered = new ArrayList<>(groups);
+        ordered.sort(Comparator.comparingDouble(g -> latency(g.node()).getAverage()));
+        return ordered;
+    }
+
+    /**
+     * Send a request to the given replica, and record its latency.
+     */
+    public <T> AsyncFuture<T> request(
+        final ClusterNode.Group group, final Function<ClusterNode.Group, AsyncFuture<T>> function
+    ) {
+        final NodeLatency latency = latency(group.node());
+        final long start = System.nanoTime();
+
+        return function.apply(group).onDone(new FutureDone<T>() {
+            @Override
+            public void failed(final Throwable cause) {
+                latency.failed(Math.max(elapsedMillis(start), FAILURE_PENALTY_MILLIS));
+            }
+
+            @Override
+            public void resolved(final T result) {
+                latency.update(elapsedMillis(start));
+            }
+
+            @Override
+            public void cancelled() {
+                /* a lower bound, but still an indication that the node is slower than another */
+                latency.update(elapsedMillis(start));
+            }
+        });
+    }
+
+    /**
+     * Send a request to the given replica, and hedge it by sending it to the next replica in the
+     * iterator if it takes longer than the configured latency percentile of the replica.
+     * <p>
+     * The returned future fails only if every replica that the request was sent to failed. A
+     * replica consumed from the iterator for hedging will not be retried.
+     */
+    public <T> AsyncFuture<T> hedgedRequest(
+        final ClusterNode.Group group, final Iterator<ClusterNode.Group> rest,
+        final Function<ClusterNode.Group, AsyncFuture<T>> function
+    ) {
+        final Optional<Long> delay = hedgeDelay(group.node());
+
+        if (!delay.isPresent() || !rest.hasNext()) {
+            return request(group, function);
+        }
+
+        final Hedge<T> hedge = new Hedge<>(async.future(), rest, function);
+        hedge.start(group);
+        scheduler.schedule("hedge", delay.get(), TimeUnit.MILLISECONDS, hedge::hedge);
+        return hedge.future;
+    }
+
+    /**
+     * Forget the latency of nodes which are no longer part of the cluster.
+     */
+    public void retain(final Collection<ClusterNode> nodes) {
+        final Set<UUID> ids = new HashSet<>();
+
+        for (final ClusterNode node : nodes) {
+            ids.add(node.metadata().getId());
+        }
+
+        latencies.keySet().retainAll(ids);
+    }
+
+    public Statistics getStatistics(final Collection<ClusterNode> nodes) {
+        final ImmutableMap.Builder<String, NodeStatistics> statistics = ImmutableMap.builder();
+
+        for (final ClusterNode node : nodes) {
+            final NodeLatency latency = latencies.get(node.metadata().getId());
+
+            if (latency != null) {
+                statistics.put(node.toString(), latency.statistics());
+            }
+        }
+
+        return new Statistics(statistics.build(), hedges.get(), hedgesWon.get());
+    }
+
+    Optional<Long> hedgeDelay(final ClusterNode node) {
+        return hedgePercentile.flatMap(latency(node)::percentile);
+    }
+
+    NodeLatency latency(final ClusterNode node) {
+        return latencies.computeIfAbsent(node.metadata().getId(), id -> new NodeLatency());
+    }
+
+    private static long elapsedMillis(final long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * State of a single hedged request.
+     */
+    private class Hedge<T> {
+        private final ResolvableFuture<T> future;
+        private final Iterator<ClusterNode.Group> rest;
+        private final Function<ClusterNode.Group, AsyncFuture<T>> function;
+
+        private final List<AsyncFuture<T>> requests = new ArrayList<>(2);
+        private int started = 0;
+        private int failed = 0;
+        private boolean done = false;
+
+        Hedge(
+            final ResolvableFuture<T> future, final Iterator<ClusterNode.Group> rest,
+            final Function<ClusterNode.Group, AsyncFuture<T>> function
+        ) {
+            this.future = future;
+            this.rest = rest;
+            this.function = function;
+
+            future.onCancelled(this::cancelAll);
+        }
+
+        void start(final ClusterNode.Group group) {
+            synchronized (this) {
+                started++;
+            }
+
+            send(group, false);
+        }
+
+        /**
+         * Send the request to the next replica, unless the request has already completed.
+         */
+        void hedge() {
+            final ClusterNode.Group next;
+
+            synchronized (this) {
+                if (done || !rest.hasNext()) {
+                    return;
+                }
+
+                next = rest.next();
+                started++;
+            }
+
+            hedges.incrementAndGet();
+            send(next, true);
+        }
+
+        private void send(final ClusterNode.Group group, final boolean hedged) {
+            final AsyncFuture<T> request = request(group, function);
+            final boolean cancel;
+
+            synchronized (this) {
+                requests.add(request);
+                cancel = done;
+            }
+
+            if (cancel) {
+                request.cancel();
+                return;
+            }
+
+            request.onDone(new FutureDone<T>() {
+                @Override
+                public void failed(final Throwable cause) {
+                    final boolean last;
+
+                    synchronized (Hedge.this) {
+                        failed++;
+                        last = failed >= started;
+                        done = done || last;
+                    }
+
+                    if (last) {
+                        future.fail(cause);
+                    }
+                }
+
+                @Override
+                public void resolved(final T result) {
+                    if (future.resolve(result)) {
+                        if (hedged) {
+                            hedgesWon.incrementAndGet();
+                        }
+
+                        cancelAll();
+                    }
+                }
+
+                @Override
+                public void cancelled() {
+                }
+            });
+        }
+
+        private void cancelAll() {
+            final List<AsyncFuture<T>> requests;
+
+            synchronized (this) {
+                done = true;
+                requests = new ArrayList<>(this.requests);
+            }
+
+            for (final AsyncFuture<T> request : requests) {
+                request.cancel();
+            }
+        }
+    }
+
+    /**
+     * Latency observed for a single node.
+     */
+    static class NodeLatency {
+        private final long[] window = new long[WINDOW];
+        private long samples = 0;
+        private double average = 0D;
+        /* if the average includes any request, successful or not */
+        private boolean observed = false;
+
+        synchronized void update(final long millis) {
+            window[(int) (samples % WINDOW)] = millis;
+            samples++;
+            average(millis);
+        }
+
+        /**
+         * Count a failed request in the average only, since it says nothing about how long a
+         * successful request takes.
+         */
+        synchronized void failed(final long millis) {
+            average(millis);
+        }
+
+        private void average(final long millis) {
+            average = observed ? average + ALPHA * (millis - average) : millis;
+            observed = true;
+        }
+
+        synchronized double getAverage() {
+            return average;
+        }
+
+        /**
+         * Estimate the given percentile from the most recent samples.
+         */
+        synchronized Optional<Long> percentile(final double percentile) {
+            if (samples < MIN_SAMPLES) {
+                return Optional.empty();
+            }
+
+            final long[] sorted = Arrays.copyOf(window, (int) Math.min(samples, WINDOW));
+            Arrays.sort(sorted);
+            final int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return Optional.of(Math.max(1L, sorted[Math.max(0, index)]));
+        }
+
+        synchronized NodeStatistics statistics() {
+            return new NodeStatistics(samples, average);
+        }
+    }
+
+    @Data
+    public static class NodeStatistics {
+        /**
+         * Number of requests for which a latency has been observed.
+         */
+        private final long requests;
+        /**
+         * Moving average of the observed latency, in milliseconds.
+         */
+        private final double averageLatency;
+    }
+
+    @Data
+    public static class Statistics {
+        private final Map<String, NodeStatistics> nodes;
+        /**
+         * Number of requests that were sent to a second replica.
+         */
+        private final long hedges;
+        /**
+         * Number of hedged requests where the second replica responded first.
+         */
+        private final long hedgesWon;
+    }
+}
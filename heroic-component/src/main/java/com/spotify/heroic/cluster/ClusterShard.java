@@ -47,12 +47,33 @@ public class ClusterShard {
 
     private final Map<String, String> shard;
     private final List<ClusterNode.Group> groups;
+    private final ClusterRouting routing;
 
     public <T> AsyncFuture<T> apply(
         Function<ClusterNode.Group, AsyncFuture<T>> function,
         BiFunction<T, List<QueryTrace>, T> handleRetryTraceFn
     ) {
-        final Iterator<ClusterNode.Group> it = groups.iterator();
+        return apply(function, handleRetryTraceFn, false);
+    }
+
+    /**
+     * Same as {@link #apply(Function, BiFunction)}, but a request that is slow to respond may also
+     * be sent to another replica, using whichever response arrives first.
+     * <p>
+     * This should only be used for requests that are safe to perform more than once.
+     */
+    public <T> AsyncFuture<T> applyHedged(
+        Function<ClusterNode.Group, AsyncFuture<T>> function,
+        BiFunction<T, List<QueryTrace>, T> handleRetryTraceFn
+    ) {
+        return apply(function, handleRetryTraceFn, true);
+    }
+
+    private <T> AsyncFuture<T> apply(
+        Function<ClusterNode.Group, AsyncFuture<T>> function,
+        BiFunction<T, List<QueryTrace>, T> handleRetryTraceFn, boolean hedged
+    ) {
+        final Iterator<ClusterNode.Group> it = routing.order(groups).iterator();
 
         if (!it.hasNext()) {
             return async.failed(new RuntimeException("No groups available"));
@@ -76,7 +97,9 @@ public class ClusterShard {
         return async
             .retryUntilResolved(() -> {
                 final ClusterNode.Group next = it.next();
-                return function.apply(next).catchFailed(throwable -> {
+                final AsyncFuture<T> request = hedged ? routing.hedgedRequest(next, it, function)
+                    : routing.request(next, function);
+                return request.catchFailed(throwable -> {
                     /* Actually never return;s, instead throws a new exception with added info.
                      * The point is to get Node identifying information into the exception */
                     throw new RuntimeNodeException(next.toString(), throwable.getMessage(),
@@ -23,10 +23,13 @@ package com.spotify.heroic.cluster;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableSet;
 import com.spotify.heroic.common.ServiceInfo;
 import lombok.Data;
 
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Data
@@ -35,16 +38,42 @@ public class NodeMetadata {
     private final UUID id;
     private final Map<String, String> tags;
     private final ServiceInfo service;
+    /**
+     * Optional capabilities of the node, which clients may use to negotiate how to communicate
+     * with it. Nodes that do not advertise any capabilities have an empty set.
+     */
+    private final Set<String> capabilities;
+
+    public NodeMetadata(
+        Integer version, UUID id, Map<String, String> tags, ServiceInfo service
+    ) {
+        this(version, id, tags, service, Optional.empty());
+    }
 
     @JsonCreator
     public NodeMetadata(
         @JsonProperty("version") Integer version, @JsonProperty("id") UUID id,
-        @JsonProperty("tags") Map<String, String> tags, @JsonProperty("service") ServiceInfo service
+        @JsonProperty("tags") Map<String, String> tags,
+        @JsonProperty("service") ServiceInfo service,
+        @JsonProperty("capabilities") Optional<Set<String>> capabilities
     ) {
         this.version = version;
         this.id = id;
         this.tags = tags;
         this.service = service;
+        this.capabilities = capabilities.orElseGet(ImmutableSet::of);
+    }
+
+    /**
+     * Build a copy of this metadata, with the given capabilities added.
+     */
+    public NodeMetadata withCapabilities(Set<String> capabilities) {
+        return new NodeMetadata(version, id, tags, service, Optional.of(
+            ImmutableSet.<String>builder().addAll(this.capabilities).addAll(capabilities).build()));
+    }
+
+    public boolean hasCapability(String capability) {
+        return capabilities.contains(capability);
     }
 
     /**
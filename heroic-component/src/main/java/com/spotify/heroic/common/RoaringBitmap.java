@@ -0,0 +1,880 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.common;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * A compressed bitmap of integers, for use as a posting list.
+ * <p>
+ * Integers are partitioned by their upper 16 bits into containers. Sparse containers store their
+ * lower 16 bits as a sorted array, while dense containers (more than {@value #ARRAY_MAX_SIZE}
+ * entries) are stored as a plain bitmap. This keeps both memory use and the cost of set
+ * operations proportional to the number of entries, rather than the largest entry.
+ * <p>
+ * This follows the container layout of Roaring bitmaps, as described by Chambi, Lemire, Kaser and
+ * Godin in "Better bitmap performance with Roaring bitmaps".
+ * <p>
+ * Entries are treated as unsigned integers. This class is not thread-safe.
+ */
+public class RoaringBitmap {
+    static final int ARRAY_MAX_SIZE = 4096;
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private char[] keys;
+    private Container[] containers;
+    private int size = 0;
+
+    public RoaringBitmap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    private RoaringBitmap(final int capacity) {
+        this.keys = new char[capacity];
+        this.containers = new Container[capacity];
+    }
+
+    public static RoaringBitmap of(final int... values) {
+        final RoaringBitmap bitmap = new RoaringBitmap();
+
+        for (final int value : values) {
+            bitmap.add(value);
+        }
+
+        return bitmap;
+    }
+
+    /**
+     * Add the given value.
+     *
+     * @return {@code true} if the value was not already present.
+     */
+    public boolean add(final int value) {
+        final char high = (char) (value >>> 16);
+        final int i = search(high);
+
+        if (i >= 0) {
+            final Container c = containers[i];
+            final int before = c.cardinality();
+            containers[i] = c.add((char) value);
+            return containers[i].cardinality() != before;
+        }
+
+        insert(-i - 1, high, new ArrayContainer().add((char) value));
+        return true;
+    }
+
+    /**
+     * Remove the given value.
+     *
+     * @return {@code true} if the value was present.
+     */
+    public boolean remove(final int value) {
+        final int i = search((char) (value >>> 16));
+
+        if (i < 0) {
+            return false;
+        }
+
+        final Container c = containers[i];
+        final int before = c.cardinality();
+        final Container removed = c.remove((char) value);
+
+        if (removed.cardinality() == 0) {
+            delete(i);
+        } else {
+            containers[i] = removed;
+        }
+
+        return removed.cardinality() != before;
+    }
+
+    public boolean contains(final int value) {
+        final int i = search((char) (value >>> 16));
+        return i >= 0 && containers[i].contains((char) value);
+    }
+
+    public int cardinality() {
+        int cardinality = 0;
+
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Call the given consumer with every value, in ascending order.
+     */
+    public void forEach(final IntConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, consumer);
+        }
+    }
+
+    /**
+     * Iterate over all values in ascending order.
+     * <p>
+     * The bitmap must not be modified while iterating.
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int index = 0;
+            private PrimitiveIterator.OfInt current = null;
+
+            @Override
+            public boolean hasNext() {
+                while (current == null || !current.hasNext()) {
+                    if (index >= size) {
+                        return false;
+                    }
+
+                    current = containers[index].iterator(keys[index] << 16);
+                    index++;
+                }
+
+                return true;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                return current.nextInt();
+            }
+        };
+    }
+
+    public RoaringBitmap copy() {
+        final RoaringBitmap copy = new RoaringBitmap(Math.max(INITIAL_CAPACITY, size));
+        System.arraycopy(keys, 0, copy.keys, 0, size);
+
+        for (int i = 0; i < size; i++) {
+            copy.containers[i] = containers[i].copy();
+        }
+
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Build a new bitmap with the values present in both bitmaps.
+     */
+    public static RoaringBitmap and(final RoaringBitmap a, final RoaringBitmap b) {
+        final RoaringBitmap result = new RoaringBitmap(Math.max(1, Math.min(a.size, b.size)));
+
+        int i = 0;
+        int j = 0;
+
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                final Container c = a.containers[i].and(b.containers[j]);
+
+                if (c.cardinality() > 0) {
+                    result.append(a.keys[i], c);
+                }
+
+                i++;
+                j++;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Check if the two bitmaps have any value in common, without building their intersection.
+     */
+    public static boolean intersects(final RoaringBitmap a, final RoaringBitmap b) {
+        int i = 0;
+        int j = 0;
+
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                if (a.containers[i].intersects(b.containers[j])) {
+                    return true;
+                }
+
+                i++;
+                j++;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Build a new bitmap with the values present in either bitmap.
+     */
+    public static RoaringBitmap or(final RoaringBitmap a, final RoaringBitmap b) {
+        final RoaringBitmap result = new RoaringBitmap(Math.max(1, a.size + b.size));
+
+        int i = 0;
+        int j = 0;
+
+        while (i < a.size || j < b.size) {
+            if (j >= b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                result.append(a.keys[i], a.containers[i].copy());
+                i++;
+            } else if (i >= a.size || a.keys[i] > b.keys[j]) {
+                result.append(b.keys[j], b.containers[j].copy());
+                j++;
+            } else {
+                result.append(a.keys[i], a.containers[i].or(b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Build a new bitmap with the values present in the first, but not the second bitmap.
+     */
+    public static RoaringBitmap andNot(final RoaringBitmap a, final RoaringBitmap b) {
+        final RoaringBitmap result = new RoaringBitmap(Math.max(1, a.size));
+
+        int j = 0;
+
+        for (int i = 0; i < a.size; i++) {
+            while (j < b.size && b.keys[j] < a.keys[i]) {
+                j++;
+            }
+
+            if (j < b.size && b.keys[j] == a.keys[i]) {
+                final Container c = a.containers[i].andNot(b.containers[j]);
+
+                if (c.cardinality() > 0) {
+                    result.append(a.keys[i], c);
+                }
+            } else {
+                result.append(a.keys[i], a.containers[i].copy());
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof RoaringBitmap)) {
+            return false;
+        }
+
+        final RoaringBitmap other = (RoaringBitmap) o;
+
+        if (size != other.size) {
+            return false;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (keys[i] != other.keys[i] || !containers[i].equals(other.containers[i])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + keys[i];
+            hash = 31 * hash + containers[i].hashCode();
+        }
+
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("{");
+
+        forEach(v -> {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+
+            builder.append(Integer.toUnsignedString(v));
+        });
+
+        return builder.append('}').toString();
+    }
+
+    private int search(final char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void append(final char key, final Container container) {
+        insert(size, key, container);
+    }
+
+    private void insert(final int index, final char key, final Container container) {
+        if (size == keys.length) {
+            final int capacity = Math.max(INITIAL_CAPACITY, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+        }
+
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void delete(final int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    /**
+     * The lower 16 bits of all values sharing the same upper 16 bits.
+     * <p>
+     * Operations return the resulting container, which might be of another type.
+     */
+    abstract static class Container {
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int cardinality();
+
+        abstract Container and(Container other);
+
+        abstract boolean intersects(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container andNot(Container other);
+
+        abstract Container copy();
+
+        abstract void forEach(int high, IntConsumer consumer);
+
+        abstract PrimitiveIterator.OfInt iterator(int high);
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Container)) {
+                return false;
+            }
+
+            final Container other = (Container) o;
+
+            if (cardinality() != other.cardinality()) {
+                return false;
+            }
+
+            final PrimitiveIterator.OfInt a = iterator(0);
+            final PrimitiveIterator.OfInt b = other.iterator(0);
+
+            while (a.hasNext()) {
+                if (a.nextInt() != b.nextInt()) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 1;
+            final PrimitiveIterator.OfInt it = iterator(0);
+
+            while (it.hasNext()) {
+                hash = 31 * hash + it.nextInt();
+            }
+
+            return hash;
+        }
+    }
+
+    static final class ArrayContainer extends Container {
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer() {
+            this(new char[INITIAL_CAPACITY], 0);
+        }
+
+        ArrayContainer(final char[] values, final int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(final char value) {
+            final int i = Arrays.binarySearch(values, 0, cardinality, value);
+
+            if (i >= 0) {
+                return this;
+            }
+
+            if (cardinality >= ARRAY_MAX_SIZE) {
+                return toBitmap().add(value);
+            }
+
+            final int index = -i - 1;
+
+            if (cardinality == values.length) {
+                final int capacity = Math.max(INITIAL_CAPACITY, cardinality * 2);
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX_SIZE, capacity));
+            }
+
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(final char value) {
+            final int i = Arrays.binarySearch(values, 0, cardinality, value);
+
+            if (i < 0) {
+                return this;
+            }
+
+            System.arraycopy(values, i + 1, values, i, cardinality - i - 1);
+            cardinality--;
+            return this;
+        }
+
+        @Override
+        boolean contains(final char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(final Container other) {
+            final char[] result = new char[Math.min(cardinality, other.cardinality())];
+            int n = 0;
+
+            if (other instanceof ArrayContainer) {
+                final ArrayContainer o = (ArrayContainer) other;
+                int i = 0;
+                int j = 0;
+
+                while (i < cardinality && j < o.cardinality) {
+                    if (values[i] < o.values[j]) {
+                        i++;
+                    } else if (values[i] > o.values[j]) {
+                        j++;
+                    } else {
+                        result[n++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        result[n++] = values[i];
+                    }
+                }
+            }
+
+            return new ArrayContainer(result, n);
+        }
+
+        @Override
+        boolean intersects(final Container other) {
+            if (other instanceof ArrayContainer) {
+                final ArrayContainer o = (ArrayContainer) other;
+                int i = 0;
+                int j = 0;
+
+                while (i < cardinality && j < o.cardinality) {
+                    if (values[i] < o.values[j]) {
+                        i++;
+                    } else if (values[i] > o.values[j]) {
+                        j++;
+                    } else {
+                        return true;
+                    }
+                }
+
+                return false;
+            }
+
+            for (int i = 0; i < cardinality; i++) {
+                if (other.contains(values[i])) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        Container or(final Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+
+            final ArrayContainer o = (ArrayContainer) other;
+
+            if (cardinality + o.cardinality > ARRAY_MAX_SIZE) {
+                /* overlapping containers might still have a union which fits in an array */
+                final BitmapContainer union = (BitmapContainer) toBitmap().or(o);
+                return union.cardinality > ARRAY_MAX_SIZE ? union : union.toArray();
+            }
+
+            final char[] result = new char[cardinality + o.cardinality];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+
+            while (i < cardinality || j < o.cardinality) {
+                if (j >= o.cardinality || (i < cardinality && values[i] < o.values[j])) {
+                    result[n++] = values[i++];
+                } else if (i >= cardinality || values[i] > o.values[j]) {
+                    result[n++] = o.values[j++];
+                } else {
+                    result[n++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+
+            return new ArrayContainer(result, n);
+        }
+
+        @Override
+        Container andNot(final Container other) {
+            final char[] result = new char[cardinality];
+            int n = 0;
+
+            for (int i = 0; i < cardinality; i++) {
+                if (!other.contains(values[i])) {
+                    result[n++] = values[i];
+                }
+            }
+
+            return new ArrayContainer(result, n);
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(1, cardinality)),
+                cardinality);
+        }
+
+        @Override
+        void forEach(final int high, final IntConsumer consumer) {
+            for (int i = 0; i < cardinality; i++) {
+                consumer.accept(high | values[i]);
+            }
+        }
+
+        @Override
+        PrimitiveIterator.OfInt iterator(final int high) {
+            return new PrimitiveIterator.OfInt() {
+                private int i = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return i < cardinality;
+                }
+
+                @Override
+                public int nextInt() {
+                    if (i >= cardinality) {
+                        throw new NoSuchElementException();
+                    }
+
+                    return high | values[i++];
+                }
+            };
+        }
+
+        private BitmapContainer toBitmap() {
+            final BitmapContainer bitmap = new BitmapContainer();
+
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+
+            return bitmap;
+        }
+    }
+
+    static final class BitmapContainer extends Container {
+        private static final int WORDS = (1 << 16) / Long.SIZE;
+
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer() {
+            this(new long[WORDS], 0);
+        }
+
+        BitmapContainer(final long[] words, final int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(final char value) {
+            final long before = words[value >>> 6];
+            final long after = before | (1L << value);
+
+            if (before != after) {
+                words[value >>> 6] = after;
+                cardinality++;
+            }
+
+            return this;
+        }
+
+        @Override
+        Container remove(final char value) {
+            final long before = words[value >>> 6];
+            final long after = before & ~(1L << value);
+
+            if (before == after) {
+                return this;
+            }
+
+            words[value >>> 6] = after;
+            cardinality--;
+            return cardinality <= ARRAY_MAX_SIZE ? toArray() : this;
+        }
+
+        @Override
+        boolean contains(final char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean intersects(final Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.intersects(this);
+            }
+
+            final long[] o = ((BitmapContainer) other).words;
+
+            for (int i = 0; i < WORDS; i++) {
+                if ((words[i] & o[i]) != 0) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        Container and(final Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+
+            final long[] o = ((BitmapContainer) other).words;
+            final long[] result = new long[WORDS];
+            int n = 0;
+
+            for (int i = 0; i < WORDS; i++) {
+                result[i] = words[i] & o[i];
+                n += Long.bitCount(result[i]);
+            }
+
+            return compact(result, n);
+        }
+
+        @Override
+        Container or(final Container other) {
+            final long[] result = Arrays.copyOf(words, WORDS);
+            int n = cardinality;
+
+            if (other instanceof ArrayContainer) {
+                final ArrayContainer o = (ArrayContainer) other;
+
+                for (int i = 0; i < o.cardinality; i++) {
+                    final char v = o.values[i];
+                    final long before = result[v >>> 6];
+                    result[v >>> 6] = before | (1L << v);
+                    n += result[v >>> 6] != before ? 1 : 0;
+                }
+
+                return new BitmapContainer(result, n);
+            }
+
+            final long[] o = ((BitmapContainer) other).words;
+            n = 0;
+
+            for (int i = 0; i < WORDS; i++) {
+                result[i] |= o[i];
+                n += Long.bitCount(result[i]);
+            }
+
+            return new BitmapContainer(result, n);
+        }
+
+        @Override
+        Container andNot(final Container other) {
+            final long[] result = Arrays.copyOf(words, WORDS);
+            int n = cardinality;
+
+            if (other instanceof ArrayContainer) {
+                final ArrayContainer o = (ArrayContainer) other;
+
+                for (int i = 0; i < o.cardinality; i++) {
+                    final char v = o.values[i];
+                    final long before = result[v >>> 6];
+                    result[v >>> 6] = before & ~(1L << v);
+                    n -= result[v >>> 6] != before ? 1 : 0;
+                }
+
+                return compact(result, n);
+            }
+
+            final long[] o = ((BitmapContainer) other).words;
+            n = 0;
+
+            for (int i = 0; i < WORDS; i++) {
+                result[i] &= ~o[i];
+                n += Long.bitCount(result[i]);
+            }
+
+            return compact(result, n);
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(Arrays.copyOf(words, WORDS), cardinality);
+        }
+
+        @Override
+        void forEach(final int high, final IntConsumer consumer) {
+            for (int i = 0; i < WORDS; i++) {
+                long word = words[i];
+
+                while (word != 0) {
+                    consumer.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        PrimitiveIterator.OfInt iterator(final int high) {
+            return new PrimitiveIterator.OfInt() {
+                private int index = 0;
+                private long word = words[0];
+
+                @Override
+                public boolean hasNext() {
+                    while (word == 0) {
+                        if (++index >= WORDS) {
+                            return false;
+                        }
+
+                        word = words[index];
+                    }
+
+                    return true;
+                }
+
+                @Override
+                public int nextInt() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+
+                    final int value = high | (index << 6) | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    return value;
+                }
+            };
+        }
+
+        private ArrayContainer toArray() {
+            return toArray(words, cardinality);
+        }
+
+        private static Container compact(final long[] words, final int cardinality) {
+            if (cardinality <= ARRAY_MAX_SIZE) {
+                return toArray(words, cardinality);
+            }
+
+            return new BitmapContainer(words, cardinality);
+        }
+
+        private static ArrayContainer toArray(final long[] words, final int cardinality) {
+            final char[] values = new char[Math.max(1, cardinality)];
+            int n = 0;
+
+            for (int i = 0; i < WORDS; i++) {
+                long word = words[i];
+
+                while (word != 0) {
+                    values[n++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+
+            return new ArrayContainer(values, n);
+        }
+    }
+}
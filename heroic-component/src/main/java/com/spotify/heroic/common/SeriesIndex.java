@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.common;
+
+import com.spotify.heroic.filter.AndFilter;
+import com.spotify.heroic.filter.CompiledFilter;
+import com.spotify.heroic.filter.FalseFilter;
+import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.filter.HasTagFilter;
+import com.spotify.heroic.filter.MatchKeyFilter;
+import com.spotify.heroic.filter.MatchTagFilter;
+import com.spotify.heroic.filter.NotFilter;
+import com.spotify.heroic.filter.OrFilter;
+import com.spotify.heroic.filter.RegexFilter;
+import com.spotify.heroic.filter.StartsWithFilter;
+import com.spotify.heroic.filter.TrueFilter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * An inverted index over series.
+ * <p>
+ * Every series is assigned an integer id. The index keeps a posting list of ids for every key,
+ * every tag and every tag pair, so that filters can be evaluated as set operations on those posting
+ * lists instead of by testing every series.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class SeriesIndex {
+    private final Map<Series, Integer> ids = new HashMap<>();
+    private final List<Series> series = new ArrayList<>();
+    /* ids of deleted series, which are reused */
+    private final RoaringBitmap free = new RoaringBitmap();
+    private final RoaringBitmap all = new RoaringBitmap();
+
+    private final Map<String, RoaringBitmap> keys = new HashMap<>();
+    private final Map<String, RoaringBitmap> tagKeys = new HashMap<>();
+    private final Map<String, NavigableMap<String, RoaringBitmap>> tags = new HashMap<>();
+
+    /**
+     * Add the given series to the index.
+     *
+     * @return {@code true} if the series was not already indexed.
+     */
+    public boolean add(final Series s) {
+        if (ids.containsKey(s)) {
+            return false;
+        }
+
+        final int id;
+
+        if (free.isEmpty()) {
+            id = series.size();
+            series.add(s);
+        } else {
+            id = free.iterator().nextInt();
+            free.remove(id);
+            series.set(id, s);
+        }
+
+        ids.put(s, id);
+        all.add(id);
+        keys.computeIfAbsent(s.getKey(), k -> new RoaringBitmap()).add(id);
+
+        for (final Map.Entry<String, String> e : s.getTags().entrySet()) {
+            tagKeys.computeIfAbsent(e.getKey(), k -> new RoaringBitmap()).add(id);
+            tags
+                .computeIfAbsent(e.getKey(), k -> new TreeMap<>())
+                .computeIfAbsent(e.getValue(), v -> new RoaringBitmap())
+                .add(id);
+        }
+
+        return true;
+    }
+
+    /**
+     * Remove the given series from the index.
+     *
+     * @return {@code true} if the series was indexed.
+     */
+    public boolean remove(final Series s) {
+        final Integer id = ids.remove(s);
+
+        if (id == null) {
+            return false;
+        }
+
+        series.set(id, null);
+        free.add(id);
+        all.remove(id);
+        removePosting(keys, s.getKey(), id);
+
+        for (final Map.Entry<String, String> e : s.getTags().entrySet()) {
+            removePosting(tagKeys, e.getKey(), id);
+
+            final NavigableMap<String, RoaringBitmap> values = tags.get(e.getKey());
+
+            if (values != null) {
+                removePosting(values, e.getValue(), id);
+
+                if (values.isEmpty()) {
+                    tags.remove(e.getKey());
+                }
+            }
+        }
+
+        return true;
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    public Series get(final int id) {
+        return series.get(id);
+    }
+
+    /**
+     * All tag keys present in the index.
+     */
+    public Set<String> tagKeys() {
+        return Collections.unmodifiableSet(tags.keySet());
+    }
+
+    /**
+     * The values of the given tag, each with the ids of the series that have it.
+     * <p>
+     * The returned posting lists are shared with the index, and must not be modified.
+     */
+    public NavigableMap<String, RoaringBitmap> tagValues(final String key) {
+        final NavigableMap<String, RoaringBitmap> values = tags.get(key);
+
+        if (values == null) {
+            return Collections.emptyNavigableMap();
+        }
+
+        return Collections.unmodifiableNavigableMap(values);
+    }
+
+    /**
+     * Find the ids of all series matching the given filter.
+     * <p>
+     * The returned bitmap might be shared with the index, and must not be modified.
+     */
+    public RoaringBitmap lookup(final Filter filter) {
+        return filter.visit(new Filter.Visitor<RoaringBitmap>() {
+            @Override
+            public RoaringBitmap visitTrue(final TrueFilter t) {
+                return all;
+            }
+
+            @Override
+            public RoaringBitmap visitFalse(final FalseFilter f) {
+                return new RoaringBitmap();
+            }
+
+            @Override
+            public RoaringBitmap visitMatchKey(final MatchKeyFilter matchKey) {
+                return posting(keys.get(matchKey.getValue()));
+            }
+
+            @Override
+            public RoaringBitmap visitHasTag(final HasTagFilter hasTag) {
+                return posting(tagKeys.get(hasTag.getTag()));
+            }
+
+            @Override
+            public RoaringBitmap visitMatchTag(final MatchTagFilter matchTag) {
+                final NavigableMap<String, RoaringBitmap> values = tags.get(matchTag.getTag());
+                return posting(values == null ? null : values.get(matchTag.getValue()));
+            }
+
+            @Override
+            public RoaringBitmap visitStartsWith(final StartsWithFilter startsWith) {
+                final NavigableMap<String, RoaringBitmap> values = tags.get(startsWith.getTag());
+
+                if (values == null) {
+                    return new RoaringBitmap();
+                }
+
+                final String prefix = startsWith.getValue();
+                RoaringBitmap result = new RoaringBitmap();
+
+                for (final Map.Entry<String, RoaringBitmap> e : values
+                    .tailMap(prefix, true)
+                    .entrySet()) {
+                    if (!e.getKey().startsWith(prefix)) {
+                        break;
+                    }
+
+                    result = RoaringBitmap.or(result, e.getValue());
+                }
+
+                return result;
+            }
+
+            @Override
+            public RoaringBitmap visitRegex(final RegexFilter regex) {
+                final Pattern pattern = Pattern.compile(regex.getValue());
+                return matchValues(regex.getTag(), v -> pattern.matcher(v).matches());
+            }
+
+            @Override
+            public RoaringBitmap visitAnd(final AndFilter and) {
+                final List<RoaringBitmap> include = new ArrayList<>();
+                final List<RoaringBitmap> exclude = new ArrayList<>();
+
+                for (final Filter term : and.terms()) {
+                    if (term instanceof NotFilter) {
+                        exclude.add(lookup(((NotFilter) term).getFilter()));
+                    } else {
+                        include.add(lookup(term));
+                    }
+                }
+
+                /* intersect the smallest posting lists first, to keep intermediates small */
+                include.sort(Comparator.comparingInt(RoaringBitmap::cardinality));
+
+                RoaringBitmap result = include.isEmpty() ? all : include.get(0);
+
+                for (int i = 1; i < include.size() && !result.isEmpty(); i++) {
+                    result = RoaringBitmap.and(result, include.get(i));
+                }
+
+                for (int i = 0; i < exclude.size() && !result.isEmpty(); i++) {
+                    result = RoaringBitmap.andNot(result, exclude.get(i));
+                }
+
+                return result;
+            }
+
+            @Override
+            public RoaringBitmap visitOr(final OrFilter or) {
+                RoaringBitmap result = new RoaringBitmap();
+
+                for (final Filter term : or.terms()) {
+                    result = RoaringBitmap.or(result, lookup(term));
+                }
+
+                return result;
+            }
+
+            @Override
+            public RoaringBitmap visitNot(final NotFilter not) {
+                return RoaringBitmap.andNot(all, lookup(not.getFilter()));
+            }
+
+            @Override
+            public RoaringBitmap defaultAction(final Filter filter) {
+                final RoaringBitmap result = new RoaringBitmap();
+                final CompiledFilter compiled = CompiledFilter.of(filter);
+
+                all.forEach(id -> {
+                    if (compiled.apply(series.get(id))) {
+                        result.add(id);
+                    }
+                });
+
+                return result;
+            }
+        });
+    }
+
+    private RoaringBitmap matchValues(final String tag, final Predicate<String> predicate) {
+        final NavigableMap<String, RoaringBitmap> values = tags.get(tag);
+        RoaringBitmap result = new RoaringBitmap();
+
+        if (values == null) {
+            return result;
+        }
+
+        for (final Map.Entry<String, RoaringBitmap> e : values.entrySet()) {
+            if (predicate.test(e.getKey())) {
+                result = RoaringBitmap.or(result, e.getValue());
+            }
+        }
+
+        return result;
+    }
+
+    private static RoaringBitmap posting(final RoaringBitmap posting) {
+        return posting == null ? new RoaringBitmap() : posting;
+    }
+
+    private static void removePosting(
+        final Map<String, RoaringBitmap> postings, final String key, final int id
+    ) {
+        final RoaringBitmap posting = postings.get(key);
+
+        if (posting == null) {
+            return;
+        }
+
+        posting.remove(id);
+
+        if (posting.isEmpty()) {
+            postings.remove(key);
+        }
+    }
+}
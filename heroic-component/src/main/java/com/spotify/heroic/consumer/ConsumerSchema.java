@@ -28,6 +28,7 @@ import dagger.Component;
 import dagger.Module;
 import dagger.Provides;
 import eu.toolchain.async.AsyncFuture;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
 
 public interface ConsumerSchema {
@@ -35,6 +36,16 @@ public interface ConsumerSchema {
 
     interface Consumer {
         AsyncFuture<Void> consume(byte[] message) throws ConsumerSchemaException;
+
+        /**
+         * Consume a batch of messages together.
+         * <p>
+         * Invalid messages in the batch are ignored, and do not affect the rest of the batch.
+         *
+         * @param messages Messages to consume.
+         * @return A future that is resolved when every message in the batch has been written.
+         */
+        AsyncFuture<Void> consumeBatch(List<byte[]> messages) throws ConsumerSchemaException;
     }
 
     @ConsumerSchemaScope
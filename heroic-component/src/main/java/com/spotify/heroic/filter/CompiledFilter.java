@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.filter;
+
+import com.spotify.heroic.common.Series;
+
+/**
+ * A filter which has been compiled for repeated evaluation against many series.
+ * <p>
+ * Matches exactly the same series as {@link Filter#apply(Series)} of the filter it was compiled
+ * from.
+ *
+ * @see FilterCompiler
+ */
+public interface CompiledFilter {
+    /**
+     * Apply the compiled filter to the given series.
+     *
+     * @param series Series to apply to.
+     * @return {@code true} if filter matches the given series, {@code false} otherwise.
+     */
+    boolean apply(Series series);
+
+    /**
+     * Compile the given filter.
+     * <p>
+     * The filter is compiled as-is, so it should typically be optimized using {@link
+     * Filter#optimize()} first.
+     *
+     * @param filter Filter to compile.
+     * @return A compiled filter.
+     * @throws java.util.regex.PatternSyntaxException if the filter contains an invalid regular
+     * expression.
+     */
+    static CompiledFilter of(final Filter filter) {
+        return FilterCompiler.compile(filter);
+    }
+}
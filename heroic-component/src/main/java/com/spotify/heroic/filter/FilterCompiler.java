@@ -0,0 +1,363 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.filter;
+
+import com.spotify.heroic.common.Series;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles a {@link Filter} into a {@link CompiledFilter}.
+ * <p>
+ * Compared to {@link Filter#apply(Series)}, the compiled form:
+ * <ul>
+ * <li>compiles every regular expression once, instead of once per series.</li>
+ * <li>looks up each tag once for all terms of an {@code and} or {@code or} which test the value of
+ * that tag, and matches the values of many {@code =} terms on the same tag in an {@code or} with a
+ * single set lookup.</li>
+ * <li>orders the terms of {@code and} and {@code or} by their estimated selectivity and cost, so
+ * that the evaluation most likely to short-circuit runs first.</li>
+ * </ul>
+ */
+public final class FilterCompiler {
+    /* Estimated selectivity and cost of terms, lower ranks are evaluated first. */
+    static final int RANK_CONSTANT = 0;
+    static final int RANK_KEY = 1;
+    static final int RANK_MATCH = 2;
+    static final int RANK_PREFIX = 3;
+    static final int RANK_HAS = 4;
+    static final int RANK_REGEX = 5;
+    static final int RANK_COMPOSITE = 6;
+    static final int RANK_RAW = 7;
+
+    private static final Term TRUE = new Term(RANK_CONSTANT, series -> true);
+    private static final Term FALSE = new Term(RANK_CONSTANT, series -> false);
+
+    private FilterCompiler() {
+    }
+
+    public static CompiledFilter compile(final Filter filter) {
+        return term(filter).filter;
+    }
+
+    private static Term term(final Filter filter) {
+        return filter.visit(new Filter.Visitor<Term>() {
+            @Override
+            public Term visitTrue(final TrueFilter t) {
+                return TRUE;
+            }
+
+            @Override
+            public Term visitFalse(final FalseFilter f) {
+                return FALSE;
+            }
+
+            @Override
+            public Term visitMatchKey(final MatchKeyFilter matchKey) {
+                final String value = matchKey.getValue();
+                return new Term(RANK_KEY, series -> series.getKey().equals(value));
+            }
+
+            @Override
+            public Term visitHasTag(final HasTagFilter hasTag) {
+                final String tag = hasTag.getTag();
+                return new Term(RANK_HAS, series -> series.getTags().containsKey(tag));
+            }
+
+            @Override
+            public Term visitNot(final NotFilter not) {
+                final Term inner = term(not.getFilter());
+                final CompiledFilter f = inner.filter;
+                return new Term(negatedRank(inner.rank), series -> !f.apply(series));
+            }
+
+            @Override
+            public Term visitAnd(final AndFilter and) {
+                return and(and.terms());
+            }
+
+            @Override
+            public Term visitOr(final OrFilter or) {
+                return or(or.terms());
+            }
+
+            @Override
+            public Term visitRaw(final RawFilter raw) {
+                return new Term(RANK_RAW, raw::apply);
+            }
+
+            @Override
+            public Term defaultAction(final Filter filter) {
+                /* match tag, starts with and regex */
+                return tagTerm(filter).map(TagTerm::toTerm).orElseGet(() -> {
+                    return new Term(RANK_COMPOSITE, filter::apply);
+                });
+            }
+        });
+    }
+
+    private static Term and(final List<Filter> filters) {
+        final List<Term> terms = new ArrayList<>();
+        final Map<String, List<TagTerm>> byTag = new LinkedHashMap<>();
+
+        for (final Filter f : filters) {
+            final Optional<TagTerm> tagTerm = tagTerm(f);
+
+            if (tagTerm.isPresent()) {
+                final TagTerm t = tagTerm.get();
+                byTag.computeIfAbsent(t.tag, k -> new ArrayList<>()).add(t);
+            } else {
+                terms.add(term(f));
+            }
+        }
+
+        for (final Map.Entry<String, List<TagTerm>> e : byTag.entrySet()) {
+            final List<TagTerm> group = e.getValue();
+
+            if (group.size() == 1) {
+                terms.add(group.get(0).toTerm());
+                continue;
+            }
+
+            group.sort(Comparator.comparingInt(t -> t.rank));
+
+            final Predicate<String>[] matchers = matchers(group);
+
+            terms.add(new TagTerm(e.getKey(), group.get(0).rank, value -> {
+                for (final Predicate<String> m : matchers) {
+                    if (!m.test(value)) {
+                        return false;
+                    }
+                }
+
+                return true;
+            }).toTerm());
+        }
+
+        if (terms.isEmpty()) {
+            return TRUE;
+        }
+
+        if (terms.size() == 1) {
+            return terms.get(0);
+        }
+
+        final CompiledFilter[] compiled = sorted(terms);
+
+        return new Term(RANK_COMPOSITE, series -> {
+            for (final CompiledFilter f : compiled) {
+                if (!f.apply(series)) {
+                    return false;
+                }
+            }
+
+            return true;
+        });
+    }
+
+    private static Term or(final List<Filter> filters) {
+        final List<Term> terms = new ArrayList<>();
+        final Map<String, List<TagTerm>> byTag = new LinkedHashMap<>();
+        final Map<String, Set<String>> matchesByTag = new LinkedHashMap<>();
+
+        for (final Filter f : filters) {
+            if (f instanceof MatchTagFilter) {
+                final MatchTagFilter matchTag = (MatchTagFilter) f;
+                matchesByTag
+                    .computeIfAbsent(matchTag.getTag(), t -> new HashSet<>())
+                    .add(matchTag.getValue());
+                continue;
+            }
+
+            final Optional<TagTerm> tagTerm = tagTerm(f);
+
+            if (tagTerm.isPresent()) {
+                final TagTerm t = tagTerm.get();
+                byTag.computeIfAbsent(t.tag, k -> new ArrayList<>()).add(t);
+            } else {
+                terms.add(term(f));
+            }
+        }
+
+        for (final Map.Entry<String, Set<String>> e : matchesByTag.entrySet()) {
+            final Set<String> values = e.getValue();
+
+            final TagTerm tagTerm;
+
+            if (values.size() == 1) {
+                final String only = values.iterator().next();
+                tagTerm = new TagTerm(e.getKey(), RANK_MATCH, only::equals);
+            } else {
+                tagTerm = new TagTerm(e.getKey(), RANK_MATCH, values::contains);
+            }
+
+            byTag.computeIfAbsent(e.getKey(), t -> new ArrayList<>()).add(tagTerm);
+        }
+
+        for (final Map.Entry<String, List<TagTerm>> e : byTag.entrySet()) {
+            final List<TagTerm> group = e.getValue();
+
+            if (group.size() == 1) {
+                terms.add(group.get(0).toTerm());
+                continue;
+            }
+
+            group.sort(Comparator.comparingInt(t -> t.rank));
+
+            final Predicate<String>[] matchers = matchers(group);
+
+            terms.add(new TagTerm(e.getKey(), group.get(0).rank, value -> {
+                for (final Predicate<String> m : matchers) {
+                    if (m.test(value)) {
+                        return true;
+                    }
+                }
+
+                return false;
+            }).toTerm());
+        }
+
+        if (terms.isEmpty()) {
+            return FALSE;
+        }
+
+        if (terms.size() == 1) {
+            return terms.get(0);
+        }
+
+        final CompiledFilter[] compiled = sorted(terms);
+
+        return new Term(RANK_COMPOSITE, series -> {
+            for (final CompiledFilter f : compiled) {
+                if (f.apply(series)) {
+                    return true;
+                }
+            }
+
+            return false;
+        });
+    }
+
+    /**
+     * Build a term which only depends on the value of a single tag, if possible.
+     * <p>
+     * Matchers are called with the value of the tag, or {@code null} if the series does not have
+     * the tag.
+     */
+    private static Optional<TagTerm> tagTerm(final Filter filter) {
+        return filter.visit(new Filter.Visitor<Optional<TagTerm>>() {
+            @Override
+            public Optional<TagTerm> visitMatchTag(final MatchTagFilter matchTag) {
+                final String expected = matchTag.getValue();
+                return Optional.of(new TagTerm(matchTag.getTag(), RANK_MATCH,
+                    v -> v != null && v.equals(expected)));
+            }
+
+            @Override
+            public Optional<TagTerm> visitStartsWith(final StartsWithFilter startsWith) {
+                final String prefix = startsWith.getValue();
+                return Optional.of(new TagTerm(startsWith.getTag(), RANK_PREFIX,
+                    v -> v != null && v.startsWith(prefix)));
+            }
+
+            @Override
+            public Optional<TagTerm> visitRegex(final RegexFilter regex) {
+                final Pattern pattern = Pattern.compile(regex.getValue());
+                return Optional.of(new TagTerm(regex.getTag(), RANK_REGEX,
+                    v -> v != null && pattern.matcher(v).matches()));
+            }
+
+            @Override
+            public Optional<TagTerm> visitNot(final NotFilter not) {
+                return tagTerm(not.getFilter()).map(inner -> {
+                    final Predicate<String> m = inner.matcher;
+                    return new TagTerm(inner.tag, negatedRank(inner.rank), v -> !m.test(v));
+                });
+            }
+
+            @Override
+            public Optional<TagTerm> defaultAction(final Filter filter) {
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * The negation of a selective term is unlikely to short-circuit, so it is never ranked ahead of
+     * a has tag test.
+     */
+    private static int negatedRank(final int rank) {
+        return Math.max(rank, RANK_HAS);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Predicate<String>[] matchers(final List<TagTerm> group) {
+        final Predicate<String>[] matchers = new Predicate[group.size()];
+
+        for (int i = 0; i < matchers.length; i++) {
+            matchers[i] = group.get(i).matcher;
+        }
+
+        return matchers;
+    }
+
+    private static CompiledFilter[] sorted(final List<Term> terms) {
+        terms.sort(Comparator.comparingInt(t -> t.rank));
+
+        final CompiledFilter[] compiled = new CompiledFilter[terms.size()];
+
+        for (int i = 0; i < compiled.length; i++) {
+            compiled[i] = terms.get(i).filter;
+        }
+
+        return compiled;
+    }
+
+    @RequiredArgsConstructor
+    private static class Term {
+        private final int rank;
+        private final CompiledFilter filter;
+    }
+
+    @RequiredArgsConstructor
+    private static class TagTerm {
+        private final String tag;
+        private final int rank;
+        private final Predicate<String> matcher;
+
+        private Term toTerm() {
+            final String tag = this.tag;
+            final Predicate<String> matcher = this.matcher;
+            return new Term(rank, series -> matcher.test(series.getTags().get(tag)));
+        }
+    }
+}
@@ -31,11 +31,16 @@ import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
 import lombok.RequiredArgsConstructor;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 
 @RequiredArgsConstructor
 public abstract class AbstractMetricBackend implements MetricBackend {
+    public static final QueryTrace.Identifier FETCH_BATCH =
+        QueryTrace.identifier(AbstractMetricBackend.class, "fetch_batch");
+
     private final AsyncFramework async;
 
     @Override
@@ -43,6 +48,20 @@ public abstract class AbstractMetricBackend implements MetricBackend {
         return Statistics.empty();
     }
 
+    @Override
+    public AsyncFuture<FetchData.Result> fetchBatch(
+        final List<FetchData.Request> requests, final FetchQuotaWatcher watcher,
+        final BiConsumer<FetchData.Request, MetricCollection> metricsConsumer
+    ) {
+        final List<AsyncFuture<FetchData.Result>> fetches = new ArrayList<>(requests.size());
+
+        for (final FetchData.Request request : requests) {
+            fetches.add(fetch(request, watcher, mc -> metricsConsumer.accept(request, mc)));
+        }
+
+        return async.collect(fetches, FetchData.collectResult(FETCH_BATCH));
+    }
+
     @Override
     public AsyncFuture<List<String>> serializeKeyToHex(BackendKey key) {
         return async.resolved(ImmutableList.of());
@@ -70,6 +89,11 @@ public abstract class AbstractMetricBackend implements MetricBackend {
         return async.resolved(0L);
     }
 
+    @Override
+    public AsyncFuture<Long> compactKey(BackendKey key, QueryOptions options) {
+        return async.resolved(0L);
+    }
+
     @Override
     public AsyncFuture<MetricCollection> fetchRow(BackendKey key) {
         return async.failed(new Exception("not supported"));
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric;
+
+import com.spotify.heroic.aggregation.AggregationSession;
+import com.spotify.heroic.common.Series;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * A collection of points, stored as parallel arrays of timestamps and values.
+ * <p>
+ * Points are kept in primitive columns instead of one {@link Point} object per sample, which
+ * significantly reduces heap usage for large collections. Consumers that are aware of this
+ * collection should access the data through {@link #getTimestamp(int)} and {@link
+ * #getValue(int)}.
+ * <p>
+ * {@link #getData()} is a read-only view which creates {@link Point} instances on access, so
+ * existing consumers keep working unmodified.
+ *
+ * @see MetricCollection#points(long[], double[])
+ */
+public class ColumnarPointCollection extends MetricCollection {
+    private final long[] timestamps;
+    private final double[] values;
+    private final int size;
+
+    ColumnarPointCollection(final long[] timestamps, final double[] values, final int size) {
+        super(MetricType.POINT, new PointView(timestamps, values, size));
+        this.timestamps = timestamps;
+        this.values = values;
+        this.size = size;
+    }
+
+    public long getTimestamp(final int index) {
+        return timestamps[index];
+    }
+
+    public double getValue(final int index) {
+        return values[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void updateAggregation(
+        AggregationSession session, Map<String, String> tags, Set<Series> series
+    ) {
+        session.updatePoints(tags, series, this);
+    }
+
+    /**
+     * Merge the given collections, each which must be sorted by timestamp, into a single sorted
+     * collection.
+     * <p>
+     * For points with equal timestamps, the point from the collection appearing first is emitted
+     * first.
+     */
+    static ColumnarPointCollection mergeSorted(final List<ColumnarPointCollection> collections) {
+        final int count = collections.size();
+        final int[] offsets = new int[count];
+
+        int total = 0;
+
+        for (final ColumnarPointCollection c : collections) {
+            total += c.size;
+        }
+
+        final long[] timestamps = new long[total];
+        final double[] values = new double[total];
+
+        for (int o = 0; o < total; o++) {
+            int selected = -1;
+            long timestamp = Long.MAX_VALUE;
+
+            for (int i = 0; i < count; i++) {
+                final ColumnarPointCollection c = collections.get(i);
+
+                if (offsets[i] >= c.size) {
+                    continue;
+                }
+
+                final long candidate = c.timestamps[offsets[i]];
+
+                if (selected < 0 || candidate < timestamp) {
+                    selected = i;
+                    timestamp = candidate;
+                }
+            }
+
+            final ColumnarPointCollection c = collections.get(selected);
+            timestamps[o] = timestamp;
+            values[o] = c.values[offsets[selected]++];
+        }
+
+        return new ColumnarPointCollection(timestamps, values, total);
+    }
+
+    public static Builder builder() {
+        return new Builder(Builder.DEFAULT_CAPACITY);
+    }
+
+    public static Builder builder(final int capacity) {
+        return new Builder(capacity);
+    }
+
+    /**
+     * Incrementally builds a columnar collection, growing the underlying arrays as needed.
+     * <p>
+     * Points must be added in timestamp order.
+     */
+    public static class Builder {
+        static final int DEFAULT_CAPACITY = 16;
+
+        private long[] timestamps;
+        private double[] values;
+        private int size = 0;
+
+        Builder(final int capacity) {
+            final int c = Math.max(capacity, 1);
+            this.timestamps = new long[c];
+            this.values = new double[c];
+        }
+
+        public Builder add(final long timestamp, final double value) {
+            if (size == timestamps.length) {
+                final int capacity = timestamps.length * 2;
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+
+            timestamps[size] = timestamp;
+            values[size] = value;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Build the collection. The builder must not be used after this has been called.
+         */
+        public ColumnarPointCollection build() {
+            return new ColumnarPointCollection(timestamps, values, size);
+        }
+    }
+
+    /**
+     * Read-only view of the columns as a list of points.
+     */
+    private static class PointView extends AbstractList<Point> implements RandomAccess {
+        private final long[] timestamps;
+        private final double[] values;
+        private final int size;
+
+        PointView(final long[] timestamps, final double[] values, final int size) {
+            this.timestamps = timestamps;
+            this.values = values;
+            this.size = size;
+        }
+
+        @Override
+        public Point get(final int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+            }
+
+            return new Point(timestamps[index], values[index]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
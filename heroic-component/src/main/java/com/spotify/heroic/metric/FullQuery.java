@@ -119,6 +119,10 @@ public final class FullQuery {
         private final QueryContext context;
         private final Features features;
 
+        public Request withRange(final DateRange range) {
+            return new Request(source, filter, range, aggregation, options, context, features);
+        }
+
         public Summary summarize() {
             return new Summary(source, filter, range, aggregation, options);
         }
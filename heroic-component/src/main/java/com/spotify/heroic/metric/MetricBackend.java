@@ -31,6 +31,7 @@ import com.spotify.heroic.common.Statistics;
 import eu.toolchain.async.AsyncFuture;
 
 import java.util.List;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 public interface MetricBackend extends Initializing, Grouped, Collected {
@@ -77,6 +78,23 @@ public interface MetricBackend extends Initializing, Grouped, Collected {
         Consumer<MetricCollection> metricsConsumer
     );
 
+    /**
+     * Query for data points of multiple series at once.
+     * <p>
+     * Backends which are able to combine the reads of many series into fewer requests should
+     * override this, the default behavior is to fetch each series individually.
+     *
+     * @param requests Fetch requests to use.
+     * @param watcher The watcher implementation to use when fetching metrics.
+     * @param metricsConsumer The consumer that receives the fetched data, together with the
+     * request that it belongs to.
+     * @return A future containing the fetch result.
+     */
+    AsyncFuture<FetchData.Result> fetchBatch(
+        List<FetchData.Request> requests, FetchQuotaWatcher watcher,
+        BiConsumer<FetchData.Request, MetricCollection> metricsConsumer
+    );
+
     /**
      * List all series directly from the database.
      * <p>
@@ -130,6 +148,14 @@ public interface MetricBackend extends Initializing, Grouped, Collected {
      */
     AsyncFuture<Long> countKey(BackendKey key, QueryOptions options);
 
+    /**
+     * Rewrite the data associated with the given key into a more compact representation, if the
+     * backend supports it.
+     *
+     * @return The number of data points which were compacted.
+     */
+    AsyncFuture<Long> compactKey(BackendKey key, QueryOptions options);
+
     /**
      * Fetch a complete row from the backend.
      */
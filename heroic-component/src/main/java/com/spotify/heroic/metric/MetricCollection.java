@@ -28,6 +28,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterators;
 import com.spotify.heroic.aggregation.AggregationSession;
 import com.spotify.heroic.common.Series;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -128,6 +129,24 @@ public abstract class MetricCollection {
         return new PointCollection(metrics);
     }
 
+    /**
+     * Build a collection of points stored in columnar form.
+     *
+     * @param timestamps Timestamps of the points, in ascending order.
+     * @param values Values of the points, must have the same length as timestamps.
+     * @return A collection of points.
+     * @see ColumnarPointCollection
+     */
+    public static MetricCollection points(final long[] timestamps, final double[] values) {
+        if (timestamps.length != values.length) {
+            throw new IllegalArgumentException(
+                String.format("Number of timestamps (%d) does not match number of values (%d)",
+                    timestamps.length, values.length));
+        }
+
+        return new ColumnarPointCollection(timestamps, values, timestamps.length);
+    }
+
     public static MetricCollection events(List<Event> metrics) {
         return new EventCollection(metrics);
     }
@@ -157,6 +176,37 @@ public abstract class MetricCollection {
         return build(type, data);
     }
 
+    /**
+     * Merge the given collections, each which must be sorted, into a single sorted collection.
+     * <p>
+     * If all collections are columnar point collections, they are merged without materializing
+     * any {@link Point} objects.
+     */
+    public static MetricCollection mergeSorted(
+        final MetricType type, final Iterable<MetricCollection> collections
+    ) {
+        final List<ColumnarPointCollection> columnar = new ArrayList<>();
+        final List<List<? extends Metric>> values = new ArrayList<>();
+
+        for (final MetricCollection c : collections) {
+            if (c.isEmpty()) {
+                continue;
+            }
+
+            if (c instanceof ColumnarPointCollection) {
+                columnar.add((ColumnarPointCollection) c);
+            }
+
+            values.add(c.getData());
+        }
+
+        if (type == MetricType.POINT && columnar.size() == values.size()) {
+            return ColumnarPointCollection.mergeSorted(columnar);
+        }
+
+        return mergeSorted(type, values);
+    }
+
     @SuppressWarnings("unchecked")
     private static class PointCollection extends MetricCollection {
         PointCollection(List<? extends Metric> points) {
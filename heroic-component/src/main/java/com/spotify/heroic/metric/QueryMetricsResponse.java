@@ -28,6 +28,7 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Statistics;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -162,25 +163,32 @@ public class QueryMetricsResponse {
             g.writeStartArray();
 
             for (final ShardedResultGroup group : result) {
-                g.writeStartObject();
+                serializeGroup(g, common, group);
+            }
+
+            g.writeEndArray();
+        }
 
-                final MetricCollection collection = group.getMetrics();
-                final SeriesValues series = SeriesValues.fromSeries(group.getSeries().iterator());
+        void serializeGroup(
+            final JsonGenerator g, final Map<String, SortedSet<String>> common,
+            final ShardedResultGroup group
+        ) throws IOException {
+            g.writeStartObject();
 
-                g.writeStringField("type", collection.getType().identifier());
-                g.writeStringField("hash", Integer.toHexString(group.hashGroup()));
-                g.writeObjectField("shard", group.getShard());
-                g.writeNumberField("cadence", group.getCadence());
-                g.writeObjectField("values", collection.getData());
+            final MetricCollection collection = group.getMetrics();
+            final SeriesValues series = SeriesValues.fromSeries(group.getSeries().iterator());
 
-                writeKey(g, series.getKeys());
-                writeTags(g, common, series.getTags());
-                writeTagCounts(g, series.getTags());
+            g.writeStringField("type", collection.getType().identifier());
+            g.writeStringField("hash", Integer.toHexString(group.hashGroup()));
+            g.writeObjectField("shard", group.getShard());
+            g.writeNumberField("cadence", group.getCadence());
+            g.writeObjectField("values", collection.getData());
 
-                g.writeEndObject();
-            }
+            writeKey(g, series.getKeys());
+            writeTags(g, common, series.getTags());
+            writeTagCounts(g, series.getTags());
 
-            g.writeEndArray();
+            g.writeEndObject();
         }
 
         void writeKey(JsonGenerator g, final SortedSet<String> keys) throws IOException {
@@ -239,6 +247,16 @@ public class QueryMetricsResponse {
         }
     }
 
+    /**
+     * Serialize a single group, in the same form as the groups in the result of a response.
+     * <p>
+     * This is used when streaming groups, where the common tags of the full result are unknown.
+     */
+    public static void serializeGroup(final JsonGenerator g, final ShardedResultGroup group)
+        throws IOException {
+        new Serializer().serializeGroup(g, Collections.emptyMap(), group);
+    }
+
     public Summary summarize() {
         return new Summary(range, ShardedResultGroup.summarize(result), statistics, errors, trace,
             limits);
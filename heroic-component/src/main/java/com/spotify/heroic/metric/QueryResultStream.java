@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.aggregation.AggregationCombiner;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.OptionalLimit;
+import eu.toolchain.async.Collector;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Streams combined result groups to a consumer as the result parts of a query arrive.
+ * <p>
+ * Groups are handed to the consumer as soon as the combiner considers them complete, and are not
+ * retained after that. Only the errors, traces, and limits of each part are kept until all parts
+ * have been collected, at which point a {@link QueryResult} without any groups is built from them.
+ */
+public class QueryResultStream implements Collector<QueryResultPart, QueryResult> {
+    private final QueryTrace.NamedWatch w;
+    private final DateRange range;
+    private final AggregationCombiner.Session session;
+    private final OptionalLimit groupLimit;
+    private final Consumer<List<ShardedResultGroup>> consumer;
+
+    private final Object lock = new Object();
+
+    private long emitted = 0;
+    private boolean limited = false;
+
+    public QueryResultStream(
+        final QueryTrace.Identifier what, final DateRange range,
+        final AggregationCombiner combiner, final OptionalLimit groupLimit,
+        final Consumer<List<ShardedResultGroup>> consumer
+    ) {
+        this.w = QueryTrace.watch(what);
+        this.range = range;
+        this.session = combiner.session();
+        this.groupLimit = groupLimit;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Accept a single part, emitting any groups that are complete.
+     *
+     * @param part Part to accept.
+     * @return The same part, with its groups removed.
+     */
+    public QueryResultPart accept(final QueryResultPart part) {
+        if (!part.isEmpty()) {
+            synchronized (lock) {
+                emit(session.add(part.getGroups()));
+            }
+        }
+
+        return new QueryResultPart(ImmutableList.of(), part.getErrors(), part.getQueryTrace(),
+            part.getLimits(), part.getPreAggregationSampleSize());
+    }
+
+    /**
+     * Emit the remaining groups, and build a result from the accepted parts.
+     */
+    @Override
+    public QueryResult collect(final Collection<QueryResultPart> parts) {
+        final boolean limited;
+
+        synchronized (lock) {
+            emit(session.finish());
+            limited = this.limited;
+        }
+
+        final List<RequestError> errors = new ArrayList<>();
+        final ImmutableList.Builder<QueryTrace> queryTraces = ImmutableList.builder();
+        final ImmutableSet.Builder<ResultLimit> limits = ImmutableSet.builder();
+        long preAggregationSampleSize = 0;
+
+        for (final QueryResultPart part : parts) {
+            errors.addAll(part.getErrors());
+            queryTraces.add(part.getQueryTrace());
+            limits.addAll(part.getLimits().getLimits());
+            preAggregationSampleSize += part.getPreAggregationSampleSize();
+        }
+
+        if (limited) {
+            limits.add(ResultLimit.GROUP);
+        }
+
+        return new QueryResult(range, ImmutableList.of(), errors, w.end(queryTraces.build()),
+            new ResultLimits(limits.build()), preAggregationSampleSize);
+    }
+
+    private void emit(final List<ShardedResultGroup> groups) {
+        List<ShardedResultGroup> emit = groups;
+
+        final Optional<Long> limit = groupLimit.asLong();
+
+        if (limit.isPresent()) {
+            final long remaining = Math.max(0L, limit.get() - emitted);
+
+            if (emit.size() > remaining) {
+                limited = true;
+                emit = emit.subList(0, (int) remaining);
+            }
+        }
+
+        if (emit.isEmpty()) {
+            return;
+        }
+
+        emitted += emit.size();
+        consumer.accept(emit);
+    }
+}
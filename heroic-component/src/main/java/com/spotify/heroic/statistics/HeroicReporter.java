@@ -39,5 +39,7 @@ public interface HeroicReporter {
 
     ApiReporter newApiReporter();
 
+    QueryReporter newQueryReporter();
+
     void registerShards(Set<Map<String, String>> knownShards);
 }
@@ -31,4 +31,44 @@ public interface MetricBackendReporter {
     FutureReporter.Context reportFindSeries();
 
     FutureReporter.Context reportQueryMetrics();
+
+    /**
+     * Report that cells were streamed into an aggregation, without being materialized as
+     * individual metrics first.
+     * <p>
+     * The bytes avoided are not measured. Backends estimate them with a fixed size per cell, and
+     * might still hold the raw rows the cells were read from in memory.
+     *
+     * @param cells Number of cells which were streamed.
+     * @param estimatedBytesAvoided Estimated number of heap bytes which materializing every cell
+     * as an individual metric would have required.
+     */
+    void reportStreamedFetch(long cells, long estimatedBytesAvoided);
+
+    /**
+     * Report a flush of buffered writes, where writes targeting the same row have been merged.
+     *
+     * @param mutations Number of row mutations which were buffered.
+     * @param rows Number of rows which were written after merging.
+     * @param bytes Size of the flushed writes.
+     */
+    void reportWriteFlush(long mutations, long rows, long bytes);
+
+    /**
+     * Report the time it took for all writes in a flush to complete.
+     */
+    void reportWriteFlushLatency(long millis);
+
+    /**
+     * Report that a write was held back since the backend had too many pending bytes.
+     */
+    void reportWriteBackPressure();
+
+    /**
+     * Report a batch of writes which was sent as a single statement.
+     *
+     * @param writes Number of writes in the batch.
+     * @param millis Time it took for the batch to complete.
+     */
+    void reportWriteBatch(long writes, long millis);
 }
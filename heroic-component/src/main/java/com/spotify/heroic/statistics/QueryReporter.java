@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.statistics;
+
+/**
+ * Reporter for query result caching, on an API node level.
+ */
+public interface QueryReporter {
+    /**
+     * Report that a time slice of a query result was served from cache.
+     */
+    void reportCacheHit();
+
+    /**
+     * Report that a cacheable time slice of a query result had to be loaded from the backends.
+     */
+    void reportCacheMiss();
+
+    /**
+     * Report that a cached time slice was evicted, either because of its size or its age.
+     */
+    void reportCacheEviction();
+}
@@ -28,6 +28,7 @@ import com.spotify.heroic.statistics.HeroicReporter;
 import com.spotify.heroic.statistics.IngestionManagerReporter;
 import com.spotify.heroic.statistics.MetadataBackendReporter;
 import com.spotify.heroic.statistics.MetricBackendReporter;
+import com.spotify.heroic.statistics.QueryReporter;
 import com.spotify.heroic.statistics.SuggestBackendReporter;
 
 import java.util.Map;
@@ -69,6 +70,11 @@ public class NoopHeroicReporter implements HeroicReporter {
         return NoopApiReporter.get();
     }
 
+    @Override
+    public QueryReporter newQueryReporter() {
+        return NoopQueryReporter.get();
+    }
+
     @Override
     public void registerShards(Set<Map<String, String>> knownShards) {
     }
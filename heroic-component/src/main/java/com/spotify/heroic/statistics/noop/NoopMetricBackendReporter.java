@@ -68,6 +68,26 @@ public class NoopMetricBackendReporter implements MetricBackendReporter {
         return NoopFutureReporterContext.get();
     }
 
+    @Override
+    public void reportStreamedFetch(final long cells, final long estimatedBytesAvoided) {
+    }
+
+    @Override
+    public void reportWriteFlush(final long mutations, final long rows, final long bytes) {
+    }
+
+    @Override
+    public void reportWriteFlushLatency(final long millis) {
+    }
+
+    @Override
+    public void reportWriteBackPressure() {
+    }
+
+    @Override
+    public void reportWriteBatch(final long writes, final long millis) {
+    }
+
     private static final NoopMetricBackendReporter instance = new NoopMetricBackendReporter();
 
     public static NoopMetricBackendReporter get() {
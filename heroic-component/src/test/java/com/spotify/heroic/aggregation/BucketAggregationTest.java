@@ -6,13 +6,16 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.ColumnarPointCollection;
 import com.spotify.heroic.metric.MetricType;
 import com.spotify.heroic.metric.Point;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import org.junit.Test;
@@ -176,6 +179,66 @@ public class BucketAggregationTest {
             result.getResult().get(0).getMetrics().getData());
     }
 
+    @Test
+    public void testColumnarPoints() {
+        final BucketAggregationInstance<TestBucket> a = setup(10, 10);
+        final AggregationSession session = a.session(new DateRange(10, 30));
+
+        final ColumnarPointCollection.Builder points = ColumnarPointCollection.builder();
+        points.add(10, 1000.0).add(11, 3.0).add(12, 4.0).add(15, Double.NaN).add(20, 7.0);
+        points.add(21, 3.0).add(22, 4.0).add(31, 1000.0);
+
+        points.build().updateAggregation(session, group, series);
+
+        final AggregationResult result = session.result();
+
+        assertEquals(build().add(20, 14.0).add(30, 7.0).result(),
+            result.getResult().get(0).getMetrics().getData());
+        assertEquals(Optional.of(7L),
+            result.getStatistics().getCounterValue(AggregationInstance.SAMPLE_SIZE));
+    }
+
+    /**
+     * Columnar points are fed to buckets as runs, which must give the same result as feeding the
+     * points one at a time.
+     */
+    @Test
+    public void testColumnarRunsMatchPoints() {
+        final long[][] samplings = {{10, 10}, {10, 20}, {10, 5}, {10, 15}, {10, 35}};
+
+        for (final long[] sampling : samplings) {
+            final List<Point> list = new ArrayList<>();
+            final ColumnarPointCollection.Builder sorted = ColumnarPointCollection.builder();
+            final ColumnarPointCollection.Builder reversed = ColumnarPointCollection.builder();
+
+            for (long ts = 0; ts <= 50; ts += 3) {
+                list.add(new Point(ts, ts));
+                sorted.add(ts, ts);
+            }
+
+            for (int i = list.size() - 1; i >= 0; i--) {
+                reversed.add(list.get(i).getTimestamp(), list.get(i).getValue());
+            }
+
+            final List<Point> expected = feed(sampling, session -> {
+                session.updatePoints(group, series, list);
+            });
+
+            assertEquals("runs for " + sampling[0] + "/" + sampling[1], expected,
+                feed(sampling, session -> sorted.build().updateAggregation(session, group, series)));
+            assertEquals("unsorted for " + sampling[0] + "/" + sampling[1], expected,
+                feed(sampling,
+                    session -> reversed.build().updateAggregation(session, group, series)));
+        }
+    }
+
+    private List<Point> feed(final long[] sampling, final Consumer<AggregationSession> consumer) {
+        final BucketAggregationInstance<TestBucket> a = setup(sampling[0], sampling[1]);
+        final AggregationSession session = a.session(new DateRange(10, 40));
+        consumer.accept(session);
+        return session.result().getResult().get(0).getMetrics().getDataAs(Point.class);
+    }
+
     @Test
     public void testMapTimestamps() {
         final BucketAggregationInstance<TestBucket> a = setup(10, 10);
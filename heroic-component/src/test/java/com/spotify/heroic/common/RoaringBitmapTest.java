@@ -0,0 +1,187 @@
+package com.spotify.heroic.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import org.junit.Test;
+
+public class RoaringBitmapTest {
+    private final Random random = new Random(0x5eed);
+
+    @Test
+    public void testAddRemoveContains() {
+        final RoaringBitmap bitmap = new RoaringBitmap();
+
+        assertTrue(bitmap.isEmpty());
+        assertTrue(bitmap.add(7));
+        assertFalse(bitmap.add(7));
+        assertTrue(bitmap.add(1 << 20));
+        assertTrue(bitmap.add(-1));
+
+        assertTrue(bitmap.contains(7));
+        assertTrue(bitmap.contains(1 << 20));
+        assertTrue(bitmap.contains(-1));
+        assertFalse(bitmap.contains(8));
+        assertEquals(3, bitmap.cardinality());
+
+        assertTrue(bitmap.remove(7));
+        assertFalse(bitmap.remove(7));
+        assertFalse(bitmap.contains(7));
+        assertEquals(2, bitmap.cardinality());
+        assertEquals("{1048576, 4294967295}", bitmap.toString());
+    }
+
+    @Test
+    public void testDenseContainer() {
+        final RoaringBitmap bitmap = new RoaringBitmap();
+        final SortedSet<Integer> expected = new TreeSet<>();
+
+        /* grow past the array limit, then shrink back below it */
+        for (int i = 0; i < RoaringBitmap.ARRAY_MAX_SIZE * 3; i += 2) {
+            bitmap.add(i);
+            expected.add(i);
+        }
+
+        assertEquals(expected, values(bitmap));
+
+        for (int i = 0; i < RoaringBitmap.ARRAY_MAX_SIZE * 3; i += 4) {
+            bitmap.remove(i);
+            expected.remove(i);
+        }
+
+        assertEquals(expected, values(bitmap));
+
+        for (int i = 2; i < RoaringBitmap.ARRAY_MAX_SIZE * 3; i += 8) {
+            bitmap.remove(i);
+            expected.remove(i);
+        }
+
+        assertEquals(expected, values(bitmap));
+        assertEquals(expected.size(), bitmap.cardinality());
+    }
+
+    @Test
+    public void testOverlappingArrayUnionStaysArray() {
+        final int n = RoaringBitmap.ARRAY_MAX_SIZE - 1000;
+        final char[] a = new char[n];
+        final char[] b = new char[n];
+
+        for (int i = 0; i < n; i++) {
+            a[i] = (char) i;
+            b[i] = (char) (i + 1000);
+        }
+
+        final RoaringBitmap.Container small =
+            new RoaringBitmap.ArrayContainer(a, n).or(new RoaringBitmap.ArrayContainer(b, n));
+
+        assertTrue(small instanceof RoaringBitmap.ArrayContainer);
+        assertEquals(n + 1000, small.cardinality());
+
+        for (int i = 0; i < n; i++) {
+            b[i] = (char) (i + n);
+        }
+
+        final RoaringBitmap.Container large =
+            new RoaringBitmap.ArrayContainer(a, n).or(new RoaringBitmap.ArrayContainer(b, n));
+
+        assertTrue(large instanceof RoaringBitmap.BitmapContainer);
+        assertEquals(n * 2, large.cardinality());
+    }
+
+    @Test
+    public void testSetOperations() {
+        /* mix sparse and dense containers, over a few container keys */
+        final int[] sizes = {10, 1000, 20000, 100000};
+
+        for (final int a : sizes) {
+            for (final int b : sizes) {
+                final SortedSet<Integer> left = randomSet(a);
+                final SortedSet<Integer> right = randomSet(b);
+
+                final RoaringBitmap l = bitmap(left);
+                final RoaringBitmap r = bitmap(right);
+
+                final SortedSet<Integer> and = new TreeSet<>(left);
+                and.retainAll(right);
+
+                final SortedSet<Integer> or = new TreeSet<>(left);
+                or.addAll(right);
+
+                final SortedSet<Integer> andNot = new TreeSet<>(left);
+                andNot.removeAll(right);
+
+                assertEquals(and, values(RoaringBitmap.and(l, r)));
+                assertEquals(or, values(RoaringBitmap.or(l, r)));
+                assertEquals(andNot, values(RoaringBitmap.andNot(l, r)));
+                assertEquals(or.size(), RoaringBitmap.or(l, r).cardinality());
+                assertEquals(!and.isEmpty(), RoaringBitmap.intersects(l, r));
+                assertEquals(!andNot.isEmpty(),
+                    RoaringBitmap.intersects(l, RoaringBitmap.andNot(l, r)));
+                assertFalse(RoaringBitmap.intersects(RoaringBitmap.andNot(l, r), r));
+
+                /* the operands are left untouched */
+                assertEquals(left, values(l));
+                assertEquals(right, values(r));
+            }
+        }
+    }
+
+    @Test
+    public void testIteratorMatchesForEach() {
+        final RoaringBitmap bitmap = bitmap(randomSet(50000));
+
+        final List<Integer> forEach = new ArrayList<>();
+        bitmap.forEach(forEach::add);
+
+        final List<Integer> iterated = new ArrayList<>();
+        final PrimitiveIterator.OfInt it = bitmap.iterator();
+
+        while (it.hasNext()) {
+            iterated.add(it.nextInt());
+        }
+
+        assertEquals(forEach, iterated);
+    }
+
+    @Test
+    public void testCopyAndEquals() {
+        final RoaringBitmap bitmap = bitmap(randomSet(20000));
+        final RoaringBitmap copy = bitmap.copy();
+
+        assertEquals(bitmap, copy);
+        assertEquals(bitmap.hashCode(), copy.hashCode());
+
+        copy.add(-2);
+        assertFalse(bitmap.contains(-2));
+        assertFalse(bitmap.equals(copy));
+    }
+
+    private SortedSet<Integer> randomSet(final int size) {
+        final SortedSet<Integer> set = new TreeSet<>();
+
+        for (int i = 0; i < size; i++) {
+            set.add(random.nextInt(4 << 16));
+        }
+
+        return set;
+    }
+
+    private RoaringBitmap bitmap(final SortedSet<Integer> values) {
+        final RoaringBitmap bitmap = new RoaringBitmap();
+        values.forEach(bitmap::add);
+        return bitmap;
+    }
+
+    private SortedSet<Integer> values(final RoaringBitmap bitmap) {
+        final SortedSet<Integer> values = new TreeSet<>();
+        bitmap.forEach(values::add);
+        return values;
+    }
+}
@@ -0,0 +1,106 @@
+package com.spotify.heroic.common;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableList;
+import com.spotify.heroic.filter.AndFilter;
+import com.spotify.heroic.filter.FalseFilter;
+import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.filter.HasTagFilter;
+import com.spotify.heroic.filter.MatchKeyFilter;
+import com.spotify.heroic.filter.MatchTagFilter;
+import com.spotify.heroic.filter.NotFilter;
+import com.spotify.heroic.filter.OrFilter;
+import com.spotify.heroic.filter.RegexFilter;
+import com.spotify.heroic.filter.StartsWithFilter;
+import com.spotify.heroic.filter.TrueFilter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SeriesIndexTest {
+    private final SeriesIndex index = new SeriesIndex();
+    private final List<Series> series = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        final Random random = new Random(0x1234L);
+
+        for (int i = 0; i < 2000; i++) {
+            final Map<String, String> tags = new HashMap<>();
+            tags.put("id", Integer.toString(i));
+            tags.put("host", "host-" + random.nextInt(100));
+            tags.put("role", "role-" + random.nextInt(5));
+
+            if (random.nextBoolean()) {
+                tags.put("site", random.nextBoolean() ? "lon" : "sto");
+            }
+
+            final Series s = Series.of("key-" + random.nextInt(3), tags);
+            index.add(s);
+            series.add(s);
+        }
+    }
+
+    @Test
+    public void testLookupMatchesApply() {
+        final List<Filter> filters = ImmutableList.of(
+            TrueFilter.get(),
+            FalseFilter.get(),
+            new MatchKeyFilter("key-1"),
+            new MatchTagFilter("role", "role-2"),
+            new MatchTagFilter("role", "missing"),
+            new HasTagFilter("site"),
+            new StartsWithFilter("host", "host-1"),
+            new RegexFilter("host", "host-[0-4]"),
+            NotFilter.of(new HasTagFilter("site")),
+            AndFilter.of(new MatchKeyFilter("key-0"), new MatchTagFilter("site", "lon")),
+            AndFilter.of(new MatchTagFilter("role", "role-1"),
+                NotFilter.of(new MatchTagFilter("site", "sto"))),
+            AndFilter.of(NotFilter.of(new MatchKeyFilter("key-0"))),
+            OrFilter.of(new MatchTagFilter("role", "role-0"), new MatchKeyFilter("key-2")));
+
+        for (final Filter filter : filters) {
+            assertEquals(filter.toString(), scan(filter), lookup(filter));
+        }
+    }
+
+    @Test
+    public void testRemove() {
+        final Filter filter = new MatchTagFilter("site", "lon");
+
+        for (final Series s : series.subList(0, 1000)) {
+            index.remove(s);
+        }
+
+        final Set<Series> remaining = new HashSet<>(series.subList(1000, series.size()));
+        assertEquals(remaining.size(), index.size());
+
+        final Set<Series> expected = new HashSet<>();
+        remaining.stream().filter(filter::apply).forEach(expected::add);
+        assertEquals(expected, lookup(filter));
+
+        /* ids of removed series are reused */
+        index.add(series.get(0));
+        assertEquals(remaining.size() + 1, index.size());
+        assertEquals(series.get(0), index.get(index.lookup(TrueFilter.get()).iterator().nextInt()));
+    }
+
+    private Set<Series> scan(final Filter filter) {
+        final Set<Series> result = new HashSet<>();
+        series.stream().filter(filter::apply).forEach(result::add);
+        return result;
+    }
+
+    private Set<Series> lookup(final Filter filter) {
+        final Set<Series> result = new HashSet<>();
+        index.lookup(filter).forEach(id -> result.add(index.get(id)));
+        return result;
+    }
+}
@@ -0,0 +1,55 @@
+package com.spotify.heroic.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.junit.Test;
+
+public class VarIntsTest {
+    @Test
+    public void testRoundTrip() throws Exception {
+        final long[] values = {0L, 1L, 127L, 128L, 300L, Long.MAX_VALUE, -1L, Long.MIN_VALUE};
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        for (final long value : values) {
+            VarInts.writeVarLong(out, value);
+        }
+
+        final ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+
+        for (final long value : values) {
+            assertEquals(value, VarInts.readVarLong(buffer));
+        }
+
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test
+    public void testEncoding() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        VarInts.writeVarLong(out, 300L);
+        assertArrayEquals(new byte[]{(byte) 0xAC, 0x02}, out.toByteArray());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformed() {
+        final byte[] bytes = new byte[11];
+        Arrays.fill(bytes, (byte) 0x80);
+        VarInts.readVarLong(ByteBuffer.wrap(bytes));
+    }
+
+    @Test
+    public void testZigZag() {
+        assertEquals(0L, VarInts.zigZag(0L));
+        assertEquals(1L, VarInts.zigZag(-1L));
+        assertEquals(2L, VarInts.zigZag(1L));
+        assertEquals(-1L, VarInts.zigZag(Long.MIN_VALUE));
+
+        for (final long value : new long[]{0L, 1L, -1L, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            assertEquals(value, VarInts.unZigZag(VarInts.zigZag(value)));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.spotify.heroic.filter;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.common.Series;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.spotify.heroic.filter.Filter.and;
+import static com.spotify.heroic.filter.Filter.hasTag;
+import static com.spotify.heroic.filter.Filter.matchKey;
+import static com.spotify.heroic.filter.Filter.matchTag;
+import static com.spotify.heroic.filter.Filter.not;
+import static com.spotify.heroic.filter.Filter.or;
+import static com.spotify.heroic.filter.Filter.regex;
+import static com.spotify.heroic.filter.Filter.startsWith;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FilterCompilerTest {
+    private static final List<String> KEYS = ImmutableList.of("a", "b");
+    private static final List<String> TAGS = ImmutableList.of("foo", "bar", "baz");
+    private static final List<String> VALUES = ImmutableList.of("a", "ab", "abc", "b", "bc");
+
+    private final Series series = Series.of("a", ImmutableMap.of("foo", "abc", "bar", "b"));
+
+    @Test
+    public void testTerms() {
+        assertTrue(compile(TrueFilter.get()).apply(series));
+        assertFalse(compile(FalseFilter.get()).apply(series));
+        assertTrue(compile(matchKey("a")).apply(series));
+        assertTrue(compile(matchTag("foo", "abc")).apply(series));
+        assertFalse(compile(matchTag("foo", "ab")).apply(series));
+        assertTrue(compile(startsWith("foo", "ab")).apply(series));
+        assertTrue(compile(regex("foo", "a.c")).apply(series));
+        assertFalse(compile(regex("foo", "a.")).apply(series));
+        assertTrue(compile(hasTag("bar")).apply(series));
+        assertTrue(compile(not(hasTag("baz"))).apply(series));
+        assertTrue(compile(not(matchTag("baz", "a"))).apply(series));
+    }
+
+    @Test
+    public void testHoistedTerms() {
+        assertTrue(compile(and(startsWith("foo", "a"), regex("foo", ".*c"))).apply(series));
+        assertFalse(compile(and(startsWith("foo", "a"), not(matchTag("foo", "abc")))).apply(
+            series));
+        assertTrue(compile(or(matchTag("foo", "x"), matchTag("foo", "abc"))).apply(series));
+        assertFalse(compile(or(matchTag("foo", "x"), matchTag("foo", "y"))).apply(series));
+        assertTrue(compile(or(matchTag("foo", "x"), startsWith("foo", "ab"))).apply(series));
+        assertTrue(compile(or(matchTag("baz", "x"), not(matchTag("baz", "y")))).apply(series));
+    }
+
+    @Test
+    public void testEmptyComposites() {
+        assertEquals(new AndFilter(ImmutableList.of()).apply(series),
+            compile(new AndFilter(ImmutableList.of())).apply(series));
+        assertEquals(new OrFilter(ImmutableList.of()).apply(series),
+            compile(new OrFilter(ImmutableList.of())).apply(series));
+    }
+
+    /**
+     * Compiled filters must match exactly the same series as the filters they were compiled from.
+     */
+    @Test
+    public void testEquivalence() {
+        final Random random = new Random(0x5eedL);
+        final List<Series> series = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            final Map<String, String> tags = new HashMap<>();
+
+            for (final String tag : TAGS) {
+                if (random.nextInt(4) != 0) {
+                    tags.put(tag, pick(random, VALUES));
+                }
+            }
+
+            series.add(Series.of(pick(random, KEYS), tags));
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            final Filter filter = randomFilter(random, 3);
+            final CompiledFilter compiled = compile(filter);
+
+            for (final Series s : series) {
+                assertEquals(filter.toDSL() + " on " + s, filter.apply(s), compiled.apply(s));
+            }
+        }
+    }
+
+    private Filter randomFilter(final Random random, final int depth) {
+        final int kind = random.nextInt(depth > 0 ? 9 : 6);
+
+        switch (kind) {
+            case 0:
+                return matchKey(pick(random, KEYS));
+            case 1:
+                return matchTag(pick(random, TAGS), pick(random, VALUES));
+            case 2:
+                return startsWith(pick(random, TAGS), pick(random, VALUES));
+            case 3:
+                return regex(pick(random, TAGS), pick(random, VALUES) + ".*");
+            case 4:
+                return hasTag(pick(random, TAGS));
+            case 5:
+                return random.nextBoolean() ? TrueFilter.get() : FalseFilter.get();
+            case 6:
+                return not(randomFilter(random, depth - 1));
+            default:
+                final List<Filter> terms = new ArrayList<>();
+                final int count = random.nextInt(4);
+
+                for (int i = 0; i < count; i++) {
+                    terms.add(randomFilter(random, depth - 1));
+                }
+
+                return kind == 7 ? new AndFilter(terms) : new OrFilter(terms);
+        }
+    }
+
+    private static String pick(final Random random, final List<String> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static CompiledFilter compile(final Filter filter) {
+        return CompiledFilter.of(filter);
+    }
+}
@@ -0,0 +1,73 @@
+package com.spotify.heroic.metric;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+public class ColumnarPointCollectionTest {
+    @Test
+    public void testBuilder() {
+        final ColumnarPointCollection.Builder builder = ColumnarPointCollection.builder(1);
+
+        for (int i = 0; i < 100; i++) {
+            builder.add(i, i * 2D);
+        }
+
+        final ColumnarPointCollection points = builder.build();
+
+        assertEquals(100, points.size());
+        assertEquals(MetricType.POINT, points.getType());
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, points.getTimestamp(i));
+            assertEquals(i * 2D, points.getValue(i), 0D);
+        }
+    }
+
+    @Test
+    public void testEqualsListOfPoints() {
+        final MetricCollection columnar =
+            MetricCollection.points(new long[]{1L, 2L}, new double[]{10D, 20D});
+        final MetricCollection list =
+            MetricCollection.points(ImmutableList.of(new Point(1L, 10D), new Point(2L, 20D)));
+
+        assertEquals(list, columnar);
+        assertEquals(columnar, list);
+        assertEquals(list.hashCode(), columnar.hashCode());
+        assertEquals(list.getDataAs(Point.class), columnar.getDataAs(Point.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMismatchedColumns() {
+        MetricCollection.points(new long[]{1L, 2L}, new double[]{10D});
+    }
+
+    @Test
+    public void testMergeSorted() {
+        final MetricCollection a =
+            MetricCollection.points(new long[]{1L, 3L, 5L}, new double[]{1D, 3D, 5D});
+        final MetricCollection b =
+            MetricCollection.points(new long[]{2L, 3L, 6L}, new double[]{2D, 4D, 6D});
+
+        final MetricCollection merged = MetricCollection.mergeSorted(MetricType.POINT,
+            ImmutableList.of(a, MetricCollection.empty(), b));
+
+        assertTrue(merged instanceof ColumnarPointCollection);
+        assertEquals(ImmutableList.of(new Point(1L, 1D), new Point(2L, 2D), new Point(3L, 3D),
+            new Point(3L, 4D), new Point(5L, 5D), new Point(6L, 6D)), merged.getData());
+    }
+
+    @Test
+    public void testMergeSortedMixed() {
+        final MetricCollection a = MetricCollection.points(new long[]{1L, 3L}, new double[]{1D, 3D});
+        final MetricCollection b = MetricCollection.points(ImmutableList.of(new Point(2L, 2D)));
+
+        final MetricCollection merged =
+            MetricCollection.mergeSorted(MetricType.POINT, ImmutableList.of(a, b));
+
+        assertEquals(ImmutableList.of(new Point(1L, 1D), new Point(2L, 2D), new Point(3L, 3D)),
+            merged.getData());
+    }
+}
@@ -0,0 +1,102 @@
+package com.spotify.heroic.metric;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.aggregation.AggregationCombiner;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.OptionalLimit;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class QueryResultStreamTest {
+    private final QueryTrace.Identifier what = QueryTrace.identifier("test");
+    private final DateRange range = new DateRange(0L, 100L);
+
+    private final ShardedResultGroup a = group("a");
+    private final ShardedResultGroup b = group("b");
+    private final ShardedResultGroup c = group("c");
+
+    private final List<List<ShardedResultGroup>> emitted = new ArrayList<>();
+
+    @Test
+    public void testEmitOnAccept() throws Exception {
+        final QueryResultStream stream = new QueryResultStream(what, range,
+            AggregationCombiner.DEFAULT, OptionalLimit.empty(), emitted::add);
+
+        final QueryResultPart p1 = stream.accept(part(a, b));
+        assertEquals(ImmutableList.of(ImmutableList.of(a, b)), emitted);
+        assertEquals(ImmutableList.of(), p1.getGroups());
+
+        final QueryResultPart p2 = stream.accept(part(c));
+        assertEquals(ImmutableList.of(ImmutableList.of(a, b), ImmutableList.of(c)), emitted);
+
+        final QueryResult result = stream.collect(ImmutableList.of(p1, p2));
+        assertEquals(2, emitted.size());
+        assertEquals(ImmutableList.of(), result.getGroups());
+        assertEquals(ImmutableSet.of(), result.getLimits().getLimits());
+        assertEquals(6L, result.getPreAggregationSampleSize());
+    }
+
+    @Test
+    public void testEmitOnCollect() throws Exception {
+        final AggregationCombiner buffering = all -> {
+            final ImmutableList.Builder<ShardedResultGroup> groups = ImmutableList.builder();
+            all.forEach(groups::addAll);
+            return groups.build();
+        };
+
+        final QueryResultStream stream =
+            new QueryResultStream(what, range, buffering, OptionalLimit.empty(), emitted::add);
+
+        final QueryResultPart p1 = stream.accept(part(a));
+        final QueryResultPart p2 = stream.accept(part(b));
+        assertEquals(ImmutableList.of(), emitted);
+
+        stream.collect(ImmutableList.of(p1, p2));
+        assertEquals(ImmutableList.of(ImmutableList.of(a, b)), emitted);
+    }
+
+    @Test
+    public void testGroupLimit() throws Exception {
+        final QueryResultStream stream = new QueryResultStream(what, range,
+            AggregationCombiner.DEFAULT, OptionalLimit.of(2L), emitted::add);
+
+        final QueryResultPart p1 = stream.accept(part(a));
+        final QueryResultPart p2 = stream.accept(part(b, c));
+
+        final QueryResult result = stream.collect(ImmutableList.of(p1, p2));
+
+        assertEquals(ImmutableList.of(ImmutableList.of(a), ImmutableList.of(b)), emitted);
+        assertEquals(ImmutableSet.of(ResultLimit.GROUP), result.getLimits().getLimits());
+    }
+
+    @Test
+    public void testGroupLimitExactFit() throws Exception {
+        final QueryResultStream stream = new QueryResultStream(what, range,
+            AggregationCombiner.DEFAULT, OptionalLimit.of(2L), emitted::add);
+
+        final QueryResultPart p1 = stream.accept(part(a));
+        final QueryResultPart p2 = stream.accept(part(b));
+
+        final QueryResult result = stream.collect(ImmutableList.of(p1, p2));
+
+        /* no group was dropped */
+        assertEquals(ImmutableList.of(ImmutableList.of(a), ImmutableList.of(b)), emitted);
+        assertEquals(ImmutableSet.of(), result.getLimits().getLimits());
+    }
+
+    private QueryResultPart part(final ShardedResultGroup... groups) {
+        return new QueryResultPart(ImmutableList.copyOf(groups), ImmutableList.of(),
+            QueryTrace.PASSIVE, ResultLimits.of(), groups.length * 2L);
+    }
+
+    private ShardedResultGroup group(final String key) {
+        return new ShardedResultGroup(ImmutableMap.of(), ImmutableMap.of("key", key),
+            ImmutableSet.of(), MetricCollection.points(
+            ImmutableList.of(new Point(10L, 1D), new Point(20L, 2D))), 10L);
+    }
+}
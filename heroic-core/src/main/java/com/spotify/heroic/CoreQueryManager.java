@@ -60,7 +60,9 @@ import com.spotify.heroic.metric.FullQuery;
 import com.spotify.heroic.metric.MetricType;
 import com.spotify.heroic.metric.QueryResult;
 import com.spotify.heroic.metric.QueryResultPart;
+import com.spotify.heroic.metric.QueryResultStream;
 import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.ShardedResultGroup;
 import com.spotify.heroic.metric.Tracing;
 import com.spotify.heroic.metric.WriteMetric;
 import com.spotify.heroic.querylogging.QueryContext;
@@ -84,6 +86,7 @@ import java.util.Optional;
 import java.util.SortedSet;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -195,6 +198,27 @@ public class CoreQueryManager implements QueryManager {
 
         @Override
         public AsyncFuture<QueryResult> query(final Query q, final QueryContext queryContext) {
+            return execute(q, queryContext,
+                (request, root, isDistributed, limit, shardWatch) -> queryCache.load(request,
+                    r -> queryShards(r, root, isDistributed, limit, shardWatch)));
+        }
+
+        /**
+         * Streamed queries bypass the {@link QueryCache}, since it needs the complete result.
+         */
+        @Override
+        public AsyncFuture<QueryResult> queryStream(
+            final Query q, final QueryContext queryContext,
+            final Consumer<List<ShardedResultGroup>> consumer
+        ) {
+            return execute(q, queryContext,
+                (request, root, isDistributed, limit, shardWatch) -> streamShards(request, root,
+                    isDistributed, limit, shardWatch, consumer));
+        }
+
+        private AsyncFuture<QueryResult> execute(
+            final Query q, final QueryContext queryContext, final ShardQuery shardQuery
+        ) {
             final QueryOptions options = q.getOptions().orElseGet(QueryOptions::defaults);
             final Tracing tracing = options.tracing();
 
@@ -205,8 +229,6 @@ public class CoreQueryManager implements QueryManager {
 
             queryLogger.logQuery(queryContext, q);
 
-            final List<AsyncFuture<QueryResultPart>> futures = new ArrayList<>();
-
             final MetricType source = q.getSource().orElse(MetricType.POINT);
 
             final Aggregation aggregation = q.getAggregation().orElse(Empty.INSTANCE);
@@ -242,46 +264,103 @@ public class CoreQueryManager implements QueryManager {
                     shardWatch.end()));
             }
 
-            final AggregationCombiner combiner;
-
-            if (isDistributed) {
-                combiner = DistributedAggregationCombiner.create(root, range);
-            } else {
-                combiner = AggregationCombiner.DEFAULT;
-            }
-
             final FullQuery.Request request =
                 new FullQuery.Request(source, filter, range, aggregationInstance, options,
                     queryContext, features);
 
+            final OptionalLimit limit = options.getGroupLimit().orElse(groupLimit);
+
+            return shardQuery
+                .apply(request, root, isDistributed, limit, shardWatch)
+                .directTransform(result -> {
+                    reportCompletedQuery(result, fullQueryWatch);
+                    return result;
+                })
+                .onDone(onDoneQueryReporter);
+        }
+
+        /**
+         * Send the given request to all shards, and combine the results.
+         * <p>
+         * This might be called multiple times for a single query by the {@link QueryCache}, with
+         * the range narrowed to the parts which are not cached.
+         */
+        private AsyncFuture<QueryResult> queryShards(
+            final FullQuery.Request request, final AggregationInstance root,
+            final boolean isDistributed, final OptionalLimit limit,
+            final QueryTrace.NamedWatch shardWatch
+        ) {
+            final DateRange range = request.getRange();
+            final AggregationCombiner combiner = combiner(root, isDistributed, range);
+
+            return async.collect(queryParts(request, shardWatch),
+                QueryResult.collectParts(QUERY, range, combiner, limit));
+        }
+
+        /**
+         * Send the given request to all shards, and hand combined groups to the consumer as soon
+         * as they are complete.
+         * <p>
+         * Each part is stripped of its groups once they have been combined, so only groups which
+         * are still being combined are kept in memory.
+         */
+        private AsyncFuture<QueryResult> streamShards(
+            final FullQuery.Request request, final AggregationInstance root,
+            final boolean isDistributed, final OptionalLimit limit,
+            final QueryTrace.NamedWatch shardWatch,
+            final Consumer<List<ShardedResultGroup>> consumer
+        ) {
+            final DateRange range = request.getRange();
+            final AggregationCombiner combiner = combiner(root, isDistributed, range);
+
+            final QueryResultStream stream =
+                new QueryResultStream(QUERY, range, combiner, limit, consumer);
+
+            final List<AsyncFuture<QueryResultPart>> futures = new ArrayList<>();
+
+            for (final AsyncFuture<QueryResultPart> part : queryParts(request, shardWatch)) {
+                futures.add(part.directTransform(stream::accept));
+            }
+
+            return async.collect(futures, stream);
+        }
+
+        private List<AsyncFuture<QueryResultPart>> queryParts(
+            final FullQuery.Request request, final QueryTrace.NamedWatch shardWatch
+        ) {
+            final QueryContext queryContext = request.getContext();
+
             queryLogger.logOutgoingRequestToShards(queryContext, request);
 
-            return queryCache.load(request, () -> {
-                for (final ClusterShard shard : shards) {
-                    final QueryTrace.NamedWatch shardLocalWatch =
-                        shardWatch.extendIdentifier(shard.getShard().toString());
-                    final AsyncFuture<QueryResultPart> queryPart = shard
-                        .apply(g -> g.query(request), getStoreTracesTransform(shardLocalWatch))
-                        .catchFailed(FullQuery.shardError(shardLocalWatch, shard))
-                        .directTransform(fullQuery -> {
-                            queryLogger.logIncomingResponseFromShard(queryContext, fullQuery);
-                            return fullQuery;
-                        })
-                        .directTransform(QueryResultPart.fromResultGroup(shard));
-
-                    futures.add(queryPart);
-                }
-
-                final OptionalLimit limit = options.getGroupLimit().orElse(groupLimit);
-
-                return async
-                    .collect(futures, QueryResult.collectParts(QUERY, range, combiner, limit))
-                    .directTransform(result -> {
-                        reportCompletedQuery(result, fullQueryWatch);
-                        return result;
+            final List<AsyncFuture<QueryResultPart>> futures = new ArrayList<>();
+
+            for (final ClusterShard shard : shards) {
+                final QueryTrace.NamedWatch shardLocalWatch =
+                    shardWatch.extendIdentifier(shard.getShard().toString());
+                final AsyncFuture<QueryResultPart> queryPart = shard
+                    .applyHedged(g -> g.query(request),
+                        getStoreTracesTransform(shardLocalWatch))
+                    .catchFailed(FullQuery.shardError(shardLocalWatch, shard))
+                    .directTransform(fullQuery -> {
+                        queryLogger.logIncomingResponseFromShard(queryContext, fullQuery);
+                        return fullQuery;
                     })
-                    .onDone(onDoneQueryReporter);
-            });
+                    .directTransform(QueryResultPart.fromResultGroup(shard));
+
+                futures.add(queryPart);
+            }
+
+            return futures;
+        }
+
+        private AggregationCombiner combiner(
+            final AggregationInstance root, final boolean isDistributed, final DateRange range
+        ) {
+            if (isDistributed) {
+                return DistributedAggregationCombiner.create(root, range);
+            }
+
+            return AggregationCombiner.DEFAULT;
         }
 
         private void reportCompletedQuery(
@@ -410,6 +489,16 @@ public class CoreQueryManager implements QueryManager {
         }
     }
 
+    /**
+     * Sends a prepared request to the shards of a group, and builds the result.
+     */
+    private interface ShardQuery {
+        AsyncFuture<QueryResult> apply(
+            FullQuery.Request request, AggregationInstance root, boolean isDistributed,
+            OptionalLimit limit, QueryTrace.NamedWatch shardWatch
+        );
+    }
+
     private static <T> T retryTraceHandlerNoop(T result, List<QueryTrace> traces) {
         // Ignore QueryTrace list
         return result;
@@ -0,0 +1,524 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.cache;
+
+import com.google.common.collect.ImmutableList;
+import com.spotify.heroic.QueryOptions;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Features;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.QueryResult;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.RequestError;
+import com.spotify.heroic.metric.ResultLimits;
+import com.spotify.heroic.metric.ShardedResultGroup;
+import com.spotify.heroic.statistics.QueryReporter;
+import com.spotify.heroic.time.Clock;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.FutureDone;
+import eu.toolchain.async.ResolvableFuture;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import lombok.Data;
+import net.jodah.expiringmap.ExpirationPolicy;
+import net.jodah.expiringmap.ExpiringMap;
+
+/**
+ * Base class for query caches which store results split into time slices.
+ * <p>
+ * Each slice covers a fixed number of buckets, aligned to the cadence of the aggregation. When a
+ * query comes in, the slices that overlap its range are looked up, and only the missing slices and
+ * the most recent, not yet finalized, tail of the range are loaded from the backends. This means
+ * that a dashboard which refreshes a sliding window only loads the newest data on every refresh.
+ * <p>
+ * Only aggregations that are {@link AggregationInstance#sliceable() sliceable} are cached in
+ * slices, and only results without errors or limits are stored. Other requests with a cadence, and
+ * requests which are not aligned to their cadence, are cached as a whole in memory for one cadence
+ * since they were last accessed, up to a maximum number of results. Concurrent identical requests
+ * share a single load.
+ */
+public abstract class SlicedQueryCache implements QueryCache {
+    private static final QueryTrace.Identifier LOAD =
+        QueryTrace.identifier(SlicedQueryCache.class, "load");
+
+    protected final Clock clock;
+    protected final AsyncFramework async;
+    protected final QueryReporter reporter;
+    private final long bucketsPerSlice;
+    private final long finalizeDelay;
+    private final int maxWholeResults;
+
+    private final ConcurrentMap<PendingKey, AsyncFuture<QueryResult>> pending =
+        new ConcurrentHashMap<>();
+    private final ExpiringMap<PendingKey, AsyncFuture<QueryResult>> whole =
+        ExpiringMap.builder().variableExpiration().build();
+
+    protected SlicedQueryCache(
+        final Clock clock, final AsyncFramework async, final QueryReporter reporter,
+        final long bucketsPerSlice, final long finalizeDelay, final int maxWholeResults
+    ) {
+        this.clock = clock;
+        this.async = async;
+        this.reporter = reporter;
+        this.bucketsPerSlice = bucketsPerSlice;
+        this.finalizeDelay = finalizeDelay;
+        this.maxWholeResults = maxWholeResults;
+    }
+
+    /**
+     * Look up the given slices.
+     *
+     * @return A future which resolves to one entry for each key, in the same order.
+     */
+    protected abstract AsyncFuture<List<Optional<Slice>>> lookup(List<SliceKey> keys);
+
+    /**
+     * Store the given slice, which covers the range {@code (key.start, end]}.
+     */
+    protected abstract void store(SliceKey key, long end, Slice slice);
+
+    @Override
+    public AsyncFuture<QueryResult> load(
+        final FullQuery.Request request,
+        final Function<FullQuery.Request, AsyncFuture<QueryResult>> loader
+    ) {
+        final AggregationInstance aggregation = request.getAggregation();
+        final long cadence = aggregation.cadence();
+        final DateRange range = request.getRange();
+
+        /* can't be cached :( */
+        if (cadence <= 0) {
+            return loader.apply(request);
+        }
+
+        if (!aggregation.sliceable() || range.getStart() % cadence != 0 ||
+            range.getEnd() % cadence != 0) {
+            return loadWhole(request, loader);
+        }
+
+        final long width = cadence * bucketsPerSlice;
+        /* buckets with a timestamp up until this point are not expected to change */
+        final long finalized = clock.currentTimeMillis() - finalizeDelay;
+
+        final RequestKey key = RequestKey.of(request);
+        final List<SliceKey> keys = new ArrayList<>();
+
+        long start = Math.floorDiv(range.getStart(), width) * width;
+
+        while (start < range.getEnd() && start + width <= finalized) {
+            keys.add(new SliceKey(key, start));
+            start += width;
+        }
+
+        /* no part of the range can be cached in slices */
+        if (keys.isEmpty()) {
+            return loadWhole(request, loader);
+        }
+
+        final PendingKey pendingKey = new PendingKey(key, range);
+        final ResolvableFuture<QueryResult> future = async.future();
+        final AsyncFuture<QueryResult> existing = pending.putIfAbsent(pendingKey, future);
+
+        if (existing != null) {
+            return follow(existing);
+        }
+
+        future.onFinished(() -> pending.remove(pendingKey, future));
+
+        final long tail = start;
+
+        lookup(keys)
+            .lazyTransform(slices -> loadParts(request, keys, slices, tail, width, loader))
+            .onDone(forward(future));
+
+        return follow(future);
+    }
+
+    /**
+     * Cache the result of the whole request, for one cadence since it was last accessed.
+     * <p>
+     * If {@link #maxWholeResults} results are already cached, the request is loaded without being
+     * cached until some of them have expired.
+     */
+    private AsyncFuture<QueryResult> loadWhole(
+        final FullQuery.Request request,
+        final Function<FullQuery.Request, AsyncFuture<QueryResult>> loader
+    ) {
+        final PendingKey key = new PendingKey(RequestKey.of(request), request.getRange());
+        final AsyncFuture<QueryResult> existing = whole.get(key);
+
+        if (existing != null) {
+            reporter.reportCacheHit();
+            return follow(existing);
+        }
+
+        final ResolvableFuture<QueryResult> future = async.future();
+
+        synchronized (whole) {
+            final AsyncFuture<QueryResult> raced = whole.get(key);
+
+            if (raced != null) {
+                reporter.reportCacheHit();
+                return follow(raced);
+            }
+
+            if (whole.size() >= maxWholeResults) {
+                reporter.reportCacheMiss();
+                return loader.apply(request);
+            }
+
+            whole.put(key, future, ExpirationPolicy.ACCESSED, request.getAggregation().cadence(),
+                TimeUnit.MILLISECONDS);
+        }
+
+        reporter.reportCacheMiss();
+
+        /* failed results are not kept */
+        future.onFailed(e -> whole.remove(key, future));
+        future.onCancelled(() -> whole.remove(key, future));
+
+        loader.apply(request).onDone(forward(future));
+        return follow(future);
+    }
+
+    /**
+     * Build a future which completes with the given shared future, but which can be cancelled
+     * without cancelling the shared future for every other caller.
+     */
+    private AsyncFuture<QueryResult> follow(final AsyncFuture<QueryResult> shared) {
+        final ResolvableFuture<QueryResult> future = async.future();
+        shared.onDone(forward(future));
+        return future;
+    }
+
+    private static FutureDone<QueryResult> forward(final ResolvableFuture<QueryResult> target) {
+        return new FutureDone<QueryResult>() {
+            @Override
+            public void failed(final Throwable cause) throws Exception {
+                target.fail(cause);
+            }
+
+            @Override
+            public void resolved(final QueryResult result) throws Exception {
+                target.resolve(result);
+            }
+
+            @Override
+            public void cancelled() throws Exception {
+                target.cancel();
+            }
+        };
+    }
+
+    private AsyncFuture<QueryResult> loadParts(
+        final FullQuery.Request request, final List<SliceKey> keys,
+        final List<Optional<Slice>> slices, final long tail, final long width,
+        final Function<FullQuery.Request, AsyncFuture<QueryResult>> loader
+    ) {
+        final DateRange range = request.getRange();
+        final List<AsyncFuture<Part>> parts = new ArrayList<>();
+
+        Optional<SliceKey> missing = Optional.empty();
+
+        for (int i = 0; i < keys.size(); i++) {
+            final SliceKey key = keys.get(i);
+            final Optional<Slice> slice = slices.get(i);
+
+            if (!slice.isPresent()) {
+                reporter.reportCacheMiss();
+                missing = Optional.of(missing.orElse(key));
+                continue;
+            }
+
+            reporter.reportCacheHit();
+
+            if (missing.isPresent()) {
+                parts.add(loadSlices(missing.get(), request, key.getStart(), width, loader));
+                missing = Optional.empty();
+            }
+
+            parts.add(async.resolved(new Part(slice.get().getGroups(), Optional.empty())));
+        }
+
+        if (missing.isPresent()) {
+            parts.add(loadSlices(missing.get(), request, tail, width, loader));
+        }
+
+        if (tail < range.getEnd()) {
+            final DateRange rest = new DateRange(Math.max(tail, range.getStart()), range.getEnd());
+
+            parts.add(loader
+                .apply(request.withRange(rest))
+                .directTransform(result -> new Part(result.getGroups(), Optional.of(result))));
+        }
+
+        final QueryTrace.NamedWatch watch = request.getOptions().tracing().watch(LOAD);
+
+        return async.collect(parts).directTransform(all -> assemble(range, all, watch));
+    }
+
+    /**
+     * Load the range of slices starting at the given key from the backends, and store them.
+     */
+    private AsyncFuture<Part> loadSlices(
+        final SliceKey first, final FullQuery.Request request, final long end, final long width,
+        final Function<FullQuery.Request, AsyncFuture<QueryResult>> loader
+    ) {
+        final long start = first.getStart();
+        final DateRange range = new DateRange(start, end);
+
+        return loader.apply(request.withRange(range)).directTransform(result -> {
+            final Part part = new Part(result.getGroups(), Optional.of(result));
+
+            if (part.isCacheable()) {
+                for (final Map.Entry<Long, Slice> e : split(result, start, end, width).entrySet()) {
+                    final long s = e.getKey();
+                    store(new SliceKey(first.getRequest(), s), s + width, e.getValue());
+                }
+            }
+
+            return part;
+        });
+    }
+
+    /**
+     * Split the result into slices.
+     * <p>
+     * A bucket belongs to the slice which contains its timestamp, where each slice covers the
+     * range {@code (start, start + width]}.
+     */
+    static Map<Long, Slice> split(
+        final QueryResult result, final long start, final long end, final long width
+    ) {
+        final Map<Long, List<ShardedResultGroup>> groups = new TreeMap<>();
+
+        for (long s = start; s < end; s += width) {
+            groups.put(s, new ArrayList<>());
+        }
+
+        for (final ShardedResultGroup g : result.getGroups()) {
+            final Map<Long, List<Metric>> data = new TreeMap<>();
+
+            for (final Metric m : g.getMetrics().getData()) {
+                final long t = m.getTimestamp();
+
+                if (t <= start || t > end) {
+                    continue;
+                }
+
+                final long slice = Math.floorDiv(t - 1, width) * width;
+                data.computeIfAbsent(slice, s -> new ArrayList<>()).add(m);
+            }
+
+            final MetricType type = g.getMetrics().getType();
+
+            for (final Map.Entry<Long, List<Metric>> e : data.entrySet()) {
+                groups
+                    .get(e.getKey())
+                    .add(new ShardedResultGroup(g.getShard(), g.getKey(), g.getSeries(),
+                        MetricCollection.build(type, e.getValue()), g.getCadence()));
+            }
+        }
+
+        final Map<Long, Slice> slices = new TreeMap<>();
+
+        for (final Map.Entry<Long, List<ShardedResultGroup>> e : groups.entrySet()) {
+            slices.put(e.getKey(), Slice.of(e.getValue()));
+        }
+
+        return slices;
+    }
+
+    /**
+     * Assemble the parts into a single result for the given range.
+     */
+    static QueryResult assemble(
+        final DateRange range, final Collection<Part> parts, final QueryTrace.NamedWatch watch
+    ) {
+        final Map<GroupId, GroupBuilder> builders = new LinkedHashMap<>();
+        final List<QueryTrace> traces = new ArrayList<>();
+        /* the same error might be reported for several parts */
+        final Set<RequestError> errors = new LinkedHashSet<>();
+        ResultLimits limits = ResultLimits.of();
+        long preAggregationSampleSize = 0L;
+
+        for (final Part part : parts) {
+            if (part.getLoaded().isPresent()) {
+                final QueryResult loaded = part.getLoaded().get();
+                traces.add(loaded.getTrace());
+                errors.addAll(loaded.getErrors());
+                limits = limits.join(loaded.getLimits());
+                preAggregationSampleSize += loaded.getPreAggregationSampleSize();
+            }
+
+            for (final ShardedResultGroup g : part.getGroups()) {
+                builders
+                    .computeIfAbsent(new GroupId(g.getShard(), g.getKey()),
+                        id -> new GroupBuilder(g.getMetrics().getType(), g.getCadence()))
+                    .add(g.getSeries(), trim(g.getMetrics(), range));
+            }
+        }
+
+        final List<ShardedResultGroup> groups = new ArrayList<>();
+
+        for (final Map.Entry<GroupId, GroupBuilder> e : builders.entrySet()) {
+            final GroupId id = e.getKey();
+            final GroupBuilder b = e.getValue();
+            final MetricCollection metrics = MetricCollection.mergeSorted(b.type, b.collections);
+
+            if (metrics.isEmpty()) {
+                continue;
+            }
+
+            groups.add(new ShardedResultGroup(id.getShard(), id.getKey(), b.series, metrics,
+                b.cadence));
+        }
+
+        return new QueryResult(range, groups, ImmutableList.copyOf(errors), watch.end(traces),
+            limits, preAggregationSampleSize);
+    }
+
+    /**
+     * Only keep the buckets that belong to the given range, which are the ones in {@code (start,
+     * end]}.
+     */
+    static MetricCollection trim(final MetricCollection metrics, final DateRange range) {
+        final List<? extends Metric> data = metrics.getData();
+
+        if (data.isEmpty() || (data.get(0).getTimestamp() > range.getStart() &&
+            data.get(data.size() - 1).getTimestamp() <= range.getEnd())) {
+            return metrics;
+        }
+
+        final List<Metric> trimmed = new ArrayList<>();
+
+        for (final Metric m : data) {
+            if (m.getTimestamp() > range.getStart() && m.getTimestamp() <= range.getEnd()) {
+                trimmed.add(m);
+            }
+        }
+
+        return MetricCollection.build(metrics.getType(), trimmed);
+    }
+
+    /**
+     * Everything in a request except the range and the context of the query.
+     */
+    @Data
+    public static class RequestKey {
+        private final MetricType source;
+        private final Filter filter;
+        private final AggregationInstance aggregation;
+        private final QueryOptions options;
+        private final Features features;
+
+        static RequestKey of(final FullQuery.Request request) {
+            return new RequestKey(request.getSource(), request.getFilter(),
+                request.getAggregation(), request.getOptions(), request.getFeatures());
+        }
+    }
+
+    @Data
+    public static class SliceKey {
+        private final RequestKey request;
+        private final long start;
+    }
+
+    @Data
+    public static class Slice {
+        private final List<ShardedResultGroup> groups;
+        private final int weight;
+
+        public static Slice of(final List<ShardedResultGroup> groups) {
+            long weight = 1L;
+
+            for (final ShardedResultGroup g : groups) {
+                weight += g.getMetrics().size() + 1;
+            }
+
+            return new Slice(groups, (int) Math.min(weight, Integer.MAX_VALUE));
+        }
+    }
+
+    @Data
+    static class PendingKey {
+        private final RequestKey request;
+        private final DateRange range;
+    }
+
+    /**
+     * A part of the result, either served from cache, or loaded from the backends.
+     */
+    @Data
+    static class Part {
+        private final List<ShardedResultGroup> groups;
+        private final Optional<QueryResult> loaded;
+
+        boolean isCacheable() {
+            return loaded
+                .map(r -> r.getErrors().isEmpty() && r.getLimits().getLimits().isEmpty())
+                .orElse(true);
+        }
+    }
+
+    @Data
+    static class GroupId {
+        private final Map<String, String> shard;
+        private final Map<String, String> key;
+    }
+
+    static class GroupBuilder {
+        private final MetricType type;
+        private final long cadence;
+        private final Set<Series> series = new HashSet<>();
+        private final List<MetricCollection> collections = new ArrayList<>();
+
+        GroupBuilder(final MetricType type, final long cadence) {
+            this.type = type;
+            this.cadence = cadence;
+        }
+
+        void add(final Set<Series> series, final MetricCollection metrics) {
+            this.series.addAll(series);
+            this.collections.add(metrics);
+        }
+    }
+}
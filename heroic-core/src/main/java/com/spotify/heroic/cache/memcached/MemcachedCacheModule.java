@@ -21,34 +21,233 @@
 
 package com.spotify.heroic.cache.memcached;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import com.google.common.net.HostAndPort;
 import com.spotify.heroic.cache.CacheComponent;
 import com.spotify.heroic.cache.CacheModule;
 import com.spotify.heroic.cache.CacheScope;
-import com.spotify.heroic.cache.memory.MemoryQueryCache;
+import com.spotify.heroic.common.Duration;
 import com.spotify.heroic.dagger.PrimaryComponent;
+import com.spotify.heroic.lifecycle.LifeCycle;
+import com.spotify.heroic.lifecycle.LifeCycleManager;
+import com.spotify.heroic.statistics.HeroicReporter;
+import com.spotify.heroic.statistics.QueryReporter;
 import dagger.Component;
+import dagger.Module;
+import dagger.Provides;
+import eu.toolchain.async.AsyncFramework;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.inject.Named;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
 
+@ToString
+@RequiredArgsConstructor
+@Module
 public class MemcachedCacheModule implements CacheModule {
+    public static final int DEFAULT_PORT = 11211;
+    public static final List<String> DEFAULT_ADDRESSES = ImmutableList.of("localhost");
+    public static final String DEFAULT_PREFIX = "heroic:";
+    public static final int DEFAULT_CONNECTIONS = 4;
+    public static final Duration DEFAULT_TIMEOUT = Duration.of(500, TimeUnit.MILLISECONDS);
+    public static final long DEFAULT_BUCKETS_PER_SLICE = 60L;
+    public static final Duration DEFAULT_FINALIZE_DELAY = Duration.of(1, TimeUnit.MINUTES);
+    public static final Duration DEFAULT_MAX_TTL = Duration.of(1, TimeUnit.DAYS);
+
+    /**
+     * Maximum number of results to keep in memory which are not cached in slices.
+     */
+    public static final int DEFAULT_MAX_WHOLE_RESULTS = 1000;
+
+    private final List<HostAndPort> addresses;
+    private final String prefix;
+    private final int connections;
+    private final Duration timeout;
+    private final long bucketsPerSlice;
+    private final Duration finalizeDelay;
+    private final Duration maxTtl;
+    private final int maxWholeResults;
+
     @Override
     public CacheComponent module(PrimaryComponent primary) {
-        return DaggerMemcachedCacheModule_C.builder().primaryComponent(primary).build();
+        return DaggerMemcachedCacheModule_C
+            .builder()
+            .primaryComponent(primary)
+            .memcachedCacheModule(this)
+            .build();
+    }
+
+    @Provides
+    @CacheScope
+    public QueryReporter reporter(final HeroicReporter reporter) {
+        return reporter.newQueryReporter();
+    }
+
+    @Provides
+    @CacheScope
+    public MemcachedClient client(final AsyncFramework async) {
+        return new MemcachedClient(async, addresses, connections, (int) timeout.toMilliseconds());
+    }
+
+    @Provides
+    @CacheScope
+    @Named("prefix")
+    String prefix() {
+        return prefix;
+    }
+
+    @Provides
+    @CacheScope
+    @Named("bucketsPerSlice")
+    long bucketsPerSlice() {
+        return bucketsPerSlice;
+    }
+
+    @Provides
+    @CacheScope
+    @Named("finalizeDelay")
+    Duration finalizeDelay() {
+        return finalizeDelay;
+    }
+
+    @Provides
+    @CacheScope
+    @Named("maxTtl")
+    Duration maxTtl() {
+        return maxTtl;
+    }
+
+    @Provides
+    @CacheScope
+    @Named("maxWholeResults")
+    int maxWholeResults() {
+        return maxWholeResults;
+    }
+
+    @Provides
+    @CacheScope
+    @Named("cache")
+    LifeCycle cacheLife(final LifeCycleManager manager, final MemcachedQueryCache cache) {
+        return manager.build(cache);
     }
 
     @CacheScope
-    @Component(dependencies = PrimaryComponent.class)
+    @Component(modules = MemcachedCacheModule.class, dependencies = PrimaryComponent.class)
     interface C extends CacheComponent {
         @Override
-        MemoryQueryCache queryCache();
+        MemcachedQueryCache queryCache();
+
+        @Override
+        @Named("cache")
+        LifeCycle cacheLife();
     }
 
     public static Builder builder() {
         return new Builder();
     }
 
+    @NoArgsConstructor
     public static class Builder implements CacheModule.Builder {
+        private Optional<List<String>> addresses = Optional.empty();
+        private Optional<String> prefix = Optional.empty();
+        private Optional<Integer> connections = Optional.empty();
+        private Optional<Duration> timeout = Optional.empty();
+        private Optional<Long> bucketsPerSlice = Optional.empty();
+        private Optional<Duration> finalizeDelay = Optional.empty();
+        private Optional<Duration> maxTtl = Optional.empty();
+        private Optional<Integer> maxWholeResults = Optional.empty();
+
+        @JsonCreator
+        public Builder(
+            @JsonProperty("addresses") Optional<List<String>> addresses,
+            @JsonProperty("prefix") Optional<String> prefix,
+            @JsonProperty("connections") Optional<Integer> connections,
+            @JsonProperty("timeout") Optional<Duration> timeout,
+            @JsonProperty("bucketsPerSlice") Optional<Long> bucketsPerSlice,
+            @JsonProperty("finalizeDelay") Optional<Duration> finalizeDelay,
+            @JsonProperty("maxTtl") Optional<Duration> maxTtl,
+            @JsonProperty("maxWholeResults") Optional<Integer> maxWholeResults
+        ) {
+            this.addresses = addresses;
+            this.prefix = prefix;
+            this.connections = connections;
+            this.timeout = timeout;
+            this.bucketsPerSlice = bucketsPerSlice;
+            this.finalizeDelay = finalizeDelay;
+            this.maxTtl = maxTtl;
+            this.maxWholeResults = maxWholeResults;
+        }
+
+        public Builder addresses(List<String> addresses) {
+            this.addresses = Optional.of(addresses);
+            return this;
+        }
+
+        public Builder prefix(String prefix) {
+            this.prefix = Optional.of(prefix);
+            return this;
+        }
+
+        public Builder connections(int connections) {
+            this.connections = Optional.of(connections);
+            return this;
+        }
+
+        public Builder timeout(Duration timeout) {
+            this.timeout = Optional.of(timeout);
+            return this;
+        }
+
+        public Builder bucketsPerSlice(long bucketsPerSlice) {
+            this.bucketsPerSlice = Optional.of(bucketsPerSlice);
+            return this;
+        }
+
+        public Builder finalizeDelay(Duration finalizeDelay) {
+            this.finalizeDelay = Optional.of(finalizeDelay);
+            return this;
+        }
+
+        public Builder maxTtl(Duration maxTtl) {
+            this.maxTtl = Optional.of(maxTtl);
+            return this;
+        }
+
+        public Builder maxWholeResults(int maxWholeResults) {
+            this.maxWholeResults = Optional.of(maxWholeResults);
+            return this;
+        }
+
         @Override
-        public CacheModule build() {
-            return new MemcachedCacheModule();
+        public MemcachedCacheModule build() {
+            final List<HostAndPort> addresses = this.addresses
+                .orElse(DEFAULT_ADDRESSES)
+                .stream()
+                .map(a -> HostAndPort.fromString(a).withDefaultPort(DEFAULT_PORT))
+                .collect(Collectors.toList());
+
+            final long bucketsPerSlice = this.bucketsPerSlice.orElse(DEFAULT_BUCKETS_PER_SLICE);
+
+            if (bucketsPerSlice < 1) {
+                throw new IllegalStateException("'bucketsPerSlice' must be positive");
+            }
+
+            final int maxWholeResults = this.maxWholeResults.orElse(DEFAULT_MAX_WHOLE_RESULTS);
+
+            if (maxWholeResults < 0) {
+                throw new IllegalStateException("'maxWholeResults' must not be negative");
+            }
+
+            return new MemcachedCacheModule(addresses, prefix.orElse(DEFAULT_PREFIX),
+                connections.orElse(DEFAULT_CONNECTIONS), timeout.orElse(DEFAULT_TIMEOUT),
+                bucketsPerSlice, finalizeDelay.orElse(DEFAULT_FINALIZE_DELAY),
+                maxTtl.orElse(DEFAULT_MAX_TTL), maxWholeResults);
         }
     }
 }
@@ -0,0 +1,392 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.cache.memcached;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.net.HostAndPort;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A minimal client for the memcached text protocol.
+ * <p>
+ * Keys are distributed over the configured servers using consistent hashing, so that adding or
+ * removing a server only moves the keys of that server. Requests are blocking, and are run on a
+ * dedicated executor with one thread for each connection, using a small pool of connections for
+ * each server.
+ */
+@Slf4j
+public class MemcachedClient implements Closeable {
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    /**
+     * Largest value accepted by a default memcached configuration.
+     */
+    public static final int MAX_VALUE_SIZE = 1024 * 1024;
+
+    /**
+     * Number of points that each server has on the hash ring.
+     */
+    static final int POINTS_PER_SERVER = 160;
+
+    /**
+     * Hash function used for the ring, must be stable across processes.
+     */
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final AsyncFramework async;
+    private final ExecutorService executor;
+    private final List<Server> servers;
+    private final NavigableMap<Long, Server> ring;
+
+    public MemcachedClient(
+        final AsyncFramework async, final List<HostAndPort> addresses, final int connections,
+        final int timeout
+    ) {
+        if (addresses.isEmpty()) {
+            throw new IllegalArgumentException("at least one address is required");
+        }
+
+        if (connections < 1) {
+            throw new IllegalArgumentException("connections must be positive: " + connections);
+        }
+
+        this.async = async;
+        this.executor = Executors.newFixedThreadPool(addresses.size() * connections,
+            new ThreadFactoryBuilder()
+                .setNameFormat("heroic-memcached-%d")
+                .setDaemon(true)
+                .build());
+
+        final List<Server> servers = new ArrayList<>(addresses.size());
+
+        for (final HostAndPort address : addresses) {
+            servers.add(new Server(address, connections, timeout));
+        }
+
+        this.servers = servers;
+        this.ring = ring(servers, s -> s.address.toString());
+    }
+
+    /**
+     * Get the values of the given keys.
+     *
+     * @return A future which resolves to the values that were found.
+     */
+    public AsyncFuture<Map<String, byte[]>> get(final List<String> keys) {
+        final Map<Server, List<String>> byServer = new LinkedHashMap<>();
+        final List<AsyncFuture<Map<String, byte[]>>> futures = new ArrayList<>();
+
+        try {
+            for (final String key : keys) {
+                byServer.computeIfAbsent(server(key), s -> new ArrayList<>()).add(key);
+            }
+
+            for (final Map.Entry<Server, List<String>> e : byServer.entrySet()) {
+                final Server server = e.getKey();
+                final List<String> serverKeys = e.getValue();
+                futures.add(async.call(() -> server.get(serverKeys), executor));
+            }
+        } catch (final Exception e) {
+            return async.failed(e);
+        }
+
+        return async.collect(futures).directTransform(results -> {
+            final Map<String, byte[]> values = new HashMap<>();
+            results.forEach(values::putAll);
+            return values;
+        });
+    }
+
+    /**
+     * Store the given value.
+     *
+     * @param ttl Time to live of the value in seconds, must not be more than 30 days.
+     */
+    public AsyncFuture<Void> set(final String key, final int ttl, final byte[] value) {
+        try {
+            final Server server = server(key);
+
+            return async.call(() -> {
+                server.set(key, ttl, value);
+                return null;
+            }, executor);
+        } catch (final Exception e) {
+            return async.failed(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+
+        for (final Server server : servers) {
+            server.close();
+        }
+    }
+
+    private Server server(final String key) {
+        return locate(ring, key);
+    }
+
+    /**
+     * Build a hash ring where each node is placed at {@link #POINTS_PER_SERVER} points, based on
+     * its name.
+     */
+    static <T> NavigableMap<Long, T> ring(final List<T> nodes, final Function<T, String> name) {
+        final NavigableMap<Long, T> ring = new TreeMap<>();
+
+        for (final T node : nodes) {
+            final String base = name.apply(node);
+
+            for (int i = 0; i < POINTS_PER_SERVER; i++) {
+                ring.put(hash(base + "-" + i), node);
+            }
+        }
+
+        return ring;
+    }
+
+    /**
+     * Locate the node responsible for the given key, which is the first node at or after the hash
+     * of the key on the ring.
+     */
+    static <T> T locate(final NavigableMap<Long, T> ring, final String key) {
+        final Map.Entry<Long, T> entry = ring.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    private static long hash(final String value) {
+        return HASH.hashString(value, StandardCharsets.UTF_8).asLong();
+    }
+
+    static class Server {
+        private final HostAndPort address;
+        private final int timeout;
+        private final BlockingQueue<Connection> idle;
+
+        Server(final HostAndPort address, final int connections, final int timeout) {
+            this.address = address;
+            this.timeout = timeout;
+            this.idle = new ArrayBlockingQueue<>(connections);
+        }
+
+        Map<String, byte[]> get(final List<String> keys) throws IOException {
+            return request(c -> c.get(keys));
+        }
+
+        void set(final String key, final int ttl, final byte[] value) throws IOException {
+            request(c -> {
+                c.set(key, ttl, value);
+                return null;
+            });
+        }
+
+        void close() {
+            Connection c;
+
+            while ((c = idle.poll()) != null) {
+                c.close();
+            }
+        }
+
+        private <T> T request(final Request<T> request) throws IOException {
+            Connection c = idle.poll();
+
+            if (c == null) {
+                c = Connection.open(address, timeout);
+            }
+
+            final T result;
+
+            try {
+                result = request.apply(c);
+            } catch (final Exception e) {
+                /* the state of the connection is unknown */
+                c.close();
+                throw e;
+            }
+
+            if (!idle.offer(c)) {
+                c.close();
+            }
+
+            return result;
+        }
+    }
+
+    interface Request<T> {
+        T apply(Connection connection) throws IOException;
+    }
+
+    static class Connection {
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+
+        Connection(final Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        static Connection open(final HostAndPort address, final int timeout) throws IOException {
+            final Socket socket = new Socket();
+
+            try {
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout(timeout);
+                socket.connect(new InetSocketAddress(address.getHostText(), address.getPort()),
+                    timeout);
+                return new Connection(socket);
+            } catch (final IOException e) {
+                socket.close();
+                throw e;
+            }
+        }
+
+        Map<String, byte[]> get(final List<String> keys) throws IOException {
+            final StringBuilder command = new StringBuilder("get");
+
+            for (final String key : keys) {
+                command.append(' ').append(key);
+            }
+
+            writeLine(command.toString());
+            out.flush();
+
+            final Map<String, byte[]> values = new HashMap<>();
+
+            while (true) {
+                final String line = readLine();
+
+                if ("END".equals(line)) {
+                    return values;
+                }
+
+                /* VALUE <key> <flags> <bytes> */
+                final String[] parts = line.split(" ");
+
+                if (parts.length < 4 || !"VALUE".equals(parts[0])) {
+                    throw new IOException("unexpected response: " + line);
+                }
+
+                final byte[] value = readBytes(Integer.parseInt(parts[3]));
+                values.put(parts[1], value);
+            }
+        }
+
+        void set(final String key, final int ttl, final byte[] value) throws IOException {
+            writeLine("set " + key + " 0 " + ttl + " " + value.length);
+            out.write(value);
+            out.write(CRLF);
+            out.flush();
+
+            final String line = readLine();
+
+            if (!"STORED".equals(line)) {
+                throw new IOException("failed to store '" + key + "': " + line);
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (final IOException e) {
+                log.warn("Failed to close connection", e);
+            }
+        }
+
+        private void writeLine(final String line) throws IOException {
+            out.write(line.getBytes(StandardCharsets.US_ASCII));
+            out.write(CRLF);
+        }
+
+        private String readLine() throws IOException {
+            final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+            while (true) {
+                final int b = in.read();
+
+                if (b < 0) {
+                    throw new IOException("connection closed");
+                }
+
+                if (b == '\r') {
+                    if (in.read() != '\n') {
+                        throw new IOException("malformed line");
+                    }
+
+                    return new String(line.toByteArray(), StandardCharsets.US_ASCII);
+                }
+
+                line.write(b);
+            }
+        }
+
+        private byte[] readBytes(final int length) throws IOException {
+            final byte[] bytes = new byte[length];
+            int offset = 0;
+
+            while (offset < length) {
+                final int read = in.read(bytes, offset, length - offset);
+
+                if (read < 0) {
+                    throw new IOException("connection closed");
+                }
+
+                offset += read;
+            }
+
+            if (in.read() != '\r' || in.read() != '\n') {
+                throw new IOException("malformed value");
+            }
+
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.cache.memcached;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.spotify.heroic.QueryOptions;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.cache.CacheScope;
+import com.spotify.heroic.cache.SlicedQueryCache;
+import com.spotify.heroic.common.Duration;
+import com.spotify.heroic.common.Feature;
+import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.lifecycle.LifeCycleRegistry;
+import com.spotify.heroic.lifecycle.LifeCycles;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.statistics.QueryReporter;
+import com.spotify.heroic.time.Clock;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Named;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A query cache which stores finalized result slices in memcached, so that they are shared between
+ * all API nodes.
+ * <p>
+ * Slices are stored using {@link SliceEncoding}, under a key derived from a hash of the request.
+ * The longer a slice has been finalized, the less likely it is to change. Because of this, slices
+ * are kept for as long as they have been finalized, but for at least the width of one slice and at
+ * most {@code maxTtl}.
+ * <p>
+ * Failures to communicate with memcached are treated as misses.
+ */
+@Slf4j
+@CacheScope
+public class MemcachedQueryCache extends SlicedQueryCache implements LifeCycles {
+    private static final HashFunction HASH = Hashing.sha256();
+
+    /**
+     * Expiration times above this are interpreted as absolute timestamps by memcached.
+     */
+    static final long MAX_TTL = TimeUnit.DAYS.toSeconds(30);
+
+    private final MemcachedClient client;
+    private final ObjectMapper mapper;
+    private final String prefix;
+    private final long bucketsPerSlice;
+    private final long maxTtl;
+
+    @Inject
+    public MemcachedQueryCache(
+        final Clock clock, final AsyncFramework async, final QueryReporter reporter,
+        final MemcachedClient client,
+        @Named("application/json+internal") final ObjectMapper mapper,
+        @Named("prefix") final String prefix, @Named("bucketsPerSlice") final long bucketsPerSlice,
+        @Named("finalizeDelay") final Duration finalizeDelay,
+        @Named("maxTtl") final Duration maxTtl,
+        @Named("maxWholeResults") final int maxWholeResults
+    ) {
+        super(clock, async, reporter, bucketsPerSlice, finalizeDelay.toMilliseconds(),
+            maxWholeResults);
+        this.client = client;
+        this.mapper = mapper;
+        this.prefix = prefix;
+        this.bucketsPerSlice = bucketsPerSlice;
+        this.maxTtl = Math.min(maxTtl.convert(TimeUnit.SECONDS), MAX_TTL);
+    }
+
+    @Override
+    public void register(final LifeCycleRegistry registry) {
+        registry.stop(() -> async.call(() -> {
+            client.close();
+            return null;
+        }));
+    }
+
+    @Override
+    protected AsyncFuture<List<Optional<Slice>>> lookup(final List<SliceKey> keys) {
+        final Map<RequestKey, String> hashes = new HashMap<>();
+        final List<String> ids = new ArrayList<>(keys.size());
+
+        for (final SliceKey key : keys) {
+            ids.add(id(hashes.computeIfAbsent(key.getRequest(), this::hash), key.getStart()));
+        }
+
+        return client.get(ids).directTransform(values -> decode(ids, values)).catchFailed(e -> {
+            log.warn("Failed to look up slices in memcached: {}", e.toString());
+
+            final List<Optional<Slice>> missing = new ArrayList<>(ids.size());
+
+            for (int i = 0; i < ids.size(); i++) {
+                missing.add(Optional.empty());
+            }
+
+            return missing;
+        });
+    }
+
+    @Override
+    protected void store(final SliceKey key, final long end, final Slice slice) {
+        final Optional<byte[]> value = SliceEncoding.encode(slice);
+
+        if (!value.isPresent() || value.get().length > MemcachedClient.MAX_VALUE_SIZE) {
+            return;
+        }
+
+        final long width = key.getRequest().getAggregation().cadence() * bucketsPerSlice;
+        final int ttl = (int) ttl(clock.currentTimeMillis(), end, width, maxTtl);
+
+        client
+            .set(id(hash(key.getRequest()), key.getStart()), ttl, value.get())
+            .onFailed(e -> log.warn("Failed to store slice in memcached: {}", e.toString()));
+    }
+
+    /**
+     * Calculate the time to live in seconds for a slice ending at the given timestamp.
+     */
+    static long ttl(final long now, final long end, final long width, final long maxTtl) {
+        final long age = TimeUnit.MILLISECONDS.toSeconds(now - end);
+        final long min = Math.max(TimeUnit.MILLISECONDS.toSeconds(width), 1L);
+        return Math.min(Math.max(age, min), Math.max(maxTtl, 1L));
+    }
+
+    String id(final String hash, final long start) {
+        return prefix + SliceEncoding.VERSION + ":" + hash + ":" + start;
+    }
+
+    /**
+     * Hash the given request.
+     * <p>
+     * Memcached keys are limited in size and must not contain whitespace, so the request is
+     * serialized and hashed.
+     */
+    String hash(final RequestKey r) {
+        final HashedKey hashed =
+            new HashedKey(r.getSource(), r.getFilter(), r.getAggregation(), r.getOptions(),
+                new TreeSet<>(r.getFeatures().value()));
+
+        final byte[] bytes;
+
+        try {
+            bytes = mapper.writeValueAsBytes(hashed);
+        } catch (final JsonProcessingException e) {
+            throw new RuntimeException("failed to serialize cache key", e);
+        }
+
+        return HASH.hashBytes(bytes).toString();
+    }
+
+    private List<Optional<Slice>> decode(
+        final List<String> ids, final Map<String, byte[]> values
+    ) {
+        final List<Optional<Slice>> slices = new ArrayList<>(ids.size());
+
+        for (final String id : ids) {
+            final byte[] value = values.get(id);
+
+            if (value == null) {
+                slices.add(Optional.empty());
+                continue;
+            }
+
+            try {
+                slices.add(Optional.of(SliceEncoding.decode(value)));
+            } catch (final IllegalArgumentException e) {
+                log.warn("Ignoring invalid slice: {}", id, e);
+                slices.add(Optional.empty());
+            }
+        }
+
+        return slices;
+    }
+
+    /**
+     * Serialized form of a request key. Features are sorted, so that the serialized form is
+     * stable.
+     */
+    @Data
+    static class HashedKey {
+        private final MetricType source;
+        private final Filter filter;
+        private final AggregationInstance aggregation;
+        private final QueryOptions options;
+        private final SortedSet<Feature> features;
+    }
+}
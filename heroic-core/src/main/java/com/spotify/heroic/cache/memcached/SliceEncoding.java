@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.cache.memcached;
+
+import static com.spotify.heroic.common.VarInts.readVarLong;
+import static com.spotify.heroic.common.VarInts.unZigZag;
+import static com.spotify.heroic.common.VarInts.writeVarLong;
+import static com.spotify.heroic.common.VarInts.zigZag;
+
+import com.spotify.heroic.cache.SlicedQueryCache.Slice;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.ColumnarPointCollection;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.ShardedResultGroup;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Compact binary encoding of cached slices.
+ * <p>
+ * Timestamps are delta-encoded as variable length integers, which typically makes them take one or
+ * two bytes each since buckets are evenly spaced. Values are stored as raw doubles.
+ * <p>
+ * Only groups of points are supported, slices containing other types are not stored.
+ */
+public final class SliceEncoding {
+    static final byte VERSION = 1;
+
+    private SliceEncoding() {
+    }
+
+    /**
+     * Encode the given slice.
+     *
+     * @return The encoded slice, or empty if the slice contains unsupported types.
+     */
+    public static Optional<byte[]> encode(final Slice slice) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+
+        try {
+            out.writeByte(VERSION);
+            writeVarLong(out, slice.getGroups().size());
+
+            for (final ShardedResultGroup g : slice.getGroups()) {
+                if (g.getMetrics().getType() != MetricType.POINT) {
+                    return Optional.empty();
+                }
+
+                writeMap(out, g.getShard());
+                writeMap(out, g.getKey());
+                writeVarLong(out, g.getSeries().size());
+
+                for (final Series s : g.getSeries()) {
+                    writeString(out, s.getKey());
+                    writeMap(out, s.getTags());
+                }
+
+                writeVarLong(out, g.getCadence());
+                writePoints(out, g.getMetrics());
+            }
+        } catch (final IOException e) {
+            throw new RuntimeException("failed to encode slice", e);
+        }
+
+        return Optional.of(bytes.toByteArray());
+    }
+
+    /**
+     * Decode a slice that was encoded using {@link #encode(Slice)}.
+     *
+     * @throws IllegalArgumentException if the input is not a valid slice.
+     */
+    public static Slice decode(final byte[] bytes) {
+        final ByteBuffer in = ByteBuffer.wrap(bytes);
+
+        try {
+            final byte version = in.get();
+
+            if (version != VERSION) {
+                throw new IllegalArgumentException("unsupported slice version: " + version);
+            }
+
+            final int groupCount = readSize(in);
+            final List<ShardedResultGroup> groups = new ArrayList<>(groupCount);
+
+            for (int i = 0; i < groupCount; i++) {
+                final Map<String, String> shard = readMap(in, new LinkedHashMap<>());
+                final Map<String, String> key = readMap(in, new LinkedHashMap<>());
+
+                final int seriesCount = readSize(in);
+                final Set<Series> series = new HashSet<>();
+
+                for (int j = 0; j < seriesCount; j++) {
+                    final String seriesKey = readString(in);
+                    final SortedMap<String, String> tags = readMap(in, new TreeMap<>());
+                    series.add(Series.of(seriesKey, tags));
+                }
+
+                final long cadence = readVarLong(in);
+                final MetricCollection metrics = readPoints(in);
+                groups.add(new ShardedResultGroup(shard, key, series, metrics, cadence));
+            }
+
+            return Slice.of(groups);
+        } catch (final BufferUnderflowException e) {
+            throw new IllegalArgumentException("truncated slice", e);
+        }
+    }
+
+    private static void writePoints(final DataOutputStream out, final MetricCollection metrics)
+        throws IOException {
+        final int size = metrics.size();
+        writeVarLong(out, size);
+
+        long last = 0L;
+
+        if (metrics instanceof ColumnarPointCollection) {
+            final ColumnarPointCollection points = (ColumnarPointCollection) metrics;
+
+            for (int i = 0; i < size; i++) {
+                final long t = points.getTimestamp(i);
+                writeVarLong(out, zigZag(t - last));
+                out.writeDouble(points.getValue(i));
+                last = t;
+            }
+
+            return;
+        }
+
+        for (final Point p : metrics.getDataAs(Point.class)) {
+            writeVarLong(out, zigZag(p.getTimestamp() - last));
+            out.writeDouble(p.getValue());
+            last = p.getTimestamp();
+        }
+    }
+
+    private static MetricCollection readPoints(final ByteBuffer in) {
+        final int size = readSize(in);
+        final ColumnarPointCollection.Builder builder = ColumnarPointCollection.builder(size);
+
+        long last = 0L;
+
+        for (int i = 0; i < size; i++) {
+            last += unZigZag(readVarLong(in));
+            builder.add(last, in.getDouble());
+        }
+
+        return builder.build();
+    }
+
+    private static void writeMap(final DataOutputStream out, final Map<String, String> map)
+        throws IOException {
+        writeVarLong(out, map.size());
+
+        for (final Map.Entry<String, String> e : map.entrySet()) {
+            writeString(out, e.getKey());
+            writeString(out, e.getValue());
+        }
+    }
+
+    private static <M extends Map<String, String>> M readMap(final ByteBuffer in, final M map) {
+        final int size = readSize(in);
+
+        for (int i = 0; i < size; i++) {
+            map.put(readString(in), readString(in));
+        }
+
+        return map;
+    }
+
+    /**
+     * Strings are prefixed with their length plus one, where zero indicates {@code null}.
+     */
+    private static void writeString(final DataOutputStream out, final String value)
+        throws IOException {
+        if (value == null) {
+            writeVarLong(out, 0L);
+            return;
+        }
+
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private static String readString(final ByteBuffer in) {
+        final int length = readSize(in);
+
+        if (length == 0) {
+            return null;
+        }
+
+        final byte[] bytes = new byte[length - 1];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+
+
+
+    private static int readSize(final ByteBuffer in) {
+        final long size = readVarLong(in);
+
+        if (size < 0 || size > in.capacity()) {
+            throw new IllegalArgumentException("invalid size: " + size);
+        }
+
+        return (int) size;
+    }
+
+}
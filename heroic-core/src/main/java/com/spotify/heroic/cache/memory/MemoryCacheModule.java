@@ -21,20 +21,100 @@
 
 package com.spotify.heroic.cache.memory;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.spotify.heroic.cache.CacheComponent;
 import com.spotify.heroic.cache.CacheModule;
 import com.spotify.heroic.cache.CacheScope;
+import com.spotify.heroic.common.Duration;
 import com.spotify.heroic.dagger.PrimaryComponent;
+import com.spotify.heroic.statistics.HeroicReporter;
+import com.spotify.heroic.statistics.QueryReporter;
 import dagger.Component;
+import dagger.Module;
+import dagger.Provides;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Named;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
 
+@ToString
+@RequiredArgsConstructor
+@Module
 public class MemoryCacheModule implements CacheModule {
+    /**
+     * Maximum number of samples to keep in memory, across all cached slices.
+     */
+    public static final long DEFAULT_MAX_SIZE = 1_000_000L;
+    public static final long DEFAULT_BUCKETS_PER_SLICE = 60L;
+    public static final Duration DEFAULT_FINALIZE_DELAY = Duration.of(1, TimeUnit.MINUTES);
+    public static final Duration DEFAULT_MAX_AGE = Duration.of(1, TimeUnit.HOURS);
+
+    /**
+     * Maximum number of results to keep in memory which are not cached in slices.
+     */
+    public static final int DEFAULT_MAX_WHOLE_RESULTS = 1000;
+
+    private final long maxSize;
+    private final long bucketsPerSlice;
+    private final Duration finalizeDelay;
+    private final Duration maxAge;
+    private final int maxWholeResults;
+
     @Override
     public CacheComponent module(PrimaryComponent primary) {
-        return DaggerMemoryCacheModule_C.builder().primaryComponent(primary).build();
+        return DaggerMemoryCacheModule_C
+            .builder()
+            .primaryComponent(primary)
+            .memoryCacheModule(this)
+            .build();
+    }
+
+    @Provides
+    @CacheScope
+    public QueryReporter reporter(final HeroicReporter reporter) {
+        return reporter.newQueryReporter();
+    }
+
+    @Provides
+    @CacheScope
+    @Named("maxSize")
+    long maxSize() {
+        return maxSize;
+    }
+
+    @Provides
+    @CacheScope
+    @Named("bucketsPerSlice")
+    long bucketsPerSlice() {
+        return bucketsPerSlice;
+    }
+
+    @Provides
+    @CacheScope
+    @Named("finalizeDelay")
+    Duration finalizeDelay() {
+        return finalizeDelay;
+    }
+
+    @Provides
+    @CacheScope
+    @Named("maxAge")
+    Duration maxAge() {
+        return maxAge;
+    }
+
+    @Provides
+    @CacheScope
+    @Named("maxWholeResults")
+    int maxWholeResults() {
+        return maxWholeResults;
     }
 
     @CacheScope
-    @Component(dependencies = PrimaryComponent.class)
+    @Component(modules = MemoryCacheModule.class, dependencies = PrimaryComponent.class)
     interface C extends CacheComponent {
         @Override
         MemoryQueryCache queryCache();
@@ -44,10 +124,71 @@ public class MemoryCacheModule implements CacheModule {
         return new Builder();
     }
 
+    @NoArgsConstructor
     public static class Builder implements CacheModule.Builder {
+        private Optional<Long> maxSize = Optional.empty();
+        private Optional<Long> bucketsPerSlice = Optional.empty();
+        private Optional<Duration> finalizeDelay = Optional.empty();
+        private Optional<Duration> maxAge = Optional.empty();
+        private Optional<Integer> maxWholeResults = Optional.empty();
+
+        @JsonCreator
+        public Builder(
+            @JsonProperty("maxSize") Optional<Long> maxSize,
+            @JsonProperty("bucketsPerSlice") Optional<Long> bucketsPerSlice,
+            @JsonProperty("finalizeDelay") Optional<Duration> finalizeDelay,
+            @JsonProperty("maxAge") Optional<Duration> maxAge,
+            @JsonProperty("maxWholeResults") Optional<Integer> maxWholeResults
+        ) {
+            this.maxSize = maxSize;
+            this.bucketsPerSlice = bucketsPerSlice;
+            this.finalizeDelay = finalizeDelay;
+            this.maxAge = maxAge;
+            this.maxWholeResults = maxWholeResults;
+        }
+
+        public Builder maxSize(long maxSize) {
+            this.maxSize = Optional.of(maxSize);
+            return this;
+        }
+
+        public Builder bucketsPerSlice(long bucketsPerSlice) {
+            this.bucketsPerSlice = Optional.of(bucketsPerSlice);
+            return this;
+        }
+
+        public Builder finalizeDelay(Duration finalizeDelay) {
+            this.finalizeDelay = Optional.of(finalizeDelay);
+            return this;
+        }
+
+        public Builder maxAge(Duration maxAge) {
+            this.maxAge = Optional.of(maxAge);
+            return this;
+        }
+
+        public Builder maxWholeResults(int maxWholeResults) {
+            this.maxWholeResults = Optional.of(maxWholeResults);
+            return this;
+        }
+
         @Override
-        public CacheModule build() {
-            return new MemoryCacheModule();
+        public MemoryCacheModule build() {
+            final long bucketsPerSlice = this.bucketsPerSlice.orElse(DEFAULT_BUCKETS_PER_SLICE);
+
+            if (bucketsPerSlice < 1) {
+                throw new IllegalStateException("'bucketsPerSlice' must be positive");
+            }
+
+            final int maxWholeResults = this.maxWholeResults.orElse(DEFAULT_MAX_WHOLE_RESULTS);
+
+            if (maxWholeResults < 0) {
+                throw new IllegalStateException("'maxWholeResults' must not be negative");
+            }
+
+            return new MemoryCacheModule(maxSize.orElse(DEFAULT_MAX_SIZE), bucketsPerSlice,
+                finalizeDelay.orElse(DEFAULT_FINALIZE_DELAY), maxAge.orElse(DEFAULT_MAX_AGE),
+                maxWholeResults);
         }
     }
 }
@@ -21,58 +21,75 @@
 
 package com.spotify.heroic.cache.memory;
 
-import com.spotify.heroic.aggregation.AggregationInstance;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.Weigher;
 import com.spotify.heroic.cache.CacheScope;
-import com.spotify.heroic.cache.QueryCache;
-import com.spotify.heroic.metric.FullQuery;
-import com.spotify.heroic.metric.QueryResult;
+import com.spotify.heroic.cache.SlicedQueryCache;
+import com.spotify.heroic.common.Duration;
+import com.spotify.heroic.statistics.QueryReporter;
+import com.spotify.heroic.time.Clock;
+import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
-import net.jodah.expiringmap.ExpirationPolicy;
-import net.jodah.expiringmap.ExpiringMap;
-
-import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Supplier;
+import javax.inject.Inject;
+import javax.inject.Named;
 
+/**
+ * A query cache which keeps finalized result slices in memory.
+ * <p>
+ * Memory is bounded by the total number of samples kept in all slices, and by the number of results
+ * which are cached as a whole.
+ */
 @CacheScope
-public class MemoryQueryCache implements QueryCache {
-    private final ExpiringMap<FullQuery.Request, AsyncFuture<QueryResult>> cache;
-
-    private final Object lock = new Object();
+public class MemoryQueryCache extends SlicedQueryCache {
+    private final Cache<SliceKey, Slice> slices;
 
     @Inject
-    public MemoryQueryCache() {
-        this.cache = ExpiringMap.builder().variableExpiration().build();
-    }
-
-    @Override
-    public AsyncFuture<QueryResult> load(
-        FullQuery.Request request, Supplier<AsyncFuture<QueryResult>> loader
+    public MemoryQueryCache(
+        final Clock clock, final AsyncFramework async, final QueryReporter reporter,
+        @Named("maxSize") final long maxSize, @Named("bucketsPerSlice") final long bucketsPerSlice,
+        @Named("finalizeDelay") final Duration finalizeDelay,
+        @Named("maxAge") final Duration maxAge,
+        @Named("maxWholeResults") final int maxWholeResults
     ) {
-        final AggregationInstance aggregation = request.getAggregation();
-
-        /* can't be cached :( */
-        if (aggregation.cadence() <= 0) {
-            return loader.get();
-        }
+        super(clock, async, reporter, bucketsPerSlice, finalizeDelay.toMilliseconds(),
+            maxWholeResults);
 
-        final AsyncFuture<QueryResult> result = cache.get(request);
+        final Weigher<SliceKey, Slice> weigher = (key, slice) -> slice.getWeight();
 
-        if (result != null) {
-            return result;
-        }
+        final RemovalListener<SliceKey, Slice> removalListener = notification -> {
+            if (notification.wasEvicted()) {
+                reporter.reportCacheEviction();
+            }
+        };
 
-        synchronized (lock) {
-            final AsyncFuture<QueryResult> candidate = cache.get(request);
+        this.slices = CacheBuilder
+            .newBuilder()
+            .maximumWeight(maxSize)
+            .weigher(weigher)
+            .expireAfterWrite(maxAge.toMilliseconds(), TimeUnit.MILLISECONDS)
+            .removalListener(removalListener)
+            .build();
+    }
 
-            if (candidate != null) {
-                return candidate;
-            }
+    @Override
+    protected AsyncFuture<List<Optional<Slice>>> lookup(final List<SliceKey> keys) {
+        final List<Optional<Slice>> found = new ArrayList<>(keys.size());
 
-            final AsyncFuture<QueryResult> next = loader.get();
-            cache.put(request, next, ExpirationPolicy.ACCESSED, aggregation.cadence(),
-                TimeUnit.MILLISECONDS);
-            return next;
+        for (final SliceKey key : keys) {
+            found.add(Optional.ofNullable(slices.getIfPresent(key)));
         }
+
+        return async.resolved(found);
+    }
+
+    @Override
+    protected void store(final SliceKey key, final long end, final Slice slice) {
+        slices.put(key, slice);
     }
 }
@@ -28,7 +28,7 @@ import com.spotify.heroic.metric.QueryResult;
 import eu.toolchain.async.AsyncFuture;
 
 import javax.inject.Inject;
-import java.util.function.Supplier;
+import java.util.function.Function;
 
 @CacheScope
 public class NoopQueryCache implements QueryCache {
@@ -38,8 +38,8 @@ public class NoopQueryCache implements QueryCache {
 
     @Override
     public AsyncFuture<QueryResult> load(
-        FullQuery.Request request, Supplier<AsyncFuture<QueryResult>> loader
+        FullQuery.Request request, Function<FullQuery.Request, AsyncFuture<QueryResult>> loader
     ) {
-        return loader.get();
+        return loader.apply(request);
     }
 }
@@ -36,9 +36,11 @@ import com.spotify.heroic.lifecycle.LifeCycle;
 import com.spotify.heroic.lifecycle.LifeCycleManager;
 import com.spotify.heroic.metadata.MetadataComponent;
 import com.spotify.heroic.metric.MetricComponent;
+import com.spotify.heroic.scheduler.Scheduler;
 import com.spotify.heroic.suggest.SuggestComponent;
 import dagger.Module;
 import dagger.Provides;
+import eu.toolchain.async.AsyncFramework;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -59,6 +61,7 @@ import org.apache.commons.lang3.tuple.Pair;
 @Module
 public class ClusterManagerModule {
     public static final boolean DEFAULT_USE_LOCAL = true;
+    public static final boolean DEFAULT_LATENCY_AWARE_ROUTING = true;
 
     private final UUID id;
     private final Map<String, String> tags;
@@ -66,6 +69,15 @@ public class ClusterManagerModule {
     private final ClusterDiscoveryModule discovery;
     private final List<RpcProtocolModule> protocols;
     private final Set<Map<String, String>> topology;
+    /**
+     * Try replicas in order of their observed latency, instead of in discovery order.
+     */
+    private final boolean latencyAwareRouting;
+    /**
+     * If set, queries to a replica that has not responded within the given percentile of its
+     * observed latency are also sent to another replica.
+     */
+    private final Optional<Double> hedgePercentile;
 
     @Provides
     @ClusterScope
@@ -80,6 +92,12 @@ public class ClusterManagerModule {
         return new NodeMetadata(0, id, tags, service);
     }
 
+    @Provides
+    @ClusterScope
+    public ClusterRouting routing(final AsyncFramework async, final Scheduler scheduler) {
+        return new ClusterRouting(async, scheduler, latencyAwareRouting, hedgePercentile);
+    }
+
     @Provides
     @ClusterScope
     @Named("useLocal")
@@ -170,6 +188,8 @@ public class ClusterManagerModule {
         private Optional<ClusterDiscoveryModule> discovery = empty();
         private Optional<List<RpcProtocolModule>> protocols = empty();
         private Optional<Set<Map<String, String>>> topology = empty();
+        private Optional<Boolean> latencyAwareRouting = empty();
+        private Optional<Double> hedgePercentile = empty();
 
         @JsonCreator
         public Builder(
@@ -178,7 +198,9 @@ public class ClusterManagerModule {
             @JsonProperty("useLocal") Optional<Boolean> useLocal,
             @JsonProperty("discovery") Optional<ClusterDiscoveryModule> discovery,
             @JsonProperty("protocols") Optional<List<RpcProtocolModule>> protocols,
-            @JsonProperty("topology") Optional<Set<Map<String, String>>> topology
+            @JsonProperty("topology") Optional<Set<Map<String, String>>> topology,
+            @JsonProperty("latencyAwareRouting") Optional<Boolean> latencyAwareRouting,
+            @JsonProperty("hedgePercentile") Optional<Double> hedgePercentile
         ) {
             this.id = id;
             this.tags = tags;
@@ -186,6 +208,8 @@ public class ClusterManagerModule {
             this.discovery = discovery;
             this.protocols = protocols;
             this.topology = topology;
+            this.latencyAwareRouting = latencyAwareRouting;
+            this.hedgePercentile = hedgePercentile;
         }
 
         public Builder id(UUID id) {
@@ -218,6 +242,16 @@ public class ClusterManagerModule {
             return this;
         }
 
+        public Builder latencyAwareRouting(boolean latencyAwareRouting) {
+            this.latencyAwareRouting = of(latencyAwareRouting);
+            return this;
+        }
+
+        public Builder hedgePercentile(double hedgePercentile) {
+            this.hedgePercentile = of(hedgePercentile);
+            return this;
+        }
+
         public Builder merge(Builder o) {
             // @formatter:off
             return new Builder(
@@ -226,7 +260,9 @@ public class ClusterManagerModule {
                 pickOptional(useLocal, o.useLocal),
                 pickOptional(discovery, o.discovery),
                 pickOptional(protocols, o.protocols),
-                pickOptional(topology, o.topology)
+                pickOptional(topology, o.topology),
+                pickOptional(latencyAwareRouting, o.latencyAwareRouting),
+                pickOptional(hedgePercentile, o.hedgePercentile)
             );
             // @formatter:on
         }
@@ -239,7 +275,9 @@ public class ClusterManagerModule {
                 useLocal.orElse(DEFAULT_USE_LOCAL),
                 discovery.orElseGet(ClusterDiscoveryModule::nullModule),
                 protocols.orElseGet(ImmutableList::of),
-                topology.orElseGet(ImmutableSet::of)
+                topology.orElseGet(ImmutableSet::of),
+                latencyAwareRouting.orElse(DEFAULT_LATENCY_AWARE_ROUTING),
+                hedgePercentile
             );
             // @formatter:on
         }
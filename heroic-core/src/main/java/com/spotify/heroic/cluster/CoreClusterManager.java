@@ -81,6 +81,7 @@ public class CoreClusterManager implements ClusterManager, LifeCycles {
     private final LocalClusterNode local;
     private final HeroicContext context;
     private final Set<Map<String, String>> expectedTopology;
+    private final ClusterRouting routing;
 
     final AtomicReference<Set<URI>> staticNodes = new AtomicReference<>(new HashSet<>());
     final AtomicReference<NodeRegistry> registry = new AtomicReference<>();
@@ -93,7 +94,8 @@ public class CoreClusterManager implements ClusterManager, LifeCycles {
         AsyncFramework async, ClusterDiscovery discovery, NodeMetadata localMetadata,
         Map<String, RpcProtocol> protocols, Scheduler scheduler,
         @Named("useLocal") Boolean useLocal, HeroicConfiguration options, LocalClusterNode local,
-        HeroicContext context, @Named("topology") Set<Map<String, String>> expectedTopology
+        HeroicContext context, @Named("topology") Set<Map<String, String>> expectedTopology,
+        ClusterRouting routing
     ) {
         this.async = async;
         this.discovery = discovery;
@@ -105,6 +107,7 @@ public class CoreClusterManager implements ClusterManager, LifeCycles {
         this.local = local;
         this.context = context;
         this.expectedTopology = expectedTopology;
+        this.routing = routing;
     }
 
     @Override
@@ -215,7 +218,8 @@ public class CoreClusterManager implements ClusterManager, LifeCycles {
             return null;
         }
 
-        return new ClusterManager.Statistics(registry.getOnlineNodes(), registry.getOfflineNodes());
+        return new ClusterManager.Statistics(registry.getOnlineNodes(), registry.getOfflineNodes(),
+            routing.getStatistics(registry.getEntries()));
     }
 
     @Override
@@ -224,7 +228,7 @@ public class CoreClusterManager implements ClusterManager, LifeCycles {
 
         for (final Pair<Map<String, String>, List<ClusterNode>> e : findFromAllShards()) {
             shards.add(new ClusterShard(async, e.getKey(), ImmutableList.copyOf(
-                e.getValue().stream().map(c -> c.useOptionalGroup(group)).iterator())));
+                e.getValue().stream().map(c -> c.useOptionalGroup(group)).iterator()), routing));
         }
 
         return shards.build();
@@ -496,6 +500,7 @@ public class CoreClusterManager implements ClusterManager, LifeCycles {
             if (this.clients.compareAndSet(oldClients, newClients)) {
                 registry.getAndSet(
                     new NodeRegistry(async, new ArrayList<>(entries), entries.size()));
+                routing.retain(entries);
                 return async.resolved();
             }
 
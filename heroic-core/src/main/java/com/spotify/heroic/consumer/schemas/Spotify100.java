@@ -29,7 +29,6 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -40,14 +39,17 @@ import com.spotify.heroic.consumer.ConsumerSchemaValidationException;
 import com.spotify.heroic.consumer.SchemaScope;
 import com.spotify.heroic.ingestion.Ingestion;
 import com.spotify.heroic.ingestion.IngestionGroup;
+import com.spotify.heroic.metric.Metric;
 import com.spotify.heroic.metric.MetricCollection;
 import com.spotify.heroic.metric.Point;
 import com.spotify.heroic.statistics.ConsumerReporter;
 import com.spotify.heroic.time.Clock;
 import dagger.Component;
+import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import javax.inject.Inject;
@@ -56,12 +58,6 @@ import lombok.ToString;
 
 @ToString
 public class Spotify100 implements ConsumerSchema {
-    private static final String HOST = "host";
-    private static final String KEY = "key";
-    private static final String TIME = "time";
-
-    private static final ObjectMapper mapper = new ObjectMapper();
-
     public static final String SCHEMA_VERSION = "1.0.0";
 
     @Data
@@ -122,12 +118,19 @@ public class Spotify100 implements ConsumerSchema {
 
     @SchemaScope
     public static class Consumer implements ConsumerSchema.Consumer {
+        private final AsyncFramework async;
         private final Clock clock;
         private final IngestionGroup ingestion;
         private final ConsumerReporter reporter;
 
+        private final ThreadLocal<Spotify100Decoder> decoders =
+            ThreadLocal.withInitial(Spotify100Decoder::new);
+
         @Inject
-        public Consumer(Clock clock, IngestionGroup ingestion, ConsumerReporter reporter) {
+        public Consumer(
+            AsyncFramework async, Clock clock, IngestionGroup ingestion, ConsumerReporter reporter
+        ) {
+            this.async = async;
             this.clock = clock;
             this.ingestion = ingestion;
             this.reporter = reporter;
@@ -135,40 +138,11 @@ public class Spotify100 implements ConsumerSchema {
 
         @Override
         public AsyncFuture<Void> consume(final byte[] message) throws ConsumerSchemaException {
-            final JsonMetric metric;
-
-            try {
-                metric = mapper.readValue(message, JsonMetric.class);
-            } catch (final Exception e) {
-                throw new ConsumerSchemaValidationException("Received invalid metric", e);
-            }
-
-            if (metric.getValue() == null) {
-                throw new ConsumerSchemaValidationException(
-                    "Metric must have a value but this metric has a null value: " + metric);
-            }
-
-            if (metric.getVersion() == null || !SCHEMA_VERSION.equals(metric.getVersion())) {
-                throw new ConsumerSchemaValidationException(
-                    String.format("Invalid version %s, expected %s", metric.getVersion(),
-                        SCHEMA_VERSION));
-            }
-
-            if (metric.getTime() == null) {
-                throw new ConsumerSchemaValidationException(
-                    "'" + TIME + "' field must be defined: " + message);
-            }
-
-            if (metric.getKey() == null) {
-                throw new ConsumerSchemaValidationException(
-                    "'" + KEY + "' field must be defined: " + message);
-            }
+            final Spotify100Decoder decoder = decoders.get();
+            decoder.decode(message);
 
-            final Map<String, String> tags = new HashMap<String, String>(metric.getAttributes());
-            tags.put(HOST, metric.getHost());
-
-            final Series series = Series.of(metric.getKey(), tags);
-            final Point p = new Point(metric.getTime(), metric.getValue());
+            final Series series = decoder.getSeries();
+            final Point p = new Point(decoder.getTime(), decoder.getValue());
             final List<Point> points = ImmutableList.of(p);
 
             reporter.reportMessageDrift(clock.currentTimeMillis() - p.getTimestamp());
@@ -179,6 +153,43 @@ public class Spotify100 implements ConsumerSchema {
             // allow monitoring of when the consumption is done.
             return ingestionFuture.directTransform(future -> (Void) null);
         }
+
+        /**
+         * Parse all messages up front and group their points by series, so that every series in
+         * the batch is written once.
+         */
+        @Override
+        public AsyncFuture<Void> consumeBatch(final List<byte[]> messages) {
+            final Spotify100Decoder decoder = decoders.get();
+            final Map<Series, List<Point>> bySeries = new LinkedHashMap<>();
+            final long now = clock.currentTimeMillis();
+
+            for (final byte[] message : messages) {
+                try {
+                    decoder.decode(message);
+                } catch (final ConsumerSchemaValidationException e) {
+                    reporter.reportConsumerSchemaError();
+                    continue;
+                }
+
+                final Point p = new Point(decoder.getTime(), decoder.getValue());
+                reporter.reportMessageDrift(now - p.getTimestamp());
+
+                bySeries.computeIfAbsent(decoder.getSeries(), s -> new ArrayList<>()).add(p);
+            }
+
+            final List<AsyncFuture<Ingestion>> writes = new ArrayList<>(bySeries.size());
+
+            for (final Map.Entry<Series, List<Point>> e : bySeries.entrySet()) {
+                final List<Point> points = e.getValue();
+                points.sort(Metric.comparator());
+
+                writes.add(ingestion.write(
+                    new Ingestion.Request(e.getKey(), MetricCollection.points(points))));
+            }
+
+            return async.collectAndDiscard(writes);
+        }
     }
 
     @Override
@@ -0,0 +1,411 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.consumer.schemas;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.consumer.ConsumerSchemaValidationException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.TreeMap;
+
+/**
+ * Decodes {@link Spotify100} messages using a streaming parser.
+ * <p>
+ * Fields are read straight into reusable buffers instead of building a {@link
+ * Spotify100.JsonMetric} per message. String values are interned through a small cache keyed by
+ * their characters, and series are cached by their key and tags, so that a series which has been
+ * seen recently is neither rebuilt nor rehashed.
+ * <p>
+ * A decoder holds the fields of the last decoded message, and is not thread-safe.
+ */
+public class Spotify100Decoder {
+    static final int DEFAULT_CACHE_SIZE = 4096;
+
+    private static final String VERSION = "version";
+    private static final String KEY = "key";
+    private static final String HOST = "host";
+    private static final String TIME = "time";
+    private static final String ATTRIBUTES = "attributes";
+    private static final String VALUE = "value";
+
+    /* field names are canonicalized by the factory, which makes tag keys free after first use */
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private final StringCache strings;
+    private final SeriesCache series;
+
+    /* fields of the last decoded message */
+    private String version;
+    private String key;
+    private String host;
+    private long time;
+    private boolean hasTime;
+    private double value;
+    private boolean hasValue;
+
+    /* tags of the last decoded message, as alternating keys and values */
+    private String[] tags = new String[16];
+    private int tagsLength;
+
+    private Series decoded;
+
+    public Spotify100Decoder() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param cacheSize Number of strings and series to cache, rounded up to a power of two.
+     */
+    public Spotify100Decoder(final int cacheSize) {
+        final int size = Integer.highestOneBit(Math.max(1, cacheSize - 1)) << 1;
+        this.strings = new StringCache(size);
+        this.series = new SeriesCache(size);
+    }
+
+    /**
+     * Decode a single message.
+     * <p>
+     * The decoded fields are available through {@link #getSeries()}, {@link #getTime()}, and
+     * {@link #getValue()} until the next message is decoded.
+     *
+     * @throws ConsumerSchemaValidationException if the message is not a valid metric.
+     */
+    public void decode(final byte[] message) throws ConsumerSchemaValidationException {
+        reset();
+
+        try (final JsonParser p = FACTORY.createParser(message)) {
+            parse(p);
+        } catch (final IOException | NumberFormatException e) {
+            throw new ConsumerSchemaValidationException("Received invalid metric", e);
+        }
+
+        if (!hasValue) {
+            throw new ConsumerSchemaValidationException(
+                "Metric must have a value but this metric has a null value");
+        }
+
+        if (version == null || !Spotify100.SCHEMA_VERSION.equals(version)) {
+            throw new ConsumerSchemaValidationException(
+                String.format("Invalid version %s, expected %s", version,
+                    Spotify100.SCHEMA_VERSION));
+        }
+
+        if (!hasTime) {
+            throw new ConsumerSchemaValidationException(
+                "'" + TIME + "' field must be defined: " + message);
+        }
+
+        if (key == null) {
+            throw new ConsumerSchemaValidationException(
+                "'" + KEY + "' field must be defined: " + message);
+        }
+
+        putTag(HOST, host);
+        sortTags();
+
+        decoded = series.lookup(key, tags, tagsLength);
+    }
+
+    public Series getSeries() {
+        return decoded;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    private void reset() {
+        version = null;
+        key = null;
+        host = null;
+        hasTime = false;
+        hasValue = false;
+        tagsLength = 0;
+        decoded = null;
+    }
+
+    private void parse(final JsonParser p) throws IOException, ConsumerSchemaValidationException {
+        if (p.nextToken() != JsonToken.START_OBJECT) {
+            throw new ConsumerSchemaValidationException("Expected metric to be an object");
+        }
+
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = p.getCurrentName();
+            final JsonToken token = p.nextToken();
+
+            switch (field) {
+                case VERSION:
+                    version = string(p, token);
+                    break;
+                case KEY:
+                    key = string(p, token);
+                    break;
+                case HOST:
+                    host = string(p, token);
+                    break;
+                case TIME:
+                    hasTime = token != JsonToken.VALUE_NULL;
+
+                    if (hasTime) {
+                        time = token == JsonToken.VALUE_STRING ? Long.parseLong(p.getText())
+                            : p.getValueAsLong();
+                    }
+
+                    break;
+                case VALUE:
+                    hasValue = token != JsonToken.VALUE_NULL;
+
+                    if (hasValue) {
+                        value = token == JsonToken.VALUE_STRING ? Double.parseDouble(p.getText())
+                            : p.getValueAsDouble();
+                    }
+
+                    break;
+                case ATTRIBUTES:
+                    attributes(p, token);
+                    break;
+                default:
+                    p.skipChildren();
+                    break;
+            }
+        }
+    }
+
+    private void attributes(final JsonParser p, final JsonToken token)
+        throws IOException, ConsumerSchemaValidationException {
+        if (token == JsonToken.VALUE_NULL) {
+            return;
+        }
+
+        if (token != JsonToken.START_OBJECT) {
+            throw new ConsumerSchemaValidationException("Expected attributes to be an object");
+        }
+
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            final String tagKey = p.getCurrentName();
+
+            if (p.nextToken() != JsonToken.VALUE_STRING) {
+                /* non-string values are ignored */
+                p.skipChildren();
+                continue;
+            }
+
+            for (int i = 0; i < tagsLength; i += 2) {
+                if (tags[i].equals(tagKey)) {
+                    throw new ConsumerSchemaValidationException("Duplicate attribute: " + tagKey);
+                }
+            }
+
+            addTag(tagKey, intern(p));
+        }
+    }
+
+    private String string(final JsonParser p, final JsonToken token)
+        throws IOException, ConsumerSchemaValidationException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+
+        if (token == JsonToken.VALUE_STRING) {
+            return intern(p);
+        }
+
+        if (token.isStructStart()) {
+            throw new ConsumerSchemaValidationException(
+                "Expected a string, but got " + token + ": " + p.getCurrentName());
+        }
+
+        return p.getValueAsString();
+    }
+
+    private String intern(final JsonParser p) throws IOException {
+        return strings.intern(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+    }
+
+    private void putTag(final String tagKey, final String tagValue) {
+        for (int i = 0; i < tagsLength; i += 2) {
+            if (tags[i].equals(tagKey)) {
+                tags[i + 1] = tagValue;
+                return;
+            }
+        }
+
+        addTag(tagKey, tagValue);
+    }
+
+    private void addTag(final String tagKey, final String tagValue) {
+        if (tagsLength + 2 > tags.length) {
+            tags = Arrays.copyOf(tags, tags.length * 2);
+        }
+
+        tags[tagsLength++] = tagKey;
+        tags[tagsLength++] = tagValue;
+    }
+
+    /**
+     * Insertion sort of the tag pairs by key, tags are few enough for this to beat allocating.
+     */
+    private void sortTags() {
+        for (int i = 2; i < tagsLength; i += 2) {
+            final String k = tags[i];
+            final String v = tags[i + 1];
+
+            int j = i - 2;
+
+            while (j >= 0 && tags[j].compareTo(k) > 0) {
+                tags[j + 2] = tags[j];
+                tags[j + 3] = tags[j + 1];
+                j -= 2;
+            }
+
+            tags[j + 2] = k;
+            tags[j + 3] = v;
+        }
+    }
+
+    /**
+     * A direct-mapped cache of strings, looked up by their characters.
+     */
+    static class StringCache {
+        private final String[] entries;
+        private final int mask;
+
+        StringCache(final int size) {
+            this.entries = new String[size];
+            this.mask = size - 1;
+        }
+
+        String intern(final char[] chars, final int offset, final int length) {
+            int hash = 0;
+
+            for (int i = offset; i < offset + length; i++) {
+                hash = 31 * hash + chars[i];
+            }
+
+            final int index = (hash ^ (hash >>> 16)) & mask;
+            final String cached = entries[index];
+
+            if (cached != null && cached.hashCode() == hash && matches(cached, chars, offset,
+                length)) {
+                return cached;
+            }
+
+            final String string = new String(chars, offset, length);
+            entries[index] = string;
+            return string;
+        }
+
+        private boolean matches(
+            final String string, final char[] chars, final int offset, final int length
+        ) {
+            if (string.length() != length) {
+                return false;
+            }
+
+            for (int i = 0; i < length; i++) {
+                if (string.charAt(i) != chars[offset + i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * A direct-mapped cache of series, looked up by their key and sorted tag pairs.
+     */
+    static class SeriesCache {
+        private final Entry[] entries;
+        private final int mask;
+
+        SeriesCache(final int size) {
+            this.entries = new Entry[size];
+            this.mask = size - 1;
+        }
+
+        Series lookup(final String key, final String[] tags, final int length) {
+            int hash = key.hashCode();
+
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + (tags[i] == null ? 0 : tags[i].hashCode());
+            }
+
+            final int index = (hash ^ (hash >>> 16)) & mask;
+            final Entry cached = entries[index];
+
+            if (cached != null && cached.matches(hash, key, tags, length)) {
+                return cached.series;
+            }
+
+            final TreeMap<String, String> map = new TreeMap<>();
+
+            for (int i = 0; i < length; i += 2) {
+                map.put(tags[i], tags[i + 1]);
+            }
+
+            final Series series = Series.of(key, map);
+            entries[index] = new Entry(hash, key, Arrays.copyOf(tags, length), series);
+            return series;
+        }
+
+        static class Entry {
+            private final int hash;
+            private final String key;
+            private final String[] tags;
+            private final Series series;
+
+            Entry(final int hash, final String key, final String[] tags, final Series series) {
+                this.hash = hash;
+                this.key = key;
+                this.tags = tags;
+                this.series = series;
+            }
+
+            boolean matches(
+                final int hash, final String key, final String[] tags, final int length
+            ) {
+                if (this.hash != hash || this.tags.length != length || !this.key.equals(key)) {
+                    return false;
+                }
+
+                for (int i = 0; i < length; i++) {
+                    final String a = this.tags[i];
+                    final String b = tags[i];
+
+                    if (a == null ? b != null : !a.equals(b)) {
+                        return false;
+                    }
+                }
+
+                return true;
+            }
+        }
+    }
+}
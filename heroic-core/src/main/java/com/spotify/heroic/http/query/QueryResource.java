@@ -21,6 +21,8 @@
 
 package com.spotify.heroic.http.query;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableMap;
 import com.spotify.heroic.Query;
 import com.spotify.heroic.QueryManager;
@@ -29,12 +31,18 @@ import com.spotify.heroic.http.CoreHttpContextFactory;
 import com.spotify.heroic.metric.QueryMetrics;
 import com.spotify.heroic.metric.QueryMetricsResponse;
 import com.spotify.heroic.metric.QueryResult;
+import com.spotify.heroic.metric.ShardedResultGroup;
 import com.spotify.heroic.querylogging.HttpContext;
 import com.spotify.heroic.querylogging.QueryContext;
 import com.spotify.heroic.querylogging.QueryLogger;
 import com.spotify.heroic.querylogging.QueryLoggerFactory;
+import com.spotify.heroic.ws.InternalErrorMessage;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.FutureDone;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -42,6 +50,7 @@ import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.POST;
@@ -52,26 +61,35 @@ import javax.ws.rs.container.AsyncResponse;
 import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.tuple.Triple;
+import org.glassfish.jersey.server.ChunkedOutput;
 
+@Slf4j
 @Path("query")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class QueryResource {
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
     private final JavaxRestFramework httpAsync;
     private final QueryManager query;
     private final AsyncFramework async;
     private final QueryLogger queryLogger;
+    private final ObjectMapper mapper;
 
     @Inject
     public QueryResource(
         final JavaxRestFramework httpAsync, final QueryManager query, final AsyncFramework async,
-        final QueryLoggerFactory queryLoggerFactory
+        final QueryLoggerFactory queryLoggerFactory,
+        @Named(MediaType.APPLICATION_JSON) final ObjectMapper mapper
     ) {
         this.httpAsync = httpAsync;
         this.query = query;
         this.async = async;
+        this.mapper = mapper;
         this.queryLogger = queryLoggerFactory.create("QueryResource");
     }
 
@@ -114,6 +132,65 @@ public class QueryResource {
         bindMetricsResponse(response, callback, queryContext);
     }
 
+    /**
+     * Run a query, streaming the result as newline-delimited JSON.
+     * <p>
+     * Every group is written on its own line as soon as all shards have contributed to it, in the
+     * same form as the groups in the result of {@code query/metrics}. The last line is a response
+     * without any groups, which holds the query id, range, trace, limits, and errors. If the query
+     * fails, the last line is an error message instead.
+     */
+    @POST
+    @Path("metrics/stream")
+    @Produces(APPLICATION_NDJSON)
+    public ChunkedOutput<String> metricsStream(
+        @QueryParam("group") String group, @Context final HttpServletRequest servletReq,
+        final QueryMetrics query
+    ) {
+        final HttpContext httpContext = CoreHttpContextFactory.create(servletReq);
+        final QueryContext queryContext =
+            QueryContext.create(query.getClientContext(), httpContext);
+        queryLogger.logHttpQueryJson(queryContext, query);
+
+        final Query q = query.toQueryBuilder(this.query::newQueryFromString).build();
+
+        final QueryManager.Group g = this.query.useOptionalGroup(Optional.ofNullable(group));
+
+        final ChunkedOutput<String> output = new ChunkedOutput<>(String.class, "\n");
+
+        final AsyncFuture<QueryResult> callback = g.queryStream(q, queryContext, groups -> {
+            for (final ShardedResultGroup r : groups) {
+                writeChunk(output, serializeGroup(r));
+            }
+        });
+
+        callback.onDone(new FutureDone<QueryResult>() {
+            @Override
+            public void failed(final Throwable cause) throws Exception {
+                log.error("Streaming query failed", cause);
+                finish(output, mapper.writeValueAsString(
+                    new InternalErrorMessage(cause.getMessage(),
+                        Response.Status.INTERNAL_SERVER_ERROR)));
+            }
+
+            @Override
+            public void resolved(final QueryResult r) throws Exception {
+                final QueryMetricsResponse qmr =
+                    new QueryMetricsResponse(queryContext.getQueryId(), r.getRange(),
+                        r.getGroups(), r.getErrors(), r.getTrace(), r.getLimits());
+                queryLogger.logFinalResponse(queryContext, qmr);
+                finish(output, mapper.writeValueAsString(qmr));
+            }
+
+            @Override
+            public void cancelled() throws Exception {
+                output.close();
+            }
+        });
+
+        return output;
+    }
+
     @POST
     @Path("batch")
     public void metrics(
@@ -186,6 +263,42 @@ public class QueryResource {
         });
     }
 
+    private String serializeGroup(final ShardedResultGroup group) {
+        final StringWriter writer = new StringWriter();
+
+        try (final JsonGenerator generator = mapper.getFactory().createGenerator(writer)) {
+            QueryMetricsResponse.serializeGroup(generator, group);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return writer.toString();
+    }
+
+    /**
+     * Write a single chunk, failing the query if the client has gone away.
+     */
+    private void writeChunk(final ChunkedOutput<String> output, final String chunk) {
+        try {
+            output.write(chunk);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void finish(final ChunkedOutput<String> output, final String chunk)
+        throws IOException {
+        if (output.isClosed()) {
+            return;
+        }
+
+        try {
+            output.write(chunk);
+        } finally {
+            output.close();
+        }
+    }
+
     @Data
     public static final class StreamId {
         private final Map<String, String> tags;
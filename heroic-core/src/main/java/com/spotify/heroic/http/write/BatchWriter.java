@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.http.write;
+
+import com.google.common.collect.ImmutableList;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.ingestion.Ingestion;
+import com.spotify.heroic.ingestion.IngestionGroup;
+import com.spotify.heroic.metric.QueryError;
+import com.spotify.heroic.metric.RequestError;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.ResolvableFuture;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Writes every series of a bulk write request through an ingestion group.
+ * <p>
+ * Series are written as they are read, with at most {@link #parallelism} writes in flight. Reading
+ * the body blocks on the network, so it happens on the dedicated {@link #readers} executor rather
+ * than on threads completing futures. Reading is suspended (without holding on to a thread) while
+ * that many writes are outstanding.
+ */
+@RequiredArgsConstructor
+class BatchWriter {
+    private final AsyncFramework async;
+    private final ExecutorService readers;
+    private final IngestionGroup group;
+    private final int parallelism;
+    private final int maxReportedErrors;
+
+    public AsyncFuture<WriteBatchResponse> write(final WriteBatchReader reader) {
+        final Batch batch = new Batch(reader);
+        batch.schedule();
+        return batch.done;
+    }
+
+    @RequiredArgsConstructor
+    private class Batch {
+        private final WriteBatchReader reader;
+        private final ResolvableFuture<WriteBatchResponse> done = async.future();
+        private final Errors errors = new Errors();
+
+        /* only accessed by the task currently reading */
+        private int index = 0;
+
+        /* guarded by this */
+        private int inFlight = 0;
+        private boolean reading = false;
+        private boolean ended = false;
+
+        /**
+         * Continue reading the body, unless it is already being read or too many writes are in
+         * flight.
+         */
+        void schedule() {
+            synchronized (this) {
+                if (reading || ended || inFlight >= parallelism) {
+                    return;
+                }
+
+                reading = true;
+            }
+
+            try {
+                async.call(() -> {
+                    read();
+                    return null;
+                }, readers).onFailed(done::fail);
+            } catch (final RejectedExecutionException e) {
+                done.fail(e);
+            }
+        }
+
+        private void read() {
+            while (true) {
+                synchronized (this) {
+                    if (inFlight >= parallelism) {
+                        reading = false;
+                        return;
+                    }
+                }
+
+                final int i = index++;
+                final Optional<Ingestion.Request> next;
+
+                try {
+                    next = reader.next();
+                } catch (final IOException e) {
+                    errors.add(i, Optional.empty(), "Invalid request body: " + e.getMessage());
+                    end(i + 1);
+                    return;
+                } catch (final RuntimeException e) {
+                    /* the series was read in full, so the rest of the body is still usable */
+                    errors.add(i, Optional.empty(), "Invalid series: " + e.getMessage());
+                    continue;
+                }
+
+                if (!next.isPresent()) {
+                    end(i);
+                    return;
+                }
+
+                synchronized (this) {
+                    inFlight++;
+                }
+
+                write(i, next.get());
+            }
+        }
+
+        private void write(final int i, final Ingestion.Request request) {
+            final Series series = request.getSeries();
+
+            AsyncFuture<Ingestion> write;
+
+            try {
+                write = group.write(request);
+            } catch (final RuntimeException e) {
+                write = async.failed(e);
+            }
+
+            write.<Void>directTransform(result -> {
+                if (!result.getErrors().isEmpty()) {
+                    errors.add(i, Optional.of(series.hash()), result.getErrors());
+                }
+
+                return null;
+            }).catchFailed(e -> {
+                errors.add(i, Optional.of(series.hash()), String.valueOf(e.getMessage()));
+                return null;
+            }).catchCancelled(v -> {
+                errors.add(i, Optional.of(series.hash()), "Write cancelled");
+                return null;
+            }).onFinished(this::finished);
+        }
+
+        private void finished() {
+            final boolean complete;
+            final int total;
+
+            synchronized (this) {
+                inFlight--;
+                complete = ended && inFlight == 0;
+                total = index;
+            }
+
+            if (complete) {
+                done.resolve(errors.toResponse(total));
+            } else {
+                schedule();
+            }
+        }
+
+        private void end(final int total) {
+            final boolean complete;
+
+            synchronized (this) {
+                index = total;
+                ended = true;
+                reading = false;
+                complete = inFlight == 0;
+            }
+
+            if (complete) {
+                done.resolve(errors.toResponse(total));
+            }
+        }
+    }
+
+    private class Errors {
+        private final List<WriteBatchResponse.SeriesError> reported = new ArrayList<>();
+        private int failed = 0;
+
+        void add(final int index, final Optional<String> series, final String message) {
+            add(index, series, ImmutableList.of(QueryError.fromMessage(message)));
+        }
+
+        synchronized void add(
+            final int index, final Optional<String> series, final List<RequestError> errors
+        ) {
+            failed++;
+
+            if (reported.size() < maxReportedErrors) {
+                reported.add(new WriteBatchResponse.SeriesError(index, series, errors));
+            }
+        }
+
+        synchronized WriteBatchResponse toResponse(final int series) {
+            reported.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+            return new WriteBatchResponse(series, failed, ImmutableList.copyOf(reported));
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.http.write;
+
+import com.google.common.base.Charsets;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.ingestion.Ingestion;
+import com.spotify.heroic.metric.MetricCollection;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Reads the compact binary encoding of a bulk write request.
+ * <p>
+ * All integers are big-endian, and strings are an unsigned 16-bit length followed by that many
+ * bytes of UTF-8.
+ * <pre>
+ * body   := version:u8 series*
+ * series := key:string tagCount:u16 (tagKey:string tagValue:string){tagCount}
+ *           pointCount:i32 (timestamp:i64){pointCount} (value:f64){pointCount}
+ * </pre>
+ * Only points can be written using this encoding, and timestamps must be in ascending order. A
+ * series with out-of-order timestamps is rejected after it has been read, so the rest of the body
+ * can still be written.
+ */
+class BinaryWriteBatchReader implements WriteBatchReader {
+    public static final int VERSION = 1;
+
+    /**
+     * Upper bound on the number of points in a single series, to avoid allocating arbitrarily
+     * large arrays for a malformed body.
+     */
+    public static final int MAX_POINTS = 1 << 20;
+
+    private final DataInputStream in;
+
+    private boolean started = false;
+
+    BinaryWriteBatchReader(final InputStream in) {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+    }
+
+    @Override
+    public Optional<Ingestion.Request> next() throws IOException {
+        if (!started) {
+            started = true;
+
+            final int version = in.read();
+
+            if (version < 0) {
+                return Optional.empty();
+            }
+
+            if (version != VERSION) {
+                throw new IOException("Unsupported version: " + version);
+            }
+        }
+
+        final int first = in.read();
+
+        /* end of body on a series boundary */
+        if (first < 0) {
+            return Optional.empty();
+        }
+
+        final String key = readString((first << 8) | in.readUnsignedByte());
+        final int tagCount = in.readUnsignedShort();
+        final TreeMap<String, String> tags = new TreeMap<>();
+
+        for (int i = 0; i < tagCount; i++) {
+            final String tagKey = readString(in.readUnsignedShort());
+            tags.put(tagKey, readString(in.readUnsignedShort()));
+        }
+
+        final int pointCount = in.readInt();
+
+        if (pointCount < 0 || pointCount > MAX_POINTS) {
+            throw new IOException("Invalid number of points: " + pointCount);
+        }
+
+        final long[] timestamps = new long[pointCount];
+        final double[] values = new double[pointCount];
+
+        boolean ordered = true;
+
+        for (int i = 0; i < pointCount; i++) {
+            timestamps[i] = in.readLong();
+            ordered &= i == 0 || timestamps[i - 1] <= timestamps[i];
+        }
+
+        for (int i = 0; i < pointCount; i++) {
+            values[i] = in.readDouble();
+        }
+
+        if (!ordered) {
+            throw new IllegalArgumentException(
+                "Timestamps are not in ascending order for series with key: " + key);
+        }
+
+        return Optional.of(new Ingestion.Request(Series.of(key, tags),
+            MetricCollection.points(timestamps, values)));
+    }
+
+    private String readString(final int length) throws IOException {
+        final byte[] bytes = new byte[length];
+
+        try {
+            in.readFully(bytes);
+        } catch (final EOFException e) {
+            throw new IOException("Unexpected end of body", e);
+        }
+
+        return new String(bytes, Charsets.UTF_8);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.http.write;
+
+import com.google.common.base.Charsets;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.Point;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the binary encoding read by {@link BinaryWriteBatchReader}.
+ */
+class BinaryWriteBatchWriter {
+    private final DataOutputStream out;
+
+    BinaryWriteBatchWriter(final OutputStream out) throws IOException {
+        this.out = new DataOutputStream(out);
+        this.out.writeByte(BinaryWriteBatchReader.VERSION);
+    }
+
+    public void write(final Series series, final List<Point> points) throws IOException {
+        writeString(series.getKey() == null ? "" : series.getKey());
+
+        if (series.getTags().size() > 0xffff) {
+            throw new IOException("Too many tags: " + series.getTags().size());
+        }
+
+        out.writeShort(series.getTags().size());
+
+        for (final Map.Entry<String, String> tag : series.getTags().entrySet()) {
+            writeString(tag.getKey());
+            writeString(tag.getValue());
+        }
+
+        out.writeInt(points.size());
+
+        for (final Point p : points) {
+            out.writeLong(p.getTimestamp());
+        }
+
+        for (final Point p : points) {
+            out.writeDouble(p.getValue());
+        }
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void writeString(final String string) throws IOException {
+        final byte[] bytes = string.getBytes(Charsets.UTF_8);
+
+        if (bytes.length > 0xffff) {
+            throw new IOException("String too long: " + bytes.length + " bytes");
+        }
+
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+}
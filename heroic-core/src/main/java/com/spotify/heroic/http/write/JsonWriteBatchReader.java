@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.http.write;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.spotify.heroic.ingestion.Ingestion;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * Reads newline-delimited JSON, where every value is a {@link WriteMetricRequest}.
+ * <p>
+ * Nothing is read from the body until the first call to {@link #next()}.
+ */
+@RequiredArgsConstructor
+class JsonWriteBatchReader implements WriteBatchReader {
+    private final ObjectReader reader;
+    private final InputStream in;
+
+    private MappingIterator<WriteMetricRequest> values;
+
+    @Override
+    public Optional<Ingestion.Request> next() throws IOException {
+        if (values == null) {
+            values = reader.readValues(in);
+        }
+
+        if (!values.hasNextValue()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(values.nextValue().toIngestionRequest());
+    }
+
+    public static JsonWriteBatchReader open(final ObjectMapper mapper, final InputStream in) {
+        return new JsonWriteBatchReader(mapper.readerFor(WriteMetricRequest.class), in);
+    }
+}
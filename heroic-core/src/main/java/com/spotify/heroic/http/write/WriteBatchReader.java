@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.http.write;
+
+import com.spotify.heroic.ingestion.Ingestion;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Reads the series of a bulk write request, one at a time, as the request body is streamed in.
+ */
+interface WriteBatchReader {
+    /**
+     * Read the next series.
+     *
+     * @return The next series with its data, or empty if the end of the body has been reached.
+     * @throws IOException If the body could not be read or is malformed.
+     */
+    Optional<Ingestion.Request> next() throws IOException;
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.http.write;
+
+import com.spotify.heroic.metric.RequestError;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Optional;
+
+@Data
+public class WriteBatchResponse {
+    /**
+     * Number of series in the request, including one that could not be read.
+     */
+    private final int series;
+
+    /**
+     * Number of series which failed to be written.
+     */
+    private final int failed;
+
+    /**
+     * Summaries of the series which failed, capped to a maximum number of entries.
+     */
+    private final List<SeriesError> errors;
+
+    @Data
+    public static class SeriesError {
+        /**
+         * Position of the series in the request.
+         */
+        private final int index;
+
+        /**
+         * Hash of the series, or empty if the series could not be read.
+         */
+        private final Optional<String> series;
+
+        private final List<RequestError> errors;
+    }
+}
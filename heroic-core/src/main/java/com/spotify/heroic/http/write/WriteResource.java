@@ -21,10 +21,14 @@
 
 package com.spotify.heroic.http.write;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.spotify.heroic.common.JavaxRestFramework;
 import com.spotify.heroic.ingestion.IngestionManager;
+import eu.toolchain.async.AsyncFramework;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
@@ -33,18 +37,67 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.container.AsyncResponse;
 import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @Path("write")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class WriteResource {
+    /**
+     * Newline-delimited JSON, every line being a single {@link WriteMetricRequest}.
+     */
+    public static final String NDJSON = "application/x-ndjson";
+
+    /**
+     * The compact binary encoding read by {@link BinaryWriteBatchReader}.
+     */
+    public static final String BINARY = "application/x-heroic-write";
+
+    /**
+     * Maximum number of series from a single bulk request that are written concurrently.
+     */
+    public static final int BATCH_PARALLELISM = 64;
+
+    /**
+     * Maximum number of failed series that are individually reported in a bulk response.
+     */
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    /**
+     * Number of threads reading the bodies of bulk requests.
+     */
+    public static final int BATCH_READERS = 16;
+
+    /**
+     * Maximum number of bulk requests waiting for a thread to read their body.
+     */
+    public static final int MAX_QUEUED_BATCH_READS = 1024;
+
     private final IngestionManager ingestion;
     private final JavaxRestFramework httpAsync;
+    private final AsyncFramework async;
+    private final ObjectMapper mapper;
+
+    /* reading a body blocks on slow clients, so it is kept off the async framework threads */
+    private final ExecutorService batchReaders =
+        new ThreadPoolExecutor(BATCH_READERS, BATCH_READERS, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(MAX_QUEUED_BATCH_READS),
+            new ThreadFactoryBuilder().setNameFormat("heroic-write-batch-%d").setDaemon(true)
+                .build());
 
     @Inject
-    public WriteResource(final IngestionManager ingestion, final JavaxRestFramework httpAsync) {
+    public WriteResource(
+        final IngestionManager ingestion, final JavaxRestFramework httpAsync,
+        final AsyncFramework async, @Named(MediaType.APPLICATION_JSON) final ObjectMapper mapper
+    ) {
         this.ingestion = ingestion;
         this.httpAsync = httpAsync;
+        this.async = async;
+        this.mapper = mapper;
     }
 
     @POST
@@ -55,4 +108,40 @@ public class WriteResource {
         httpAsync.bind(response, ingestion.useGroup(group).write(write.toIngestionRequest()),
             r -> r);
     }
+
+    /**
+     * Write many series in a single request, streamed as newline-delimited JSON.
+     */
+    @POST
+    @Path("batch")
+    @Consumes(NDJSON)
+    public void batchJson(
+        @Suspended final AsyncResponse response, @QueryParam("group") String group,
+        InputStream body
+    ) throws Exception {
+        writeBatch(response, group, JsonWriteBatchReader.open(mapper, body));
+    }
+
+    /**
+     * Write many series in a single request, using the compact binary encoding.
+     */
+    @POST
+    @Path("batch")
+    @Consumes(BINARY)
+    public void batchBinary(
+        @Suspended final AsyncResponse response, @QueryParam("group") String group,
+        InputStream body
+    ) throws Exception {
+        writeBatch(response, group, new BinaryWriteBatchReader(body));
+    }
+
+    private void writeBatch(
+        final AsyncResponse response, final String group, final WriteBatchReader reader
+    ) {
+        final BatchWriter writer =
+            new BatchWriter(async, batchReaders, ingestion.useGroup(group), BATCH_PARALLELISM,
+                MAX_REPORTED_ERRORS);
+
+        httpAsync.bind(response, writer.write(reader));
+    }
 }
@@ -26,7 +26,7 @@ import com.spotify.heroic.common.Collected;
 import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Grouped;
 import com.spotify.heroic.common.Groups;
-import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.filter.CompiledFilter;
 import com.spotify.heroic.metadata.MetadataBackend;
 import com.spotify.heroic.metadata.WriteMetadata;
 import com.spotify.heroic.metric.Metric;
@@ -49,7 +49,7 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class CoreIngestionGroup implements IngestionGroup {
     private final AsyncFramework async;
-    private final Supplier<Filter> filter;
+    private final Supplier<CompiledFilter> filter;
     private final Semaphore writePermits;
     private final IngestionManagerReporter reporter;
     private final LongAdder ingested;
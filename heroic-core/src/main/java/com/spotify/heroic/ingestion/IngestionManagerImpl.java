@@ -22,6 +22,7 @@
 package com.spotify.heroic.ingestion;
 
 import com.spotify.heroic.common.Statistics;
+import com.spotify.heroic.filter.CompiledFilter;
 import com.spotify.heroic.filter.Filter;
 import com.spotify.heroic.metadata.MetadataBackend;
 import com.spotify.heroic.metadata.MetadataManager;
@@ -55,6 +56,7 @@ public class IngestionManagerImpl implements IngestionManager {
     private final boolean updateSuggestions;
 
     private volatile Filter filter;
+    private volatile CompiledFilter compiledFilter;
 
     private final Semaphore writePermits;
 
@@ -85,6 +87,7 @@ public class IngestionManagerImpl implements IngestionManager {
         this.updateMetadata = updateMetadata;
         this.updateSuggestions = updateSuggestions;
         this.filter = filter;
+        this.compiledFilter = CompiledFilter.of(filter);
 
         this.writePermits = new Semaphore(maxConcurrentWrites);
     }
@@ -97,7 +100,18 @@ public class IngestionManagerImpl implements IngestionManager {
 
     @Override
     public AsyncFuture<Void> setFilter(Filter filter) {
-        this.filter = checkNotNull(filter, "filter");
+        checkNotNull(filter, "filter");
+
+        final CompiledFilter compiledFilter;
+
+        try {
+            compiledFilter = CompiledFilter.of(filter);
+        } catch (final Exception e) {
+            return async.failed(e);
+        }
+
+        this.filter = filter;
+        this.compiledFilter = compiledFilter;
         return async.resolved();
     }
 
@@ -119,7 +133,7 @@ public class IngestionManagerImpl implements IngestionManager {
         // @formatter:off
         return new CoreIngestionGroup(
             async,
-            () -> filter,
+            () -> compiledFilter,
             writePermits,
             reporter,
             ingested,
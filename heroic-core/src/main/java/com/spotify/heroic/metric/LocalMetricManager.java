@@ -24,6 +24,7 @@ package com.spotify.heroic.metric;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.spotify.heroic.QueryOptions;
 import com.spotify.heroic.aggregation.AggregationInstance;
 import com.spotify.heroic.aggregation.AggregationOutput;
@@ -59,6 +60,7 @@ import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import javax.inject.Inject;
@@ -81,7 +83,9 @@ public class LocalMetricManager implements MetricManager {
     private final OptionalLimit seriesLimit;
     private final OptionalLimit aggregationLimit;
     private final OptionalLimit dataLimit;
+    private final OptionalLimit dataInMemoryLimit;
     private final int fetchParallelism;
+    private final int fetchBatchSize;
     private final boolean failOnLimits;
 
     private final AsyncFramework async;
@@ -96,7 +100,10 @@ public class LocalMetricManager implements MetricManager {
      * @param aggregationLimit The maximum number of (estimated) data points a single aggregation
      * may produce.
      * @param dataLimit The maximum number of samples a single query is allowed to fetch.
+     * @param dataInMemoryLimit The number of samples a single query may hold in memory before it
+     * stops starting new fetches.
      * @param fetchParallelism How many fetches that are allowed to be performed in parallel.
+     * @param fetchBatchSize How many series that are handed to a backend in a single fetch.
      */
     @Inject
     public LocalMetricManager(
@@ -104,7 +111,9 @@ public class LocalMetricManager implements MetricManager {
         @Named("seriesLimit") final OptionalLimit seriesLimit,
         @Named("aggregationLimit") final OptionalLimit aggregationLimit,
         @Named("dataLimit") final OptionalLimit dataLimit,
+        @Named("dataInMemoryLimit") final OptionalLimit dataInMemoryLimit,
         @Named("fetchParallelism") final int fetchParallelism,
+        @Named("fetchBatchSize") final int fetchBatchSize,
         @Named("failOnLimits") final boolean failOnLimits, final AsyncFramework async,
         final GroupSet<MetricBackend> groupSet, final MetadataManager metadata,
         final MetricBackendReporter reporter, final QueryLoggerFactory queryLoggerFactory
@@ -113,7 +122,9 @@ public class LocalMetricManager implements MetricManager {
         this.seriesLimit = seriesLimit;
         this.aggregationLimit = aggregationLimit;
         this.dataLimit = dataLimit;
+        this.dataInMemoryLimit = dataInMemoryLimit;
         this.fetchParallelism = fetchParallelism;
+        this.fetchBatchSize = fetchBatchSize;
         this.failOnLimits = failOnLimits;
         this.async = async;
         this.groupSet = groupSet;
@@ -168,13 +179,17 @@ public class LocalMetricManager implements MetricManager {
 
             final boolean slicedFetch = request.getFeatures().hasFeature(Feature.SLICED_DATA_FETCH);
 
+            final MemoryAwareFetchScheduler scheduler =
+                new MemoryAwareFetchScheduler(async, reporter.newDataInMemoryReporter(),
+                    dataInMemoryLimit.asLong().orElse(Long.MAX_VALUE), fetchParallelism);
+
             final QuotaWatcher watcher = new QuotaWatcher(
                 options.getDataLimit().orElse(dataLimit).asLong().orElse(Long.MAX_VALUE), options
                 .getAggregationLimit()
                 .orElse(aggregationLimit)
                 .asLong()
-                .orElse(Long.MAX_VALUE), reporter.newDataInMemoryReporter());
-            final DataInMemoryReporter dataInMemoryReporter = reporter.newDataInMemoryReporter();
+                .orElse(Long.MAX_VALUE), scheduler);
+            final DataInMemoryReporter dataInMemoryReporter = scheduler;
 
             final OptionalLimit seriesLimit =
                 options.getSeriesLimit().orElse(LocalMetricManager.this.seriesLimit);
@@ -257,25 +272,35 @@ public class LocalMetricManager implements MetricManager {
 
                 /* setup fetches */
                 accept(b -> {
-                    for (final Series s : result.getSeries()) {
-                        if (slicedFetch) {
-                            fetches.add(
-                                () -> b.fetch(new FetchData.Request(source, s, range, options),
-                                    watcher, mc -> collector.acceptMetricsCollection(s, mc)));
-                        } else {
-                            fetches.add(() -> b
-                                .fetch(new FetchData.Request(source, s, range, options), watcher)
-                                .directTransform(d -> {
-                                    d.getGroups().forEach(group -> {
-                                        collector.acceptMetricsCollection(s, group);
-                                    });
-                                    return d.getResult();
-                                }));
+                    if (slicedFetch) {
+                        final List<FetchData.Request> requests = new ArrayList<>();
+
+                        for (final Series s : result.getSeries()) {
+                            requests.add(new FetchData.Request(source, s, range, options));
                         }
+
+                        for (final List<FetchData.Request> batch : Lists.partition(requests,
+                            fetchBatchSize)) {
+                            fetches.add(() -> b.fetchBatch(batch, watcher,
+                                (r, mc) -> collector.acceptMetricsCollection(r.getSeries(), mc)));
+                        }
+
+                        return;
+                    }
+
+                    for (final Series s : result.getSeries()) {
+                        fetches.add(() -> b
+                            .fetch(new FetchData.Request(source, s, range, options), watcher)
+                            .directTransform(d -> {
+                                d.getGroups().forEach(group -> {
+                                    collector.acceptMetricsCollection(s, group);
+                                });
+                                return d.getResult();
+                            }));
                     }
                 });
 
-                return async.eventuallyCollect(fetches, collector, fetchParallelism);
+                return scheduler.collect(fetches, collector);
             };
 
             return metadata
@@ -318,6 +343,16 @@ public class LocalMetricManager implements MetricManager {
             return async.collect(callbacks, FetchData.collectResult(FETCH));
         }
 
+        @Override
+        public AsyncFuture<FetchData.Result> fetchBatch(
+            final List<FetchData.Request> requests, final FetchQuotaWatcher watcher,
+            final BiConsumer<FetchData.Request, MetricCollection> metricsConsumer
+        ) {
+            final List<AsyncFuture<FetchData.Result>> callbacks =
+                map(b -> b.fetchBatch(requests, watcher, metricsConsumer));
+            return async.collect(callbacks, FetchData.collectResult(FETCH));
+        }
+
         @Override
         public AsyncFuture<WriteMetric> write(final WriteMetric.Request write) {
             return async.collect(map(b -> b.write(write)), WriteMetric.reduce());
@@ -384,20 +419,26 @@ public class LocalMetricManager implements MetricManager {
         }
 
         @Override
-        public AsyncFuture<MetricCollection> fetchRow(final BackendKey key) {
-            final List<AsyncFuture<MetricCollection>> callbacks = map(b -> b.fetchRow(key));
-
-            return async.collect(callbacks, results -> {
-                final List<List<? extends Metric>> collections = new ArrayList<>();
+        public AsyncFuture<Long> compactKey(BackendKey key, QueryOptions options) {
+            return async.collect(map(b -> b.compactKey(key, options))).directTransform(result -> {
+                long count = 0;
 
-                for (final MetricCollection result : results) {
-                    collections.add(result.getData());
+                for (final long c : result) {
+                    count += c;
                 }
 
-                return MetricCollection.mergeSorted(key.getType(), collections);
+                return count;
             });
         }
 
+        @Override
+        public AsyncFuture<MetricCollection> fetchRow(final BackendKey key) {
+            final List<AsyncFuture<MetricCollection>> callbacks = map(b -> b.fetchRow(key));
+
+            return async.collect(callbacks,
+                results -> MetricCollection.mergeSorted(key.getType(), results));
+        }
+
         @Override
         public AsyncObservable<MetricCollection> streamRow(final BackendKey key) {
             return AsyncObservable.chain(map(b -> b.streamRow(key)));
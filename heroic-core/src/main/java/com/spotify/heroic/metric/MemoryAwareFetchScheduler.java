@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric;
+
+import com.spotify.heroic.statistics.DataInMemoryReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.FutureDone;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.StreamCollector;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Schedules the fetches of a single query, admitting new fetches based on how much data the query
+ * currently holds in memory instead of only on a fixed parallelism.
+ * <p>
+ * The scheduler is the {@link DataInMemoryReporter} of the query, so it sees data as it is read
+ * from backends and released into the aggregation. While the data in memory is above the limit, no
+ * new fetches are started and the fetches in progress are left to finish and release their data.
+ * At least one fetch is always running, so a single large series can still make progress.
+ * <p>
+ * Data is counted in samples, the unit used by {@link DataInMemoryReporter}.
+ */
+class MemoryAwareFetchScheduler implements DataInMemoryReporter {
+    private final AsyncFramework async;
+    private final DataInMemoryReporter delegate;
+    private final long dataInMemoryLimit;
+    private final int parallelism;
+
+    private final AtomicLong dataInMemory = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private final Object lock = new Object();
+    private final Queue<Runnable> pending = new ArrayDeque<>();
+    private int running = 0;
+    private Runnable end = null;
+
+    /**
+     * @param delegate Reporter to forward all reports to.
+     * @param dataInMemoryLimit Number of samples in memory above which no more fetches are started.
+     * @param parallelism Maximum number of fetches running at the same time.
+     */
+    MemoryAwareFetchScheduler(
+        final AsyncFramework async, final DataInMemoryReporter delegate,
+        final long dataInMemoryLimit, final int parallelism
+    ) {
+        this.async = async;
+        this.delegate = delegate;
+        this.dataInMemoryLimit = dataInMemoryLimit;
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public void reportDataHasBeenRead(final long n) {
+        dataInMemory.addAndGet(n);
+        delegate.reportDataHasBeenRead(n);
+    }
+
+    @Override
+    public void reportDataNoLongerNeeded(final long n) {
+        dataInMemory.addAndGet(-n);
+        delegate.reportDataNoLongerNeeded(n);
+        drain();
+    }
+
+    @Override
+    public void reportOperationEnded() {
+        delegate.reportOperationEnded();
+    }
+
+    long getDataInMemory() {
+        return dataInMemory.get();
+    }
+
+    /**
+     * Run all the given fetches, feeding their results to the collector.
+     * <p>
+     * Behaves like {@link AsyncFramework#eventuallyCollect(Collection, StreamCollector, int)},
+     * except for how fetches are admitted.
+     */
+    <R, T> AsyncFuture<T> collect(
+        final Collection<? extends Callable<? extends AsyncFuture<? extends R>>> callables,
+        final StreamCollector<? super R, ? extends T> collector
+    ) {
+        final ResolvableFuture<T> future = async.future();
+        final Run<R, T> run = new Run<>(future, collector);
+
+        synchronized (lock) {
+            for (final Callable<? extends AsyncFuture<? extends R>> callable : callables) {
+                pending.add(() -> run.start(callable));
+            }
+
+            end = run::end;
+        }
+
+        future.onCancelled(() -> {
+            final int cancelled;
+
+            synchronized (lock) {
+                cancelled = pending.size();
+                pending.clear();
+            }
+
+            run.cancelled(cancelled);
+            drain();
+        });
+
+        drain();
+        return future;
+    }
+
+    /**
+     * Start as many pending fetches as currently allowed, and end the run once all fetches are
+     * done.
+     * <p>
+     * Calls which arrive while draining, like fetches completing immediately, are folded into the
+     * ongoing drain instead of recursing.
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+
+        do {
+            while (true) {
+                final Runnable next;
+
+                synchronized (lock) {
+                    if (!mayStart()) {
+                        break;
+                    }
+
+                    next = pending.poll();
+                    running++;
+                }
+
+                next.run();
+            }
+
+            final Runnable end;
+
+            synchronized (lock) {
+                if (this.end == null || !pending.isEmpty() || running > 0) {
+                    end = null;
+                } else {
+                    end = this.end;
+                    this.end = null;
+                }
+            }
+
+            if (end != null) {
+                end.run();
+            }
+        } while (wip.decrementAndGet() != 0);
+    }
+
+    private boolean mayStart() {
+        if (pending.isEmpty() || running >= parallelism) {
+            return false;
+        }
+
+        return running == 0 || dataInMemory.get() < dataInMemoryLimit;
+    }
+
+    private void finished() {
+        synchronized (lock) {
+            running--;
+        }
+
+        drain();
+    }
+
+    private class Run<R, T> {
+        private final ResolvableFuture<T> future;
+        private final StreamCollector<? super R, ? extends T> collector;
+
+        private final AtomicInteger resolved = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger cancelled = new AtomicInteger();
+
+        private Run(
+            final ResolvableFuture<T> future,
+            final StreamCollector<? super R, ? extends T> collector
+        ) {
+            this.future = future;
+            this.collector = collector;
+        }
+
+        private void start(final Callable<? extends AsyncFuture<? extends R>> callable) {
+            AsyncFuture<? extends R> fetch;
+
+            try {
+                fetch = callable.call();
+            } catch (final Exception e) {
+                fetch = async.failed(e);
+            }
+
+            fetch.onDone(new FutureDone<R>() {
+                @Override
+                public void failed(final Throwable cause) throws Exception {
+                    failed.incrementAndGet();
+
+                    try {
+                        collector.failed(cause);
+                    } finally {
+                        finished();
+                    }
+                }
+
+                @Override
+                public void resolved(final R result) throws Exception {
+                    resolved.incrementAndGet();
+
+                    try {
+                        collector.resolved(result);
+                    } finally {
+                        finished();
+                    }
+                }
+
+                @Override
+                public void cancelled() throws Exception {
+                    cancelled.incrementAndGet();
+
+                    try {
+                        collector.cancelled();
+                    } finally {
+                        finished();
+                    }
+                }
+            });
+        }
+
+        private void cancelled(final int n) {
+            for (int i = 0; i < n; i++) {
+                cancelled.incrementAndGet();
+
+                try {
+                    collector.cancelled();
+                } catch (final Exception e) {
+                    future.fail(e);
+                }
+            }
+        }
+
+        private void end() {
+            final T result;
+
+            try {
+                result = collector.end(resolved.get(), failed.get(), cancelled.get());
+            } catch (final Exception e) {
+                future.fail(e);
+                return;
+            }
+
+            future.resolve(result);
+        }
+    }
+}
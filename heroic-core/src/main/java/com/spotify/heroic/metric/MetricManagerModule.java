@@ -52,6 +52,7 @@ import lombok.NoArgsConstructor;
 @Module
 public class MetricManagerModule {
     public static final int DEFAULT_FETCH_PARALLELISM = 100;
+    public static final int DEFAULT_FETCH_BATCH_SIZE = 1;
     public static final boolean DEFAULT_FAIL_ON_LIMITS = false;
     public static final long DEFAULT_SMALL_QUERY_THRESHOLD = 200000;
 
@@ -78,11 +79,23 @@ public class MetricManagerModule {
      */
     private final OptionalLimit dataLimit;
 
+    /**
+     * Limit in how many datapoints a session may hold in memory before it stops starting new
+     * fetches.
+     */
+    private final OptionalLimit dataInMemoryLimit;
+
     /**
      * How many data fetches are performed in parallel.
      */
     private final int fetchParallelism;
 
+    /**
+     * How many series are handed to a backend in a single fetch. Backends which support it may
+     * combine the reads of these series into fewer requests.
+     */
+    private final int fetchBatchSize;
+
     /**
      * If {@code true}, will cause any limits applied to be reported as a failure.
      */
@@ -175,6 +188,13 @@ public class MetricManagerModule {
         return dataLimit;
     }
 
+    @Provides
+    @MetricScope
+    @Named("dataInMemoryLimit")
+    public OptionalLimit dataInMemoryLimit() {
+        return dataInMemoryLimit;
+    }
+
     @Provides
     @MetricScope
     @Named("fetchParallelism")
@@ -182,6 +202,13 @@ public class MetricManagerModule {
         return fetchParallelism;
     }
 
+    @Provides
+    @MetricScope
+    @Named("fetchBatchSize")
+    public int fetchBatchSize() {
+        return fetchBatchSize;
+    }
+
     @Provides
     @MetricScope
     @Named("failOnLimits")
@@ -209,7 +236,9 @@ public class MetricManagerModule {
         private OptionalLimit seriesLimit = OptionalLimit.empty();
         private OptionalLimit aggregationLimit = OptionalLimit.empty();
         private OptionalLimit dataLimit = OptionalLimit.empty();
+        private OptionalLimit dataInMemoryLimit = OptionalLimit.empty();
         private Optional<Integer> fetchParallelism = empty();
+        private Optional<Integer> fetchBatchSize = empty();
         private Optional<Boolean> failOnLimits = empty();
         private Optional<Long> smallQueryThreshold = empty();
 
@@ -243,11 +272,21 @@ public class MetricManagerModule {
             return this;
         }
 
+        public Builder dataInMemoryLimit(long dataInMemoryLimit) {
+            this.dataInMemoryLimit = OptionalLimit.of(dataInMemoryLimit);
+            return this;
+        }
+
         public Builder fetchParallelism(Integer fetchParallelism) {
             this.fetchParallelism = of(fetchParallelism);
             return this;
         }
 
+        public Builder fetchBatchSize(Integer fetchBatchSize) {
+            this.fetchBatchSize = of(fetchBatchSize);
+            return this;
+        }
+
         public Builder failOnLimits(boolean failOnLimits) {
             this.failOnLimits = of(failOnLimits);
             return this;
@@ -267,7 +306,9 @@ public class MetricManagerModule {
                 seriesLimit.orElse(o.seriesLimit),
                 aggregationLimit.orElse(o.aggregationLimit),
                 dataLimit.orElse(o.dataLimit),
+                dataInMemoryLimit.orElse(o.dataInMemoryLimit),
                 pickOptional(fetchParallelism, o.fetchParallelism),
+                pickOptional(fetchBatchSize, o.fetchBatchSize),
                 pickOptional(failOnLimits, o.failOnLimits),
                 pickOptional(smallQueryThreshold, o.smallQueryThreshold)
             );
@@ -283,7 +324,9 @@ public class MetricManagerModule {
                 seriesLimit,
                 aggregationLimit,
                 dataLimit,
+                dataInMemoryLimit,
                 fetchParallelism.orElse(DEFAULT_FETCH_PARALLELISM),
+                fetchBatchSize.orElse(DEFAULT_FETCH_BATCH_SIZE),
                 failOnLimits.orElse(DEFAULT_FAIL_ON_LIMITS),
                 smallQueryThreshold.orElse(DEFAULT_SMALL_QUERY_THRESHOLD)
             );
@@ -35,6 +35,7 @@ import com.spotify.heroic.metric.BackendKeyFilter;
 import com.spotify.heroic.shell.task.AnalyticsDumpFetchSeries;
 import com.spotify.heroic.shell.task.AnalyticsReportFetchSeries;
 import com.spotify.heroic.shell.task.BackendKeyArgument;
+import com.spotify.heroic.shell.task.CompactKeys;
 import com.spotify.heroic.shell.task.Configure;
 import com.spotify.heroic.shell.task.CountData;
 import com.spotify.heroic.shell.task.DataMigrate;
@@ -108,6 +109,7 @@ public final class Tasks {
         shellTask(Keys::setup, Keys.class);
         shellTask(DeleteKeys::setup, DeleteKeys.class);
         shellTask(CountData::setup, CountData.class);
+        shellTask(CompactKeys::setup, CompactKeys.class);
         shellTask(SerializeKey::setup, SerializeKey.class);
         shellTask(DeserializeKey::setup, DeserializeKey.class);
         shellTask(ListBackends::setup, ListBackends.class);
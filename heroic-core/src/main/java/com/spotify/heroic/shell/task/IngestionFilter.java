@@ -71,7 +71,7 @@ public class IngestionFilter implements ShellTask {
             });
         }
 
-        final Filter filter = parser.parseFilter(filterJoiner.join(params.filter));
+        final Filter filter = parser.parseFilter(filterJoiner.join(params.filter)).optimize();
 
         io.out().println("Updating ingestion filter to: " + filter);
         return ingestion.setFilter(filter);
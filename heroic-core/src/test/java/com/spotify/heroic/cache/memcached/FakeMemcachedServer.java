@@ -0,0 +1,133 @@
+package com.spotify.heroic.cache.memcached;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for memcached, implementing the subset of the text protocol used by {@link
+ * MemcachedClient}.
+ */
+public class FakeMemcachedServer implements Closeable {
+    private final ServerSocket server;
+
+    final Map<String, byte[]> values = new ConcurrentHashMap<>();
+    final Map<String, Integer> ttls = new ConcurrentHashMap<>();
+    final AtomicInteger gets = new AtomicInteger();
+
+    public FakeMemcachedServer() throws IOException {
+        this.server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+
+        final Thread acceptor = new Thread(this::accept, "fake-memcached");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                final Socket socket = server.accept();
+                final Thread handler = new Thread(() -> handle(socket), "fake-memcached-conn");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (final IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(final Socket socket) {
+        try (final Socket s = socket) {
+            final InputStream in = new BufferedInputStream(s.getInputStream());
+            final OutputStream out = s.getOutputStream();
+
+            while (true) {
+                final String line = readLine(in);
+
+                if (line == null) {
+                    return;
+                }
+
+                final String[] parts = line.split(" ");
+
+                if ("get".equals(parts[0])) {
+                    gets.incrementAndGet();
+
+                    for (int i = 1; i < parts.length; i++) {
+                        final byte[] value = values.get(parts[i]);
+
+                        if (value != null) {
+                            write(out, "VALUE " + parts[i] + " 0 " + value.length);
+                            out.write(value);
+                            write(out, "");
+                        }
+                    }
+
+                    write(out, "END");
+                } else if ("set".equals(parts[0])) {
+                    final byte[] value = new byte[Integer.parseInt(parts[4])];
+                    int offset = 0;
+
+                    while (offset < value.length) {
+                        offset += in.read(value, offset, value.length - offset);
+                    }
+
+                    in.read();
+                    in.read();
+
+                    values.put(parts[1], value);
+                    ttls.put(parts[1], Integer.parseInt(parts[3]));
+                    write(out, "STORED");
+                } else {
+                    write(out, "ERROR");
+                }
+
+                out.flush();
+            }
+        } catch (final IOException e) {
+            /* connection closed */
+        }
+    }
+
+    private static void write(final OutputStream out, final String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String readLine(final InputStream in) throws IOException {
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        while (true) {
+            final int b = in.read();
+
+            if (b < 0) {
+                return null;
+            }
+
+            if (b == '\r') {
+                in.read();
+                return new String(line.toByteArray(), StandardCharsets.US_ASCII);
+            }
+
+            line.write(b);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.spotify.heroic.cache.memcached;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.net.HostAndPort;
+import eu.toolchain.async.TinyAsync;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.function.Function;
+import org.junit.Test;
+
+public class MemcachedClientTest {
+    private static final int KEYS = 10000;
+
+    @Test
+    public void testRingDistributesKeys() {
+        final List<String> nodes = ImmutableList.of("a:11211", "b:11211", "c:11211", "d:11211");
+        final Map<String, String> placement = place(nodes);
+        final Map<String, Integer> counts = new HashMap<>();
+
+        placement.values().forEach(node -> counts.merge(node, 1, Integer::sum));
+
+        assertEquals(nodes.size(), counts.size());
+
+        for (final int count : counts.values()) {
+            assertTrue("unbalanced ring: " + counts, count > KEYS / nodes.size() / 2);
+        }
+    }
+
+    @Test
+    public void testRemovingNodeOnlyMovesItsKeys() {
+        final Map<String, String> before =
+            place(ImmutableList.of("a:11211", "b:11211", "c:11211", "d:11211"));
+        final Map<String, String> after = place(ImmutableList.of("a:11211", "b:11211", "d:11211"));
+
+        for (final Map.Entry<String, String> e : before.entrySet()) {
+            if (!"c:11211".equals(e.getValue())) {
+                assertEquals(e.getValue(), after.get(e.getKey()));
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidKeyFails() {
+        final MemcachedClient client = new MemcachedClient(TinyAsync.builder().build(),
+            ImmutableList.of(HostAndPort.fromParts("localhost", 11211)), 1, 1000);
+
+        try {
+            /* a key which can not be hashed fails the future instead of throwing */
+            assertTrue(client.get(Collections.singletonList(null)).isFailed());
+            assertTrue(client.set(null, 60, new byte[0]).isFailed());
+        } finally {
+            client.close();
+        }
+    }
+
+    private Map<String, String> place(final List<String> nodes) {
+        final NavigableMap<Long, String> ring = MemcachedClient.ring(nodes, Function.identity());
+        final Map<String, String> placement = new HashMap<>();
+
+        for (int i = 0; i < KEYS; i++) {
+            final String key = "key-" + i;
+            placement.put(key, MemcachedClient.locate(ring, key));
+        }
+
+        return placement;
+    }
+}
@@ -0,0 +1,216 @@
+package com.spotify.heroic.cache.memcached;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.net.HostAndPort;
+import com.spotify.heroic.QueryOptions;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Duration;
+import com.spotify.heroic.common.Features;
+import com.spotify.heroic.filter.TrueFilter;
+import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.QueryResult;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.ResultLimits;
+import com.spotify.heroic.metric.ShardedResultGroup;
+import com.spotify.heroic.querylogging.QueryContext;
+import com.spotify.heroic.statistics.noop.NoopQueryReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.TinyAsync;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MemcachedQueryCacheTest {
+    private static final long CADENCE = 10L;
+    private static final long NOW = 10000L;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final AsyncFramework async = TinyAsync.builder().executor(executor).build();
+
+    private FakeMemcachedServer server;
+    private AggregationInstance aggregation;
+    private ObjectMapper mapper;
+
+    /* ranges requested from the backends */
+    private List<DateRange> loaded;
+
+    @Before
+    public void setup() throws Exception {
+        server = new FakeMemcachedServer();
+
+        aggregation = mock(AggregationInstance.class);
+        doReturn(CADENCE).when(aggregation).cadence();
+        doReturn(true).when(aggregation).sliceable();
+
+        mapper = mock(ObjectMapper.class);
+        doAnswer(invocation -> invocation
+            .getArguments()[0]
+            .toString()
+            .getBytes(StandardCharsets.UTF_8)).when(mapper).writeValueAsBytes(any());
+
+        loaded = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @After
+    public void teardown() throws Exception {
+        server.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSharedBetweenInstances() throws Exception {
+        final MemcachedQueryCache a = cache();
+        final MemcachedQueryCache b = cache();
+
+        final QueryResult first = load(a, new DateRange(8000L, 9000L), this::points).get();
+        assertEquals(ImmutableList.of(new DateRange(8000L, 9000L)), loaded);
+
+        /* stores are asynchronous */
+        waitForValues(10);
+        loaded.clear();
+
+        final QueryResult second = load(b, new DateRange(8000L, 9000L), this::points).get();
+
+        assertEquals(ImmutableList.of(), loaded);
+        assertEquals(first.getGroups(), second.getGroups());
+        assertEquals(expected(8000L, 9000L), second.getGroups().get(0).getMetrics());
+    }
+
+    @Test
+    public void testSingleRoundTrip() throws Exception {
+        load(cache(), new DateRange(8000L, 9000L), this::points).get();
+        assertEquals(1, server.gets.get());
+    }
+
+    @Test
+    public void testCoalescing() throws Exception {
+        final MemcachedQueryCache cache = cache();
+        final ResolvableFuture<QueryResult> pending = async.future();
+
+        final Function<FullQuery.Request, AsyncFuture<QueryResult>> loader = r -> {
+            loaded.add(r.getRange());
+            return pending;
+        };
+
+        final AsyncFuture<QueryResult> first = cache.load(request(new DateRange(8000L, 9000L)),
+            loader);
+        final AsyncFuture<QueryResult> second = cache.load(request(new DateRange(8000L, 9000L)),
+            loader);
+
+        /* cancelling one caller doesn't affect the others */
+        first.cancel();
+
+        pending.resolve(points(request(new DateRange(8000L, 9000L))));
+        second.get();
+
+        assertEquals(ImmutableList.of(new DateRange(8000L, 9000L)), loaded);
+    }
+
+    @Test
+    public void testUnavailable() throws Exception {
+        server.close();
+
+        final QueryResult result =
+            load(cache(), new DateRange(8000L, 9000L), this::points).get();
+
+        assertEquals(ImmutableList.of(new DateRange(8000L, 9000L)), loaded);
+        assertEquals(expected(8000L, 9000L), result.getGroups().get(0).getMetrics());
+    }
+
+    @Test
+    public void testTtl() throws Exception {
+        load(cache(), new DateRange(0L, 1000L), this::points).get();
+        waitForValues(10);
+
+        for (final int ttl : server.ttls.values()) {
+            assertTrue(ttl >= 1 && ttl <= 10);
+        }
+
+        /* a slice is kept for at least its width */
+        assertEquals(60L, MemcachedQueryCache.ttl(100_000L, 100_000L, 60_000L, 86400L));
+        /* ... for as long as it has been finalized */
+        assertEquals(3600L, MemcachedQueryCache.ttl(3_700_000L, 100_000L, 60_000L, 86400L));
+        /* ... but no longer than the maximum */
+        assertEquals(86400L, MemcachedQueryCache.ttl(Long.MAX_VALUE, 0L, 60_000L, 86400L));
+    }
+
+    private MemcachedQueryCache cache() {
+        final MemcachedClient client = new MemcachedClient(async,
+            ImmutableList.of(HostAndPort.fromParts("127.0.0.1", server.getPort())), 2, 1000);
+
+        return new MemcachedQueryCache(() -> NOW, async, NoopQueryReporter.get(), client, mapper,
+            "test:", 10L, Duration.of(0, TimeUnit.MILLISECONDS), Duration.of(1, TimeUnit.DAYS),
+            MemcachedCacheModule.DEFAULT_MAX_WHOLE_RESULTS);
+    }
+
+    private void waitForValues(final int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000L;
+
+        while (server.values.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+
+        assertEquals(count, server.values.size());
+    }
+
+    private FullQuery.Request request(final DateRange range) {
+        return new FullQuery.Request(MetricType.POINT, TrueFilter.get(), range, aggregation,
+            QueryOptions.defaults(), QueryContext.empty(), Features.empty());
+    }
+
+    private AsyncFuture<QueryResult> load(
+        final MemcachedQueryCache cache, final DateRange range,
+        final Function<FullQuery.Request, QueryResult> loader
+    ) {
+        return cache.load(request(range), r -> {
+            loaded.add(r.getRange());
+            return async.resolved(loader.apply(r));
+        });
+    }
+
+    private QueryResult points(final FullQuery.Request request) {
+        final DateRange range = request.getRange();
+        final MetricCollection metrics = expected(range.getStart(), range.getEnd());
+
+        final List<ShardedResultGroup> groups = ImmutableList.of(
+            new ShardedResultGroup(ImmutableMap.of(), ImmutableMap.of(), ImmutableSet.of(),
+                metrics, CADENCE));
+
+        return new QueryResult(range, groups, ImmutableList.of(), QueryTrace.PASSIVE,
+            ResultLimits.of(), metrics.size());
+    }
+
+    private MetricCollection expected(final long start, final long end) {
+        final List<Point> points = new ArrayList<>();
+
+        for (long t = start + CADENCE; t <= end; t += CADENCE) {
+            points.add(new Point(t, t));
+        }
+
+        return MetricCollection.points(points);
+    }
+}
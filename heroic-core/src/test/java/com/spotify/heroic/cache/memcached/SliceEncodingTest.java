@@ -0,0 +1,60 @@
+package com.spotify.heroic.cache.memcached;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.cache.SlicedQueryCache.Slice;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.Event;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.ShardedResultGroup;
+import java.util.Arrays;
+import org.junit.Test;
+
+public class SliceEncodingTest {
+    @Test
+    public void testRoundTrip() {
+        final ShardedResultGroup a = new ShardedResultGroup(ImmutableMap.of("site", "lon"),
+            ImmutableMap.of("host", "a"),
+            ImmutableSet.of(Series.of("cpu", ImmutableMap.of("host", "a", "role", "db"))),
+            MetricCollection.points(
+                ImmutableList.of(new Point(10L, 1D), new Point(20L, -2.5D), new Point(40L, 3D))),
+            10L);
+
+        final ShardedResultGroup b = new ShardedResultGroup(ImmutableMap.of(), ImmutableMap.of(),
+            ImmutableSet.of(Series.of("cpu"), Series.of("mem")),
+            MetricCollection.points(new long[]{5L}, new double[]{Double.NaN}), 10L);
+
+        final Slice slice = Slice.of(ImmutableList.of(a, b));
+        final Slice decoded = SliceEncoding.decode(SliceEncoding.encode(slice).get());
+
+        assertEquals(slice, decoded);
+    }
+
+    @Test
+    public void testEmpty() {
+        final Slice slice = Slice.of(ImmutableList.of());
+        assertEquals(slice, SliceEncoding.decode(SliceEncoding.encode(slice).get()));
+    }
+
+    @Test
+    public void testUnsupportedType() {
+        final ShardedResultGroup g = new ShardedResultGroup(ImmutableMap.of(), ImmutableMap.of(),
+            ImmutableSet.of(), MetricCollection.events(ImmutableList.of(new Event(10L))), 10L);
+
+        assertFalse(SliceEncoding.encode(Slice.of(ImmutableList.of(g))).isPresent());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncated() {
+        final ShardedResultGroup g = new ShardedResultGroup(ImmutableMap.of(), ImmutableMap.of(),
+            ImmutableSet.of(), MetricCollection.points(ImmutableList.of(new Point(10L, 1D))), 10L);
+
+        final byte[] bytes = SliceEncoding.encode(Slice.of(ImmutableList.of(g))).get();
+        SliceEncoding.decode(Arrays.copyOf(bytes, bytes.length - 1));
+    }
+}
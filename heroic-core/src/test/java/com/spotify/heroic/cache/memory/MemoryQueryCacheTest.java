@@ -0,0 +1,220 @@
+package com.spotify.heroic.cache.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.QueryOptions;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Duration;
+import com.spotify.heroic.common.Features;
+import com.spotify.heroic.filter.TrueFilter;
+import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.QueryError;
+import com.spotify.heroic.metric.QueryResult;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.ResultLimits;
+import com.spotify.heroic.metric.ShardedResultGroup;
+import com.spotify.heroic.querylogging.QueryContext;
+import com.spotify.heroic.statistics.noop.NoopQueryReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.TinyAsync;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MemoryQueryCacheTest {
+    private static final long CADENCE = 10L;
+    private static final long NOW = 10000L;
+
+    private final AsyncFramework async = TinyAsync.builder().build();
+
+    private AggregationInstance aggregation;
+    private MemoryQueryCache cache;
+
+    /* ranges requested from the backends */
+    private List<DateRange> loaded;
+
+    @Before
+    public void setup() {
+        aggregation = mock(AggregationInstance.class);
+        doReturn(CADENCE).when(aggregation).cadence();
+        doReturn(true).when(aggregation).sliceable();
+
+        cache = cache(0L);
+
+        loaded = new ArrayList<>();
+    }
+
+    @Test
+    public void testPartialHit() throws Exception {
+        final QueryResult first = load(new DateRange(9000L, 9500L), this::points);
+        assertEquals(ImmutableList.of(new DateRange(9000L, 9500L)), loaded);
+
+        loaded.clear();
+
+        final QueryResult second = load(new DateRange(9000L, 9800L), this::points);
+        /* only the range which was not previously seen should be loaded */
+        assertEquals(ImmutableList.of(new DateRange(9500L, 9800L)), loaded);
+
+        assertEquals(expected(9000L, 9500L), first.getGroups().get(0).getMetrics());
+        assertEquals(expected(9000L, 9800L), second.getGroups().get(0).getMetrics());
+    }
+
+    @Test
+    public void testSlidingWindow() throws Exception {
+        load(new DateRange(8000L, 9000L), this::points);
+        loaded.clear();
+
+        final QueryResult result = load(new DateRange(8050L, 9050L), this::points);
+
+        /* the new slice is loaded whole, so that it can be cached */
+        assertEquals(ImmutableList.of(new DateRange(9000L, 9100L)), loaded);
+        assertEquals(expected(8050L, 9050L), result.getGroups().get(0).getMetrics());
+    }
+
+    @Test
+    public void testUnfinalizedTail() throws Exception {
+        cache = cache(150L);
+
+        load(new DateRange(9700L, 10000L), this::points);
+        assertEquals(
+            ImmutableList.of(new DateRange(9700L, 9800L), new DateRange(9800L, 10000L)), loaded);
+
+        loaded.clear();
+
+        final QueryResult result = load(new DateRange(9700L, 10000L), this::points);
+
+        /* slices beyond the finalized boundary must not be cached */
+        assertEquals(ImmutableList.of(new DateRange(9800L, 10000L)), loaded);
+        assertEquals(expected(9700L, 10000L), result.getGroups().get(0).getMetrics());
+    }
+
+    @Test
+    public void testErrorsAreNotCached() throws Exception {
+        final QueryResult failed = load(new DateRange(8000L, 9000L), this::failed);
+        assertEquals(1, failed.getErrors().size());
+
+        loaded.clear();
+
+        load(new DateRange(8000L, 9000L), this::points);
+        assertEquals(ImmutableList.of(new DateRange(8000L, 9000L)), loaded);
+    }
+
+    @Test
+    public void testNotSliceable() throws Exception {
+        doReturn(false).when(aggregation).sliceable();
+        /* whole requests are kept for one cadence */
+        doReturn(60000L).when(aggregation).cadence();
+
+        load(new DateRange(8000L, 9000L), this::points);
+        final QueryResult result = load(new DateRange(8000L, 9000L), this::points);
+
+        /* cached as a whole */
+        assertEquals(ImmutableList.of(new DateRange(8000L, 9000L)), loaded);
+        assertEquals(expected(8000L, 9000L), result.getGroups().get(0).getMetrics());
+    }
+
+    @Test
+    public void testUnalignedRange() throws Exception {
+        doReturn(60000L).when(aggregation).cadence();
+
+        load(new DateRange(8005L, 9000L), this::points);
+        load(new DateRange(8005L, 9000L), this::points);
+
+        /* cached as a whole */
+        assertEquals(ImmutableList.of(new DateRange(8005L, 9000L)), loaded);
+    }
+
+    @Test
+    public void testWholeResultsBounded() throws Exception {
+        doReturn(false).when(aggregation).sliceable();
+        cache = new MemoryQueryCache(() -> NOW, async, NoopQueryReporter.get(), 1000000L, 10L,
+            Duration.of(0L, TimeUnit.MILLISECONDS), Duration.of(1, TimeUnit.HOURS), 1);
+
+        load(new DateRange(8000L, 9000L), this::points);
+        load(new DateRange(7000L, 9000L), this::points);
+        load(new DateRange(8000L, 9000L), this::points);
+        load(new DateRange(7000L, 9000L), this::points);
+
+        /* only the first result fits, the other one is loaded every time */
+        assertEquals(ImmutableList.of(new DateRange(8000L, 9000L), new DateRange(7000L, 9000L),
+            new DateRange(7000L, 9000L)), loaded);
+    }
+
+    @Test
+    public void testPartialErrorsDoNotReload() throws Exception {
+        load(new DateRange(8000L, 9000L), this::points);
+        loaded.clear();
+
+        final QueryResult result = load(new DateRange(8000L, 9500L), this::failed);
+
+        /* the error of the loaded part is reported, without loading the whole range again */
+        assertEquals(ImmutableList.of(new DateRange(9000L, 9500L)), loaded);
+        assertEquals(1, result.getErrors().size());
+        assertEquals(expected(8000L, 9000L), result.getGroups().get(0).getMetrics());
+    }
+
+    private MemoryQueryCache cache(final long finalizeDelay) {
+        return new MemoryQueryCache(() -> NOW, async, NoopQueryReporter.get(), 1000000L, 10L,
+            Duration.of(finalizeDelay, TimeUnit.MILLISECONDS), Duration.of(1, TimeUnit.HOURS),
+            MemoryCacheModule.DEFAULT_MAX_WHOLE_RESULTS);
+    }
+
+    private QueryResult load(
+        final DateRange range, final Function<FullQuery.Request, QueryResult> loader
+    ) throws Exception {
+        final FullQuery.Request request =
+            new FullQuery.Request(MetricType.POINT, TrueFilter.get(), range, aggregation,
+                QueryOptions.defaults(), QueryContext.empty(), Features.empty());
+
+        final Function<FullQuery.Request, AsyncFuture<QueryResult>> f = r -> {
+            loaded.add(r.getRange());
+            return async.resolved(loader.apply(r));
+        };
+
+        return cache.load(request, f).get();
+    }
+
+    /**
+     * Emulate a bucketed result, with one bucket per cadence in {@code (start, end]}.
+     */
+    private QueryResult points(final FullQuery.Request request) {
+        final DateRange range = request.getRange();
+        final MetricCollection metrics = expected(range.getStart(), range.getEnd());
+
+        final List<ShardedResultGroup> groups = ImmutableList.of(
+            new ShardedResultGroup(ImmutableMap.of(), ImmutableMap.of(), ImmutableSet.of(),
+                metrics, CADENCE));
+
+        return new QueryResult(range, groups, ImmutableList.of(), QueryTrace.PASSIVE,
+            ResultLimits.of(), metrics.size());
+    }
+
+    private QueryResult failed(final FullQuery.Request request) {
+        return new QueryResult(request.getRange(), ImmutableList.of(),
+            ImmutableList.of(QueryError.fromMessage("failed")), QueryTrace.PASSIVE,
+            ResultLimits.of(), 0L);
+    }
+
+    private MetricCollection expected(final long start, final long end) {
+        final List<Point> points = new ArrayList<>();
+
+        for (long t = start + CADENCE; t <= end; t += CADENCE) {
+            points.add(new Point(t, t));
+        }
+
+        return MetricCollection.points(points);
+    }
+}
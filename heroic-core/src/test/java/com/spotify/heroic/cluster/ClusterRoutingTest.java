@@ -0,0 +1,197 @@
+package com.spotify.heroic.cluster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.collect.ImmutableList;
+import com.spotify.heroic.scheduler.Scheduler;
+import com.spotify.heroic.scheduler.Task;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.TinyAsync;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class ClusterRoutingTest {
+    private final AsyncFramework async = TinyAsync.builder().build();
+
+    private Scheduler scheduler;
+
+    private ClusterNode.Group a;
+    private ClusterNode.Group b;
+    private ClusterNode.Group c;
+
+    private final Map<ClusterNode.Group, ResolvableFuture<String>> requests = new HashMap<>();
+    private final Function<ClusterNode.Group, AsyncFuture<String>> function = g -> {
+        final ResolvableFuture<String> future = async.future();
+        requests.put(g, future);
+        return future;
+    };
+
+    @Before
+    public void setup() {
+        scheduler = mock(Scheduler.class);
+        a = group("a");
+        b = group("b");
+        c = group("c");
+    }
+
+    @Test
+    public void testOrderByLatency() {
+        final ClusterRouting routing = new ClusterRouting(async, scheduler, true, Optional.empty());
+
+        routing.latency(a.node()).update(100L);
+        routing.latency(b.node()).update(10L);
+
+        /* c has not been observed and is probed first */
+        assertEquals(ImmutableList.of(c, b, a), routing.order(ImmutableList.of(a, b, c)));
+    }
+
+    @Test
+    public void testFailuresArePenalized() {
+        final ClusterRouting routing = new ClusterRouting(async, scheduler, true, Optional.empty());
+
+        routing.latency(b.node()).update(10L);
+
+        /* a fails immediately, which must not make it look faster than b */
+        routing.request(a, function);
+        requests.get(a).fail(new RuntimeException("a"));
+
+        assertEquals(ImmutableList.of(b, a), routing.order(ImmutableList.of(a, b)));
+        assertEquals((double) ClusterRouting.FAILURE_PENALTY_MILLIS,
+            routing.latency(a.node()).getAverage(), 0D);
+    }
+
+    @Test
+    public void testRetain() {
+        final ClusterRouting routing = new ClusterRouting(async, scheduler, true, Optional.empty());
+
+        routing.latency(a.node()).update(10L);
+        routing.latency(b.node()).update(10L);
+
+        routing.retain(ImmutableList.of(b.node()));
+
+        assertEquals(ImmutableList.of(b.node().toString()), ImmutableList.copyOf(
+            routing.getStatistics(ImmutableList.of(a.node(), b.node())).getNodes().keySet()));
+    }
+
+    @Test
+    public void testOrderDisabled() {
+        final ClusterRouting routing =
+            new ClusterRouting(async, scheduler, false, Optional.empty());
+
+        routing.latency(a.node()).update(100L);
+        routing.latency(b.node()).update(10L);
+
+        assertEquals(ImmutableList.of(a, b), routing.order(ImmutableList.of(a, b)));
+    }
+
+    @Test
+    public void testHedgeWins() throws Exception {
+        final ClusterRouting routing = hedgingRouting();
+
+        final Iterator<ClusterNode.Group> rest = ImmutableList.of(b).iterator();
+        final AsyncFuture<String> result = routing.hedgedRequest(a, rest, function);
+
+        final Task hedge = scheduledHedge(5L);
+        hedge.run();
+
+        assertFalse(rest.hasNext());
+        requests.get(b).resolve("b");
+
+        assertEquals("b", result.get());
+        assertTrue(requests.get(a).isCancelled());
+
+        final ClusterRouting.Statistics statistics =
+            routing.getStatistics(ImmutableList.of(a.node(), b.node()));
+        assertEquals(1L, statistics.getHedges());
+        assertEquals(1L, statistics.getHedgesWon());
+    }
+
+    @Test
+    public void testPrimaryFailsBeforeHedge() throws Exception {
+        final ClusterRouting routing = hedgingRouting();
+
+        final Iterator<ClusterNode.Group> rest = ImmutableList.of(b).iterator();
+        final AsyncFuture<String> result = routing.hedgedRequest(a, rest, function);
+
+        requests.get(a).fail(new RuntimeException("a"));
+        assertTrue(result.isFailed());
+
+        /* the remaining replica is left for the retry */
+        scheduledHedge(5L).run();
+        assertTrue(rest.hasNext());
+    }
+
+    @Test
+    public void testFailsWhenAllFail() throws Exception {
+        final ClusterRouting routing = hedgingRouting();
+
+        final AsyncFuture<String> result =
+            routing.hedgedRequest(a, ImmutableList.of(b).iterator(), function);
+
+        scheduledHedge(5L).run();
+
+        requests.get(a).fail(new RuntimeException("a"));
+        assertFalse(result.isDone());
+
+        requests.get(b).fail(new RuntimeException("b"));
+        assertTrue(result.isFailed());
+    }
+
+    @Test
+    public void testNoHedgeWithoutSamples() {
+        final ClusterRouting routing =
+            new ClusterRouting(async, scheduler, true, Optional.of(0.9D));
+
+        routing.hedgedRequest(a, ImmutableList.of(b).iterator(), function);
+
+        verify(scheduler, never()).schedule(anyString(), anyLong(), any(), any());
+    }
+
+    private ClusterRouting hedgingRouting() {
+        final ClusterRouting routing =
+            new ClusterRouting(async, scheduler, true, Optional.of(0.5D));
+
+        for (int i = 1; i <= ClusterRouting.MIN_SAMPLES; i++) {
+            routing.latency(a.node()).update(i);
+        }
+
+        return routing;
+    }
+
+    private Task scheduledHedge(final long delay) {
+        final ArgumentCaptor<Task> task = ArgumentCaptor.forClass(Task.class);
+        verify(scheduler).schedule(anyString(), eq(delay), eq(TimeUnit.MILLISECONDS),
+            task.capture());
+        return task.getValue();
+    }
+
+    private ClusterNode.Group group(final String name) {
+        final ClusterNode node = mock(ClusterNode.class);
+        doReturn(new NodeMetadata(0, UUID.randomUUID(), null, null)).when(node).metadata();
+        doReturn(name).when(node).toString();
+
+        final ClusterNode.Group group = mock(ClusterNode.Group.class);
+        doReturn(node).when(group).node();
+        return group;
+    }
+}
@@ -0,0 +1,96 @@
+package com.spotify.heroic.consumer.schemas;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.consumer.ConsumerSchemaValidationException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class Spotify100DecoderTest {
+    private final Spotify100Decoder decoder = new Spotify100Decoder();
+
+    @Test
+    public void testDecode() throws Exception {
+        decoder.decode(bytes("{\"version\": \"1.0.0\", \"key\": \"foo\", \"host\": \"h\", " +
+            "\"time\": 1000, \"value\": 4.2, \"unknown\": {\"nested\": [1, 2]}, " +
+            "\"attributes\": {\"b\": \"2\", \"a\": \"1\", \"n\": null, \"o\": 42}}"));
+
+        assertEquals(Series.of("foo", ImmutableMap.of("a", "1", "b", "2", "host", "h")),
+            decoder.getSeries());
+        assertEquals(1000L, decoder.getTime());
+        assertEquals(4.2D, decoder.getValue(), 0D);
+    }
+
+    @Test
+    public void testHostOverridesAttribute() throws Exception {
+        decoder.decode(bytes("{\"version\": \"1.0.0\", \"key\": \"foo\", \"time\": 1, " +
+            "\"value\": 1, \"attributes\": {\"host\": \"attribute\"}}"));
+
+        final Map<String, String> tags = new HashMap<>();
+        tags.put("host", null);
+
+        assertEquals(Series.of("foo", tags), decoder.getSeries());
+    }
+
+    @Test
+    public void testCachedSeries() throws Exception {
+        decoder.decode(bytes("{\"version\": \"1.0.0\", \"key\": \"foo\", \"host\": \"h\", " +
+            "\"time\": 1, \"value\": 1, \"attributes\": {\"a\": \"1\", \"b\": \"2\"}}"));
+        final Series first = decoder.getSeries();
+
+        decoder.decode(bytes("{\"attributes\": {\"b\": \"2\", \"a\": \"1\"}, \"value\": 2, " +
+            "\"time\": 2, \"host\": \"h\", \"key\": \"foo\", \"version\": \"1.0.0\"}"));
+
+        assertSame(first, decoder.getSeries());
+        assertEquals(2L, decoder.getTime());
+        assertEquals(2D, decoder.getValue(), 0D);
+    }
+
+    @Test
+    public void testCacheCollisions() throws Exception {
+        final Spotify100Decoder small = new Spotify100Decoder(1);
+
+        for (int i = 0; i < 10; i++) {
+            small.decode(bytes("{\"version\": \"1.0.0\", \"key\": \"k" + i + "\", " +
+                "\"time\": 1, \"value\": 1, \"attributes\": {\"a\": \"v" + i + "\"}}"));
+
+            final Map<String, String> tags = new HashMap<>();
+            tags.put("a", "v" + i);
+            tags.put("host", null);
+
+            assertEquals(Series.of("k" + i, tags), small.getSeries());
+        }
+    }
+
+    @Test
+    public void testInvalid() throws Exception {
+        assertInvalid("not json");
+        assertInvalid("[]");
+        assertInvalid("{\"version\": \"1.0.0\", \"key\": \"foo\", \"time\": 1}");
+        assertInvalid("{\"version\": \"2.0.0\", \"key\": \"foo\", \"time\": 1, \"value\": 1}");
+        assertInvalid("{\"version\": \"1.0.0\", \"key\": \"foo\", \"value\": 1}");
+        assertInvalid("{\"version\": \"1.0.0\", \"time\": 1, \"value\": 1}");
+        assertInvalid("{\"version\": \"1.0.0\", \"key\": \"foo\", \"time\": 1, \"value\": 1, " +
+            "\"attributes\": {\"a\": \"1\", \"a\": \"2\"}}");
+        assertInvalid("{\"version\": \"1.0.0\", \"key\": {}, \"time\": 1, \"value\": 1}");
+    }
+
+    private void assertInvalid(final String message) {
+        try {
+            decoder.decode(bytes(message));
+            fail("expected message to be invalid: " + message);
+        } catch (final ConsumerSchemaValidationException e) {
+            /* expected */
+        }
+    }
+
+    private byte[] bytes(final String message) {
+        return message.getBytes(StandardCharsets.UTF_8);
+    }
+}
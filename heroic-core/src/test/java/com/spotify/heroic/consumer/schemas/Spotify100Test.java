@@ -1,18 +1,68 @@
 package com.spotify.heroic.consumer.schemas;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.ingestion.Ingestion;
+import com.spotify.heroic.ingestion.IngestionGroup;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.statistics.ConsumerReporter;
+import com.spotify.heroic.time.Clock;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.TinyAsync;
 import org.junit.Assert;
 import org.junit.Test;
 
 public class Spotify100Test {
+    private final ObjectMapper mapper = new ObjectMapper();
+
     @Test
     public void testIgnoreNullAttributes() throws Exception {
-        final ObjectMapper mapper = new ObjectMapper();
         final Spotify100.JsonMetric m = mapper.readValue(
             "{\"attributes\": {\"foo\": \"value\", \"bar\": null}, \"key\": \"a key\"}",
             Spotify100.JsonMetric.class);
         Assert.assertEquals(ImmutableMap.of("foo", "value"), m.getAttributes());
         Assert.assertEquals("a key", m.getKey());
     }
+
+    @Test
+    public void testConsumeBatch() throws Exception {
+        final AsyncFramework async = TinyAsync.builder().build();
+        final IngestionGroup ingestion = mock(IngestionGroup.class);
+        final ConsumerReporter reporter = mock(ConsumerReporter.class);
+
+        when(ingestion.write(any(Ingestion.Request.class))).thenReturn(
+            async.resolved(Ingestion.EMPTY));
+
+        final Spotify100.Consumer consumer =
+            new Spotify100.Consumer(async, Clock.system(), ingestion, reporter);
+
+        consumer.consumeBatch(ImmutableList.of(message("a", 20L, 2D), message("b", 10L, 3D),
+            "{}".getBytes(), message("a", 10L, 1D))).get();
+
+        final Series a = Series.of("a", ImmutableMap.of("host", "localhost", "tag", "value"));
+        final Series b = Series.of("b", ImmutableMap.of("host", "localhost", "tag", "value"));
+
+        verify(ingestion).write(new Ingestion.Request(a,
+            MetricCollection.points(ImmutableList.of(new Point(10L, 1D), new Point(20L, 2D)))));
+        verify(ingestion).write(
+            new Ingestion.Request(b, MetricCollection.points(ImmutableList.of(new Point(10L, 3D)))));
+        verify(ingestion, times(2)).write(any(Ingestion.Request.class));
+        verify(reporter).reportConsumerSchemaError();
+    }
+
+    private byte[] message(final String key, final long time, final double value)
+        throws Exception {
+        return mapper.writeValueAsBytes(
+            new Spotify100.JsonMetric(Spotify100.SCHEMA_VERSION, key, "localhost", time,
+                ImmutableMap.of("tag", "value"), value));
+    }
 }
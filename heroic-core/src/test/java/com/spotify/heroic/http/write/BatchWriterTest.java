@@ -0,0 +1,255 @@
+package com.spotify.heroic.http.write;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.ingestion.Ingestion;
+import com.spotify.heroic.ingestion.IngestionGroup;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.QueryError;
+import com.spotify.heroic.test.FakeModuleLoader;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.TinyAsync;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchWriterTest {
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AsyncFramework async = TinyAsync.builder().executor(executor).build();
+    private final ObjectMapper mapper = FakeModuleLoader.builder().build().json();
+
+    private final Series a = Series.of("a", ImmutableMap.of("host", "a"));
+    private final Series b = Series.of("b", ImmutableMap.of("host", "b"));
+    private final List<Point> points = ImmutableList.of(new Point(1L, 1D), new Point(2L, 2D));
+
+    @Mock
+    private IngestionGroup group;
+
+    private final List<Ingestion.Request> written =
+        Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setup() {
+        doAnswer(invocation -> {
+            written.add(invocation.getArgumentAt(0, Ingestion.Request.class));
+            return async.resolved(Ingestion.of(0L));
+        }).when(group).write(any(Ingestion.Request.class));
+    }
+
+    @After
+    public void teardown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testJson() throws Exception {
+        final String body = json(a) + "\n" + json(b) + "\n";
+
+        final WriteBatchResponse response = writer(4)
+            .write(JsonWriteBatchReader.open(mapper,
+                new ByteArrayInputStream(body.getBytes("UTF-8"))))
+            .get();
+
+        assertEquals(new WriteBatchResponse(2, 0, ImmutableList.of()), response);
+        assertEquals(ImmutableList.of(a, b), writtenSeries());
+        assertEquals(points, written.get(0).getData().getDataAs(Point.class));
+    }
+
+    @Test
+    public void testBinary() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final BinaryWriteBatchWriter binary = new BinaryWriteBatchWriter(out);
+        binary.write(a, points);
+        binary.write(b, ImmutableList.of());
+        binary.flush();
+
+        final WriteBatchResponse response = writer(4)
+            .write(new BinaryWriteBatchReader(new ByteArrayInputStream(out.toByteArray())))
+            .get();
+
+        assertEquals(new WriteBatchResponse(2, 0, ImmutableList.of()), response);
+        assertEquals(ImmutableList.of(a, b), writtenSeries());
+        assertEquals(points, written.get(0).getData().getDataAs(Point.class));
+        assertEquals(0, written.get(1).getData().size());
+    }
+
+    @Test
+    public void testTruncatedBinary() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final BinaryWriteBatchWriter binary = new BinaryWriteBatchWriter(out);
+        binary.write(a, points);
+        binary.write(b, points);
+        binary.flush();
+
+        final byte[] bytes = out.toByteArray();
+        final byte[] truncated = new byte[bytes.length - 4];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+
+        final WriteBatchResponse response = writer(4)
+            .write(new BinaryWriteBatchReader(new ByteArrayInputStream(truncated)))
+            .get();
+
+        assertEquals(2, response.getSeries());
+        assertEquals(1, response.getFailed());
+        assertEquals(1, response.getErrors().get(0).getIndex());
+        assertEquals(Optional.empty(), response.getErrors().get(0).getSeries());
+        assertEquals(ImmutableList.of(a), writtenSeries());
+    }
+
+    @Test
+    public void testErrorSummaries() throws Exception {
+        doAnswer(invocation -> {
+            final Ingestion.Request request = invocation.getArgumentAt(0, Ingestion.Request.class);
+
+            if (request.getSeries().equals(b)) {
+                return async.failed(new RuntimeException("boom"));
+            }
+
+            return async.resolved(Ingestion.of(0L));
+        }).when(group).write(any(Ingestion.Request.class));
+
+        final WriteBatchResponse response =
+            writer(4).write(reader(request(a), request(b), request(a), request(b))).get();
+
+        assertEquals(4, response.getSeries());
+        assertEquals(2, response.getFailed());
+        /* capped to two reported errors, ordered by index */
+        assertEquals(ImmutableList.of(
+            new WriteBatchResponse.SeriesError(1, Optional.of(b.hash()),
+                ImmutableList.of(QueryError.fromMessage("boom"))),
+            new WriteBatchResponse.SeriesError(3, Optional.of(b.hash()),
+                ImmutableList.of(QueryError.fromMessage("boom")))), response.getErrors());
+    }
+
+    @Test
+    public void testBoundedParallelism() throws Exception {
+        final BlockingQueue<ResolvableFuture<Ingestion>> pending = new LinkedBlockingQueue<>();
+
+        doAnswer(invocation -> {
+            final ResolvableFuture<Ingestion> future = async.future();
+            pending.add(future);
+            return future;
+        }).when(group).write(any(Ingestion.Request.class));
+
+        /* does not wait for any writes to complete */
+        final AsyncFuture<WriteBatchResponse> result =
+            writer(2).write(reader(request(a), request(b), request(a), request(b)));
+
+        final ResolvableFuture<Ingestion> first = pending.take();
+        final ResolvableFuture<Ingestion> second = pending.take();
+
+        /* reading is suspended until a write completes */
+        assertNull(pending.poll(100, TimeUnit.MILLISECONDS));
+
+        first.resolve(Ingestion.of(0L));
+        final ResolvableFuture<Ingestion> third = pending.take();
+        second.resolve(Ingestion.of(0L));
+        final ResolvableFuture<Ingestion> fourth = pending.take();
+        third.resolve(Ingestion.of(0L));
+        assertFalse(result.isDone());
+        fourth.resolve(Ingestion.of(0L));
+
+        assertEquals(new WriteBatchResponse(4, 0, ImmutableList.of()), result.get());
+    }
+
+    @Test
+    public void testInvalidSeries() throws Exception {
+        final WriteBatchReader valid = reader(request(a), request(b));
+        final AtomicInteger reads = new AtomicInteger();
+
+        final WriteBatchReader reader = () -> {
+            if (reads.getAndIncrement() == 1) {
+                throw new IllegalArgumentException("bad series");
+            }
+
+            return valid.next();
+        };
+
+        final WriteBatchResponse response = writer(4).write(reader).get();
+
+        assertEquals(3, response.getSeries());
+        assertEquals(1, response.getFailed());
+        assertEquals(ImmutableList.of(new WriteBatchResponse.SeriesError(1, Optional.empty(),
+                ImmutableList.of(QueryError.fromMessage("Invalid series: bad series")))),
+            response.getErrors());
+        assertEquals(ImmutableList.of(a, b), writtenSeries());
+    }
+
+    @Test
+    public void testUnorderedBinary() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final BinaryWriteBatchWriter binary = new BinaryWriteBatchWriter(out);
+        binary.write(a, ImmutableList.of(new Point(2L, 2D), new Point(1L, 1D)));
+        binary.write(b, points);
+        binary.flush();
+
+        final WriteBatchResponse response = writer(4)
+            .write(new BinaryWriteBatchReader(new ByteArrayInputStream(out.toByteArray())))
+            .get();
+
+        assertEquals(2, response.getSeries());
+        assertEquals(1, response.getFailed());
+        assertEquals(0, response.getErrors().get(0).getIndex());
+        assertEquals(ImmutableList.of(b), writtenSeries());
+    }
+
+    private BatchWriter writer(final int parallelism) {
+        return new BatchWriter(async, executor, group, parallelism, 2);
+    }
+
+    private List<Series> writtenSeries() {
+        final List<Series> series = new ArrayList<>();
+        written.forEach(w -> series.add(w.getSeries()));
+        return series;
+    }
+
+    private WriteMetricRequest request(final Series series) {
+        return new WriteMetricRequest(Optional.of(series),
+            Optional.of(MetricCollection.points(points)));
+    }
+
+    private String json(final Series series) throws Exception {
+        return mapper.writeValueAsString(
+            ImmutableMap.of("series", series, "data", MetricCollection.points(points)));
+    }
+
+    private WriteBatchReader reader(final WriteMetricRequest... requests) {
+        final List<WriteMetricRequest> remaining = new ArrayList<>(ImmutableList.copyOf(requests));
+
+        return () -> {
+            if (remaining.isEmpty()) {
+                return Optional.empty();
+            }
+
+            return Optional.of(remaining.remove(0).toIngestionRequest());
+        };
+    }
+}
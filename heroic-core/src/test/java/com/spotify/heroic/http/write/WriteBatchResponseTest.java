@@ -0,0 +1,12 @@
+package com.spotify.heroic.http.write;
+
+import com.spotify.heroic.test.LombokDataTest;
+import org.junit.Test;
+
+public class WriteBatchResponseTest {
+    @Test
+    public void lombokDataTest() {
+        LombokDataTest.verifyClass(WriteBatchResponse.class);
+        LombokDataTest.verifyClass(WriteBatchResponse.SeriesError.class);
+    }
+}
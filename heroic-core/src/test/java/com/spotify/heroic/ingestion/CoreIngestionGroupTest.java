@@ -3,7 +3,7 @@ package com.spotify.heroic.ingestion;
 import com.google.common.collect.ImmutableList;
 import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Series;
-import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.filter.CompiledFilter;
 import com.spotify.heroic.metadata.MetadataBackend;
 import com.spotify.heroic.metric.MetricBackend;
 import com.spotify.heroic.statistics.IngestionManagerReporter;
@@ -42,11 +42,11 @@ public class CoreIngestionGroupTest {
     @Mock
     private AsyncFramework async;
     @Mock
-    private Supplier<Filter> filterSupplier;
+    private Supplier<CompiledFilter> filterSupplier;
     @Mock
     private Supplier<DateRange> rangeSupplier;
     @Mock
-    private Filter filter;
+    private CompiledFilter filter;
     @Mock
     private Semaphore writePermits;
     @Mock
@@ -1,6 +1,7 @@
 package com.spotify.heroic.metric;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -42,6 +43,15 @@ public class BasicSerializationTest {
         assertSerialization("MetricCollection.json", expected, MetricCollection.class);
     }
 
+    @Test
+    public void testColumnarMetricCollection() throws Exception {
+        final MetricCollection expected =
+            MetricCollection.points(new long[]{1000L, 2000L}, new double[]{10.0d, 20.0d});
+        assertSerialization("MetricCollection.json", expected, MetricCollection.class);
+        assertTrue(mapper.readValue(mapper.writeValueAsString(expected),
+            MetricCollection.class) instanceof ColumnarPointCollection);
+    }
+
     @Test
     public void testResultGroup() throws Exception {
         final Set<Series> series = ImmutableSet.of();
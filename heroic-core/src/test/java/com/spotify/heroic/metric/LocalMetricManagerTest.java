@@ -54,7 +54,9 @@ public class LocalMetricManagerTest {
         final OptionalLimit seriesLimit = OptionalLimit.empty();
         final OptionalLimit aggregationLimit = OptionalLimit.empty();
         final OptionalLimit dataLimit = OptionalLimit.empty();
+        final OptionalLimit dataInMemoryLimit = OptionalLimit.empty();
         final int fetchParallelism = 20;
+        final int fetchBatchSize = 1;
         final boolean failOnLimits = true;
         final Groups groups = Groups.of("foo");
         doReturn(groups).when(metricBackend).groups();
@@ -66,8 +68,8 @@ public class LocalMetricManagerTest {
         when(queryLoggerFactory.create(any())).thenReturn(queryLogger);
 
         manager = new LocalMetricManager(groupLimit, seriesLimit, aggregationLimit, dataLimit,
-            fetchParallelism, failOnLimits, async, groupSet, metadata, reporter,
-            queryLoggerFactory);
+            dataInMemoryLimit, fetchParallelism, fetchBatchSize, failOnLimits, async, groupSet,
+            metadata, reporter, queryLoggerFactory);
     }
 
     @Test
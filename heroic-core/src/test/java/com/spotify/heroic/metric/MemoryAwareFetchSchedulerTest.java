@@ -0,0 +1,156 @@
+package com.spotify.heroic.metric;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.spotify.heroic.statistics.noop.NoopMetricBackendReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.StreamCollector;
+import eu.toolchain.async.TinyAsync;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class MemoryAwareFetchSchedulerTest {
+    private final AsyncFramework async = TinyAsync.builder().build();
+
+    @Test
+    public void testEmpty() throws Exception {
+        final MemoryAwareFetchScheduler scheduler = scheduler(100L, 4);
+        assertEquals("0/0/0", scheduler.collect(new ArrayList<>(), new Counting()).get());
+    }
+
+    @Test
+    public void testParallelism() throws Exception {
+        final MemoryAwareFetchScheduler scheduler = scheduler(Long.MAX_VALUE, 2);
+        final List<ResolvableFuture<Integer>> started = new ArrayList<>();
+
+        final AsyncFuture<String> result = scheduler.collect(fetches(started, 5), new Counting());
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Math.min(i + 2, 5), started.size());
+            started.get(i).resolve(i);
+        }
+
+        assertEquals("5/0/0", result.get());
+    }
+
+    @Test
+    public void testMemoryLimit() throws Exception {
+        final MemoryAwareFetchScheduler scheduler = scheduler(100L, 4);
+        final List<ResolvableFuture<Integer>> started = new ArrayList<>();
+
+        final AsyncFuture<String> result = scheduler.collect(fetches(started, 3), new Counting());
+        assertEquals(3, started.size());
+
+        /* the first fetch reads more than allowed, but finishes before releasing its data */
+        scheduler.reportDataHasBeenRead(150L);
+        started.get(0).resolve(0);
+        started.get(1).resolve(1);
+        started.get(2).fail(new RuntimeException("fail"));
+
+        assertEquals("2/1/0", result.get());
+        assertEquals(150L, scheduler.getDataInMemory());
+    }
+
+    @Test
+    public void testAdmitOnRelease() throws Exception {
+        final MemoryAwareFetchScheduler scheduler = scheduler(100L, 4);
+        final List<ResolvableFuture<Integer>> started = new ArrayList<>();
+        final List<ResolvableFuture<Integer>> pending = new ArrayList<>();
+
+        final List<Callable<AsyncFuture<Integer>>> fetches = new ArrayList<>();
+
+        fetches.add(() -> {
+            /* the first fetch holds a lot of data in memory while it is running */
+            scheduler.reportDataHasBeenRead(200L);
+            final ResolvableFuture<Integer> f = async.future();
+            started.add(f);
+            return f;
+        });
+
+        fetches.addAll(fetches(pending, 3));
+
+        final AsyncFuture<String> result = scheduler.collect(fetches, new Counting());
+
+        assertEquals(1, started.size());
+        assertTrue(pending.isEmpty());
+
+        /* releasing data lets new fetches in, even if the first one is still running */
+        scheduler.reportDataNoLongerNeeded(150L);
+        assertEquals(3, pending.size());
+        assertFalse(result.isDone());
+
+        started.get(0).resolve(0);
+        pending.forEach(f -> f.resolve(1));
+
+        assertEquals("4/0/0", result.get());
+    }
+
+    @Test
+    public void testMakesProgressAboveLimit() throws Exception {
+        final MemoryAwareFetchScheduler scheduler = scheduler(100L, 4);
+        final List<ResolvableFuture<Integer>> started = new ArrayList<>();
+
+        scheduler.reportDataHasBeenRead(1000L);
+
+        final AsyncFuture<String> result = scheduler.collect(fetches(started, 3), new Counting());
+
+        /* one fetch at a time is always allowed */
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i + 1, started.size());
+            started.get(i).resolve(i);
+        }
+
+        assertEquals("3/0/0", result.get());
+    }
+
+    private MemoryAwareFetchScheduler scheduler(final long limit, final int parallelism) {
+        return new MemoryAwareFetchScheduler(async,
+            NoopMetricBackendReporter.get().newDataInMemoryReporter(), limit, parallelism);
+    }
+
+    private List<Callable<AsyncFuture<Integer>>> fetches(
+        final List<ResolvableFuture<Integer>> started, final int count
+    ) {
+        final List<Callable<AsyncFuture<Integer>>> fetches = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            fetches.add(() -> {
+                final ResolvableFuture<Integer> f = async.future();
+                started.add(f);
+                return f;
+            });
+        }
+
+        return fetches;
+    }
+
+    private static class Counting implements StreamCollector<Integer, String> {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public void resolved(final Integer result) throws Exception {
+            count.incrementAndGet();
+        }
+
+        @Override
+        public void failed(final Throwable cause) throws Exception {
+        }
+
+        @Override
+        public void cancelled() throws Exception {
+        }
+
+        @Override
+        public String end(final int resolved, final int failed, final int cancelled)
+            throws Exception {
+            return resolved + "/" + failed + "/" + cancelled;
+        }
+    }
+}
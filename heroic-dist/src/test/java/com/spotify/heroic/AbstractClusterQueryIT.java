@@ -149,6 +149,32 @@ public abstract class AbstractClusterQueryIT extends AbstractLocalClusterIT {
         return query.useDefaultGroup().query(builder.build(), queryContext).get();
     }
 
+    public QueryResult streamQuery(
+        final String queryString, final Consumer<QueryBuilder> modifier
+    ) throws Exception {
+        queryCount += 1;
+
+        final QueryBuilder builder = query
+            .newQueryFromString(queryString)
+            .features(Optional.of(FeatureSet.of(Feature.DISTRIBUTED_AGGREGATIONS)))
+            .source(Optional.of(MetricType.POINT))
+            .rangeIfAbsent(Optional.of(new QueryDateRange.Absolute(0, 40)));
+
+        modifier.accept(builder);
+
+        final List<ShardedResultGroup> groups = Collections.synchronizedList(new ArrayList<>());
+
+        final QueryResult result = query
+            .useDefaultGroup()
+            .queryStream(builder.build(), queryContext, groups::addAll)
+            .get();
+
+        assertEquals(ImmutableList.of(), result.getGroups());
+
+        return new QueryResult(result.getRange(), ImmutableList.copyOf(groups), result.getErrors(),
+            result.getTrace(), result.getLimits(), result.getPreAggregationSampleSize());
+    }
+
     @Test
     public void basicQueryTest() throws Exception {
         final QueryResult result = query("sum(10ms)");
@@ -171,6 +197,31 @@ public abstract class AbstractClusterQueryIT extends AbstractLocalClusterIT {
         assertEquals(ImmutableSet.of(points().p(10, 2D).p(20, 4D).p(30, 2D).build()), m);
     }
 
+    @Test
+    public void streamedQueryTest() throws Exception {
+        final QueryResult result = streamQuery("sum(10ms) by diff",
+            builder -> builder.features(Optional.of(FeatureSet.empty())));
+
+        final Set<MetricCollection> m = getResults(result);
+        final List<Long> cadences = getCadences(result);
+
+        assertEquals(ImmutableList.of(10L, 10L), cadences);
+        assertEquals(ImmutableSet.of(points().p(10, 1D).p(30, 2D).build(),
+            points().p(10, 1D).p(20, 4D).build()), m);
+    }
+
+    @Test
+    public void streamedDistributedQueryTest() throws Exception {
+        final QueryResult result = streamQuery("sum(10ms) by shared", builder -> {
+        });
+
+        final Set<MetricCollection> m = getResults(result);
+        final List<Long> cadences = getCadences(result);
+
+        assertEquals(ImmutableList.of(10L), cadences);
+        assertEquals(ImmutableSet.of(points().p(10, 2D).p(20, 4D).p(30, 2D).build()), m);
+    }
+
     @Test
     public void distributedQueryTraceTest() throws Exception {
         final QueryResult result = query("sum(10ms) by shared");
@@ -36,6 +36,10 @@ public abstract class AbstractKafkaConsumerIT extends AbstractConsumerIT {
 
     abstract boolean useTransactionalConsumer();
 
+    int batchSize() {
+        return KafkaConsumerModule.DEFAULT_BATCH_SIZE;
+    }
+
     @Override
     protected HeroicConfig.Builder setupConfig() {
         opLog = new OperationsLogImpl();
@@ -54,7 +58,8 @@ public abstract class AbstractKafkaConsumerIT extends AbstractConsumerIT {
                 .schema(Spotify100.class)
                 .fakeKafkaConnection(connection)
                 .transactional(useTransactionalConsumer())
-                .transactionCommitInterval(COMMIT_INTERVAL)))
+                .transactionCommitInterval(COMMIT_INTERVAL)
+                .batchSize(batchSize())))
             .ingestion(IngestionModule.builder().updateMetrics(true))
             .metrics(MetricManagerModule
                 .builder()
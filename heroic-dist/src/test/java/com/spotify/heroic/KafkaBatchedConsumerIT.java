@@ -0,0 +1,13 @@
+package com.spotify.heroic;
+
+public class KafkaBatchedConsumerIT extends AbstractKafkaConsumerIT {
+    @Override
+    boolean useTransactionalConsumer() {
+        return true;
+    }
+
+    @Override
+    int batchSize() {
+        return 4;
+    }
+}
@@ -18,6 +18,7 @@ import com.spotify.heroic.metric.MetricModule;
 import com.spotify.heroic.metric.WriteMetric;
 import eu.toolchain.async.AsyncFuture;
 import java.util.List;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import lombok.Data;
 
@@ -88,6 +89,14 @@ class LoggingMetricModule implements MetricModule {
             return delegate.fetch(request, watcher, metricsConsumer);
         }
 
+        @Override
+        public AsyncFuture<FetchData.Result> fetchBatch(
+            final List<FetchData.Request> requests, final FetchQuotaWatcher watcher,
+            final BiConsumer<FetchData.Request, MetricCollection> metricsConsumer
+        ) {
+            return delegate.fetchBatch(requests, watcher, metricsConsumer);
+        }
+
         @Override
         public Iterable<BackendEntry> listEntries() {
             return delegate.listEntries();
@@ -135,6 +144,13 @@ class LoggingMetricModule implements MetricModule {
             return delegate.countKey(key, options);
         }
 
+        @Override
+        public AsyncFuture<Long> compactKey(
+            final BackendKey key, final QueryOptions options
+        ) {
+            return delegate.compactKey(key, options);
+        }
+
         @Override
         public AsyncFuture<MetricCollection> fetchRow(
             final BackendKey key
@@ -23,10 +23,14 @@ package com.spotify.heroic.consumer.kafka;
 
 import java.util.Optional;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import lombok.Data;
 
 @Data
 public class FakeKafkaStream<T> implements KafkaStream<T> {
+    /* behave as if consumer.timeout.ms was configured */
+    private static final long TIMEOUT = 50;
+
     private final LinkedBlockingQueue<Optional<T>> messages;
     private final Iterator iterator;
     private final Iterable<T> iterable;
@@ -66,7 +70,13 @@ public class FakeKafkaStream<T> implements KafkaStream<T> {
         @Override
         public T next() {
             try {
-                return messages.take().orElse(null);
+                final Optional<T> message = messages.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+
+                if (message == null) {
+                    throw new KafkaStreamTimeoutException();
+                }
+
+                return message.orElse(null);
             } catch (InterruptedException e) {
                 throw new RuntimeException(e);
             }
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.elasticsearch;
+
+import com.google.common.hash.Funnel;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.RateLimiter;
+import com.spotify.heroic.common.Statistics;
+import com.spotify.heroic.lifecycle.LifeCycleRegistry;
+import eu.toolchain.async.AsyncFramework;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * A rate limited cache which remembers acquired keys in a {@link MappedBloomFilter}.
+ * <p>
+ * Unlike the in-memory caches, the filter survives restarts and has a fixed memory footprint,
+ * at the cost of occasionally dropping a write for a key that was never acquired. Since keys can
+ * not be removed from the filter, a key is only put in it once the write has succeeded, and is
+ * held in a set of pending keys until then. The filter is forced to disk and closed when the
+ * cache is stopped.
+ *
+ * @param <K> type of the key
+ */
+@RequiredArgsConstructor
+public class BloomFilterRateLimitedCache<K> implements RateLimitedCache<K> {
+    public static final String FILL_RATIO_PPM = "write-cache-fill-ratio-ppm";
+    public static final String FALSE_POSITIVE_PPM = "write-cache-false-positive-ppm";
+
+    /**
+     * Funnel for write cache keys, made up of the name of an index and the hash of a series.
+     */
+    public static final Funnel<Pair<String, HashCode>> INDEX_SERIES_FUNNEL = (key, into) -> {
+        into.putString(key.getLeft(), StandardCharsets.UTF_8);
+        into.putBytes(key.getRight().asBytes());
+    };
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+    private static final double PPM = 1_000_000D;
+
+    private final AsyncFramework async;
+    private final MappedBloomFilter filter;
+    private final Funnel<? super K> funnel;
+    private final Optional<RateLimiter> rateLimiter;
+
+    private final Set<HashCode> pending = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public boolean acquire(final K key) {
+        final HashCode hash = HASH_FUNCTION.hashObject(key, funnel);
+
+        if (filter.mightContain(hash)) {
+            return false;
+        }
+
+        if (!pending.add(hash)) {
+            return false;
+        }
+
+        if (rateLimiter.isPresent() && !rateLimiter.get().tryAcquire()) {
+            pending.remove(hash);
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public void release(final K key, final boolean done) {
+        final HashCode hash = HASH_FUNCTION.hashObject(key, funnel);
+
+        if (done) {
+            filter.put(hash);
+        }
+
+        pending.remove(hash);
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, filter.size());
+    }
+
+    @Override
+    public void register(final LifeCycleRegistry registry) {
+        registry.stop(() -> async.call(() -> {
+            filter.close();
+            return null;
+        }));
+    }
+
+    @Override
+    public Statistics getStatistics() {
+        return Statistics.of(FILL_RATIO_PPM, Math.round(filter.fillRatio() * PPM),
+            FALSE_POSITIVE_PPM, Math.round(filter.falsePositiveProbability() * PPM));
+    }
+}
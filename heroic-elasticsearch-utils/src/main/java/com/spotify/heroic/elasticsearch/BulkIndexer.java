@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.elasticsearch;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.ResolvableFuture;
+import lombok.Data;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects index requests into bulk requests.
+ * <p>
+ * Requests are buffered until {@code bulkActions} requests or {@code bulkSize} bytes of sources
+ * have been gathered, or until the next periodic flush. At most {@code concurrentBulkRequests}
+ * bulk requests are in flight at a time. The future of each request is completed from its item in
+ * the bulk response.
+ * <p>
+ * {@link #index(IndexRequest)} never blocks. At most {@link #MAX_BUFFERED_BULK_REQUESTS} bulk
+ * requests worth of index requests are buffered. Beyond that, new requests fail immediately so
+ * that callers can retry them later, rather than the buffer growing without bounds.
+ */
+@Slf4j
+@ToString(of = {"bulkActions", "bulkSize", "flushInterval", "concurrentBulkRequests"})
+public class BulkIndexer {
+    /* per request overhead, as estimated by elasticsearch */
+    static final int REQUEST_OVERHEAD = 50;
+    /* number of full bulk requests which may be buffered */
+    static final int MAX_BUFFERED_BULK_REQUESTS = 10;
+
+    private final AsyncFramework async;
+    private final Client client;
+    private final int bulkActions;
+    private final long bulkSize;
+    private final long flushInterval;
+    private final int concurrentBulkRequests;
+
+    private final ScheduledExecutorService scheduler;
+    private final Semaphore inFlight;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Object lock = new Object();
+
+    /* guarded by lock */
+    private final List<Pending> buffer = new ArrayList<>();
+    private long bufferedBytes = 0;
+    private boolean closed = false;
+
+    public BulkIndexer(
+        final AsyncFramework async, final Client client, final int bulkActions,
+        final long bulkSize, final long flushInterval, final int concurrentBulkRequests
+    ) {
+        if (bulkActions < 1) {
+            throw new IllegalArgumentException("bulkActions must be positive: " + bulkActions);
+        }
+
+        if (concurrentBulkRequests < 1) {
+            throw new IllegalArgumentException(
+                "concurrentBulkRequests must be positive: " + concurrentBulkRequests);
+        }
+
+        this.async = async;
+        this.client = client;
+        this.bulkActions = bulkActions;
+        this.bulkSize = bulkSize;
+        this.flushInterval = flushInterval;
+        this.concurrentBulkRequests = concurrentBulkRequests;
+
+        this.inFlight = new Semaphore(concurrentBulkRequests);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("heroic-elasticsearch-bulk-%d").build());
+        scheduler.scheduleAtFixedRate(this::flush, flushInterval, flushInterval,
+            TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Add the given request to the next bulk request.
+     *
+     * @return A future which is resolved when the request has been indexed, or failed if the item
+     * or the bulk request failed, or if too many requests are buffered.
+     */
+    public AsyncFuture<Void> index(final IndexRequest request) {
+        final ResolvableFuture<Void> future = async.future();
+        final Pending pending =
+            new Pending(request, request.source().length() + REQUEST_OVERHEAD, future);
+        final boolean full;
+
+        synchronized (lock) {
+            if (closed) {
+                return async.failed(new IllegalStateException("bulk indexer is closed"));
+            }
+
+            if (buffer.size() >= bulkActions * MAX_BUFFERED_BULK_REQUESTS ||
+                bufferedBytes >= bulkSize * MAX_BUFFERED_BULK_REQUESTS) {
+                return async.failed(new RejectedExecutionException("bulk index buffer is full"));
+            }
+
+            buffer.add(pending);
+            bufferedBytes += pending.getBytes();
+            full = buffer.size() >= bulkActions || bufferedBytes >= bulkSize;
+        }
+
+        if (full) {
+            requestFlush();
+        }
+
+        return future;
+    }
+
+    /**
+     * Stop periodic flushing, write whatever is still buffered and wait for outstanding bulk
+     * requests.
+     */
+    public AsyncFuture<Void> close() {
+        /* anything added before this is written by the final flush */
+        synchronized (lock) {
+            closed = true;
+        }
+
+        return async.call(() -> {
+            scheduler.shutdownNow();
+
+            try {
+                scheduler.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                log.error("Failed to shut down bulk executor service in a timely manner");
+            }
+
+            flush();
+
+            /* wait for outstanding bulk requests */
+            if (!inFlight.tryAcquire(concurrentBulkRequests, 30, TimeUnit.SECONDS)) {
+                log.error("Outstanding bulk requests did not complete in a timely manner");
+            }
+
+            return null;
+        });
+    }
+
+    /**
+     * Flush ahead of the next scheduled flush.
+     */
+    private void requestFlush() {
+        if (!flushRequested.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            scheduler.execute(this::flush);
+        } catch (final RejectedExecutionException e) {
+            flushRequested.set(false);
+        }
+    }
+
+    private void flush() {
+        flushRequested.set(false);
+
+        while (true) {
+            final List<Pending> batch = takeBatch();
+
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            send(batch);
+        }
+    }
+
+    /**
+     * Take the next batch of buffered requests, bounded by count and size.
+     */
+    private List<Pending> takeBatch() {
+        synchronized (lock) {
+            int count = 0;
+            long bytes = 0;
+
+            while (count < buffer.size() && count < bulkActions && bytes < bulkSize) {
+                bytes += buffer.get(count).getBytes();
+                count++;
+            }
+
+            final List<Pending> head = buffer.subList(0, count);
+            final List<Pending> batch = new ArrayList<>(head);
+            head.clear();
+
+            bufferedBytes -= bytes;
+            return batch;
+        }
+    }
+
+    private void send(final List<Pending> batch) {
+        try {
+            inFlight.acquire();
+        } catch (final InterruptedException e) {
+            final Exception cause =
+                new Exception("Interrupted while waiting to send bulk request", e);
+            batch.forEach(p -> p.getFuture().fail(cause));
+            return;
+        }
+
+        final BulkRequestBuilder bulk = client.prepareBulk();
+
+        for (final Pending p : batch) {
+            bulk.add(p.getRequest());
+        }
+
+        try {
+            bulk.execute(new ActionListener<BulkResponse>() {
+                @Override
+                public void onResponse(final BulkResponse response) {
+                    for (final BulkItemResponse item : response.getItems()) {
+                        final ResolvableFuture<Void> future =
+                            batch.get(item.getItemId()).getFuture();
+
+                        if (item.isFailed()) {
+                            future.fail(new BulkItemException(item.getFailureMessage(),
+                                item.getFailure().getStatus()));
+                        } else {
+                            future.resolve(null);
+                        }
+                    }
+
+                    for (final Pending p : batch) {
+                        if (!p.getFuture().isDone()) {
+                            p.getFuture().fail(new Exception("no response for bulk item"));
+                        }
+                    }
+
+                    release();
+                }
+
+                @Override
+                public void onFailure(final Throwable e) {
+                    failed(batch, e);
+                }
+            });
+        } catch (final Exception e) {
+            failed(batch, e);
+        }
+    }
+
+    private void failed(final List<Pending> batch, final Throwable cause) {
+        batch.forEach(p -> p.getFuture().fail(cause));
+        release();
+    }
+
+    private void release() {
+        inFlight.release();
+    }
+
+    @Data
+    static class Pending {
+        private final IndexRequest request;
+        private final long bytes;
+        private final ResolvableFuture<Void> future;
+    }
+}
@@ -35,6 +35,7 @@ import org.elasticsearch.action.admin.indices.template.put.PutIndexTemplateReque
 import org.elasticsearch.action.admin.indices.template.put.PutIndexTemplateResponse;
 import org.elasticsearch.action.count.CountRequestBuilder;
 import org.elasticsearch.action.deletebyquery.DeleteByQueryRequestBuilder;
+import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexRequestBuilder;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchScrollRequestBuilder;
@@ -59,14 +60,15 @@ public class Connection {
 
     private final String templateName;
     private final BackendType type;
+    private final BulkIndexer bulk;
 
     public AsyncFuture<Void> close() {
         final List<AsyncFuture<Void>> futures = new ArrayList<>();
 
-        futures.add(async.call((Callable<Void>) () -> {
+        futures.add(bulk.close().lazyTransform(v -> async.call((Callable<Void>) () -> {
             client.close();
             return null;
-        }));
+        })));
 
         return async.collectAndDiscard(futures);
     }
@@ -136,6 +138,15 @@ public class Connection {
         return client.prepareIndex(index, type);
     }
 
+    /**
+     * Index the given request as part of a bulk request.
+     *
+     * @see BulkIndexer#index(IndexRequest)
+     */
+    public AsyncFuture<Void> bulkIndex(IndexRequest request) {
+        return bulk.index(request);
+    }
+
     public SearchScrollRequestBuilder prepareSearchScroll(String scrollId) {
         return client.prepareSearchScroll(scrollId);
     }
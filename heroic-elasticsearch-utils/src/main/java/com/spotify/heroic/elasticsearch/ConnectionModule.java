@@ -35,6 +35,7 @@ import eu.toolchain.async.Managed;
 import eu.toolchain.async.ManagedSetup;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.client.Client;
 
 import java.util.List;
 import java.util.Map;
@@ -47,6 +48,10 @@ public class ConnectionModule {
     public static final String DEFAULT_CLUSTER_NAME = "elasticsearch";
     public static final List<String> DEFAULT_SEEDS = ImmutableList.of("localhost");
     public static final Map<String, Object> DEFAULT_SETTINGS = ImmutableMap.of();
+    public static final int DEFAULT_BULK_ACTIONS = 1000;
+    public static final long DEFAULT_BULK_SIZE = 5 * 1024 * 1024;
+    public static final long DEFAULT_FLUSH_INTERVAL = 100;
+    public static final int DEFAULT_CONCURRENT_BULK_REQUESTS = 4;
 
     private final String clusterName;
     private final List<String> seeds;
@@ -54,13 +59,20 @@ public class ConnectionModule {
     private final IndexMapping index;
     private final String templateName;
     private final ClientSetup clientSetup;
+    private final int bulkActions;
+    private final long bulkSize;
+    private final long flushInterval;
+    private final int concurrentBulkRequests;
 
     @JsonCreator
     public ConnectionModule(
         @JsonProperty("clusterName") String clusterName, @JsonProperty("seeds") List<String> seeds,
         @JsonProperty("nodeClient") Boolean nodeClient, @JsonProperty("index") IndexMapping index,
         @JsonProperty("templateName") String templateName,
-        @JsonProperty("client") ClientSetup clientSetup
+        @JsonProperty("client") ClientSetup clientSetup,
+        @JsonProperty("bulkActions") Integer bulkActions, @JsonProperty("bulkSize") Long bulkSize,
+        @JsonProperty("flushInterval") Long flushInterval,
+        @JsonProperty("concurrentBulkRequests") Integer concurrentBulkRequests
     ) {
         this.clusterName = ofNullable(clusterName).orElse(DEFAULT_CLUSTER_NAME);
         this.seeds = ofNullable(seeds).orElse(DEFAULT_SEEDS);
@@ -68,6 +80,11 @@ public class ConnectionModule {
         this.index = ofNullable(index).orElseGet(RotatingIndexMapping.builder()::build);
         this.templateName = templateName;
         this.clientSetup = ofNullable(clientSetup).orElseGet(this::defaultClientSetup);
+        this.bulkActions = ofNullable(bulkActions).orElse(DEFAULT_BULK_ACTIONS);
+        this.bulkSize = ofNullable(bulkSize).orElse(DEFAULT_BULK_SIZE);
+        this.flushInterval = ofNullable(flushInterval).orElse(DEFAULT_FLUSH_INTERVAL);
+        this.concurrentBulkRequests =
+            ofNullable(concurrentBulkRequests).orElse(DEFAULT_CONCURRENT_BULK_REQUESTS);
     }
 
     /**
@@ -82,7 +99,7 @@ public class ConnectionModule {
     }
 
     public static ConnectionModule buildDefault() {
-        return new ConnectionModule(null, null, null, null, null, null);
+        return new ConnectionModule(null, null, null, null, null, null, null, null, null, null);
     }
 
     @Provides
@@ -102,8 +119,12 @@ public class ConnectionModule {
             return async.managed(new ManagedSetup<Connection>() {
                 @Override
                 public AsyncFuture<Connection> construct() {
-                    return async.call(
-                        () -> new Connection(async, index, clientSetup.setup(), template, type));
+                    return async.call(() -> {
+                        final Client client = clientSetup.setup();
+                        final BulkIndexer bulk = new BulkIndexer(async, client, bulkActions,
+                            bulkSize, flushInterval, concurrentBulkRequests);
+                        return new Connection(async, index, client, template, type, bulk);
+                    });
                 }
 
                 @Override
@@ -122,9 +143,10 @@ public class ConnectionModule {
         private String clusterName;
         private List<String> seeds;
         private Boolean nodeClient;
-        private Integer concurrentBulkRequests;
-        private Integer flushInterval;
         private Integer bulkActions;
+        private Long bulkSize;
+        private Long flushInterval;
+        private Integer concurrentBulkRequests;
         private IndexMapping index;
         private String templateName;
         private ClientSetup clientSetup;
@@ -144,18 +166,23 @@ public class ConnectionModule {
             return this;
         }
 
-        public Builder nodeClient(Integer concurrentBulkRequests) {
-            this.concurrentBulkRequests = concurrentBulkRequests;
+        public Builder bulkActions(Integer bulkActions) {
+            this.bulkActions = bulkActions;
             return this;
         }
 
-        public Builder flushInterval(Integer flushInterval) {
+        public Builder bulkSize(Long bulkSize) {
+            this.bulkSize = bulkSize;
+            return this;
+        }
+
+        public Builder flushInterval(Long flushInterval) {
             this.flushInterval = flushInterval;
             return this;
         }
 
-        public Builder bulkActions(Integer bulkActions) {
-            this.bulkActions = bulkActions;
+        public Builder concurrentBulkRequests(Integer concurrentBulkRequests) {
+            this.concurrentBulkRequests = concurrentBulkRequests;
             return this;
         }
 
@@ -176,7 +203,7 @@ public class ConnectionModule {
 
         public ConnectionModule build() {
             return new ConnectionModule(clusterName, seeds, nodeClient, index, templateName,
-                clientSetup);
+                clientSetup, bulkActions, bulkSize, flushInterval, concurrentBulkRequests);
         }
     }
 };
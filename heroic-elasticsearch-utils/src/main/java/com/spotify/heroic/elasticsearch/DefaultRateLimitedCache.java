@@ -50,6 +50,13 @@ public class DefaultRateLimitedCache<K> implements RateLimitedCache<K> {
         return cache.putIfAbsent(key, true) == null;
     }
 
+    @Override
+    public void release(K key, boolean done) {
+        if (!done) {
+            cache.remove(key);
+        }
+    }
+
     public int size() {
         return cache.size();
     }
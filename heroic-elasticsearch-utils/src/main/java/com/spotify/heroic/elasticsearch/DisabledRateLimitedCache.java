@@ -34,6 +34,13 @@ public class DisabledRateLimitedCache<K> implements RateLimitedCache<K> {
         return cache.putIfAbsent(key, true) == null;
     }
 
+    @Override
+    public void release(K key, boolean done) {
+        if (!done) {
+            cache.remove(key);
+        }
+    }
+
     @Override
     public int size() {
         return 0;
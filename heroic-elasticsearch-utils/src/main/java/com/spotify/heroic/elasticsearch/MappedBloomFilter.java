@@ -0,0 +1,356 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.elasticsearch;
+
+import com.google.common.hash.HashCode;
+import com.spotify.heroic.time.Clock;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import lombok.ToString;
+
+/**
+ * A rotating Bloom filter which is stored in a memory-mapped file.
+ * <p>
+ * The filter keeps two generations of the same size. Insertions go into the current generation,
+ * lookups consult both. The current generation is rotated out once it has seen {@code capacity}
+ * insertions or is older than {@code maxAgeMillis}, at which point the previous generation is
+ * cleared and takes its place. An inserted key is therefore remembered for at least the lifetime
+ * of one generation, while memory stays bounded by the configured capacity.
+ * <p>
+ * Since the filter is backed by a file mapping, it lives outside of the heap and any updates are
+ * written back by the operating system, which allows the content to survive restarts. If the file
+ * exists but was created with other parameters, it is reset.
+ * <p>
+ * Lookups are lock-free. A lookup racing with an insert or a rotation might report a key as
+ * absent, which only causes a redundant write.
+ */
+@ToString(of = {"path", "capacity", "bits", "hashes"})
+public class MappedBloomFilter implements Closeable {
+    public static final double DEFAULT_FALSE_POSITIVE_PROBABILITY = 0.01D;
+
+    static final int MAGIC = 0x48424631;
+    static final int VERSION = 1;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int BITS_OFFSET = 8;
+    private static final int HASHES_OFFSET = 16;
+    private static final int CURRENT_OFFSET = 20;
+    private static final int CREATED_OFFSET = 24;
+    /* per generation insertion count, followed by per generation set bit count */
+    private static final int INSERTIONS_OFFSET = 32;
+    private static final int SET_BITS_OFFSET = 48;
+    private static final int HEADER_SIZE = 64;
+
+    private final Path path;
+    private final long capacity;
+    private final long maxAgeMillis;
+    private final Clock clock;
+
+    private final long bits;
+    private final int hashes;
+    private final long generationSize;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private volatile int current;
+    private volatile long rotateAt;
+
+    MappedBloomFilter(
+        final Path path, final long capacity, final double falsePositiveProbability,
+        final long maxAgeMillis, final Clock clock
+    ) throws IOException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+
+        if (!(falsePositiveProbability > 0D && falsePositiveProbability < 1D)) {
+            throw new IllegalArgumentException(
+                "false positive probability must be in the range (0, 1): " +
+                    falsePositiveProbability);
+        }
+
+        if (maxAgeMillis <= 0) {
+            throw new IllegalArgumentException("max age must be positive: " + maxAgeMillis);
+        }
+
+        this.path = path;
+        this.capacity = capacity;
+        this.maxAgeMillis = maxAgeMillis;
+        this.clock = clock;
+
+        this.bits = optimalBits(capacity, falsePositiveProbability);
+        this.hashes = optimalHashes(capacity, bits);
+        this.generationSize = bits / Byte.SIZE;
+
+        final long size = HEADER_SIZE + 2 * generationSize;
+
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                "filter with capacity " + capacity + " does not fit in a single mapping");
+        }
+
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+
+        try {
+            final boolean valid = channel.size() == size && hasHeader(channel.map(
+                FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE));
+
+            if (!valid) {
+                channel.truncate(0);
+            }
+
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+            if (!valid) {
+                initialize();
+            }
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+
+        this.current = buffer.getInt(CURRENT_OFFSET);
+        this.rotateAt = buffer.getLong(CREATED_OFFSET) + maxAgeMillis;
+    }
+
+    /**
+     * Open, or create, a filter at the given path.
+     *
+     * @param path File backing the filter.
+     * @param capacity Number of insertions each generation is sized for.
+     * @param maxAgeMillis Maximum age of a generation before it is rotated.
+     * @param clock Clock used to age generations.
+     */
+    public static MappedBloomFilter open(
+        final Path path, final long capacity, final long maxAgeMillis, final Clock clock
+    ) throws IOException {
+        return new MappedBloomFilter(path, capacity, DEFAULT_FALSE_POSITIVE_PROBABILITY,
+            maxAgeMillis, clock);
+    }
+
+    /**
+     * Check if the given hash might have been inserted into the filter.
+     */
+    public boolean mightContain(final HashCode hash) {
+        maybeRotate();
+
+        final long h1 = hash.asLong();
+        final long h2 = secondHash(hash);
+        final int c = current;
+
+        return contains(c, h1, h2) || contains(1 - c, h1, h2);
+    }
+
+    /**
+     * Insert the given hash into the current generation of the filter.
+     *
+     * @return {@code true} if the hash was not already present in the current generation.
+     */
+    public synchronized boolean put(final HashCode hash) {
+        final long h1 = hash.asLong();
+        final long h2 = secondHash(hash);
+        final int c = current;
+        final long base = generationOffset(c);
+
+        long newBits = 0;
+        long combined = h1;
+
+        for (int i = 0; i < hashes; i++) {
+            final long bit = (combined & Long.MAX_VALUE) % bits;
+            final int offset = (int) (base + (bit >>> 6) * Long.BYTES);
+            final long word = buffer.getLong(offset);
+            final long mask = 1L << bit;
+
+            if ((word & mask) == 0) {
+                buffer.putLong(offset, word | mask);
+                newBits++;
+            }
+
+            combined += h2;
+        }
+
+        if (newBits == 0) {
+            return false;
+        }
+
+        add(INSERTIONS_OFFSET, c, 1);
+        add(SET_BITS_OFFSET, c, newBits);
+
+        if (buffer.getLong(INSERTIONS_OFFSET + c * Long.BYTES) >= capacity) {
+            rotate(clock.currentTimeMillis());
+        }
+
+        return true;
+    }
+
+    /**
+     * Number of insertions in both generations.
+     */
+    public long size() {
+        return buffer.getLong(INSERTIONS_OFFSET) + buffer.getLong(INSERTIONS_OFFSET + Long.BYTES);
+    }
+
+    /**
+     * Ratio of set bits in the current generation.
+     */
+    public double fillRatio() {
+        return fillRatio(current);
+    }
+
+    /**
+     * Estimated probability that a lookup for a key which was never inserted reports it as
+     * present, based on how many bits are set in either generation.
+     */
+    public double falsePositiveProbability() {
+        final double c = Math.pow(fillRatio(current), hashes);
+        final double p = Math.pow(fillRatio(1 - current), hashes);
+        return 1D - (1D - c) * (1D - p);
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            buffer.force();
+        }
+
+        channel.close();
+    }
+
+    synchronized void rotate(final long now) {
+        final int next = 1 - current;
+        final long base = generationOffset(next);
+
+        for (long offset = 0; offset < generationSize; offset += Long.BYTES) {
+            buffer.putLong((int) (base + offset), 0L);
+        }
+
+        buffer.putLong(INSERTIONS_OFFSET + next * Long.BYTES, 0L);
+        buffer.putLong(SET_BITS_OFFSET + next * Long.BYTES, 0L);
+        buffer.putInt(CURRENT_OFFSET, next);
+        buffer.putLong(CREATED_OFFSET, now);
+        buffer.force();
+
+        current = next;
+        rotateAt = now + maxAgeMillis;
+    }
+
+    private void maybeRotate() {
+        final long now = clock.currentTimeMillis();
+
+        if (now < rotateAt) {
+            return;
+        }
+
+        synchronized (this) {
+            /* another thread might have rotated while we were waiting */
+            if (now >= rotateAt) {
+                rotate(now);
+            }
+        }
+    }
+
+    private boolean contains(final int generation, final long h1, final long h2) {
+        final long base = generationOffset(generation);
+        long combined = h1;
+
+        for (int i = 0; i < hashes; i++) {
+            final long bit = (combined & Long.MAX_VALUE) % bits;
+
+            if ((buffer.getLong((int) (base + (bit >>> 6) * Long.BYTES)) & (1L << bit)) == 0) {
+                return false;
+            }
+
+            combined += h2;
+        }
+
+        return true;
+    }
+
+    private double fillRatio(final int generation) {
+        return (double) buffer.getLong(SET_BITS_OFFSET + generation * Long.BYTES) / bits;
+    }
+
+    private void add(final int offset, final int generation, final long delta) {
+        final int index = offset + generation * Long.BYTES;
+        buffer.putLong(index, buffer.getLong(index) + delta);
+    }
+
+    private long generationOffset(final int generation) {
+        return HEADER_SIZE + generation * generationSize;
+    }
+
+    private boolean hasHeader(final MappedByteBuffer header) {
+        final int c = header.getInt(CURRENT_OFFSET);
+
+        return header.getInt(MAGIC_OFFSET) == MAGIC && header.getInt(VERSION_OFFSET) == VERSION &&
+            header.getLong(BITS_OFFSET) == bits && header.getInt(HASHES_OFFSET) == hashes &&
+            (c == 0 || c == 1);
+    }
+
+    private void initialize() {
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        buffer.putInt(VERSION_OFFSET, VERSION);
+        buffer.putLong(BITS_OFFSET, bits);
+        buffer.putInt(HASHES_OFFSET, hashes);
+        buffer.putInt(CURRENT_OFFSET, 0);
+        buffer.putLong(CREATED_OFFSET, clock.currentTimeMillis());
+        buffer.force();
+    }
+
+    /**
+     * Use the upper half of 128 bit hashes, or a mix of the lower half for shorter hashes.
+     */
+    private static long secondHash(final HashCode hash) {
+        if (hash.bits() >= 128) {
+            final byte[] bytes = hash.asBytes();
+            long h = 0;
+
+            for (int i = 15; i >= 8; i--) {
+                h = (h << 8) | (bytes[i] & 0xffL);
+            }
+
+            return h | 1L;
+        }
+
+        return (Long.rotateLeft(hash.padToLong(), 32) * 0x9e3779b97f4a7c15L) | 1L;
+    }
+
+    /**
+     * Number of bits required for the given capacity and probability, rounded up to whole words.
+     */
+    static long optimalBits(final long capacity, final double falsePositiveProbability) {
+        final double bits =
+            -capacity * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2));
+        return Math.max(1L, (long) Math.ceil(bits / Long.SIZE)) * Long.SIZE;
+    }
+
+    static int optimalHashes(final long capacity, final long bits) {
+        return Math.max(1, (int) Math.round((double) bits / capacity * Math.log(2)));
+    }
+}
@@ -21,16 +21,42 @@
 
 package com.spotify.heroic.elasticsearch;
 
-public interface RateLimitedCache<K> {
+import com.spotify.heroic.common.Statistics;
+import com.spotify.heroic.lifecycle.LifeCycleRegistry;
+import com.spotify.heroic.lifecycle.LifeCycles;
+
+public interface RateLimitedCache<K> extends LifeCycles {
     /**
      * Acquire a permit to perform a piece of work identified by the given key.
      */
     public boolean acquire(K key);
 
+    /**
+     * Report the outcome of the work permitted by {@link #acquire(Object)}.
+     *
+     * @param done {@code true} if the work is done, otherwise the key may be acquired again.
+     */
+    default void release(K key, boolean done) {
+    }
+
     /**
      * Get number of cached entries.
      *
      * @return Number of entries cached.
      */
     public int size();
+
+    /**
+     * Get implementation specific statistics about the cache.
+     */
+    default Statistics getStatistics() {
+        return Statistics.empty();
+    }
+
+    /**
+     * Register any resources held by the cache that need to be released on stop.
+     */
+    @Override
+    default void register(LifeCycleRegistry registry) {
+    }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.elasticsearch;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.RateLimiter;
+import com.spotify.heroic.time.Clock;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.FutureDone;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.tuple.Pair;
+import org.elasticsearch.rest.RestStatus;
+
+/**
+ * Factories and helpers for rate limited caches shared by the elasticsearch backends.
+ */
+public final class RateLimitedCaches {
+    private RateLimitedCaches() {
+    }
+
+    /**
+     * Build the write cache for a backend, which remembers which series have been written to
+     * which index.
+     * <p>
+     * If a file is configured, the cache is backed by a {@link MappedBloomFilter} at that path,
+     * which is forced to disk and closed when the cache is stopped. Otherwise an in-memory cache is
+     * used.
+     *
+     * @param async Async framework used for the stop hook.
+     * @param clock Clock used to age entries.
+     * @param writesPerSecond Permitted rate of writes, or a non-positive value to disable rate
+     * limiting.
+     * @param durationMinutes Time entries are kept for, in minutes.
+     * @param file File backing the cache, if any.
+     * @param capacity Number of entries a file backed cache is sized for.
+     */
+    public static RateLimitedCache<Pair<String, HashCode>> writeCache(
+        final AsyncFramework async, final Clock clock, final double writesPerSecond,
+        final long durationMinutes, final Optional<String> file, final long capacity
+    ) {
+        final Optional<RateLimiter> rateLimiter = writesPerSecond <= 0D ? Optional.empty()
+            : Optional.of(RateLimiter.create(writesPerSecond));
+
+        if (file.isPresent()) {
+            final MappedBloomFilter filter;
+
+            try {
+                filter = MappedBloomFilter.open(Paths.get(file.get()), capacity,
+                    TimeUnit.MINUTES.toMillis(durationMinutes), clock);
+            } catch (final IOException e) {
+                throw new RuntimeException("Failed to open write cache: " + file.get(), e);
+            }
+
+            return new BloomFilterRateLimitedCache<>(async, filter,
+                BloomFilterRateLimitedCache.INDEX_SERIES_FUNNEL, rateLimiter);
+        }
+
+        final Cache<Pair<String, HashCode>, Boolean> cache = CacheBuilder
+            .newBuilder()
+            .concurrencyLevel(4)
+            .expireAfterWrite(durationMinutes, TimeUnit.MINUTES)
+            .build();
+
+        if (!rateLimiter.isPresent()) {
+            return new DisabledRateLimitedCache<>(cache.asMap());
+        }
+
+        return new DefaultRateLimitedCache<>(cache.asMap(), rateLimiter.get());
+    }
+
+    /**
+     * Release a key acquired from the given cache once the write it permitted completes.
+     * <p>
+     * A write which failed because the document already exists counts as done.
+     *
+     * @return The given write.
+     */
+    public static <K, T> AsyncFuture<T> releaseOn(
+        final RateLimitedCache<K> cache, final K key, final AsyncFuture<T> write
+    ) {
+        return write.onDone(new FutureDone<T>() {
+            @Override
+            public void failed(final Throwable cause) throws Exception {
+                cache.release(key, cause instanceof BulkItemException &&
+                    ((BulkItemException) cause).getStatus() == RestStatus.CONFLICT);
+            }
+
+            @Override
+            public void resolved(final T result) throws Exception {
+                cache.release(key, true);
+            }
+
+            @Override
+            public void cancelled() throws Exception {
+                cache.release(key, false);
+            }
+        });
+    }
+}
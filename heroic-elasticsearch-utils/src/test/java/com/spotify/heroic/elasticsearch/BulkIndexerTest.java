@@ -0,0 +1,127 @@
+package com.spotify.heroic.elasticsearch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import com.google.common.collect.ImmutableMap;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.TinyAsync;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Client;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BulkIndexerTest {
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AsyncFramework async = TinyAsync.builder().executor(executor).build();
+
+    /* bulk requests which have been sent, and not yet responded to */
+    private final List<ActionListener<BulkResponse>> sent = new ArrayList<>();
+
+    private Client client;
+
+    @Before
+    public void setup() {
+        client = mock(Client.class);
+
+        doAnswer(invocation -> {
+            final BulkRequestBuilder bulk = mock(BulkRequestBuilder.class);
+
+            doAnswer(execute -> {
+                synchronized (sent) {
+                    sent.add(execute.getArgumentAt(0, ActionListener.class));
+                    sent.notifyAll();
+                }
+
+                return null;
+            }).when(bulk).execute(any(ActionListener.class));
+
+            return bulk;
+        }).when(client).prepareBulk();
+    }
+
+    @After
+    public void teardown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testBoundedBuffer() throws Exception {
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        /* hold up the flushing thread while it sends the first bulk request */
+        doAnswer(invocation -> {
+            sending.countDown();
+            release.await();
+            return mock(BulkRequestBuilder.class);
+        }).when(client).prepareBulk();
+
+        final BulkIndexer bulk = new BulkIndexer(async, client, 2, 1024 * 1024, 60000, 1);
+
+        bulk.index(request("first"));
+        bulk.index(request("second"));
+        sending.await();
+
+        try {
+            for (int i = 0; i < 2 * BulkIndexer.MAX_BUFFERED_BULK_REQUESTS; i++) {
+                assertFalse(bulk.index(request("doc-" + i)).isDone());
+            }
+
+            final AsyncFuture<Void> rejected = bulk.index(request("rejected"));
+            assertTrue(rejected.isFailed());
+            assertTrue(rejected.cause() instanceof RejectedExecutionException);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testClosedRejects() throws Exception {
+
+        final BulkIndexer bulk = new BulkIndexer(async, client, 1000, 1024 * 1024, 60000, 1);
+
+        final AsyncFuture<Void> buffered = bulk.index(request("doc"));
+        final AsyncFuture<Void> close = bulk.close();
+
+        assertTrue(bulk.index(request("late")).isFailed());
+
+        /* the buffered request is written by the final flush */
+        awaitSent(1);
+        assertFalse(buffered.isDone());
+
+        sent.get(0).onFailure(new RuntimeException("bulk"));
+        assertTrue(buffered.isFailed());
+        close.get();
+    }
+
+    private void awaitSent(final int count) throws InterruptedException {
+        synchronized (sent) {
+            while (sent.size() < count) {
+                sent.wait();
+            }
+
+            assertEquals(count, sent.size());
+        }
+    }
+
+    private IndexRequest request(final String id) {
+        return new IndexRequest("index", "type", id).source(ImmutableMap.of("id", id));
+    }
+}
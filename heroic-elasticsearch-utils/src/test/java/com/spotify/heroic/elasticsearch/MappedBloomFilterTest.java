@@ -0,0 +1,202 @@
+package com.spotify.heroic.elasticsearch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.RateLimiter;
+import com.spotify.heroic.lifecycle.LifeCycleHook;
+import com.spotify.heroic.lifecycle.LifeCycleRegistry;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+
+public class MappedBloomFilterTest {
+    private static final long CAPACITY = 1000L;
+    private static final long MAX_AGE = 60000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicLong now = new AtomicLong(1000L);
+    private final AsyncFramework async = mock(AsyncFramework.class);
+
+    private Path path;
+
+    @Before
+    public void setup() throws Exception {
+        path = folder.getRoot().toPath().resolve("write-cache");
+    }
+
+    @Test
+    public void testPutAndContains() throws Exception {
+        try (final MappedBloomFilter filter = open()) {
+            assertFalse(filter.mightContain(hash(1)));
+            assertTrue(filter.put(hash(1)));
+            assertFalse(filter.put(hash(1)));
+            assertTrue(filter.mightContain(hash(1)));
+            assertEquals(1L, filter.size());
+            assertTrue(filter.fillRatio() > 0D);
+        }
+    }
+
+    @Test
+    public void testSurvivesReopen() throws Exception {
+        try (final MappedBloomFilter filter = open()) {
+            for (int i = 0; i < 100; i++) {
+                filter.put(hash(i));
+            }
+        }
+
+        try (final MappedBloomFilter filter = open()) {
+            assertEquals(100L, filter.size());
+
+            for (int i = 0; i < 100; i++) {
+                assertTrue(filter.mightContain(hash(i)));
+            }
+        }
+    }
+
+    @Test
+    public void testResetOnDifferentParameters() throws Exception {
+        try (final MappedBloomFilter filter = open()) {
+            filter.put(hash(1));
+        }
+
+        try (final MappedBloomFilter filter = MappedBloomFilter.open(path, CAPACITY * 2, MAX_AGE,
+            now::get)) {
+            assertEquals(0L, filter.size());
+            assertFalse(filter.mightContain(hash(1)));
+        }
+    }
+
+    @Test
+    public void testRotateByAge() throws Exception {
+        try (final MappedBloomFilter filter = open()) {
+            filter.put(hash(1));
+
+            /* first rotation keeps the entry in the previous generation */
+            now.addAndGet(MAX_AGE);
+            assertTrue(filter.mightContain(hash(1)));
+            filter.put(hash(2));
+
+            now.addAndGet(MAX_AGE);
+            assertFalse(filter.mightContain(hash(1)));
+            assertTrue(filter.mightContain(hash(2)));
+        }
+    }
+
+    @Test
+    public void testRotateByCapacity() throws Exception {
+        try (final MappedBloomFilter filter = open()) {
+            final int entries = (int) (CAPACITY * 5 / 2);
+
+            for (int i = 0; i < entries; i++) {
+                filter.put(hash(i));
+            }
+
+            /* memory stays bounded at two generations worth of entries */
+            assertTrue(filter.size() <= CAPACITY * 2);
+            assertTrue(filter.mightContain(hash(entries - 1)));
+            assertFalse(filter.mightContain(hash(0)));
+        }
+    }
+
+    @Test
+    public void testFalsePositiveProbability() throws Exception {
+        try (final MappedBloomFilter filter = open()) {
+            for (int i = 0; i < CAPACITY - 1; i++) {
+                filter.put(hash(i));
+            }
+
+            int falsePositives = 0;
+
+            for (int i = 0; i < 10000; i++) {
+                if (filter.mightContain(hash(-1 - i))) {
+                    falsePositives++;
+                }
+            }
+
+            assertTrue(filter.falsePositiveProbability() < 0.02D);
+            assertTrue(falsePositives < 300);
+        }
+    }
+
+    @Test
+    public void testRateLimitedCache() throws Exception {
+        try (final MappedBloomFilter filter = open()) {
+            final BloomFilterRateLimitedCache<Pair<String, HashCode>> cache =
+                new BloomFilterRateLimitedCache<>(async, filter,
+                    BloomFilterRateLimitedCache.INDEX_SERIES_FUNNEL,
+                    Optional.of(RateLimiter.create(1000D)));
+
+            assertTrue(cache.acquire(Pair.of("a", hash(1))));
+            /* pending keys can not be acquired again */
+            assertFalse(cache.acquire(Pair.of("a", hash(1))));
+            assertTrue(cache.acquire(Pair.of("b", hash(1))));
+            assertEquals(0, cache.size());
+
+            cache.release(Pair.of("a", hash(1)), true);
+            cache.release(Pair.of("b", hash(1)), false);
+            assertEquals(1, cache.size());
+
+            /* only keys which have been written are remembered */
+            assertFalse(cache.acquire(Pair.of("a", hash(1))));
+            assertTrue(cache.acquire(Pair.of("b", hash(1))));
+            assertTrue(cache.getStatistics().get(BloomFilterRateLimitedCache.FILL_RATIO_PPM, 0L) >
+                0L);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testWriteCacheClosedOnStop() throws Exception {
+        doAnswer(invocation -> {
+            ((Callable<?>) invocation.getArguments()[0]).call();
+            return null;
+        }).when(async).call(any(Callable.class));
+
+        final RateLimitedCache<Pair<String, HashCode>> cache =
+            RateLimitedCaches.writeCache(async, now::get, 0D, 1L, Optional.of(path.toString()),
+                CAPACITY);
+
+        assertTrue(cache.acquire(Pair.of("a", hash(1))));
+        cache.release(Pair.of("a", hash(1)), true);
+
+        final LifeCycleRegistry registry = mock(LifeCycleRegistry.class);
+        final ArgumentCaptor<LifeCycleHook<AsyncFuture<Void>>> stop =
+            ArgumentCaptor.forClass((Class) LifeCycleHook.class);
+
+        cache.register(registry);
+        verify(registry).stop(stop.capture());
+        stop.getValue().get();
+
+        try (final MappedBloomFilter filter = open()) {
+            assertEquals(1L, filter.size());
+        }
+    }
+
+    private MappedBloomFilter open() throws Exception {
+        return MappedBloomFilter.open(path, CAPACITY, MAX_AGE, now::get);
+    }
+
+    private HashCode hash(final int i) {
+        return Hashing.murmur3_128().hashString("series-" + i, StandardCharsets.UTF_8);
+    }
+}
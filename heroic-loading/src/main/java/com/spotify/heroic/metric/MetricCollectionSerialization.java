@@ -51,6 +51,7 @@ public class MetricCollectionSerialization {
 
             MetricType type = null;
             JsonNode data = null;
+            MetricCollection columnar = null;
 
             while (p.nextToken() == JsonToken.FIELD_NAME) {
                 final String name = p.getCurrentName();
@@ -73,7 +74,12 @@ public class MetricCollectionSerialization {
                                 "expected array for data");
                         }
 
-                        data = p.readValueAsTree();
+                        if (type == MetricType.POINT) {
+                            columnar = deserializePoints(p, c);
+                        } else {
+                            data = p.readValueAsTree();
+                        }
+
                         break;
                     default:
                         // skip unknown
@@ -86,6 +92,14 @@ public class MetricCollectionSerialization {
                 throw c.mappingException("'type' not specified");
             }
 
+            if (columnar != null) {
+                if (p.getCurrentToken() != JsonToken.END_OBJECT) {
+                    throw c.wrongTokenException(p, JsonToken.END_OBJECT, null);
+                }
+
+                return columnar;
+            }
+
             if (data == null) {
                 throw c.mappingException("'data' not specified");
             }
@@ -102,6 +116,47 @@ public class MetricCollectionSerialization {
 
             return MetricCollection.build(type, d.build());
         }
+
+        /**
+         * Read an array of points straight into columnar form, without building intermediate
+         * {@link Point} objects.
+         * <p>
+         * Each point has the same format as {@link PointSerialization}.
+         */
+        private MetricCollection deserializePoints(
+            final JsonParser p, final DeserializationContext c
+        ) throws IOException {
+            final ColumnarPointCollection.Builder builder = ColumnarPointCollection.builder();
+
+            while (p.nextToken() == JsonToken.START_ARRAY) {
+                if (!p.nextToken().isNumeric()) {
+                    throw c.wrongTokenException(p, JsonToken.VALUE_NUMBER_INT,
+                        "Expected timestamp (number)");
+                }
+
+                final long timestamp = p.getLongValue();
+
+                if (!p.nextToken().isNumeric()) {
+                    throw c.wrongTokenException(p, JsonToken.VALUE_NUMBER_FLOAT,
+                        "Expected value (number)");
+                }
+
+                final double value = p.getDoubleValue();
+
+                if (p.nextToken() != JsonToken.END_ARRAY) {
+                    throw c.mappingException(
+                        String.format("Expected end of array, not %s", p.getCurrentToken()));
+                }
+
+                builder.add(timestamp, value);
+            }
+
+            if (p.getCurrentToken() != JsonToken.END_ARRAY) {
+                throw c.wrongTokenException(p, JsonToken.END_ARRAY, null);
+            }
+
+            return builder.build();
+        }
     }
 
     public static class Serializer extends JsonSerializer<MetricCollection> {
@@ -110,8 +165,42 @@ public class MetricCollectionSerialization {
             throws IOException, JsonProcessingException {
             g.writeStartObject();
             g.writeObjectField(TYPE, group.getType());
-            g.writeObjectField(DATA, group.getData());
+
+            if (group instanceof ColumnarPointCollection) {
+                g.writeFieldName(DATA);
+                serializePoints((ColumnarPointCollection) group, g);
+            } else {
+                g.writeObjectField(DATA, group.getData());
+            }
+
             g.writeEndObject();
         }
+
+        /**
+         * Write the columns using the same format as {@link PointSerialization}.
+         */
+        private void serializePoints(final ColumnarPointCollection points, final JsonGenerator g)
+            throws IOException {
+            final int size = points.size();
+
+            g.writeStartArray();
+
+            for (int i = 0; i < size; i++) {
+                g.writeStartArray();
+                g.writeNumber(points.getTimestamp(i));
+
+                final double value = points.getValue(i);
+
+                if (Double.isFinite(value)) {
+                    g.writeNumber(value);
+                } else {
+                    g.writeNull();
+                }
+
+                g.writeEndArray();
+            }
+
+            g.writeEndArray();
+        }
     }
 }
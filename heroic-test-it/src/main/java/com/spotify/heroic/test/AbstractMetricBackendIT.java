@@ -51,6 +51,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -365,6 +366,34 @@ public abstract class AbstractMetricBackendIT {
         assertEqualMetrics(mc, fetchMetrics(request, false));
     }
 
+    @Test
+    public void testWriteAndFetchBatch() throws Exception {
+        final Map<Series, MetricCollection> expected = ImmutableMap.of(s1,
+            Data.points().p(100000L, 1D).p(100001L, 2D).build(), s2,
+            Data.points().p(100000L, 3D).build(), s3, Data.points().p(150000L, 4D).build());
+
+        final List<FetchData.Request> requests = new ArrayList<>();
+
+        for (final Map.Entry<Series, MetricCollection> e : expected.entrySet()) {
+            backend.write(new WriteMetric.Request(e.getKey(), e.getValue())).get();
+            requests.add(new FetchData.Request(MetricType.POINT, e.getKey(),
+                new DateRange(10000L, 200000L), QueryOptions.builder().build()));
+        }
+
+        final Map<Series, List<MetricCollection>> fetched = new ConcurrentHashMap<>();
+
+        backend.fetchBatch(requests, FetchQuotaWatcher.NO_QUOTA, (r, mc) -> {
+            fetched
+                .computeIfAbsent(r.getSeries(), s -> Collections.synchronizedList(
+                    new ArrayList<>()))
+                .add(mc);
+        }).get();
+
+        for (final Map.Entry<Series, MetricCollection> e : expected.entrySet()) {
+            assertEqualMetrics(e.getValue(), fetched.get(e.getKey()));
+        }
+    }
+
     private List<MetricCollection> fetchMetrics(FetchData.Request request, boolean slicedFetch)
         throws Exception {
         if (slicedFetch) {
@@ -24,11 +24,8 @@ package com.spotify.heroic.metadata.elasticsearch;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.hash.HashCode;
-import com.google.common.util.concurrent.RateLimiter;
 import com.spotify.heroic.ExtraParameters;
 import com.spotify.heroic.common.DynamicModuleId;
 import com.spotify.heroic.common.Groups;
@@ -37,17 +34,18 @@ import com.spotify.heroic.dagger.PrimaryComponent;
 import com.spotify.heroic.elasticsearch.BackendType;
 import com.spotify.heroic.elasticsearch.Connection;
 import com.spotify.heroic.elasticsearch.ConnectionModule;
-import com.spotify.heroic.elasticsearch.DefaultRateLimitedCache;
-import com.spotify.heroic.elasticsearch.DisabledRateLimitedCache;
 import com.spotify.heroic.elasticsearch.RateLimitedCache;
+import com.spotify.heroic.elasticsearch.RateLimitedCaches;
 import com.spotify.heroic.lifecycle.LifeCycle;
 import com.spotify.heroic.lifecycle.LifeCycleManager;
 import com.spotify.heroic.metadata.MetadataBackend;
 import com.spotify.heroic.metadata.MetadataModule;
+import com.spotify.heroic.time.Clock;
 import dagger.Component;
 import dagger.Lazy;
 import dagger.Module;
 import dagger.Provides;
+import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.Managed;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
@@ -58,7 +56,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -71,6 +68,7 @@ import static java.util.Optional.ofNullable;
 public final class ElasticsearchMetadataModule implements MetadataModule, DynamicModuleId {
     private static final double DEFAULT_WRITES_PER_SECOND = 3000d;
     private static final long DEFAULT_WRITES_CACHE_DURATION_MINUTES = 240L;
+    private static final long DEFAULT_WRITE_CACHE_CAPACITY = 10_000_000L;
     public static final String DEFAULT_GROUP = "elasticsearch";
     public static final String DEFAULT_TEMPLATE_NAME = "heroic-metadata";
 
@@ -80,6 +78,8 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
     private final String templateName;
     private final Double writesPerSecond;
     private final Long writeCacheDurationMinutes;
+    private final Optional<String> writeCacheFile;
+    private final long writeCacheCapacity;
     private final boolean configure;
 
     private static Supplier<BackendType> defaultSetup = MetadataBackendKV::backendType;
@@ -104,6 +104,8 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
         @JsonProperty("connection") Optional<ConnectionModule> connection,
         @JsonProperty("writesPerSecond") Optional<Double> writesPerSecond,
         @JsonProperty("writeCacheDurationMinutes") Optional<Long> writeCacheDurationMinutes,
+        @JsonProperty("writeCacheFile") Optional<String> writeCacheFile,
+        @JsonProperty("writeCacheCapacity") Optional<Long> writeCacheCapacity,
         @JsonProperty("templateName") Optional<String> templateName,
         @JsonProperty("backendType") Optional<String> backendType,
         @JsonProperty("configure") Optional<Boolean> configure
@@ -114,6 +116,8 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
         this.writesPerSecond = writesPerSecond.orElse(DEFAULT_WRITES_PER_SECOND);
         this.writeCacheDurationMinutes =
             writeCacheDurationMinutes.orElse(DEFAULT_WRITES_CACHE_DURATION_MINUTES);
+        this.writeCacheFile = writeCacheFile;
+        this.writeCacheCapacity = writeCacheCapacity.orElse(DEFAULT_WRITE_CACHE_CAPACITY);
         this.templateName = templateName.orElse(DEFAULT_TEMPLATE_NAME);
         this.backendTypeBuilder =
             backendType.flatMap(bt -> ofNullable(backendTypes.get(bt))).orElse(defaultSetup);
@@ -182,19 +186,11 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
 
         @Provides
         @ElasticsearchScope
-        public RateLimitedCache<Pair<String, HashCode>> writeCache() {
-            final Cache<Pair<String, HashCode>, Boolean> cache = CacheBuilder
-                .newBuilder()
-                .concurrencyLevel(4)
-                .expireAfterWrite(writeCacheDurationMinutes, TimeUnit.MINUTES)
-                .build();
-
-            if (writesPerSecond <= 0d) {
-                return new DisabledRateLimitedCache<>(cache.asMap());
-            }
-
-            return new DefaultRateLimitedCache<>(cache.asMap(),
-                RateLimiter.create(writesPerSecond));
+        public RateLimitedCache<Pair<String, HashCode>> writeCache(
+            final AsyncFramework async, final Clock clock
+        ) {
+            return RateLimitedCaches.writeCache(async, clock, writesPerSecond,
+                writeCacheDurationMinutes, writeCacheFile, writeCacheCapacity);
         }
 
         @Provides
@@ -210,13 +206,18 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
         @Provides
         @ElasticsearchScope
         LifeCycle life(
-            LifeCycleManager manager, Lazy<MetadataBackendKV> kv, Lazy<MetadataBackendV1> v1
+            LifeCycleManager manager, Lazy<MetadataBackendKV> kv, Lazy<MetadataBackendV1> v1,
+            RateLimitedCache<Pair<String, HashCode>> writeCache
         ) {
+            final LifeCycle backend;
+
             if (backendType.getType().equals(MetadataBackendV1.class)) {
-                return manager.build(v1.get());
+                backend = manager.build(v1.get());
+            } else {
+                backend = manager.build(kv.get());
             }
 
-            return manager.build(kv.get());
+            return LifeCycle.combined(ImmutableList.of(backend, manager.build(writeCache)));
         }
     }
 
@@ -230,6 +231,8 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
         private Optional<ConnectionModule> connection = empty();
         private Optional<Double> writesPerSecond = empty();
         private Optional<Long> writeCacheDurationMinutes = empty();
+        private Optional<String> writeCacheFile = empty();
+        private Optional<Long> writeCacheCapacity = empty();
         private Optional<String> templateName = empty();
         private Optional<String> backendType = empty();
         private Optional<Boolean> configure = empty();
@@ -264,6 +267,17 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
             return this;
         }
 
+        public Builder writeCacheFile(final String writeCacheFile) {
+            checkNotNull(writeCacheFile, "writeCacheFile");
+            this.writeCacheFile = of(writeCacheFile);
+            return this;
+        }
+
+        public Builder writeCacheCapacity(final long writeCacheCapacity) {
+            this.writeCacheCapacity = of(writeCacheCapacity);
+            return this;
+        }
+
         public Builder templateName(final String templateName) {
             checkNotNull(templateName, "templateName");
             this.templateName = of(templateName);
@@ -283,7 +297,8 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
 
         public ElasticsearchMetadataModule build() {
             return new ElasticsearchMetadataModule(id, groups, connection, writesPerSecond,
-                writeCacheDurationMinutes, templateName, backendType, configure);
+                writeCacheDurationMinutes, writeCacheFile, writeCacheCapacity, templateName,
+                backendType, configure);
         }
     }
 }
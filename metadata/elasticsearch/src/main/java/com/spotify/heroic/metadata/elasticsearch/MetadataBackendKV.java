@@ -96,6 +96,7 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+import static com.spotify.heroic.elasticsearch.RateLimitedCaches.releaseOn;
 import static org.elasticsearch.index.query.FilterBuilders.andFilter;
 import static org.elasticsearch.index.query.FilterBuilders.matchAllFilter;
 import static org.elasticsearch.index.query.FilterBuilders.notFilter;
@@ -184,7 +185,9 @@ public class MetadataBackendKV extends AbstractElasticsearchMetadataBackend
             final List<AsyncFuture<WriteMetadata>> writes = new ArrayList<>();
 
             for (final String index : indices) {
-                if (!writeCache.acquire(Pair.of(index, series.getHashCode()))) {
+                final Pair<String, HashCode> key = Pair.of(index, series.getHashCode());
+
+                if (!writeCache.acquire(key)) {
                     reporter.reportWriteDroppedByRateLimit();
                     continue;
                 }
@@ -203,10 +206,8 @@ public class MetadataBackendKV extends AbstractElasticsearchMetadataBackend
 
                 final RequestTimer<WriteMetadata> timer = WriteMetadata.timer();
 
-                AsyncFuture<WriteMetadata> result =
-                    bind(builder.execute()).directTransform(response -> timer.end());
-
-                writes.add(result);
+                writes.add(releaseOn(writeCache, key, c.bulkIndex(builder.request()))
+                    .directTransform(v -> timer.end()));
             }
 
             return async.collect(writes, WriteMetadata.reduce());
@@ -513,7 +514,9 @@ public class MetadataBackendKV extends AbstractElasticsearchMetadataBackend
 
     @Override
     public Statistics getStatistics() {
-        return Statistics.of(WRITE_CACHE_SIZE, writeCache.size());
+        return Statistics
+            .of(WRITE_CACHE_SIZE, writeCache.size())
+            .merge(writeCache.getStatistics());
     }
 
     public static BackendType backendType() {
@@ -106,6 +106,7 @@ import java.util.concurrent.Callable;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
+import static com.spotify.heroic.elasticsearch.RateLimitedCaches.releaseOn;
 import static org.elasticsearch.index.query.FilterBuilders.andFilter;
 import static org.elasticsearch.index.query.FilterBuilders.boolFilter;
 import static org.elasticsearch.index.query.FilterBuilders.matchAllFilter;
@@ -210,7 +211,9 @@ public class MetadataBackendV1 extends AbstractElasticsearchMetadataBackend
             final List<AsyncFuture<WriteMetadata>> futures = new ArrayList<>();
 
             for (final String index : indices) {
-                if (!writeCache.acquire(Pair.of(index, series.getHashCode()))) {
+                final Pair<String, HashCode> key = Pair.of(index, series.getHashCode());
+
+                if (!writeCache.acquire(key)) {
                     reporter.reportWriteDroppedByRateLimit();
                     continue;
                 }
@@ -228,7 +231,8 @@ public class MetadataBackendV1 extends AbstractElasticsearchMetadataBackend
                     .setOpType(OpType.CREATE);
 
                 final RequestTimer<WriteMetadata> timer = WriteMetadata.timer();
-                futures.add(bind(builder.execute()).directTransform(result -> timer.end()));
+                futures.add(releaseOn(writeCache, key, c.bulkIndex(builder.request()))
+                    .directTransform(v -> timer.end()));
             }
 
             return async.collect(futures, WriteMetadata.reduce());
@@ -0,0 +1,114 @@
+package com.spotify.heroic.metadata.elasticsearch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.elasticsearch.BulkIndexer;
+import com.spotify.heroic.test.ElasticsearchTestUtils;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.TinyAsync;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexRequest.OpType;
+import org.elasticsearch.client.Client;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BulkIndexerIT {
+    private static final String TYPE = "test";
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final AsyncFramework async = TinyAsync.builder().executor(executor).build();
+
+    private Client client;
+    private String index;
+
+    @Before
+    public void setup() throws Exception {
+        client = ElasticsearchTestUtils.clientSetup().setup();
+        index = "heroic-it-" + UUID.randomUUID().toString();
+    }
+
+    @After
+    public void teardown() throws Exception {
+        client.admin().indices().prepareDelete(index).get();
+        client.close();
+        executor.shutdown();
+    }
+
+    @Test
+    public void testBulkIndex() throws Exception {
+        final BulkIndexer bulk = new BulkIndexer(async, client, 10, 1024 * 1024, 50, 2);
+
+        final List<AsyncFuture<Void>> writes = new ArrayList<>();
+
+        for (int i = 0; i < 25; i++) {
+            writes.add(bulk.index(request("doc-" + i)));
+        }
+
+        async.collectAndDiscard(writes).get();
+
+        /* the same document again fails on its own, without affecting the rest of the bulk */
+        final AsyncFuture<Void> duplicate = bulk.index(request("doc-0"));
+        final AsyncFuture<Void> other = bulk.index(request("doc-25"));
+
+        other.get();
+
+        try {
+            duplicate.get();
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause().getMessage().contains("DocumentAlreadyExists"));
+        }
+
+        assertTrue(duplicate.isFailed());
+
+        bulk.close().get();
+
+        client.admin().indices().prepareRefresh(index).get();
+        assertEquals(26L, client.prepareCount(index).setTypes(TYPE).get().getCount());
+    }
+
+    @Test
+    public void testIndexDoesNotBlock() throws Exception {
+        /* far more requests than fit in a single bulk request, none of which are written yet */
+        final BulkIndexer bulk = new BulkIndexer(async, client, 10, 1024 * 1024, 60000, 1);
+
+        final List<AsyncFuture<Void>> writes = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            writes.add(bulk.index(request("doc-" + i)));
+        }
+
+        async.collectAndDiscard(writes).get();
+        bulk.close().get();
+
+        client.admin().indices().prepareRefresh(index).get();
+        assertEquals(100L, client.prepareCount(index).setTypes(TYPE).get().getCount());
+    }
+
+    @Test
+    public void testCloseFlushes() throws Exception {
+        /* neither size nor the interval triggers a flush before closing */
+        final BulkIndexer bulk = new BulkIndexer(async, client, 1000, 1024 * 1024, 60000, 1);
+
+        final AsyncFuture<Void> write = bulk.index(request("doc"));
+        bulk.close().get();
+        write.get();
+
+        assertTrue(bulk.index(request("late")).isFailed());
+    }
+
+    private IndexRequest request(final String id) {
+        return new IndexRequest(index, TYPE, id)
+            .source(ImmutableMap.of("id", id))
+            .opType(OpType.CREATE);
+    }
+}
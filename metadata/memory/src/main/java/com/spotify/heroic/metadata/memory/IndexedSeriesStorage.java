@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metadata.memory;
+
+import com.spotify.heroic.common.OptionalLimit;
+import com.spotify.heroic.common.RoaringBitmap;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.common.SeriesIndex;
+import com.spotify.heroic.filter.Filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Stores series in a {@link SeriesIndex}, guarded by a read-write lock.
+ * <p>
+ * Lookups are materialized while holding the read lock, since the index can't be safely read
+ * after it has been released.
+ */
+class IndexedSeriesStorage implements SeriesStorage {
+    private final SeriesIndex index = new SeriesIndex();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public void add(final Series series) {
+        final Lock l = lock.writeLock();
+        l.lock();
+
+        try {
+            index.add(series);
+        } finally {
+            l.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(final Series series) {
+        final Lock l = lock.writeLock();
+        l.lock();
+
+        try {
+            return index.remove(series);
+        } finally {
+            l.unlock();
+        }
+    }
+
+    @Override
+    public Stream<Series> lookup(final Filter filter, final OptionalLimit limit) {
+        final Lock l = lock.readLock();
+        l.lock();
+
+        try {
+            final RoaringBitmap ids = index.lookup(filter);
+            final long max = limit.asLong().orElse(Long.MAX_VALUE);
+
+            final List<Series> result = new ArrayList<>((int) Math.min(max, ids.cardinality()));
+            final PrimitiveIterator.OfInt it = ids.iterator();
+
+            while (it.hasNext() && result.size() < max) {
+                result.add(index.get(it.nextInt()));
+            }
+
+            return result.stream();
+        } finally {
+            l.unlock();
+        }
+    }
+
+    @Override
+    public long count(final Filter filter) {
+        final Lock l = lock.readLock();
+        l.lock();
+
+        try {
+            return index.lookup(filter).cardinality();
+        } finally {
+            l.unlock();
+        }
+    }
+}
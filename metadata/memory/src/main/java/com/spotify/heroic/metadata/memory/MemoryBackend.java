@@ -44,7 +44,6 @@ import eu.toolchain.async.AsyncFuture;
 import lombok.ToString;
 
 import javax.inject.Inject;
-import javax.inject.Named;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -57,11 +56,11 @@ import java.util.stream.Stream;
 public class MemoryBackend implements MetadataBackend {
     private final AsyncFramework async;
     private final Groups groups;
-    private final Set<Series> storage;
+    private final SeriesStorage storage;
 
     @Inject
     public MemoryBackend(
-        final AsyncFramework async, final Groups groups, @Named("storage") final Set<Series> storage
+        final AsyncFramework async, final Groups groups, final SeriesStorage storage
     ) {
         this.async = async;
         this.groups = groups;
@@ -162,7 +161,7 @@ public class MemoryBackend implements MetadataBackend {
     @Override
     public AsyncFuture<CountSeries> countSeries(final CountSeries.Request request) {
         return async.resolved(
-            new CountSeries(ImmutableList.of(), lookupFilter(request.getFilter()).count(), false));
+            new CountSeries(ImmutableList.of(), storage.count(request.getFilter()), false));
     }
 
     @Override
@@ -191,12 +190,7 @@ public class MemoryBackend implements MetadataBackend {
             .onFinished(observer::end);
     }
 
-    private Stream<Series> lookupFilter(final Filter filter) {
-        return storage.stream().filter(filter::apply);
-    }
-
     private Stream<Series> lookup(final Filter filter, final OptionalLimit limit) {
-        final Stream<Series> series = lookupFilter(filter);
-        return limit.asLong().map(series::limit).orElse(series);
+        return storage.lookup(filter, limit);
     }
 }
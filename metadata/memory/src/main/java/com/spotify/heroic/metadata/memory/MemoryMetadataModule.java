@@ -26,7 +26,6 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.spotify.heroic.common.DynamicModuleId;
 import com.spotify.heroic.common.Groups;
 import com.spotify.heroic.common.ModuleId;
-import com.spotify.heroic.common.Series;
 import com.spotify.heroic.dagger.PrimaryComponent;
 import com.spotify.heroic.metadata.MetadataModule;
 import dagger.Component;
@@ -34,11 +33,9 @@ import dagger.Module;
 import dagger.Provides;
 import lombok.Data;
 
-import javax.inject.Named;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Optional;
-import java.util.Set;
 import java.util.concurrent.ConcurrentSkipListSet;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -53,15 +50,18 @@ public final class MemoryMetadataModule implements MetadataModule, DynamicModule
     private final Optional<String> id;
     private final Groups groups;
     private final boolean synchronizedStorage;
+    private final boolean indexed;
 
     @JsonCreator
     public MemoryMetadataModule(
         @JsonProperty("id") Optional<String> id, @JsonProperty("groups") Optional<Groups> groups,
-        @JsonProperty("synchronizedStorage") Optional<Boolean> synchronizedStorage
+        @JsonProperty("synchronizedStorage") Optional<Boolean> synchronizedStorage,
+        @JsonProperty("indexed") Optional<Boolean> indexed
     ) {
         this.id = id;
         this.groups = groups.orElseGet(Groups::empty).or(DEFAULT_GROUP);
         this.synchronizedStorage = synchronizedStorage.orElse(false);
+        this.indexed = indexed.orElse(false);
     }
 
     @Override
@@ -96,12 +96,15 @@ public final class MemoryMetadataModule implements MetadataModule, DynamicModule
 
         @MemoryScope
         @Provides
-        @Named("storage")
-        public Set<Series> storage() {
+        SeriesStorage storage() {
+            if (indexed) {
+                return new IndexedSeriesStorage();
+            }
+
             if (synchronizedStorage) {
-                return Collections.synchronizedSet(new HashSet<>());
+                return new SetSeriesStorage(Collections.synchronizedSet(new HashSet<>()));
             } else {
-                return new ConcurrentSkipListSet<>();
+                return new SetSeriesStorage(new ConcurrentSkipListSet<>());
             }
         }
     }
@@ -114,6 +117,7 @@ public final class MemoryMetadataModule implements MetadataModule, DynamicModule
         private Optional<String> id = empty();
         private Optional<Groups> groups = empty();
         private Optional<Boolean> synchronizedStorage = empty();
+        private Optional<Boolean> indexed = empty();
 
         public Builder id(final String id) {
             checkNotNull(id, "id");
@@ -132,8 +136,17 @@ public final class MemoryMetadataModule implements MetadataModule, DynamicModule
             return this;
         }
 
+        /**
+         * Keep an inverted index of keys and tags, which makes lookups proportional to the number
+         * of matching series rather than the number of stored series.
+         */
+        public Builder indexed(final boolean indexed) {
+            this.indexed = of(indexed);
+            return this;
+        }
+
         public MemoryMetadataModule build() {
-            return new MemoryMetadataModule(id, groups, synchronizedStorage);
+            return new MemoryMetadataModule(id, groups, synchronizedStorage, indexed);
         }
     }
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metadata.memory;
+
+import com.spotify.heroic.common.OptionalLimit;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.filter.Filter;
+
+import java.util.stream.Stream;
+
+/**
+ * Storage of series for the in-memory metadata backend.
+ */
+interface SeriesStorage {
+    void add(Series series);
+
+    boolean remove(Series series);
+
+    /**
+     * Find series matching the given filter, up to the given limit.
+     */
+    Stream<Series> lookup(Filter filter, OptionalLimit limit);
+
+    /**
+     * Count all series matching the given filter.
+     */
+    long count(Filter filter);
+}
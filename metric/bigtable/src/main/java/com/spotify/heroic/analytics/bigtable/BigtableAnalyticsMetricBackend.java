@@ -37,6 +37,7 @@ import com.spotify.heroic.metric.WriteMetric;
 import eu.toolchain.async.AsyncFuture;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
@@ -76,7 +77,7 @@ class BigtableAnalyticsMetricBackend implements MetricBackend {
     public AsyncFuture<FetchData> fetch(
         final FetchData.Request request, final FetchQuotaWatcher watcher
     ) {
-        analytics.reportFetchSeries(LocalDate.now(), request.getSeries());
+        analytics.countFetchSeries(LocalDate.now(), request.getSeries());
         return backend.fetch(request, watcher);
     }
 
@@ -85,10 +86,24 @@ class BigtableAnalyticsMetricBackend implements MetricBackend {
         final FetchData.Request request, final FetchQuotaWatcher watcher,
         final Consumer<MetricCollection> metricsConsumer
     ) {
-        analytics.reportFetchSeries(LocalDate.now(), request.getSeries());
+        analytics.countFetchSeries(LocalDate.now(), request.getSeries());
         return backend.fetch(request, watcher, metricsConsumer);
     }
 
+    @Override
+    public AsyncFuture<FetchData.Result> fetchBatch(
+        final List<FetchData.Request> requests, final FetchQuotaWatcher watcher,
+        final BiConsumer<FetchData.Request, MetricCollection> metricsConsumer
+    ) {
+        final LocalDate now = LocalDate.now();
+
+        for (final FetchData.Request request : requests) {
+            analytics.countFetchSeries(now, request.getSeries());
+        }
+
+        return backend.fetchBatch(requests, watcher, metricsConsumer);
+    }
+
     @Override
     public Iterable<BackendEntry> listEntries() {
         return backend.listEntries();
@@ -128,6 +143,11 @@ class BigtableAnalyticsMetricBackend implements MetricBackend {
         return backend.countKey(key, options);
     }
 
+    @Override
+    public AsyncFuture<Long> compactKey(BackendKey key, QueryOptions options) {
+        return backend.compactKey(key, options);
+    }
+
     @Override
     public AsyncFuture<MetricCollection> fetchRow(BackendKey key) {
         return backend.fetchRow(key);
@@ -34,6 +34,7 @@ import com.spotify.heroic.metric.bigtable.CredentialsBuilder;
 import com.spotify.heroic.metric.bigtable.credentials.ComputeEngineCredentialsBuilder;
 import com.spotify.heroic.statistics.AnalyticsReporter;
 import com.spotify.heroic.statistics.HeroicReporter;
+import com.spotify.heroic.statistics.noop.NoopMetricBackendReporter;
 import dagger.Module;
 import dagger.Provides;
 import eu.toolchain.async.AsyncFramework;
@@ -60,13 +61,18 @@ public class BigtableAnalyticsModule implements AnalyticsModule {
     public static final String HITS_TABLE = "hits";
     public static final String HITS_COLUMN_FAMILY = "hits";
     public static final int DEFAULT_MAX_PENDING_REPORTS = 1000;
+    public static final int DEFAULT_MAX_PENDING_SERIES = 100000;
+    public static final long DEFAULT_REPORT_FLUSH_INTERVAL = 5000;
     public static final boolean DEFAULT_DISABLE_BULK_MUTATIONS = false;
-    public static final int DEFAULT_FLUSH_INTERVAL_SECONDS = 2;
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 2000;
+    public static final int DEFAULT_MAX_PENDING_BYTES = 16 * 1024 * 1024;
 
     private final String project;
     private final String cluster;
     private final CredentialsBuilder credentials;
     private final int maxPendingReports;
+    private final int maxPendingSeries;
+    private final long flushInterval;
 
     @Override
     public AnalyticsComponent module(final PrimaryComponent primary) {
@@ -94,7 +100,8 @@ public class BigtableAnalyticsModule implements AnalyticsModule {
                 return async.call(
                     new BigtableConnectionBuilder(project, cluster, credentials, async,
                         executorService, DEFAULT_DISABLE_BULK_MUTATIONS,
-                        DEFAULT_FLUSH_INTERVAL_SECONDS, Optional.empty()));
+                        DEFAULT_FLUSH_INTERVAL_MILLIS, DEFAULT_MAX_PENDING_BYTES, Optional.empty(),
+                        NoopMetricBackendReporter.get()));
             }
 
             @Override
@@ -131,6 +138,20 @@ public class BigtableAnalyticsModule implements AnalyticsModule {
         return maxPendingReports;
     }
 
+    @Provides
+    @BigtableScope
+    @Named("maxPendingSeries")
+    int maxPendingSeries() {
+        return maxPendingSeries;
+    }
+
+    @Provides
+    @BigtableScope
+    @Named("flushInterval")
+    long flushInterval() {
+        return flushInterval;
+    }
+
     @Provides
     @BigtableScope
     @Named("analytics")
@@ -148,18 +169,24 @@ public class BigtableAnalyticsModule implements AnalyticsModule {
         private Optional<String> instance = Optional.empty();
         private Optional<CredentialsBuilder> credentials = Optional.empty();
         private Optional<Integer> maxPendingReports = Optional.empty();
+        private Optional<Integer> maxPendingSeries = Optional.empty();
+        private Optional<Long> flushInterval = Optional.empty();
 
         @JsonCreator
         public Builder(
             @JsonProperty("project") Optional<String> project,
             @JsonProperty("instance") Optional<String> instance,
             @JsonProperty("credentials") Optional<CredentialsBuilder> credentials,
-            @JsonProperty("maxPendingReports") Optional<Integer> maxPendingReports
+            @JsonProperty("maxPendingReports") Optional<Integer> maxPendingReports,
+            @JsonProperty("maxPendingSeries") Optional<Integer> maxPendingSeries,
+            @JsonProperty("flushInterval") Optional<Long> flushInterval
         ) {
             this.project = project;
             this.instance = instance;
             this.credentials = credentials;
             this.maxPendingReports = maxPendingReports;
+            this.maxPendingSeries = maxPendingSeries;
+            this.flushInterval = flushInterval;
         }
 
         public Builder project(String project) {
@@ -182,13 +209,38 @@ public class BigtableAnalyticsModule implements AnalyticsModule {
             return this;
         }
 
+        public Builder maxPendingSeries(int maxPendingSeries) {
+            this.maxPendingSeries = Optional.of(maxPendingSeries);
+            return this;
+        }
+
+        public Builder flushInterval(long flushInterval) {
+            this.flushInterval = Optional.of(flushInterval);
+            return this;
+        }
+
         public BigtableAnalyticsModule build() {
             final String project = this.project.orElseThrow(
                 () -> new IllegalStateException("'project' configuration is required"));
 
+            final int maxPendingSeries =
+                this.maxPendingSeries.orElse(DEFAULT_MAX_PENDING_SERIES);
+            final long flushInterval = this.flushInterval.orElse(DEFAULT_REPORT_FLUSH_INTERVAL);
+
+            if (maxPendingSeries < 1) {
+                throw new IllegalArgumentException(
+                    "maxPendingSeries must be positive: " + maxPendingSeries);
+            }
+
+            if (flushInterval < 1) {
+                throw new IllegalArgumentException(
+                    "flushInterval must be positive: " + flushInterval);
+            }
+
             return new BigtableAnalyticsModule(project, instance.orElse(DEFAULT_CLUSTER),
                 credentials.orElse(DEFAULT_CREDENTIALS),
-                maxPendingReports.orElse(DEFAULT_MAX_PENDING_REPORTS));
+                maxPendingReports.orElse(DEFAULT_MAX_PENDING_REPORTS), maxPendingSeries,
+                flushInterval);
         }
     }
 }
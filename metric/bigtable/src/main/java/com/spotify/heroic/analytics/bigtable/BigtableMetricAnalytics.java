@@ -22,6 +22,7 @@
 package com.spotify.heroic.analytics.bigtable;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.protobuf.ByteString;
 import com.spotify.heroic.analytics.MetricAnalytics;
 import com.spotify.heroic.analytics.SeriesHit;
@@ -34,7 +35,6 @@ import com.spotify.heroic.metric.bigtable.BigtableConnection;
 import com.spotify.heroic.metric.bigtable.api.Family;
 import com.spotify.heroic.metric.bigtable.api.ReadModifyWriteRules;
 import com.spotify.heroic.metric.bigtable.api.ReadRowsRequest;
-import com.spotify.heroic.metric.bigtable.api.Row;
 import com.spotify.heroic.metric.bigtable.api.RowRange;
 import com.spotify.heroic.metric.bigtable.api.Table;
 import com.spotify.heroic.statistics.AnalyticsReporter;
@@ -42,19 +42,37 @@ import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
 import eu.toolchain.async.Borrowed;
 import eu.toolchain.async.Managed;
+import eu.toolchain.async.StreamCollector;
 import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Metric analytics which keeps track of how often series are fetched.
+ * <p>
+ * Fetches are counted in an in-process {@link SeriesHitCounters} table, which is periodically
+ * flushed to bigtable as one increment per distinct series and day.
+ */
+@Slf4j
 @BigtableScope
-@ToString(exclude = {"async", "mapper", "reporter"})
+@ToString(exclude = {"async", "mapper", "reporter", "counters", "scheduler", "flushRequested"})
 public class BigtableMetricAnalytics implements MetricAnalytics, LifeCycles {
+    public static final int COUNTER_STRIPES = 16;
+
     final Managed<BigtableConnection> connection;
     final AsyncFramework async;
     final ObjectMapper mapper;
@@ -62,17 +80,24 @@ public class BigtableMetricAnalytics implements MetricAnalytics, LifeCycles {
 
     final String hitsTableName;
     final String hitsColumnFamily;
-    final Semaphore pendingReports;
+    final int maxPendingReports;
+    final long flushInterval;
 
     final SeriesKeyEncoding fetchSeries = new SeriesKeyEncoding("fetch");
 
+    final SeriesHitCounters counters;
+    final ScheduledExecutorService scheduler;
+    final AtomicBoolean flushRequested = new AtomicBoolean();
+
     @Inject
     public BigtableMetricAnalytics(
         final Managed<BigtableConnection> connection, final AsyncFramework async,
         @Named("application/json") final ObjectMapper mapper, final AnalyticsReporter reporter,
         @Named("hitsTableName") final String hitsTableName,
         @Named("hitsColumnFamily") final String hitsColumnFamily,
-        @Named("maxPendingReports") final int maxPendingReports
+        @Named("maxPendingReports") final int maxPendingReports,
+        @Named("maxPendingSeries") final int maxPendingSeries,
+        @Named("flushInterval") final long flushInterval
     ) {
         this.connection = connection;
         this.async = async;
@@ -81,7 +106,12 @@ public class BigtableMetricAnalytics implements MetricAnalytics, LifeCycles {
 
         this.hitsTableName = hitsTableName;
         this.hitsColumnFamily = hitsColumnFamily;
-        this.pendingReports = new Semaphore(maxPendingReports);
+        this.maxPendingReports = maxPendingReports;
+        this.flushInterval = flushInterval;
+
+        this.counters = new SeriesHitCounters(async, COUNTER_STRIPES, maxPendingSeries);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("heroic-analytics-flush-%d").build());
     }
 
     @Override
@@ -151,37 +181,160 @@ public class BigtableMetricAnalytics implements MetricAnalytics, LifeCycles {
             .onFinished(b::release);
     }
 
+    /**
+     * Count a fetch of the given series.
+     * <p>
+     * The returned future is resolved when the count has been flushed to bigtable. Reports are
+     * dropped if the in-process table is full.
+     */
     @Override
     public AsyncFuture<Void> reportFetchSeries(LocalDate date, Series series) {
-        // limit the number of pending reports that are allowed at the same time to avoid resource
-        // starvation.
-        if (!pendingReports.tryAcquire()) {
+        final Optional<AsyncFuture<Void>> reported = counters.increment(date, series);
+
+        if (!reported.isPresent()) {
             reporter.reportDroppedFetchSeries();
+            requestFlush();
             return async.cancelled();
         }
 
-        return connection.doto(c -> {
-            final ByteString key = fetchSeries.encode(new SeriesKeyEncoding.SeriesKey(date, series),
-                mapper::writeValueAsString);
+        return reported.get();
+    }
+
+    /**
+     * Count a fetch of the given series, for callers that do not need to know when it has been
+     * flushed.
+     * <p>
+     * Unlike {@link #reportFetchSeries(LocalDate, Series)}, this does not allocate a future which
+     * would be retained until the next flush.
+     */
+    void countFetchSeries(final LocalDate date, final Series series) {
+        if (!counters.count(date, series)) {
+            reporter.reportDroppedFetchSeries();
+            requestFlush();
+        }
+    }
+
+    /**
+     * Write every count accumulated so far, evicting them from the in-process table.
+     */
+    AsyncFuture<Void> flush() {
+        flushRequested.set(false);
 
-            final AsyncFuture<Row> request = c
-                .dataClient()
-                .readModifyWriteRow(hitsTableName, key, ReadModifyWriteRules
-                    .builder()
-                    .increment(hitsColumnFamily, ByteString.EMPTY, 1L)
-                    .build());
+        final SeriesHitCounters.Batch batch = counters.drain();
 
-            return request.<Void>directTransform(d -> null).onFailed(e -> {
-                reporter.reportFailedFetchSeries();
-            });
-        }).onFinished(pendingReports::release);
+        if (batch.isEmpty()) {
+            batch.resolve();
+            return async.resolved();
+        }
+
+        final AsyncFuture<Void> future = connection.doto(c -> {
+            final List<Callable<AsyncFuture<Void>>> increments = new ArrayList<>();
+
+            for (final SeriesHitCounters.Entry entry : batch.getEntries()) {
+                increments.add(() -> increment(c, entry));
+            }
+
+            return async.eventuallyCollect(increments, new IncrementCollector(),
+                maxPendingReports);
+        });
+
+        return future
+            .onResolved(v -> batch.resolve())
+            .onFailed(batch::fail)
+            .onCancelled(() -> batch.fail(new RuntimeException("Flush cancelled")));
+    }
+
+    private AsyncFuture<Void> increment(
+        final BigtableConnection c, final SeriesHitCounters.Entry entry
+    ) throws Exception {
+        final ByteString key = fetchSeries.encode(entry.getKey(), mapper::writeValueAsString);
+
+        return c
+            .dataClient()
+            .readModifyWriteRow(hitsTableName, key, ReadModifyWriteRules
+                .builder()
+                .increment(hitsColumnFamily, ByteString.EMPTY, entry.getCount())
+                .build())
+            .directTransform(d -> null);
+    }
+
+    /**
+     * Flush ahead of the next scheduled flush.
+     */
+    private void requestFlush() {
+        if (!flushRequested.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            scheduler.execute(this::scheduledFlush);
+        } catch (final RejectedExecutionException e) {
+            flushRequested.set(false);
+        }
+    }
+
+    /**
+     * Flushes run on the scheduler thread and wait for completion, so that at most one flush is
+     * in flight at a time.
+     */
+    private void scheduledFlush() {
+        try {
+            flush().get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final Exception e) {
+            log.error("Failed to flush fetch series reports", e);
+        }
     }
 
     private AsyncFuture<Void> start() {
-        return connection.start();
+        return connection.start().directTransform(v -> {
+            scheduler.scheduleWithFixedDelay(this::scheduledFlush, flushInterval, flushInterval,
+                TimeUnit.MILLISECONDS);
+            return null;
+        });
     }
 
     private AsyncFuture<Void> stop() {
-        return connection.stop();
+        return async.call(() -> {
+            scheduler.shutdownNow();
+
+            if (!scheduler.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.error("Failed to shut down analytics flush thread in a timely manner");
+            }
+
+            return null;
+        }).lazyTransform(v -> flush().catchFailed(e -> {
+            log.error("Failed to flush fetch series reports on shutdown", e);
+            return null;
+        })).lazyTransform(v -> connection.stop());
+    }
+
+    private class IncrementCollector implements StreamCollector<Void, Void> {
+        @Override
+        public void resolved(final Void result) throws Exception {
+        }
+
+        @Override
+        public void failed(final Throwable cause) throws Exception {
+            reporter.reportFailedFetchSeries();
+        }
+
+        @Override
+        public void cancelled() throws Exception {
+            reporter.reportFailedFetchSeries();
+        }
+
+        @Override
+        public Void end(final int resolved, final int failed, final int cancelled)
+            throws Exception {
+            if (failed + cancelled > 0) {
+                throw new RuntimeException(
+                    (failed + cancelled) + " out of " + (resolved + failed + cancelled) +
+                        " fetch series increment(s) failed");
+            }
+
+            return null;
+        }
     }
 }
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.analytics.bigtable;
+
+import com.spotify.heroic.common.Series;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.FutureDone;
+import eu.toolchain.async.ResolvableFuture;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-process table of fetch counts, keyed by date and series.
+ * <p>
+ * The table is split into stripes by the hash of the series, so that concurrent reports only
+ * contend when they hash to the same stripe. Every stripe is bounded, and {@link #drain()} evicts
+ * all counts that have been accumulated so far.
+ */
+public class SeriesHitCounters {
+    private final AsyncFramework async;
+    private final Stripe[] stripes;
+    private final int maxEntriesPerStripe;
+
+    public SeriesHitCounters(
+        final AsyncFramework async, final int stripes, final int maxEntries
+    ) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("stripes must be positive");
+        }
+
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+
+        this.async = async;
+        this.stripes = new Stripe[stripes];
+        this.maxEntriesPerStripe = Math.max(1, (maxEntries + stripes - 1) / stripes);
+
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe(async.future());
+        }
+    }
+
+    /**
+     * Count a single fetch of the given series, without following when it is flushed.
+     *
+     * @return {@code false} if the stripe the series belongs to is full and the fetch was dropped.
+     */
+    public boolean count(final LocalDate date, final Series series) {
+        return add(date, series) != null;
+    }
+
+    /**
+     * Count a single fetch of the given series.
+     *
+     * @return A future that is resolved when the count has been flushed, or empty if the stripe
+     * the series belongs to is full. Cancelling it does not affect other counts.
+     */
+    public Optional<AsyncFuture<Void>> increment(final LocalDate date, final Series series) {
+        return Optional.ofNullable(add(date, series)).map(this::dependent);
+    }
+
+    /**
+     * Add a fetch to the stripe the series belongs to.
+     *
+     * @return The future of the next flush of the stripe, or {@code null} if the stripe is full.
+     */
+    private ResolvableFuture<Void> add(final LocalDate date, final Series series) {
+        final SeriesKeyEncoding.SeriesKey key = new SeriesKeyEncoding.SeriesKey(date, series);
+        final Stripe stripe = stripes[Math.floorMod(series.hashCode(), stripes.length)];
+
+        synchronized (stripe) {
+            final long[] count = stripe.counts.get(key);
+
+            if (count != null) {
+                count[0] += 1;
+                return stripe.flushed;
+            }
+
+            if (stripe.counts.size() >= maxEntriesPerStripe) {
+                return null;
+            }
+
+            stripe.counts.put(key, new long[]{1L});
+            return stripe.flushed;
+        }
+    }
+
+    /**
+     * Future which follows the flush of a stripe, without being able to complete it.
+     */
+    private AsyncFuture<Void> dependent(final AsyncFuture<Void> flushed) {
+        final ResolvableFuture<Void> future = async.future();
+
+        flushed.onDone(new FutureDone<Void>() {
+            @Override
+            public void failed(final Throwable cause) throws Exception {
+                future.fail(cause);
+            }
+
+            @Override
+            public void resolved(final Void result) throws Exception {
+                future.resolve(result);
+            }
+
+            @Override
+            public void cancelled() throws Exception {
+                future.cancel();
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Number of distinct keys currently in the table.
+     */
+    public int size() {
+        int size = 0;
+
+        for (final Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.counts.size();
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Evict every count in the table.
+     * <p>
+     * The returned batch owns the futures handed out for the evicted counts, and is expected to be
+     * completed once the counts have been written.
+     */
+    public Batch drain() {
+        final List<Entry> entries = new ArrayList<>();
+        final List<ResolvableFuture<Void>> futures = new ArrayList<>();
+
+        for (final Stripe stripe : stripes) {
+            final Map<SeriesKeyEncoding.SeriesKey, long[]> counts;
+            final ResolvableFuture<Void> flushed;
+
+            synchronized (stripe) {
+                if (stripe.counts.isEmpty()) {
+                    continue;
+                }
+
+                counts = stripe.counts;
+                flushed = stripe.flushed;
+                stripe.counts = new HashMap<>();
+                stripe.flushed = async.future();
+            }
+
+            for (final Map.Entry<SeriesKeyEncoding.SeriesKey, long[]> e : counts.entrySet()) {
+                entries.add(new Entry(e.getKey(), e.getValue()[0]));
+            }
+
+            futures.add(flushed);
+        }
+
+        return new Batch(entries, futures);
+    }
+
+    private static class Stripe {
+        private Map<SeriesKeyEncoding.SeriesKey, long[]> counts = new HashMap<>();
+        private ResolvableFuture<Void> flushed;
+
+        private Stripe(final ResolvableFuture<Void> flushed) {
+            this.flushed = flushed;
+        }
+    }
+
+    @Data
+    public static class Entry {
+        private final SeriesKeyEncoding.SeriesKey key;
+        private final long count;
+    }
+
+    @Data
+    public static class Batch {
+        private final List<Entry> entries;
+        private final List<ResolvableFuture<Void>> futures;
+
+        public boolean isEmpty() {
+            return entries.isEmpty();
+        }
+
+        public void resolve() {
+            futures.forEach(f -> f.resolve(null));
+        }
+
+        public void fail(final Throwable cause) {
+            futures.forEach(f -> f.fail(cause));
+        }
+    }
+}
@@ -27,9 +27,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.cloud.bigtable.grpc.scanner.FlatRow;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.protobuf.ByteString;
+import com.spotify.heroic.QueryOptions;
 import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Groups;
 import com.spotify.heroic.common.RequestTimer;
@@ -39,6 +39,8 @@ import com.spotify.heroic.lifecycle.LifeCycleRegistry;
 import com.spotify.heroic.lifecycle.LifeCycles;
 import com.spotify.heroic.metric.AbstractMetricBackend;
 import com.spotify.heroic.metric.BackendEntry;
+import com.spotify.heroic.metric.BackendKey;
+import com.spotify.heroic.metric.ColumnarPointCollection;
 import com.spotify.heroic.metric.Event;
 import com.spotify.heroic.metric.FetchData;
 import com.spotify.heroic.metric.FetchQuotaWatcher;
@@ -59,11 +61,13 @@ import com.spotify.heroic.metric.bigtable.api.RowFilter;
 import com.spotify.heroic.metric.bigtable.api.Table;
 import com.spotify.heroic.metrics.Meter;
 import com.spotify.heroic.statistics.MetricBackendReporter;
+import com.spotify.heroic.time.Clock;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
 import eu.toolchain.async.Managed;
 import eu.toolchain.async.RetryPolicy;
 import eu.toolchain.async.RetryResult;
+import eu.toolchain.async.StreamCollector;
 import eu.toolchain.serializer.BytesSerialWriter;
 import eu.toolchain.serializer.Serializer;
 import eu.toolchain.serializer.SerializerFramework;
@@ -72,12 +76,19 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import javax.inject.Inject;
 import javax.inject.Named;
+import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
@@ -97,8 +108,28 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
 
     public static final String POINTS = "points";
     public static final String EVENTS = "events";
+    public static final String CHUNKS = "chunks";
     public static final long PERIOD = 0x100000000L;
 
+    /**
+     * Span of a row which is read at a time when compacting, rounded down to whole windows.
+     */
+    static final long COMPACTION_PAGE_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    /**
+     * Estimated heap usage of a point which is materialized as an object in a list: object header,
+     * timestamp, value, and a reference.
+     * <p>
+     * Only used to estimate the heap usage avoided by decoding points into columnar collections.
+     * The rows read from bigtable are still held in full until they have been decoded.
+     */
+    static final long MATERIALIZED_POINT_SIZE = 40L;
+
+    /**
+     * Heap usage of a point in a {@link ColumnarPointCollection}.
+     */
+    static final long COLUMNAR_POINT_SIZE = Long.BYTES + Double.BYTES;
+
     private final AsyncFramework async;
     private final SerializerFramework serializer;
     private final Serializer<RowKey> rowKeySerializer;
@@ -108,6 +139,11 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
     private final boolean configure;
     private final MetricBackendReporter reporter;
     private final ObjectMapper mapper;
+    private final int readBatchSize;
+    private final int readConcurrency;
+    private final Clock clock;
+    private final boolean chunkCompression;
+    private final long chunkWindowMillis;
 
     private static final TypeReference<Map<String, String>> PAYLOAD_TYPE =
         new TypeReference<Map<String, String>>() {
@@ -121,7 +157,11 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
         final Serializer<RowKey> rowKeySerializer, final Managed<BigtableConnection> connection,
         final Groups groups, @Named("table") final String table,
         @Named("configure") final boolean configure, MetricBackendReporter reporter,
-        @Named("application/json") ObjectMapper mapper
+        @Named("application/json") ObjectMapper mapper,
+        @Named("readBatchSize") final int readBatchSize,
+        @Named("readConcurrency") final int readConcurrency, final Clock clock,
+        @Named("chunkCompression") final boolean chunkCompression,
+        @Named("chunkWindowMillis") final long chunkWindowMillis
     ) {
         super(async);
         this.async = async;
@@ -133,6 +173,11 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
         this.configure = configure;
         this.reporter = reporter;
         this.mapper = mapper;
+        this.readBatchSize = readBatchSize;
+        this.readConcurrency = readConcurrency;
+        this.clock = clock;
+        this.chunkCompression = chunkCompression;
+        this.chunkWindowMillis = chunkWindowMillis;
     }
 
     @Override
@@ -179,6 +224,13 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
                     return admin.createColumnFamily(metrics, EVENTS);
                 })));
 
+                if (chunkCompression) {
+                    families.add(async.call(() -> metrics.getColumnFamily(CHUNKS).orElseGet(() -> {
+                        log.info("Creating missing column family: " + CHUNKS);
+                        return admin.createColumnFamily(metrics, CHUNKS);
+                    })));
+                }
+
                 return async.collectAndDiscard(families);
             });
     }
@@ -271,6 +323,64 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
         });
     }
 
+    /**
+     * Fetch multiple series, combining the reads of rows that share a column range into
+     * multi-row requests of up to {@code readBatchSize} rows each.
+     * <p>
+     * Apart from the first and last period of the queried range, every row reads the same columns,
+     * so for a query touching N series this is typically three groups of N rows each.
+     */
+    @Override
+    public AsyncFuture<FetchData.Result> fetchBatch(
+        final List<FetchData.Request> requests, final FetchQuotaWatcher watcher,
+        final BiConsumer<FetchData.Request, MetricCollection> consumer
+    ) {
+        return connection.doto(c -> {
+            if (!watcher.mayReadData()) {
+                throw new IllegalArgumentException("query violated data limit");
+            }
+
+            final List<FetchData.Result> errors = new ArrayList<>();
+            final Map<ColumnRange, List<BatchedQuery>> byRange = new LinkedHashMap<>();
+
+            for (final FetchData.Request request : requests) {
+                final List<PreparedQuery> prepared;
+
+                switch (request.getType()) {
+                    case POINT:
+                        prepared = pointsRanges(request);
+                        break;
+                    case EVENT:
+                        prepared = eventsRanges(request);
+                        break;
+                    default:
+                        errors.add(FetchData.errorResult(QueryTrace.of(FETCH),
+                            QueryError.fromMessage("unsupported source: " + request.getType())));
+                        continue;
+                }
+
+                for (final PreparedQuery p : prepared) {
+                    byRange
+                        .computeIfAbsent(ColumnRange.of(p.request), k -> new ArrayList<>())
+                        .add(new BatchedQuery(request, p));
+                }
+            }
+
+            final BigtableDataClient client = c.dataClient();
+            final List<Callable<AsyncFuture<FetchData.Result>>> reads = new ArrayList<>();
+
+            for (final Map.Entry<ColumnRange, List<BatchedQuery>> e : byRange.entrySet()) {
+                for (final List<BatchedQuery> batch : Lists.partition(e.getValue(),
+                    readBatchSize)) {
+                    reads.add(() -> readBatch(client, watcher, e.getKey(), batch, consumer));
+                }
+            }
+
+            return async.eventuallyCollect(reads, new ReadBatchCollector(errors),
+                readConcurrency);
+        });
+    }
+
     @Override
     public Iterable<BackendEntry> listEntries() {
         return ImmutableList.of();
@@ -343,7 +453,8 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
                 building.put(rowKey, builder);
             }
 
-            builder.setCell(columnFamily, offsetBytes, valueBytes);
+            builder.setCell(columnFamily, offsetBytes, valueBytes,
+                cellTimestamp(columnFamily, timestamp));
 
             if (builder.size() >= MAX_BATCH_SIZE) {
                 saved.add(Pair.of(rowKey, builder.build()));
@@ -387,7 +498,8 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
         final ByteString offsetBytes = serializeOffset(offset);
         final ByteString valueBytes = serializer.apply(p);
 
-        builder.setCell(columnFamily, offsetBytes, valueBytes);
+        builder.setCell(columnFamily, offsetBytes, valueBytes,
+            cellTimestamp(columnFamily, timestamp));
 
         final RequestTimer<WriteMetric> timer = WriteMetric.timer();
 
@@ -409,32 +521,25 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
             final AsyncFuture<List<FlatRow>> readRows = client.readRows(table, ReadRowsRequest
                 .builder()
                 .rowKey(p.request.getRowKey())
-                .filter(RowFilter.chain(Arrays.asList(RowFilter
-                    .newColumnRangeBuilder(p.request.getColumnFamily())
-                    .startQualifierOpen(p.request.getStartQualifierOpen())
-                    .endQualifierClosed(p.request.getEndQualifierClosed())
-                    .build(), RowFilter.onlyLatestCell())))
+                .filter(filter(ColumnRange.of(p.request)))
                 .build());
 
-            final Function<FlatRow.Cell, Metric> transform =
-                cell -> p.deserialize(cell.getQualifier(), cell.getValue());
-
             final QueryTrace.NamedWatch w = QueryTrace.watch(FETCH_SEGMENT);
 
             fetches.add(readRows.directTransform(result -> {
-                final List<Iterable<Metric>> points = new ArrayList<>();
+                final List<MetricCollection> rows = new ArrayList<>(result.size());
 
                 for (final FlatRow row : result) {
-                    watcher.readData(row.getCells().size());
-                    points.add(Iterables.transform(row.getCells(), transform));
+                    final MetricCollection collection = p.collect(type, row.getCells());
+                    watcher.readData(collection.size());
+                    rows.add(collection);
                 }
 
                 final QueryTrace trace = w.end();
                 final ImmutableList<Long> times = ImmutableList.of(trace.getElapsed());
-                final List<Metric> data =
-                    ImmutableList.copyOf(Iterables.mergeSorted(points, Metric.comparator()));
                 final List<MetricCollection> groups =
-                    ImmutableList.of(MetricCollection.build(type, data));
+                    ImmutableList.of(rows.size() == 1 ? rows.get(0)
+                        : MetricCollection.mergeSorted(type, rows));
 
                 return FetchData.of(trace, times, groups);
             }));
@@ -458,28 +563,301 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
             final AsyncFuture<List<FlatRow>> readRows = client.readRows(table, ReadRowsRequest
                 .builder()
                 .rowKey(p.request.getRowKey())
-                .filter(RowFilter.chain(Arrays.asList(RowFilter
-                    .newColumnRangeBuilder(p.request.getColumnFamily())
-                    .startQualifierOpen(p.request.getStartQualifierOpen())
-                    .endQualifierClosed(p.request.getEndQualifierClosed())
-                    .build(), RowFilter.onlyLatestCell())))
+                .filter(filter(ColumnRange.of(p.request)))
                 .build());
 
-            final Function<FlatRow.Cell, Metric> transform =
-                cell -> p.deserialize(cell.getQualifier(), cell.getValue());
-
             fetches.add(readRows.directTransform(result -> {
                 for (final FlatRow row : result) {
-                    watcher.readData(row.getCells().size());
-                    List<Metric> metrics = Lists.transform(row.getCells(), transform);
-                    metricsConsumer.accept(MetricCollection.build(type, metrics));
+                    final MetricCollection collection = p.collect(type, row.getCells());
+                    final int points = collection.size();
+                    watcher.readData(points);
+                    metricsConsumer.accept(collection);
+
+                    if (type == MetricType.POINT) {
+                        reporter.reportStreamedFetch(points,
+                            points * (MATERIALIZED_POINT_SIZE - COLUMNAR_POINT_SIZE));
+                    }
                 }
+
                 return FetchData.result(fs.end());
             }));
         }
         return async.collect(fetches, FetchData.collectResult(FETCH));
     }
 
+    /**
+     * Read a batch of rows sharing the same column range in a single request, and hand each row
+     * back to the request that it belongs to.
+     */
+    private AsyncFuture<FetchData.Result> readBatch(
+        final BigtableDataClient client, final FetchQuotaWatcher watcher, final ColumnRange range,
+        final List<BatchedQuery> batch,
+        final BiConsumer<FetchData.Request, MetricCollection> consumer
+    ) {
+        final QueryTrace.NamedWatch w = QueryTrace.watch(FETCH_SEGMENT);
+
+        /* the same row might be requested more than once, e.g. if a series is fetched twice */
+        final Map<ByteString, List<BatchedQuery>> byRowKey = new HashMap<>(batch.size());
+
+        for (final BatchedQuery q : batch) {
+            byRowKey
+                .computeIfAbsent(q.prepared.request.getRowKey(), k -> new ArrayList<>(1))
+                .add(q);
+        }
+
+        final AsyncFuture<List<FlatRow>> readRows = client.readRows(table,
+            ReadRowsRequest.builder().rowKeys(byRowKey.keySet()).filter(filter(range)).build());
+
+        return readRows.directTransform(result -> {
+            for (final FlatRow row : result) {
+                final List<BatchedQuery> queries = byRowKey.get(row.getRowKey());
+
+                if (queries == null) {
+                    continue;
+                }
+
+                for (final BatchedQuery q : queries) {
+                    final MetricType type = q.request.getType();
+                    final MetricCollection collection = q.prepared.collect(type, row.getCells());
+                    final int points = collection.size();
+                    watcher.readData(points);
+                    consumer.accept(q.request, collection);
+
+                    if (type == MetricType.POINT) {
+                        reporter.reportStreamedFetch(points,
+                            points * (MATERIALIZED_POINT_SIZE - COLUMNAR_POINT_SIZE));
+                    }
+                }
+            }
+
+            return FetchData.result(w.end());
+        });
+    }
+
+    /**
+     * Build the filter reading the given columns.
+     * <p>
+     * With chunk compression, points might also live in compacted chunks. A chunk is keyed by the
+     * start of its window, so the chunk covering the start of the range is included.
+     */
+    private RowFilter filter(final ColumnRange range) {
+        final RowFilter columns = range.filter();
+
+        if (!chunkCompression || !POINTS.equals(range.getColumnFamily())) {
+            return columns;
+        }
+
+        final long start = window(deserializeOffset(range.getStartQualifierOpen()));
+
+        final RowFilter chunks = RowFilter.chain(Arrays.asList(RowFilter
+            .newColumnRangeBuilder(CHUNKS)
+            .startQualifierClosed(serializeOffset(start))
+            .endQualifierClosed(range.getEndQualifierClosed())
+            .build(), RowFilter.onlyLatestCell()));
+
+        return RowFilter.interleave(Arrays.asList(columns, chunks));
+    }
+
+    /**
+     * Timestamp to write cells of the given column family with, in microseconds.
+     * <p>
+     * With chunk compression, points are written with a version derived from the timestamp of the
+     * point, so that a replayed write replaces the version it was meant to write instead of adding
+     * another one, and compaction can delete every version that a chunk replaces.
+     * <p>
+     * Since an overwrite has the same version as the point it replaces, an overwrite which lands
+     * while the row is being compacted is deleted together with it.
+     */
+    private long cellTimestamp(final String columnFamily, final long timestamp) {
+        return chunkCompression && POINTS.equals(columnFamily)
+            ? TimeUnit.MILLISECONDS.toMicros(timestamp) : 0L;
+    }
+
+    /**
+     * Compact the points of a single row into chunks.
+     * <p>
+     * Only windows which closed more than one window ago are compacted, to leave room for late
+     * writes. Points written into a window after it has been compacted are stored as regular
+     * cells, and are merged into the chunk the next time the row is compacted.
+     * <p>
+     * The row is read and compacted one page of windows at a time.
+     *
+     * @return The number of cells that were compacted.
+     */
+    @Override
+    public AsyncFuture<Long> compactKey(final BackendKey key, final QueryOptions options) {
+        if (!chunkCompression) {
+            return async.failed(new IllegalStateException("chunk compression is not enabled"));
+        }
+
+        if (offset(key.getBase()) != 0) {
+            return async.failed(new IllegalArgumentException(
+                "base is not aligned with a row (" + PERIOD + "): " + key.getBase()));
+        }
+
+        return connection.doto(c -> {
+            final BigtableDataClient client = c.dataClient();
+            final ByteString rowKey =
+                serialize(new RowKey(key.getSeries(), key.getBase()), rowKeySerializer);
+
+            final long closed = clock.currentTimeMillis() - chunkWindowMillis;
+            final long end = Math.max(0L, Math.min(PERIOD, closed - key.getBase()));
+            final long page = Math.max(1L, COMPACTION_PAGE_MILLIS / chunkWindowMillis) *
+                chunkWindowMillis;
+
+            return compactPages(client, rowKey, key.getBase(), closed, 0L, end, page);
+        });
+    }
+
+    /**
+     * Compact the row one page at a time, starting at the given offset.
+     * <p>
+     * Pages are aligned with windows, so that a chunk is always read together with the cells of its
+     * window.
+     */
+    private AsyncFuture<Long> compactPages(
+        final BigtableDataClient client, final ByteString rowKey, final long base,
+        final long closed, final long start, final long end, final long page
+    ) {
+        if (start >= end) {
+            return async.resolved(0L);
+        }
+
+        final long next = Math.min(end, start + page);
+
+        final RowFilter filter = RowFilter.interleave(
+            Arrays.asList(pageFilter(POINTS, start, next), pageFilter(CHUNKS, start, next)));
+
+        return client
+            .readRows(table, ReadRowsRequest.builder().rowKey(rowKey).filter(filter).build())
+            .lazyTransform(rows -> compactRow(client, rowKey, base, closed, rows))
+            .lazyTransform(compacted -> compactPages(client, rowKey, base, closed, next, end, page)
+                .directTransform(rest -> compacted + rest));
+    }
+
+    private RowFilter pageFilter(final String family, final long start, final long end) {
+        final RowFilter.ColumnRange.Builder range =
+            RowFilter.newColumnRangeBuilder(family).startQualifierClosed(serializeOffset(start));
+
+        /* the end of the last page is the end of the row, which can't be serialized */
+        if (end < PERIOD) {
+            range.endQualifierOpen(serializeOffset(end));
+        }
+
+        return RowFilter.chain(Arrays.asList(range.build(), RowFilter.onlyLatestCell()));
+    }
+
+    private AsyncFuture<Long> compactRow(
+        final BigtableDataClient client, final ByteString rowKey, final long base,
+        final long closed, final List<FlatRow> rows
+    ) {
+        final Map<Long, ByteString> chunks = new HashMap<>();
+        final Map<Long, List<FlatRow.Cell>> windows = new TreeMap<>();
+
+        for (final FlatRow row : rows) {
+            for (final FlatRow.Cell cell : row.getCells()) {
+                final long offset = deserializeOffset(cell.getQualifier());
+
+                if (CHUNKS.equals(cell.getFamily())) {
+                    chunks.put(offset, cell.getValue());
+                    continue;
+                }
+
+                final long window = window(offset);
+
+                if (base + window + chunkWindowMillis > closed) {
+                    continue;
+                }
+
+                windows.computeIfAbsent(window, w -> new ArrayList<>()).add(cell);
+            }
+        }
+
+        final List<AsyncFuture<Void>> writes = new ArrayList<>();
+        long compacted = 0L;
+
+        for (final Map.Entry<Long, List<FlatRow.Cell>> e : windows.entrySet()) {
+            final long window = e.getKey();
+            final List<FlatRow.Cell> cells = e.getValue();
+
+            /* cells take precedence over previously compacted points */
+            final TreeMap<Long, Double> points = new TreeMap<>();
+
+            final ByteString previous = chunks.get(window);
+
+            if (previous != null) {
+                PointChunkCodec.decode(previous.toByteArray(), points::put);
+            }
+
+            for (final FlatRow.Cell cell : cells) {
+                points.put(deserializeOffset(cell.getQualifier()),
+                    deserializeValue(cell.getValue()));
+            }
+
+            final long[] timestamps = new long[points.size()];
+            final double[] values = new double[points.size()];
+
+            int i = 0;
+
+            for (final Map.Entry<Long, Double> p : points.entrySet()) {
+                timestamps[i] = p.getKey();
+                values[i++] = p.getValue();
+            }
+
+            final ByteString chunk =
+                ByteString.copyFrom(PointChunkCodec.encode(timestamps, values, i));
+
+            writes.add(writeChunk(client, rowKey, window, chunk, cells));
+            compacted += cells.size();
+        }
+
+        final long result = compacted;
+        return async.collectAndDiscard(writes).directTransform(v -> result);
+    }
+
+    /**
+     * Write a chunk, and then delete the cells which it replaces.
+     * <p>
+     * The chunk is written together with the first batch of deletes, so that the points are
+     * always readable from either the cells or the chunk.
+     * <p>
+     * The chunk is written with a fixed version, and the deletes are bounded by the version that
+     * was read, so replaying a partially failed compaction replaces the same versions instead of
+     * adding new ones.
+     */
+    private AsyncFuture<Void> writeChunk(
+        final BigtableDataClient client, final ByteString rowKey, final long window,
+        final ByteString chunk, final List<FlatRow.Cell> cells
+    ) {
+        final List<List<FlatRow.Cell>> batches = Lists.partition(cells, MAX_BATCH_SIZE - 1);
+
+        final Mutations.Builder first = Mutations.builder();
+        first.setCell(CHUNKS, serializeOffset(window), chunk);
+        batches.get(0).forEach(cell -> deleteCompacted(first, cell));
+
+        return client.mutateRow(table, rowKey, first.build()).lazyTransform(v -> {
+            final List<AsyncFuture<Void>> deletes = new ArrayList<>();
+
+            for (final List<FlatRow.Cell> batch : batches.subList(1, batches.size())) {
+                final Mutations.Builder mutations = Mutations.builder();
+                batch.forEach(cell -> deleteCompacted(mutations, cell));
+                deletes.add(client.mutateRow(table, rowKey, mutations.build()));
+            }
+
+            return async.collectAndDiscard(deletes);
+        });
+    }
+
+    /**
+     * Delete the given cell, and any older versions of it.
+     * <p>
+     * Bigtable timestamps have millisecond granularity, so the range ends at the next millisecond.
+     */
+    private void deleteCompacted(final Mutations.Builder mutations, final FlatRow.Cell cell) {
+        mutations.deleteCell(POINTS, cell.getQualifier(), 0L,
+            cell.getTimestamp() - cell.getTimestamp() % 1000L + 1000L);
+    }
+
     <T> ByteString serialize(T rowKey, Serializer<T> serializer) throws IOException {
         try (final BytesSerialWriter writer = this.serializer.writeBytes()) {
             serializer.serialize(writer, rowKey);
@@ -495,6 +873,15 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
         return timestamp % PERIOD;
     }
 
+    /**
+     * The start of the chunk window that the given offset belongs to.
+     * <p>
+     * Windows are aligned within each row, so the last window of a row might be truncated.
+     */
+    long window(long offset) {
+        return offset - offset % chunkWindowMillis;
+    }
+
     List<PreparedQuery> ranges(
         final Series series, final DateRange range, final String columnFamily,
         final BiFunction<Long, ByteString, Metric> deserializer
@@ -539,7 +926,7 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
     }
 
     static double deserializeValue(ByteString value) {
-        return Double.longBitsToDouble(ByteBuffer.wrap(value.toByteArray()).getLong());
+        return Double.longBitsToDouble(value.asReadOnlyByteBuffer().getLong());
     }
 
     /**
@@ -571,13 +958,11 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
     }
 
     static long deserializeOffset(ByteString value) {
-        final byte[] bytes = value.toByteArray();
-
         // @formatter:off
-        return ((long) (bytes[0] & 0xff) << 24) +
-               ((long) (bytes[1] & 0xff) << 16) +
-               ((long) (bytes[2] & 0xff) << 8) +
-               ((long) (bytes[3] & 0xff) << 0);
+        return ((long) (value.byteAt(0) & 0xff) << 24) +
+               ((long) (value.byteAt(1) & 0xff) << 16) +
+               ((long) (value.byteAt(2) & 0xff) << 8) +
+               ((long) (value.byteAt(3) & 0xff) << 0);
         // @formatter:on
     }
 
@@ -591,5 +976,165 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
             final long timestamp = base + deserializeOffset(qualifier);
             return deserializer.apply(timestamp, value);
         }
+
+        /**
+         * Build a collection out of the cells of a single row.
+         * <p>
+         * Points are decoded straight into a columnar collection, without materializing a metric
+         * for each cell.
+         */
+        private MetricCollection collect(final MetricType type, final List<FlatRow.Cell> cells) {
+            if (type != MetricType.POINT) {
+                final List<Metric> metrics = new ArrayList<>(cells.size());
+
+                for (final FlatRow.Cell cell : cells) {
+                    metrics.add(deserialize(cell.getQualifier(), cell.getValue()));
+                }
+
+                return MetricCollection.build(type, metrics);
+            }
+
+            final ColumnarPointCollection.Builder builder =
+                ColumnarPointCollection.builder(cells.size());
+            ColumnarPointCollection.Builder chunks = null;
+
+            for (final FlatRow.Cell cell : cells) {
+                if (CHUNKS.equals(cell.getFamily())) {
+                    if (chunks == null) {
+                        chunks = ColumnarPointCollection.builder();
+                    }
+
+                    decodeChunk(cell.getValue(), chunks);
+                    continue;
+                }
+
+                builder.add(base + deserializeOffset(cell.getQualifier()),
+                    deserializeValue(cell.getValue()));
+            }
+
+            if (chunks == null) {
+                return builder.build();
+            }
+
+            return merge(chunks.build(), builder.build());
+        }
+
+        /**
+         * Decode the points of a chunk which are inside of the requested range.
+         */
+        private void decodeChunk(
+            final ByteString chunk, final ColumnarPointCollection.Builder builder
+        ) {
+            final long start = deserializeOffset(request.getStartQualifierOpen());
+            final long end = deserializeOffset(request.getEndQualifierClosed());
+
+            PointChunkCodec.decode(chunk.toByteArray(), (offset, value) -> {
+                if (offset > start && offset <= end) {
+                    builder.add(base + offset, value);
+                }
+            });
+        }
+
+        /**
+         * Merge compacted points with cells, where a cell replaces a compacted point with the
+         * same timestamp since it was written after the compaction.
+         */
+        private static ColumnarPointCollection merge(
+            final ColumnarPointCollection chunks, final ColumnarPointCollection cells
+        ) {
+            if (cells.isEmpty()) {
+                return chunks;
+            }
+
+            final ColumnarPointCollection.Builder builder =
+                ColumnarPointCollection.builder(chunks.size() + cells.size());
+
+            int i = 0;
+            int j = 0;
+
+            while (i < chunks.size() || j < cells.size()) {
+                if (j >= cells.size() ||
+                    (i < chunks.size() && chunks.getTimestamp(i) < cells.getTimestamp(j))) {
+                    builder.add(chunks.getTimestamp(i), chunks.getValue(i));
+                    i++;
+                    continue;
+                }
+
+                if (i < chunks.size() && chunks.getTimestamp(i) == cells.getTimestamp(j)) {
+                    i++;
+                }
+
+                builder.add(cells.getTimestamp(j), cells.getValue(j));
+                j++;
+            }
+
+            return builder.build();
+        }
+    }
+
+    /**
+     * The columns read from a row, rows reading the same columns can share a filter.
+     */
+    @Data
+    private static final class ColumnRange {
+        private final String columnFamily;
+        private final ByteString startQualifierOpen;
+        private final ByteString endQualifierClosed;
+
+        private RowFilter filter() {
+            return RowFilter.chain(Arrays.asList(RowFilter
+                .newColumnRangeBuilder(columnFamily)
+                .startQualifierOpen(startQualifierOpen)
+                .endQualifierClosed(endQualifierClosed)
+                .build(), RowFilter.onlyLatestCell()));
+        }
+
+        private static ColumnRange of(final ReadRowRangeRequest request) {
+            return new ColumnRange(request.getColumnFamily(), request.getStartQualifierOpen(),
+                request.getEndQualifierClosed());
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class BatchedQuery {
+        private final FetchData.Request request;
+        private final PreparedQuery prepared;
+    }
+
+    private static final class ReadBatchCollector
+        implements StreamCollector<FetchData.Result, FetchData.Result> {
+        private final ConcurrentLinkedQueue<FetchData.Result> results;
+        private final ConcurrentLinkedQueue<Throwable> causes = new ConcurrentLinkedQueue<>();
+
+        private ReadBatchCollector(final List<FetchData.Result> initial) {
+            this.results = new ConcurrentLinkedQueue<>(initial);
+        }
+
+        @Override
+        public void resolved(final FetchData.Result result) throws Exception {
+            results.add(result);
+        }
+
+        @Override
+        public void failed(final Throwable cause) throws Exception {
+            causes.add(cause);
+        }
+
+        @Override
+        public void cancelled() throws Exception {
+        }
+
+        @Override
+        public FetchData.Result end(final int resolved, final int failed, final int cancelled)
+            throws Exception {
+            if (failed > 0 || cancelled > 0) {
+                final Exception e = new Exception(
+                    "Some reads failed (" + failed + ") or were cancelled (" + cancelled + ")");
+                causes.forEach(e::addSuppressed);
+                throw e;
+            }
+
+            return FetchData.collectResult(FETCH).collect(results);
+        }
     }
 }
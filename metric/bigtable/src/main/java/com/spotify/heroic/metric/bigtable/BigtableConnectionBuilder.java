@@ -34,6 +34,7 @@ import com.spotify.heroic.metric.bigtable.api.BigtableMutator;
 import com.spotify.heroic.metric.bigtable.api.BigtableMutatorImpl;
 import com.spotify.heroic.metric.bigtable.api.BigtableTableAdminClient;
 import com.spotify.heroic.metric.bigtable.api.BigtableTableTableAdminClientImpl;
+import com.spotify.heroic.statistics.MetricBackendReporter;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
 import lombok.RequiredArgsConstructor;
@@ -57,9 +58,12 @@ public class BigtableConnectionBuilder implements Callable<BigtableConnection> {
     private final ExecutorService executorService;
 
     private final boolean disableBulkMutations;
-    private final int flushIntervalSeconds;
+    private final long flushIntervalMillis;
+    private final int maxPendingBytes;
     private final Optional<Integer> batchSize;
 
+    private final MetricBackendReporter reporter;
+
     @Override
     public BigtableConnection call() throws Exception {
         final CredentialOptions credentials = this.credentials.build();
@@ -90,7 +94,8 @@ public class BigtableConnectionBuilder implements Callable<BigtableConnection> {
               instance);
 
         final BigtableMutator mutator =
-            new BigtableMutatorImpl(async, session, disableBulkMutations, flushIntervalSeconds);
+            new BigtableMutatorImpl(async, session, disableBulkMutations, flushIntervalMillis,
+                maxPendingBytes, reporter);
 
         final BigtableDataClient client =
             new BigtableDataClientImpl(async, session, mutator, project, instance);
@@ -36,6 +36,7 @@ import com.spotify.heroic.lifecycle.LifeCycleManager;
 import com.spotify.heroic.metric.MetricModule;
 import com.spotify.heroic.metric.bigtable.api.FakeBigtableConnection;
 import com.spotify.heroic.metric.bigtable.credentials.ComputeEngineCredentialsBuilder;
+import com.spotify.heroic.statistics.MetricBackendReporter;
 import dagger.Component;
 import dagger.Lazy;
 import dagger.Module;
@@ -47,6 +48,7 @@ import eu.toolchain.async.ManagedSetup;
 import eu.toolchain.serializer.Serializer;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Named;
 import lombok.Data;
 
@@ -62,8 +64,13 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
         new ComputeEngineCredentialsBuilder();
     public static final boolean DEFAULT_CONFIGURE = false;
     public static final boolean DEFAULT_DISABLE_BULK_MUTATIONS = false;
-    public static final int DEFAULT_FLUSH_INTERVAL_SECONDS = 2;
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 2000;
+    public static final int DEFAULT_MAX_PENDING_BYTES = 64 * 1024 * 1024;
     public static final boolean DEFAULT_FAKE = false;
+    public static final int DEFAULT_READ_BATCH_SIZE = 500;
+    public static final int DEFAULT_READ_CONCURRENCY = 16;
+    public static final boolean DEFAULT_CHUNK_COMPRESSION = false;
+    public static final long DEFAULT_CHUNK_WINDOW_MILLIS = TimeUnit.HOURS.toMillis(2);
 
     private final Optional<String> id;
     private final Groups groups;
@@ -73,9 +80,14 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
     private final CredentialsBuilder credentials;
     private final boolean configure;
     private final boolean disableBulkMutations;
-    private final int flushIntervalSeconds;
+    private final long flushIntervalMillis;
+    private final int maxPendingBytes;
     private final Optional<Integer> batchSize;
     private final boolean fake;
+    private final int readBatchSize;
+    private final int readConcurrency;
+    private final boolean chunkCompression;
+    private final long chunkWindowMillis;
 
     @JsonCreator
     public BigtableMetricModule(
@@ -87,8 +99,14 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
         @JsonProperty("configure") Optional<Boolean> configure,
         @JsonProperty("disableBulkMutations") Optional<Boolean> disableBulkMutations,
         @JsonProperty("flushIntervalSeconds") Optional<Integer> flushIntervalSeconds,
+        @JsonProperty("flushIntervalMillis") Optional<Long> flushIntervalMillis,
+        @JsonProperty("maxPendingBytes") Optional<Integer> maxPendingBytes,
         @JsonProperty("batchSize") Optional<Integer> batchSize,
-        @JsonProperty("fake") Optional<Boolean> fake
+        @JsonProperty("fake") Optional<Boolean> fake,
+        @JsonProperty("readBatchSize") Optional<Integer> readBatchSize,
+        @JsonProperty("readConcurrency") Optional<Integer> readConcurrency,
+        @JsonProperty("chunkCompression") Optional<Boolean> chunkCompression,
+        @JsonProperty("chunkWindowMillis") Optional<Long> chunkWindowMillis
     ) {
         this.id = id;
         this.groups = groups.orElseGet(Groups::empty).or(DEFAULT_GROUP);
@@ -98,9 +116,31 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
         this.credentials = credentials.orElse(DEFAULT_CREDENTIALS);
         this.configure = configure.orElse(DEFAULT_CONFIGURE);
         this.disableBulkMutations = disableBulkMutations.orElse(DEFAULT_DISABLE_BULK_MUTATIONS);
-        this.flushIntervalSeconds = flushIntervalSeconds.orElse(DEFAULT_FLUSH_INTERVAL_SECONDS);
+        this.flushIntervalMillis = flushIntervalMillis.orElseGet(() -> flushIntervalSeconds
+            .map(TimeUnit.SECONDS::toMillis)
+            .orElse(DEFAULT_FLUSH_INTERVAL_MILLIS));
+        this.maxPendingBytes = maxPendingBytes.orElse(DEFAULT_MAX_PENDING_BYTES);
         this.batchSize = batchSize;
         this.fake = fake.orElse(DEFAULT_FAKE);
+        this.readBatchSize = readBatchSize.orElse(DEFAULT_READ_BATCH_SIZE);
+        this.readConcurrency = readConcurrency.orElse(DEFAULT_READ_CONCURRENCY);
+        this.chunkCompression = chunkCompression.orElse(DEFAULT_CHUNK_COMPRESSION);
+        this.chunkWindowMillis = chunkWindowMillis.orElse(DEFAULT_CHUNK_WINDOW_MILLIS);
+
+        if (this.readBatchSize < 1) {
+            throw new IllegalArgumentException(
+                "readBatchSize must be positive: " + this.readBatchSize);
+        }
+
+        if (this.readConcurrency < 1) {
+            throw new IllegalArgumentException(
+                "readConcurrency must be positive: " + this.readConcurrency);
+        }
+
+        if (this.chunkWindowMillis <= 0 || this.chunkWindowMillis > BigtableBackend.PERIOD) {
+            throw new IllegalArgumentException(
+                "chunkWindowMillis must be in the range (0, " + BigtableBackend.PERIOD + "]");
+        }
     }
 
     @Override
@@ -129,7 +169,8 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
         @BigtableScope
         public Managed<BigtableConnection> connection(
             final AsyncFramework async, final ExecutorService executorService,
-            final Lazy<FakeBigtableConnection> fakeBigtableConnection
+            final Lazy<FakeBigtableConnection> fakeBigtableConnection,
+            final MetricBackendReporter reporter
         ) {
             if (fake) {
                 return async.managed(new ManagedSetup<BigtableConnection>() {
@@ -151,8 +192,8 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
                 public AsyncFuture<BigtableConnection> construct() throws Exception {
                     return async.call(
                         new BigtableConnectionBuilder(project, instance, credentials, async,
-                            executorService, disableBulkMutations, flushIntervalSeconds,
-                            batchSize));
+                            executorService, disableBulkMutations, flushIntervalMillis,
+                            maxPendingBytes, batchSize, reporter));
                 }
 
                 @Override
@@ -180,6 +221,34 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
                 params.contains(BIGTABLE_CONFIGURE_PARAM) || configure;
         }
 
+        @Provides
+        @BigtableScope
+        @Named("readBatchSize")
+        public int readBatchSize() {
+            return readBatchSize;
+        }
+
+        @Provides
+        @BigtableScope
+        @Named("readConcurrency")
+        public int readConcurrency() {
+            return readConcurrency;
+        }
+
+        @Provides
+        @BigtableScope
+        @Named("chunkCompression")
+        public boolean chunkCompression() {
+            return chunkCompression;
+        }
+
+        @Provides
+        @BigtableScope
+        @Named("chunkWindowMillis")
+        public long chunkWindowMillis() {
+            return chunkWindowMillis;
+        }
+
         @Provides
         @BigtableScope
         public Serializer<RowKey> rowKeySerializer() {
@@ -218,8 +287,14 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
         private Optional<Boolean> configure = empty();
         private Optional<Boolean> disableBulkMutations = empty();
         private Optional<Integer> flushIntervalSeconds = empty();
+        private Optional<Long> flushIntervalMillis = empty();
+        private Optional<Integer> maxPendingBytes = empty();
         private Optional<Integer> batchSize = empty();
         private Optional<Boolean> fake = empty();
+        private Optional<Integer> readBatchSize = empty();
+        private Optional<Integer> readConcurrency = empty();
+        private Optional<Boolean> chunkCompression = empty();
+        private Optional<Long> chunkWindowMillis = empty();
 
         public Builder id(String id) {
             this.id = of(id);
@@ -262,6 +337,16 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
             return this;
         }
 
+        public Builder flushIntervalMillis(long flushIntervalMillis) {
+            this.flushIntervalMillis = of(flushIntervalMillis);
+            return this;
+        }
+
+        public Builder maxPendingBytes(int maxPendingBytes) {
+            this.maxPendingBytes = of(maxPendingBytes);
+            return this;
+        }
+
         public Builder batchSize(int batchSize) {
             this.batchSize = of(batchSize);
             return this;
@@ -277,9 +362,31 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
             return this;
         }
 
+        public Builder readBatchSize(final int readBatchSize) {
+            this.readBatchSize = of(readBatchSize);
+            return this;
+        }
+
+        public Builder readConcurrency(final int readConcurrency) {
+            this.readConcurrency = of(readConcurrency);
+            return this;
+        }
+
+        public Builder chunkCompression(final boolean chunkCompression) {
+            this.chunkCompression = of(chunkCompression);
+            return this;
+        }
+
+        public Builder chunkWindowMillis(final long chunkWindowMillis) {
+            this.chunkWindowMillis = of(chunkWindowMillis);
+            return this;
+        }
+
         public BigtableMetricModule build() {
             return new BigtableMetricModule(id, groups, project, instance, table, credentials,
-                configure, disableBulkMutations, flushIntervalSeconds, batchSize, fake);
+                configure, disableBulkMutations, flushIntervalSeconds, flushIntervalMillis,
+                maxPendingBytes, batchSize, fake, readBatchSize, readConcurrency, chunkCompression,
+                chunkWindowMillis);
         }
     }
 }
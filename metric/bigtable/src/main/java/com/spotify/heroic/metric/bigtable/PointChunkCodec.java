@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.bigtable;
+
+import java.util.Arrays;
+
+/**
+ * Compressed encoding of a block of points, as described in Pelkonen et al., "Gorilla: A Fast,
+ * Scalable, In-Memory Time Series Database" in VLDB 2015.
+ * <p>
+ * Timestamps are stored as the delta of the delta to the previous timestamp, which is zero for
+ * points arriving at a regular cadence. Values are stored as the XOR with the previous value,
+ * with only the meaningful bits written when the leading and trailing zeros of the XOR fit inside
+ * those of the previous one.
+ * <p>
+ * The first timestamp and value are written in full, so a chunk can be decoded on its own.
+ */
+public final class PointChunkCodec {
+    static final int VERSION = 1;
+
+    private PointChunkCodec() {
+    }
+
+    /**
+     * Encode the first {@code length} points of the given columns.
+     *
+     * @param timestamps Timestamps of the points, expected to be sorted.
+     * @param values Values of the points.
+     * @param length Number of points to encode.
+     * @return The encoded chunk.
+     */
+    public static byte[] encode(final long[] timestamps, final double[] values, final int length) {
+        if (length > timestamps.length || length > values.length) {
+            throw new IllegalArgumentException(
+                "length (" + length + ") is larger than the given columns");
+        }
+
+        final BitWriter out = new BitWriter(Math.max(16, length * 2));
+        out.write(VERSION, 8);
+        out.write(length, 32);
+
+        if (length == 0) {
+            return out.toByteArray();
+        }
+
+        long timestamp = timestamps[0];
+        long delta = 0L;
+        long bits = Double.doubleToRawLongBits(values[0]);
+
+        out.write(timestamp, 64);
+        out.write(bits, 64);
+
+        int leading = -1;
+        int trailing = 0;
+
+        for (int i = 1; i < length; i++) {
+            final long newDelta = timestamps[i] - timestamp;
+            writeDeltaOfDelta(out, newDelta - delta);
+            timestamp = timestamps[i];
+            delta = newDelta;
+
+            final long newBits = Double.doubleToRawLongBits(values[i]);
+            final long xor = newBits ^ bits;
+            bits = newBits;
+
+            if (xor == 0L) {
+                out.write(0b0, 1);
+                continue;
+            }
+
+            final int newLeading = Math.min(31, Long.numberOfLeadingZeros(xor));
+            final int newTrailing = Long.numberOfTrailingZeros(xor);
+
+            if (leading >= 0 && newLeading >= leading && newTrailing >= trailing) {
+                out.write(0b10, 2);
+                out.write(xor >>> trailing, 64 - leading - trailing);
+                continue;
+            }
+
+            final int meaningful = 64 - newLeading - newTrailing;
+
+            out.write(0b11, 2);
+            out.write(newLeading, 5);
+            out.write(meaningful - 1, 6);
+            out.write(xor >>> newTrailing, meaningful);
+
+            leading = newLeading;
+            trailing = newTrailing;
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a chunk which was encoded using {@link #encode(long[], double[], int)}.
+     *
+     * @param bytes The encoded chunk.
+     * @param consumer Consumer which is called for each point, in order.
+     * @throws IllegalArgumentException if the input is not a valid chunk.
+     */
+    public static void decode(final byte[] bytes, final PointConsumer consumer) {
+        final BitReader in = new BitReader(bytes);
+
+        final int version = (int) in.read(8);
+
+        if (version != VERSION) {
+            throw new IllegalArgumentException("unsupported chunk version: " + version);
+        }
+
+        final long length = in.read(32);
+
+        if (length == 0) {
+            return;
+        }
+
+        long timestamp = in.read(64);
+        long delta = 0L;
+        long bits = in.read(64);
+
+        consumer.accept(timestamp, Double.longBitsToDouble(bits));
+
+        int leading = 0;
+        int trailing = 0;
+
+        for (long i = 1; i < length; i++) {
+            delta += readDeltaOfDelta(in);
+            timestamp += delta;
+
+            if (in.read(1) != 0) {
+                if (in.read(1) != 0) {
+                    leading = (int) in.read(5);
+                    trailing = 64 - leading - ((int) in.read(6) + 1);
+                }
+
+                bits ^= in.read(64 - leading - trailing) << trailing;
+            }
+
+            consumer.accept(timestamp, Double.longBitsToDouble(bits));
+        }
+    }
+
+    /**
+     * Read the number of points in the given chunk without decoding it.
+     */
+    public static int size(final byte[] bytes) {
+        final BitReader in = new BitReader(bytes);
+        in.read(8);
+        return (int) in.read(32);
+    }
+
+    private static void writeDeltaOfDelta(final BitWriter out, final long dod) {
+        if (dod == 0L) {
+            out.write(0b0, 1);
+        } else if (fits(dod, 7)) {
+            out.write(0b10, 2);
+            out.write(dod, 7);
+        } else if (fits(dod, 9)) {
+            out.write(0b110, 3);
+            out.write(dod, 9);
+        } else if (fits(dod, 12)) {
+            out.write(0b1110, 4);
+            out.write(dod, 12);
+        } else if (fits(dod, 32)) {
+            out.write(0b11110, 5);
+            out.write(dod, 32);
+        } else {
+            out.write(0b11111, 5);
+            out.write(dod, 64);
+        }
+    }
+
+    private static long readDeltaOfDelta(final BitReader in) {
+        int prefix = 0;
+
+        while (prefix < 5 && in.read(1) != 0) {
+            prefix++;
+        }
+
+        switch (prefix) {
+            case 0:
+                return 0L;
+            case 1:
+                return signExtend(in.read(7), 7);
+            case 2:
+                return signExtend(in.read(9), 9);
+            case 3:
+                return signExtend(in.read(12), 12);
+            case 4:
+                return signExtend(in.read(32), 32);
+            default:
+                return in.read(64);
+        }
+    }
+
+    private static boolean fits(final long value, final int bits) {
+        final long limit = 1L << (bits - 1);
+        return value >= -limit && value < limit;
+    }
+
+    private static long signExtend(final long value, final int bits) {
+        return (value << (64 - bits)) >> (64 - bits);
+    }
+
+    /**
+     * Receives decoded points, avoiding the need to box them.
+     */
+    public interface PointConsumer {
+        void accept(long timestamp, double value);
+    }
+
+    static class BitWriter {
+        private byte[] buffer;
+        private int size = 0;
+
+        /* bits which have not yet filled a complete byte */
+        private int current = 0;
+        private int used = 0;
+
+        BitWriter(final int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        /**
+         * Write the lowest {@code bits} bits of the given value, most significant bit first.
+         */
+        void write(final long value, int bits) {
+            while (bits > 0) {
+                final int n = Math.min(8 - used, bits);
+                current = (current << n) | (int) ((value >>> (bits - n)) & ((1 << n) - 1));
+                used += n;
+                bits -= n;
+
+                if (used == 8) {
+                    append((byte) current);
+                    current = 0;
+                    used = 0;
+                }
+            }
+        }
+
+        byte[] toByteArray() {
+            final byte[] bytes = Arrays.copyOf(buffer, size + (used > 0 ? 1 : 0));
+
+            if (used > 0) {
+                bytes[size] = (byte) (current << (8 - used));
+            }
+
+            return bytes;
+        }
+
+        private void append(final byte b) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+
+            buffer[size++] = b;
+        }
+    }
+
+    static class BitReader {
+        private final byte[] bytes;
+        private int position = 0;
+
+        private int current = 0;
+        private int remaining = 0;
+
+        BitReader(final byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long read(int bits) {
+            long value = 0L;
+
+            while (bits > 0) {
+                if (remaining == 0) {
+                    if (position >= bytes.length) {
+                        throw new IllegalArgumentException("truncated chunk");
+                    }
+
+                    current = bytes[position++] & 0xff;
+                    remaining = 8;
+                }
+
+                final int n = Math.min(remaining, bits);
+                value = (value << n) | ((current >>> (remaining - n)) & ((1 << n) - 1));
+                remaining -= n;
+                bits -= n;
+            }
+
+            return value;
+        }
+    }
+}
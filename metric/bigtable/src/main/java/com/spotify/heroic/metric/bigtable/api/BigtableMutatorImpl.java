@@ -22,41 +22,79 @@
 package com.spotify.heroic.metric.bigtable.api;
 
 import com.google.bigtable.v2.MutateRowRequest;
+import com.google.bigtable.v2.Mutation;
 import com.google.cloud.bigtable.grpc.async.BulkMutation;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.protobuf.ByteString;
+import com.spotify.heroic.statistics.MetricBackendReporter;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.FutureDone;
 import eu.toolchain.async.ResolvableFuture;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Mutates rows, either one-by-one or through a bulk mutation per table.
+ * <p>
+ * When using bulk mutations, writes are buffered until the next flush and writes targeting the
+ * same row are merged into a single row mutation. The number of bytes which are buffered or being
+ * written is bounded by {@code maxPendingBytes}. Once exceeded, new writes are queued until earlier
+ * writes have completed, and their futures complete once they have been written.
+ */
 @Slf4j
 public class BigtableMutatorImpl implements BigtableMutator {
+    /* maximum number of mutations merged into a single row mutation */
+    static final int MAX_MERGED_MUTATIONS = 10000;
+
     private final AsyncFramework async;
     private final com.google.cloud.bigtable.grpc.BigtableSession session;
     private final boolean disableBulkMutations;
+    private final MetricBackendReporter reporter;
+    private final int maxPendingBytes;
     private final Map<String, BulkMutation> tableToBulkMutation;
     private final ScheduledExecutorService scheduler;
     private final Object lock = new Object();
 
+    private final MutationBuffer buffer = new MutationBuffer(MAX_MERGED_MUTATIONS);
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    /* writes waiting for pending bytes to become available, guarded by lock */
+    private final Deque<Waiting> waiting = new ArrayDeque<>();
+    /* bytes which may still be buffered, guarded by lock */
+    private long availableBytes;
+    /* guarded by lock */
+    private boolean closed = false;
+
     public BigtableMutatorImpl(
         AsyncFramework async,
         com.google.cloud.bigtable.grpc.BigtableSession session,
         boolean disableBulkMutations,
-        int flushIntervalSeconds
+        long flushIntervalMillis,
+        int maxPendingBytes,
+        MetricBackendReporter reporter
     ) {
         this.async = async;
         this.session = session;
         this.disableBulkMutations = disableBulkMutations;
+        this.reporter = reporter;
+        this.maxPendingBytes = maxPendingBytes;
+        this.availableBytes = maxPendingBytes;
 
         if (disableBulkMutations) {
             this.scheduler = null;
@@ -65,7 +103,8 @@ public class BigtableMutatorImpl implements BigtableMutator {
             this.tableToBulkMutation = new HashMap<>();
             this.scheduler = Executors.newScheduledThreadPool(1,
                 new ThreadFactoryBuilder().setNameFormat("heroic-bigtable-flush").build());
-            scheduler.scheduleAtFixedRate(this::flush, 0, flushIntervalSeconds, TimeUnit.SECONDS);
+            scheduler.scheduleAtFixedRate(this::flush, 0, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
         }
     }
 
@@ -85,6 +124,16 @@ public class BigtableMutatorImpl implements BigtableMutator {
         }
 
         return async.call(() -> {
+            final List<Waiting> rejected;
+
+            synchronized (lock) {
+                closed = true;
+                rejected = new ArrayList<>(waiting);
+                waiting.clear();
+            }
+
+            rejected.forEach(w -> w.future.fail(new IllegalStateException("Mutator is closed")));
+
             scheduler.shutdownNow();
 
             try {
@@ -93,6 +142,8 @@ public class BigtableMutatorImpl implements BigtableMutator {
                 log.error("Failed to shut down bigtable flush executor service in a timely manner");
             }
 
+            /* write whatever is still buffered */
+            flush();
             return null;
         });
     }
@@ -103,14 +154,97 @@ public class BigtableMutatorImpl implements BigtableMutator {
         return convertVoid(
             session
                 .getDataClient()
-                .mutateRowAsync(toMutateRowRequest(tableName, rowKey, mutations)));
+                .mutateRowAsync(toMutateRowRequest(tableName, rowKey, mutations.getMutations())));
     }
 
     private AsyncFuture<Void> mutateBatchRow(
         String tableName, ByteString rowKey, Mutations mutations
     ) {
-        final BulkMutation bulkMutation = getOrAddBulkMutation(tableName);
-        return convertVoid(bulkMutation.add(toMutateRowRequest(tableName, rowKey, mutations)));
+        final List<Mutation> list = mutations.getMutations();
+
+        long size = rowKey.size();
+
+        for (final Mutation m : list) {
+            size += m.getSerializedSize();
+        }
+
+        /* a single write larger than the limit is allowed through on its own */
+        final long permits = Math.min(size, maxPendingBytes);
+
+        final ResolvableFuture<Void> future = async.future();
+        final boolean queued;
+        final boolean full;
+
+        synchronized (lock) {
+            /* queued writes go first, to not starve large writes */
+            queued = !waiting.isEmpty() || availableBytes < permits;
+
+            if (queued) {
+                waiting.add(new Waiting(tableName, rowKey, list, permits, future));
+            } else {
+                availableBytes -= permits;
+                buffer.add(tableName, rowKey, list, permits, future);
+            }
+
+            full = buffer.bytes() >= maxPendingBytes / 2;
+        }
+
+        if (queued) {
+            reporter.reportWriteBackPressure();
+        }
+
+        if (queued || full) {
+            requestFlush();
+        }
+
+        return future;
+    }
+
+    /**
+     * Give back bytes of completed writes, and buffer queued writes which now fit.
+     */
+    private void release(final long bytes) {
+        final List<Waiting> rejected = new ArrayList<>();
+        final boolean admitted;
+
+        synchronized (lock) {
+            availableBytes += bytes;
+
+            if (closed) {
+                rejected.addAll(waiting);
+                waiting.clear();
+                admitted = false;
+            } else {
+                admitted = !waiting.isEmpty() && waiting.peek().permits <= availableBytes;
+
+                while (!waiting.isEmpty() && waiting.peek().permits <= availableBytes) {
+                    final Waiting w = waiting.poll();
+                    availableBytes -= w.permits;
+                    buffer.add(w.tableName, w.rowKey, w.mutations, w.permits, w.future);
+                }
+            }
+        }
+
+        rejected.forEach(w -> w.future.fail(new IllegalStateException("Mutator is closed")));
+
+        if (admitted) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * Flush ahead of the next scheduled flush.
+     */
+    private void requestFlush() {
+        if (!flushRequested.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            scheduler.execute(this::flush);
+        } catch (final RejectedExecutionException e) {
+            flushRequested.set(false);
+        }
     }
 
     private BulkMutation getOrAddBulkMutation(String tableName) {
@@ -136,13 +270,13 @@ public class BigtableMutatorImpl implements BigtableMutator {
     private MutateRowRequest toMutateRowRequest(
         String tableName,
         ByteString rowKey,
-        Mutations mutations
+        List<Mutation> mutations
     ) {
         return MutateRowRequest
             .newBuilder()
             .setTableName(session.getOptions().getInstanceName().toTableNameStr(tableName))
             .setRowKey(rowKey)
-            .addAllMutations(mutations.getMutations())
+            .addAllMutations(mutations)
             .build();
     }
 
@@ -165,8 +299,86 @@ public class BigtableMutatorImpl implements BigtableMutator {
     }
 
     private void flush() {
+        flushRequested.set(false);
+
+        final long mutations;
+        final Map<String, List<MutationBuffer.MergedRow>> drained;
+
         synchronized (lock) {
-            tableToBulkMutation.values().stream().forEach(BulkMutation::flush);
+            mutations = buffer.writes();
+            drained = buffer.drain();
+        }
+
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        final long start = System.nanoTime();
+        final List<AsyncFuture<Void>> writes = new ArrayList<>();
+
+        long rows = 0;
+        long bytes = 0;
+
+        for (final Map.Entry<String, List<MutationBuffer.MergedRow>> e : drained.entrySet()) {
+            final BulkMutation bulkMutation = getOrAddBulkMutation(e.getKey());
+
+            for (final MutationBuffer.MergedRow row : e.getValue()) {
+                writes.add(writeMergedRow(bulkMutation, e.getKey(), row));
+                rows += 1;
+                bytes += row.getBytes();
+            }
+
+            bulkMutation.flush();
+        }
+
+        reporter.reportWriteFlush(mutations, rows, bytes);
+
+        async.collectAndDiscard(writes).onFinished(() -> reporter.reportWriteFlushLatency(
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+    }
+
+    private AsyncFuture<Void> writeMergedRow(
+        final BulkMutation bulkMutation, final String tableName, final MutationBuffer.MergedRow row
+    ) {
+        final MutateRowRequest request =
+            toMutateRowRequest(tableName, row.getRowKey(), row.getMutations());
+
+        AsyncFuture<Void> write;
+
+        try {
+            write = convertVoid(bulkMutation.add(request));
+        } catch (final Exception e) {
+            write = async.failed(e);
         }
+
+        /* hand the outcome back to every write that was merged into this row */
+        return write.onDone(new FutureDone<Void>() {
+            @Override
+            public void failed(final Throwable cause) {
+                release(row.getBytes());
+                row.getFutures().forEach(f -> f.fail(cause));
+            }
+
+            @Override
+            public void resolved(final Void result) {
+                release(row.getBytes());
+                row.getFutures().forEach(f -> f.resolve(null));
+            }
+
+            @Override
+            public void cancelled() {
+                release(row.getBytes());
+                row.getFutures().forEach(ResolvableFuture::cancel);
+            }
+        });
+    }
+
+    @RequiredArgsConstructor
+    private static class Waiting {
+        private final String tableName;
+        private final ByteString rowKey;
+        private final List<Mutation> mutations;
+        private final long permits;
+        private final ResolvableFuture<Void> future;
     }
 }
@@ -22,20 +22,27 @@
 package com.spotify.heroic.metric.bigtable.api;
 
 import com.google.bigtable.v2.Mutation;
+import com.google.bigtable.v2.TimestampRange;
 import com.google.cloud.bigtable.grpc.scanner.FlatRow;
 import com.google.protobuf.ByteString;
 import com.spotify.heroic.async.AsyncObservable;
 import com.spotify.heroic.metric.bigtable.BigtableConnection;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import javax.inject.Inject;
 import lombok.Data;
 import org.apache.commons.lang3.tuple.Pair;
@@ -49,6 +56,10 @@ public class FakeBigtableConnection implements BigtableConnection {
     private final ConcurrentMap<Pair<Table, String>, ColumnFamily> columnFamilies =
         new ConcurrentHashMap<>();
 
+    private final AtomicLong readRowsRequests = new AtomicLong();
+    /* server time in microseconds, which advances by a millisecond on each use */
+    private final AtomicLong serverTime = new AtomicLong();
+
     @Inject
     public FakeBigtableConnection(final AsyncFramework async) {
         this.async = async;
@@ -69,6 +80,32 @@ public class FakeBigtableConnection implements BigtableConnection {
         return async.resolved();
     }
 
+    /**
+     * Number of read rows requests, or round trips, that have been performed against this
+     * connection.
+     */
+    public long getReadRowsRequests() {
+        return readRowsRequests.get();
+    }
+
+    /**
+     * Number of cell versions that are stored in a column family of the given table.
+     */
+    public long getCellVersions(final String tableName, final String family) {
+        final TableStorage storage = tables.get(tableName);
+
+        if (storage == null) {
+            return 0L;
+        }
+
+        return storage.rows
+            .entrySet()
+            .stream()
+            .filter(e -> family.equals(e.getKey().getRight().getName()))
+            .mapToLong(e -> e.getValue().versions())
+            .sum();
+    }
+
     class AdminClient implements BigtableTableAdminClient {
         private final Object lock = new Object();
 
@@ -143,6 +180,8 @@ public class FakeBigtableConnection implements BigtableConnection {
         public AsyncFuture<List<FlatRow>> readRows(
             final String tableName, final ReadRowsRequest request
         ) {
+            readRowsRequests.incrementAndGet();
+
             final TableStorage storage = tables.get(tableName);
 
             if (storage == null) {
@@ -206,6 +245,24 @@ public class FakeBigtableConnection implements BigtableConnection {
 
                             rowStorage.runSetCell(setCell);
                             break;
+                        case DELETE_FROM_COLUMN:
+                            final Mutation.DeleteFromColumn delete =
+                                mutation.getDeleteFromColumn();
+                            final ColumnFamily deleteFamily =
+                                columnFamilies.get(Pair.of(table, delete.getFamilyName()));
+
+                            if (deleteFamily == null) {
+                                throw new IllegalArgumentException(
+                                    "no such column family: " + delete.getFamilyName());
+                            }
+
+                            final RowStorage deleteStorage =
+                                rows.get(Pair.of(rowKey, deleteFamily));
+
+                            if (deleteStorage != null) {
+                                deleteStorage.runDeleteFromColumn(delete);
+                            }
+                            break;
                         default:
                             throw new IllegalArgumentException(
                                 "Unsupported mutation: " + mutation.getMutationCase());
@@ -221,46 +278,98 @@ public class FakeBigtableConnection implements BigtableConnection {
                 request.getFilter().<Function<String, Boolean>>map(
                     filter -> filter::matchesColumnFamily).orElse(familyName -> true);
 
-            final Function<ByteString, Boolean> matchesColumn =
-                request.getFilter().<Function<ByteString, Boolean>>map(
-                    filter -> filter::matchesColumn).orElse(column -> true);
-
-            final Function<ByteString, Boolean> matchesRowKey =
-                request.getRowKey().<Function<ByteString, Boolean>>map(
-                    rowKey -> rowKey::equals).orElse(key -> true);
+            final BiFunction<String, ByteString, Boolean> matchesColumn =
+                request.getFilter().<BiFunction<String, ByteString, Boolean>>map(
+                    filter -> filter::matchesColumn).orElse((familyName, column) -> true);
 
-            return async.call(() -> rows.entrySet().stream().flatMap(entry -> {
-                final Pair<ByteString, ColumnFamily> key = entry.getKey();
-
-                if (!matchesRowKey.apply(key.getLeft())) {
-                    return Stream.empty();
-                }
+            final Set<ByteString> rowKeys = new HashSet<>(request.getRowKeys());
 
-                if (!matchesColumnFamily.apply(key.getRight().getName())) {
-                    return Stream.empty();
-                }
+            final Function<ByteString, Boolean> matchesRowKey =
+                rowKeys.isEmpty() ? key -> true : rowKeys::contains;
 
-                return Stream.of(entry
-                    .getValue()
-                    .readRows(key.getLeft(), key.getRight(), request, matchesColumn));
-            }).collect(Collectors.toList()));
+            return async.call(() -> {
+                /* like bigtable, return a single row per key with cells ordered by family */
+                final Map<ByteString, FlatRow.Builder> builders = new LinkedHashMap<>();
+
+                rows
+                    .entrySet()
+                    .stream()
+                    .filter(entry -> matchesRowKey.apply(entry.getKey().getLeft()))
+                    .filter(entry -> matchesColumnFamily.apply(
+                        entry.getKey().getRight().getName()))
+                    .sorted((a, b) -> a
+                        .getKey()
+                        .getRight()
+                        .getName()
+                        .compareTo(b.getKey().getRight().getName()))
+                    .forEach(entry -> {
+                        final Pair<ByteString, ColumnFamily> key = entry.getKey();
+                        final FlatRow row = entry
+                            .getValue()
+                            .readRows(key.getLeft(), key.getRight(), request, matchesColumn);
+
+                        final FlatRow.Builder builder = builders.computeIfAbsent(
+                            row.getRowKey(), k -> FlatRow.newBuilder().withRowKey(k));
+                        row.getCells().forEach(builder::addCell);
+                    });
+
+                return builders
+                    .values()
+                    .stream()
+                    .map(FlatRow.Builder::build)
+                    .collect(Collectors.toList());
+            });
         }
     }
 
     @Data
     class RowStorage {
         private final ColumnFamily columnFamily;
-        private final ConcurrentMap<ByteString, ByteString> storage =
-            new ConcurrentSkipListMap<>(RowFilter::compareByteStrings);
+        /* versions of each cell, by timestamp in microseconds */
+        private final Map<ByteString, NavigableMap<Long, ByteString>> storage =
+            new TreeMap<>(RowFilter::compareByteStrings);
+
+        synchronized void runSetCell(final Mutation.SetCell setCell) {
+            final long timestamp = setCell.getTimestampMicros() == Mutations.SERVER_TIMESTAMP
+                ? serverTime.addAndGet(1000L) : setCell.getTimestampMicros();
 
-        void runSetCell(final Mutation.SetCell setCell) {
-            // TODO: take timestamp into account
-            storage.put(setCell.getColumnQualifier(), setCell.getValue());
+            storage
+                .computeIfAbsent(setCell.getColumnQualifier(), k -> new TreeMap<>())
+                .put(timestamp, setCell.getValue());
+        }
+
+        synchronized long versions() {
+            return storage.values().stream().mapToLong(NavigableMap::size).sum();
         }
 
-        FlatRow readRows(
+        synchronized void runDeleteFromColumn(final Mutation.DeleteFromColumn delete) {
+            if (!delete.hasTimeRange()) {
+                storage.remove(delete.getColumnQualifier());
+                return;
+            }
+
+            final NavigableMap<Long, ByteString> versions =
+                storage.get(delete.getColumnQualifier());
+
+            if (versions == null) {
+                return;
+            }
+
+            final TimestampRange range = delete.getTimeRange();
+            /* an end of zero means that the range is unbounded */
+            final long end = range.getEndTimestampMicros() == 0L ? Long.MAX_VALUE
+                : range.getEndTimestampMicros();
+
+            versions.subMap(range.getStartTimestampMicros(), end).clear();
+
+            if (versions.isEmpty()) {
+                storage.remove(delete.getColumnQualifier());
+            }
+        }
+
+        synchronized FlatRow readRows(
             final ByteString rowKey, final ColumnFamily columnFamily, final ReadRowsRequest request,
-            final Function<ByteString, Boolean> matchesColumn
+            final BiFunction<String, ByteString, Boolean> matchesColumn
         ) {
             final FlatRow.Builder builder = FlatRow.newBuilder().withRowKey(rowKey);
 
@@ -268,16 +377,23 @@ public class FakeBigtableConnection implements BigtableConnection {
                 .entrySet()
                 .stream()
                 .filter(e -> {
-                    final boolean matches = matchesColumn.apply(e.getKey());
+                    final boolean matches =
+                        matchesColumn.apply(columnFamily.getName(), e.getKey());
                     final Optional<RowFilter> filter = request.getFilter();
                     return matches;
                 })
-                .map(column -> FlatRow.Cell
-                    .newBuilder()
-                    .withFamily(columnFamily.getName())
-                    .withQualifier(column.getKey())
-                    .withValue(column.getValue())
-                    .build())
+                .map(column -> {
+                    /* only the latest version is read, like all filters used by heroic */
+                    final Map.Entry<Long, ByteString> latest = column.getValue().lastEntry();
+
+                    return FlatRow.Cell
+                        .newBuilder()
+                        .withFamily(columnFamily.getName())
+                        .withQualifier(column.getKey())
+                        .withTimestamp(latest.getKey())
+                        .withValue(latest.getValue())
+                        .build();
+                })
                 .forEach(builder::addCell);
 
             return builder.build();
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.bigtable.api;
+
+import com.google.bigtable.v2.Mutation;
+import com.google.protobuf.ByteString;
+import eu.toolchain.async.ResolvableFuture;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Buffers row mutations until they are flushed, merging mutations that target the same row into a
+ * single row mutation.
+ * <p>
+ * Mutations for a row are kept in the order they were added. A merged row never grows beyond
+ * {@code maxMergedMutations}, unless a single write on its own is larger than that.
+ * <p>
+ * This class is not thread-safe.
+ */
+@RequiredArgsConstructor
+class MutationBuffer {
+    private final int maxMergedMutations;
+
+    private Map<String, TableBuffer> tables = new HashMap<>();
+    private long writes = 0;
+    private long bytes = 0;
+
+    /**
+     * Add the given mutations to the buffer.
+     *
+     * @param future Future to resolve when the row that the mutations are merged into has been
+     * written.
+     */
+    void add(
+        final String table, final ByteString rowKey, final List<Mutation> mutations,
+        final long size, final ResolvableFuture<Void> future
+    ) {
+        tables.computeIfAbsent(table, t -> new TableBuffer()).add(rowKey, mutations, size, future);
+        writes += 1;
+        bytes += size;
+    }
+
+    /**
+     * Number of writes which are currently buffered.
+     */
+    long writes() {
+        return writes;
+    }
+
+    /**
+     * Number of bytes which are currently buffered.
+     */
+    long bytes() {
+        return bytes;
+    }
+
+    /**
+     * Take all buffered rows, grouped by table, and reset the buffer.
+     */
+    Map<String, List<MergedRow>> drain() {
+        final Map<String, List<MergedRow>> drained = new HashMap<>();
+
+        for (final Map.Entry<String, TableBuffer> e : tables.entrySet()) {
+            final List<MergedRow> rows = new ArrayList<>(e.getValue().full);
+            rows.addAll(e.getValue().open.values());
+            drained.put(e.getKey(), rows);
+        }
+
+        tables = new HashMap<>();
+        writes = 0;
+        bytes = 0;
+        return drained;
+    }
+
+    private class TableBuffer {
+        private final Map<ByteString, MergedRow> open = new LinkedHashMap<>();
+        private final List<MergedRow> full = new ArrayList<>();
+
+        private void add(
+            final ByteString rowKey, final List<Mutation> mutations, final long size,
+            final ResolvableFuture<Void> future
+        ) {
+            MergedRow row = open.get(rowKey);
+
+            if (row != null && row.mutations.size() + mutations.size() > maxMergedMutations) {
+                full.add(row);
+                row = null;
+            }
+
+            if (row == null) {
+                row = new MergedRow(rowKey);
+                open.put(rowKey, row);
+            }
+
+            row.mutations.addAll(mutations);
+            row.futures.add(future);
+            row.bytes += size;
+        }
+    }
+
+    /**
+     * All buffered mutations for a single row, together with the writes that they came from.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    static class MergedRow {
+        private final ByteString rowKey;
+        private final List<Mutation> mutations = new ArrayList<>();
+        private final List<ResolvableFuture<Void>> futures = new ArrayList<>();
+        private long bytes = 0;
+    }
+}
@@ -30,6 +30,11 @@ import lombok.RequiredArgsConstructor;
 
 @RequiredArgsConstructor
 public class Mutations {
+    /**
+     * Timestamp which makes Bigtable assign the current server time to a cell.
+     */
+    public static final long SERVER_TIMESTAMP = -1L;
+
     private final List<com.google.bigtable.v2.Mutation> mutations;
 
     /**
@@ -55,18 +60,67 @@ public class Mutations {
 
         public Builder setCell(
             String family, ByteString columnQualifier, ByteString value
+        ) {
+            return setCell(family, columnQualifier, value, 0L);
+        }
+
+        /**
+         * Set a cell with the given timestamp in microseconds.
+         *
+         * @see #SERVER_TIMESTAMP
+         */
+        public Builder setCell(
+            String family, ByteString columnQualifier, ByteString value, long timestampMicros
         ) {
             final com.google.bigtable.v2.Mutation.SetCell.Builder setCell =
                 com.google.bigtable.v2.Mutation.SetCell
                     .newBuilder()
                     .setFamilyName(family)
                     .setColumnQualifier(columnQualifier)
+                    .setTimestampMicros(timestampMicros)
                     .setValue(value);
 
             mutations.add(com.google.bigtable.v2.Mutation.newBuilder().setSetCell(setCell).build());
             return this;
         }
 
+        public Builder deleteCell(String family, ByteString columnQualifier) {
+            return deleteFromColumn(com.google.bigtable.v2.Mutation.DeleteFromColumn
+                .newBuilder()
+                .setFamilyName(family)
+                .setColumnQualifier(columnQualifier));
+        }
+
+        /**
+         * Delete the versions of a cell with a timestamp in the range {@code [startMicros,
+         * endMicros)}.
+         */
+        public Builder deleteCell(
+            String family, ByteString columnQualifier, long startMicros, long endMicros
+        ) {
+            final com.google.bigtable.v2.TimestampRange.Builder range =
+                com.google.bigtable.v2.TimestampRange
+                    .newBuilder()
+                    .setStartTimestampMicros(startMicros)
+                    .setEndTimestampMicros(endMicros);
+
+            return deleteFromColumn(com.google.bigtable.v2.Mutation.DeleteFromColumn
+                .newBuilder()
+                .setFamilyName(family)
+                .setColumnQualifier(columnQualifier)
+                .setTimeRange(range));
+        }
+
+        private Builder deleteFromColumn(
+            com.google.bigtable.v2.Mutation.DeleteFromColumn.Builder deleteFromColumn
+        ) {
+            mutations.add(com.google.bigtable.v2.Mutation
+                .newBuilder()
+                .setDeleteFromColumn(deleteFromColumn)
+                .build());
+            return this;
+        }
+
         public Mutations build() {
             return new Mutations(ImmutableList.copyOf(mutations));
         }
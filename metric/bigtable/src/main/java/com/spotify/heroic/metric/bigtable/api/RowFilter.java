@@ -52,6 +52,19 @@ public interface RowFilter {
      */
     boolean matchesColumnFamily(final String familyName);
 
+    /**
+     * Test if the current filter matches the given column qualifier in the given family.
+     *
+     * This method is primarily used when testing.
+     *
+     * @param familyName family of the column
+     * @param columnQualifier column qualifier to match
+     * @return {@code true} if the column matches
+     */
+    default boolean matchesColumn(final String familyName, final ByteString columnQualifier) {
+        return matchesColumnFamily(familyName) && matchesColumn(columnQualifier);
+    }
+
     /**
      * Build a filter that blocks all cells.
      *
@@ -80,6 +93,16 @@ public interface RowFilter {
         return new Chain(chain);
     }
 
+    /**
+     * Apply each of the given row filters separately, and merge the results.
+     *
+     * @param filters Filters to apply.
+     * @return A filter that is the union of all given row filters.
+     */
+    static RowFilter interleave(final List<? extends RowFilter> filters) {
+        return new Interleave(filters);
+    }
+
     com.google.bigtable.v2.RowFilter toPb();
 
     @Data
@@ -96,6 +119,13 @@ public interface RowFilter {
             return chain.stream().allMatch(entry -> entry.matchesColumnFamily(familyName));
         }
 
+        @Override
+        public boolean matchesColumn(final String familyName, final ByteString columnQualifier) {
+            return chain
+                .stream()
+                .allMatch(entry -> entry.matchesColumn(familyName, columnQualifier));
+        }
+
         @Override
         public com.google.bigtable.v2.RowFilter toPb() {
             final com.google.bigtable.v2.RowFilter.Chain.Builder chain =
@@ -105,6 +135,39 @@ public interface RowFilter {
         }
     }
 
+    @Data
+    class Interleave implements RowFilter {
+        private final List<? extends RowFilter> filters;
+
+        @Override
+        public boolean matchesColumn(final ByteString columnQualifier) {
+            return filters.stream().anyMatch(entry -> entry.matchesColumn(columnQualifier));
+        }
+
+        @Override
+        public boolean matchesColumnFamily(final String familyName) {
+            return filters.stream().anyMatch(entry -> entry.matchesColumnFamily(familyName));
+        }
+
+        @Override
+        public boolean matchesColumn(final String familyName, final ByteString columnQualifier) {
+            return filters
+                .stream()
+                .anyMatch(entry -> entry.matchesColumn(familyName, columnQualifier));
+        }
+
+        @Override
+        public com.google.bigtable.v2.RowFilter toPb() {
+            final com.google.bigtable.v2.RowFilter.Interleave.Builder interleave =
+                com.google.bigtable.v2.RowFilter.Interleave.newBuilder();
+            this.filters.forEach(f -> interleave.addFilters(f.toPb()));
+            return com.google.bigtable.v2.RowFilter
+                .newBuilder()
+                .setInterleave(interleave.build())
+                .build();
+        }
+    }
+
     @Data
     class ColumnRange implements RowFilter {
         private final String family;
@@ -0,0 +1,132 @@
+package com.spotify.heroic.analytics.bigtable;
+
+import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.common.Series;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.TinyAsync;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SeriesHitCountersTest {
+    private final AsyncFramework async = TinyAsync.builder().build();
+
+    private final LocalDate today = LocalDate.parse("2017-03-01");
+    private final LocalDate tomorrow = today.plusDays(1);
+
+    private final Series a = Series.of("a", ImmutableMap.of("host", "a"));
+    private final Series b = Series.of("b", ImmutableMap.of("host", "b"));
+
+    @Test
+    public void testAggregatesByDateAndSeries() {
+        final SeriesHitCounters counters = new SeriesHitCounters(async, 4, 100);
+
+        for (int i = 0; i < 3; i++) {
+            counters.increment(today, a);
+        }
+
+        counters.increment(today, b);
+        counters.increment(tomorrow, a);
+
+        assertEquals(3, counters.size());
+
+        final Map<SeriesKeyEncoding.SeriesKey, Long> counts = counts(counters.drain());
+
+        assertEquals(ImmutableMap.of(new SeriesKeyEncoding.SeriesKey(today, a), 3L,
+            new SeriesKeyEncoding.SeriesKey(today, b), 1L,
+            new SeriesKeyEncoding.SeriesKey(tomorrow, a), 1L), counts);
+    }
+
+    @Test
+    public void testDrainEvicts() {
+        final SeriesHitCounters counters = new SeriesHitCounters(async, 4, 100);
+
+        counters.increment(today, a);
+        assertFalse(counters.drain().isEmpty());
+
+        assertEquals(0, counters.size());
+        assertTrue(counters.drain().isEmpty());
+
+        counters.increment(today, a);
+        assertEquals(ImmutableMap.of(new SeriesKeyEncoding.SeriesKey(today, a), 1L),
+            counts(counters.drain()));
+    }
+
+    @Test
+    public void testBounded() {
+        final SeriesHitCounters counters = new SeriesHitCounters(async, 1, 1);
+
+        assertTrue(counters.increment(today, a).isPresent());
+        assertFalse(counters.increment(today, b).isPresent());
+        /* existing keys can still be counted */
+        assertTrue(counters.increment(today, a).isPresent());
+
+        counters.drain();
+        assertTrue(counters.increment(today, b).isPresent());
+    }
+
+    @Test
+    public void testCount() {
+        final SeriesHitCounters counters = new SeriesHitCounters(async, 1, 1);
+
+        assertTrue(counters.count(today, a));
+        assertFalse(counters.count(today, b));
+        assertTrue(counters.count(today, a));
+
+        assertEquals(ImmutableMap.of(new SeriesKeyEncoding.SeriesKey(today, a), 2L),
+            counts(counters.drain()));
+    }
+
+    @Test
+    public void testFuturesCompletedByBatch() {
+        final SeriesHitCounters counters = new SeriesHitCounters(async, 4, 100);
+
+        final Optional<AsyncFuture<Void>> first = counters.increment(today, a);
+        final SeriesHitCounters.Batch batch = counters.drain();
+        final Optional<AsyncFuture<Void>> second = counters.increment(today, a);
+
+        assertFalse(first.get().isDone());
+        batch.resolve();
+        assertTrue(first.get().isResolved());
+
+        /* reports after the drain belong to the next batch */
+        assertFalse(second.get().isDone());
+        counters.drain().fail(new RuntimeException("failed"));
+        assertTrue(second.get().isFailed());
+    }
+
+    @Test
+    public void testCancelDoesNotAffectBatch() {
+        final SeriesHitCounters counters = new SeriesHitCounters(async, 1, 100);
+
+        final Optional<AsyncFuture<Void>> first = counters.increment(today, a);
+        final Optional<AsyncFuture<Void>> second = counters.increment(today, b);
+
+        first.get().cancel();
+        assertFalse(second.get().isDone());
+
+        final SeriesHitCounters.Batch batch = counters.drain();
+        assertFalse(batch.getFutures().get(0).isDone());
+
+        batch.resolve();
+        assertTrue(second.get().isResolved());
+    }
+
+    private Map<SeriesKeyEncoding.SeriesKey, Long> counts(final SeriesHitCounters.Batch batch) {
+        final Map<SeriesKeyEncoding.SeriesKey, Long> counts = new HashMap<>();
+
+        for (final SeriesHitCounters.Entry e : batch.getEntries()) {
+            counts.put(e.getKey(), e.getCount());
+        }
+
+        return counts;
+    }
+}
@@ -0,0 +1,263 @@
+package com.spotify.heroic.metric.bigtable;
+
+import static org.junit.Assert.assertEquals;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.bigtable.grpc.scanner.FlatRow;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.ByteString;
+import com.spotify.heroic.QueryOptions;
+import com.spotify.heroic.async.AsyncObservable;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Groups;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.BackendKey;
+import com.spotify.heroic.metric.FetchData;
+import com.spotify.heroic.metric.FetchQuotaWatcher;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.WriteMetric;
+import com.spotify.heroic.metric.bigtable.api.BigtableDataClient;
+import com.spotify.heroic.metric.bigtable.api.BigtableTableAdminClient;
+import com.spotify.heroic.metric.bigtable.api.FakeBigtableConnection;
+import com.spotify.heroic.metric.bigtable.api.Mutations;
+import com.spotify.heroic.metric.bigtable.api.ReadModifyWriteRules;
+import com.spotify.heroic.metric.bigtable.api.ReadRowsRequest;
+import com.spotify.heroic.metric.bigtable.api.Row;
+import com.spotify.heroic.statistics.noop.NoopMetricBackendReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.Managed;
+import eu.toolchain.async.ManagedSetup;
+import eu.toolchain.async.TinyAsync;
+import eu.toolchain.serializer.TinySerializer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BigtableBackendChunkTest {
+    private static final long WINDOW = 1000L;
+    private static final long NOW = 100000L;
+
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(4);
+    private final AsyncFramework async =
+        TinyAsync.builder().executor(executor).scheduler(executor).build();
+
+    private final Series series = Series.of("s", ImmutableMap.of("id", "s"));
+    private final QueryOptions options = QueryOptions.builder().build();
+
+    private final AtomicLong now = new AtomicLong(NOW);
+    /* run once after the next read of rows, before its result is returned */
+    private final AtomicReference<Supplier<AsyncFuture<?>>> afterRead = new AtomicReference<>();
+
+    private FakeBigtableConnection fake;
+    private Managed<BigtableConnection> connection;
+    private BigtableBackend backend;
+
+    @Before
+    public void setup() throws Exception {
+        fake = new FakeBigtableConnection(async);
+
+        connection = async.managed(new ManagedSetup<BigtableConnection>() {
+            @Override
+            public AsyncFuture<BigtableConnection> construct() {
+                return async.resolved(new InterceptedConnection(fake));
+            }
+
+            @Override
+            public AsyncFuture<Void> destruct(final BigtableConnection value) {
+                return value.close();
+            }
+        });
+
+        backend = new BigtableBackend(async, TinySerializer.builder().build(),
+            new MetricsRowKeySerializer(), connection, Groups.of("bigtable"), "metrics", true,
+            NoopMetricBackendReporter.get(), new ObjectMapper(), 10, 2, now::get, true, WINDOW);
+
+        connection.start().get();
+        backend.configure().get();
+    }
+
+    @After
+    public void teardown() throws Exception {
+        connection.stop().get();
+        executor.shutdown();
+    }
+
+    @Test
+    public void testCompactAndRead() throws Exception {
+        final List<Point> points = new ArrayList<>();
+
+        for (long t = 100L; t <= 5000L; t += 100L) {
+            points.add(new Point(t, t / 100D));
+        }
+
+        backend.write(new WriteMetric.Request(series, MetricCollection.points(points))).get();
+
+        /* windows ending after NOW - WINDOW are still open */
+        final Point open = new Point(NOW - 500L, 1D);
+        backend
+            .write(new WriteMetric.Request(series, MetricCollection.points(ImmutableList.of(open))))
+            .get();
+
+        final BackendKey key = new BackendKey(series, 0L);
+        assertEquals(points.size(), (long) backend.compactKey(key, options).get());
+        assertEquals(0L, (long) backend.compactKey(key, options).get());
+
+        final List<Point> all = new ArrayList<>(points);
+        all.add(open);
+        assertEquals(all, fetch(new DateRange(0L, NOW)));
+
+        /* partial ranges only include points from the chunks which are within the range */
+        assertEquals(points.subList(24, 45), fetch(new DateRange(2400L, 4500L)));
+    }
+
+    @Test
+    public void testWriteIntoCompactedWindow() throws Exception {
+        final List<Point> points = ImmutableList.of(new Point(100L, 1D), new Point(200L, 2D),
+            new Point(300L, 3D));
+
+        backend.write(new WriteMetric.Request(series, MetricCollection.points(points))).get();
+
+        final BackendKey key = new BackendKey(series, 0L);
+        assertEquals(3L, (long) backend.compactKey(key, options).get());
+
+        /* a late write replaces a compacted point, and adds a new one */
+        final List<Point> late = ImmutableList.of(new Point(200L, 20D), new Point(250L, 25D));
+        backend.write(new WriteMetric.Request(series, MetricCollection.points(late))).get();
+
+        final List<Point> expected = ImmutableList.of(new Point(100L, 1D), new Point(200L, 20D),
+            new Point(250L, 25D), new Point(300L, 3D));
+
+        assertEquals(expected, fetch(new DateRange(0L, 1000L)));
+
+        assertEquals(2L, (long) backend.compactKey(key, options).get());
+        assertEquals(expected, fetch(new DateRange(0L, 1000L)));
+    }
+
+    @Test
+    public void testReplayedWrites() throws Exception {
+        final WriteMetric.Request request = new WriteMetric.Request(series, MetricCollection.points(
+            ImmutableList.of(new Point(100L, 1D), new Point(200L, 2D), new Point(300L, 3D))));
+
+        backend.write(request).get();
+        backend.write(request).get();
+
+        /* a replayed write replaces the versions that it wrote the first time */
+        assertEquals(3L, fake.getCellVersions("metrics", BigtableBackend.POINTS));
+
+        /* replayed while the row is being compacted */
+        afterRead.set(() -> backend.write(request));
+
+        final BackendKey key = new BackendKey(series, 0L);
+        assertEquals(3L, (long) backend.compactKey(key, options).get());
+        assertEquals(0L, fake.getCellVersions("metrics", BigtableBackend.POINTS));
+        assertEquals(1L, fake.getCellVersions("metrics", BigtableBackend.CHUNKS));
+
+        assertEquals(0L, (long) backend.compactKey(key, options).get());
+        assertEquals(request.getData().getDataAs(Point.class),
+            fetch(new DateRange(0L, 1000L)));
+    }
+
+    @Test
+    public void testCompactPages() throws Exception {
+        final long day = TimeUnit.DAYS.toMillis(1);
+
+        final List<Point> points = ImmutableList.of(new Point(100L, 1D),
+            new Point(2 * day + 100L, 2D), new Point(3 * day, 3D));
+
+        backend.write(new WriteMetric.Request(series, MetricCollection.points(points))).get();
+
+        now.set(4 * day);
+
+        final long reads = fake.getReadRowsRequests();
+        final BackendKey key = new BackendKey(series, 0L);
+        assertEquals(3L, (long) backend.compactKey(key, options).get());
+
+        /* the row is read one day at a time, up until the last closed window */
+        assertEquals(4L, fake.getReadRowsRequests() - reads);
+        assertEquals(points, fetch(new DateRange(0L, 4 * day)));
+    }
+
+    private List<Point> fetch(final DateRange range) throws Exception {
+        final List<MetricCollection> rows = Collections.synchronizedList(new ArrayList<>());
+
+        backend
+            .fetch(new FetchData.Request(MetricType.POINT, series, range, options),
+                FetchQuotaWatcher.NO_QUOTA, rows::add)
+            .get();
+
+        return MetricCollection.mergeSorted(MetricType.POINT, rows).getDataAs(Point.class);
+    }
+
+    @RequiredArgsConstructor
+    private class InterceptedConnection implements BigtableConnection {
+        private final BigtableConnection delegate;
+
+        @Override
+        public BigtableTableAdminClient tableAdminClient() {
+            return delegate.tableAdminClient();
+        }
+
+        @Override
+        public BigtableDataClient dataClient() {
+            final BigtableDataClient client = delegate.dataClient();
+
+            return new BigtableDataClient() {
+                @Override
+                public AsyncFuture<Void> mutateRow(
+                    final String tableName, final ByteString rowKey, final Mutations mutations
+                ) {
+                    return client.mutateRow(tableName, rowKey, mutations);
+                }
+
+                @Override
+                public AsyncFuture<List<FlatRow>> readRows(
+                    final String tableName, final ReadRowsRequest request
+                ) {
+                    return client.readRows(tableName, request).lazyTransform(rows -> {
+                        final Supplier<AsyncFuture<?>> hook = afterRead.getAndSet(null);
+
+                        if (hook == null) {
+                            return async.resolved(rows);
+                        }
+
+                        return hook.get().directTransform(v -> rows);
+                    });
+                }
+
+                @Override
+                public AsyncObservable<Row> readRowsObserved(
+                    final String tableName, final ReadRowsRequest request
+                ) {
+                    return client.readRowsObserved(tableName, request);
+                }
+
+                @Override
+                public AsyncFuture<Row> readModifyWriteRow(
+                    final String tableName, final ByteString rowKey,
+                    final ReadModifyWriteRules rules
+                ) {
+                    return client.readModifyWriteRow(tableName, rowKey, rules);
+                }
+            };
+        }
+
+        @Override
+        public AsyncFuture<Void> close() {
+            return delegate.close();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.spotify.heroic.metric.bigtable;
+
+import static org.junit.Assert.assertEquals;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.QueryOptions;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Groups;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.FetchData;
+import com.spotify.heroic.metric.FetchQuotaWatcher;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.WriteMetric;
+import com.spotify.heroic.metric.bigtable.api.FakeBigtableConnection;
+import com.spotify.heroic.statistics.noop.NoopMetricBackendReporter;
+import com.spotify.heroic.time.Clock;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.Managed;
+import eu.toolchain.async.ManagedSetup;
+import eu.toolchain.async.TinyAsync;
+import eu.toolchain.serializer.TinySerializer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BigtableBackendFetchBatchTest {
+    private static final int SERIES = 25;
+    private static final int READ_BATCH_SIZE = 10;
+
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(4);
+    private final AsyncFramework async =
+        TinyAsync.builder().executor(executor).scheduler(executor).build();
+
+    private FakeBigtableConnection fake;
+    private Managed<BigtableConnection> connection;
+    private BigtableBackend backend;
+
+    @Before
+    public void setup() throws Exception {
+        fake = new FakeBigtableConnection(async);
+
+        connection = async.managed(new ManagedSetup<BigtableConnection>() {
+            @Override
+            public AsyncFuture<BigtableConnection> construct() {
+                return async.resolved(fake);
+            }
+
+            @Override
+            public AsyncFuture<Void> destruct(final BigtableConnection value) {
+                return value.close();
+            }
+        });
+
+        backend = new BigtableBackend(async, TinySerializer.builder().build(),
+            new MetricsRowKeySerializer(), connection, Groups.of("bigtable"), "metrics", true,
+            NoopMetricBackendReporter.get(), new ObjectMapper(), READ_BATCH_SIZE, 2,
+            Clock.system(), false, BigtableMetricModule.DEFAULT_CHUNK_WINDOW_MILLIS);
+
+        connection.start().get();
+        backend.configure().get();
+    }
+
+    @After
+    public void teardown() throws Exception {
+        connection.stop().get();
+        executor.shutdown();
+    }
+
+    @Test
+    public void testFetchBatch() throws Exception {
+        final List<FetchData.Request> requests = new ArrayList<>();
+        final Map<Series, MetricCollection> expected = new ConcurrentHashMap<>();
+
+        /* three rows per series: a partial first period, a full period, and a partial last */
+        final long start = BigtableBackend.PERIOD / 2;
+        final long end = BigtableBackend.PERIOD * 2 + BigtableBackend.PERIOD / 2;
+
+        for (int i = 0; i < SERIES; i++) {
+            final Series s = Series.of("s" + i, ImmutableMap.of("id", "s" + i));
+
+            final MetricCollection points = MetricCollection.points(ImmutableList.of(
+                new Point(start + 1 + i, i), new Point(BigtableBackend.PERIOD + 1 + i, i),
+                new Point(end - 1 - i, i)));
+
+            backend.write(new WriteMetric.Request(s, points)).get();
+            expected.put(s, points);
+            requests.add(new FetchData.Request(MetricType.POINT, s, new DateRange(start, end),
+                QueryOptions.builder().build()));
+        }
+
+        final long before = fake.getReadRowsRequests();
+
+        final Map<Series, List<MetricCollection>> fetched = new ConcurrentHashMap<>();
+
+        backend.fetchBatch(requests, FetchQuotaWatcher.NO_QUOTA, (r, mc) -> fetched
+            .computeIfAbsent(r.getSeries(), s -> Collections.synchronizedList(new ArrayList<>()))
+            .add(mc)).get();
+
+        /* one request per column range, and per batch of rows within that range */
+        final int batches = (SERIES + READ_BATCH_SIZE - 1) / READ_BATCH_SIZE;
+        assertEquals(3 * batches, fake.getReadRowsRequests() - before);
+
+        assertEquals(expected.keySet(), fetched.keySet());
+
+        for (final Map.Entry<Series, MetricCollection> e : expected.entrySet()) {
+            final List<MetricCollection> rows = fetched.get(e.getKey());
+            assertEquals(3, rows.size());
+            assertEquals(e.getValue().getData(),
+                MetricCollection.mergeSorted(MetricType.POINT, rows).getData());
+        }
+    }
+
+    @Test
+    public void testDuplicateSeries() throws Exception {
+        final Series s = Series.of("s", ImmutableMap.of("id", "s"));
+        final MetricCollection points = MetricCollection.points(
+            ImmutableList.of(new Point(1L, 1D), new Point(2L, 2D)));
+
+        backend.write(new WriteMetric.Request(s, points)).get();
+
+        final FetchData.Request request = new FetchData.Request(MetricType.POINT, s,
+            new DateRange(0L, 10L), QueryOptions.builder().build());
+
+        final List<MetricCollection> fetched = Collections.synchronizedList(new ArrayList<>());
+
+        /* the same row is requested twice in one batch, and is handed to both requests */
+        backend.fetchBatch(ImmutableList.of(request, request), FetchQuotaWatcher.NO_QUOTA,
+            (r, mc) -> fetched.add(mc)).get();
+
+        assertEquals(2, fetched.size());
+
+        for (final MetricCollection mc : fetched) {
+            assertEquals(points.getData(), mc.getData());
+        }
+    }
+}
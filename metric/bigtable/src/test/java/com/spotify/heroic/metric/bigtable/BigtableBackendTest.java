@@ -3,6 +3,7 @@ package com.spotify.heroic.metric.bigtable;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.ByteString.ByteIterator;
 import eu.toolchain.serializer.HexUtils;
+import java.nio.ByteBuffer;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -20,6 +21,18 @@ public class BigtableBackendTest {
         checkSmaller(0x1000000L, 0xffffffffL);
     }
 
+    @Test
+    public void testDeserializeValue() {
+        for (final double v : new double[]{0D, -1.5D, Double.MAX_VALUE, Double.NaN}) {
+            final ByteString bytes = ByteString.copyFrom(
+                ByteBuffer.allocate(Double.BYTES).putLong(Double.doubleToLongBits(v)).array());
+            assertEquals(v, BigtableBackend.deserializeValue(bytes), 0D);
+            /* value embedded in a larger buffer */
+            assertEquals(v, BigtableBackend.deserializeValue(
+                ByteString.copyFromUtf8("xx").concat(bytes).substring(2)), 0D);
+        }
+    }
+
     private void checkSmaller(final long s, final long l) {
         assertEquals(BigtableBackend.offset(s), s);
         assertEquals(BigtableBackend.offset(l), l);
@@ -0,0 +1,113 @@
+package com.spotify.heroic.metric.bigtable;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+
+public class PointChunkCodecTest {
+    @Test
+    public void testEmpty() {
+        final byte[] chunk = PointChunkCodec.encode(new long[0], new double[0], 0);
+        assertEquals(0, PointChunkCodec.size(chunk));
+        roundTrip(new long[0], new double[0]);
+    }
+
+    @Test
+    public void testRegular() {
+        final int size = 1000;
+        final long[] timestamps = new long[size];
+        final double[] values = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            timestamps[i] = 1000L + i * 10000L;
+            values[i] = 42D;
+        }
+
+        final byte[] chunk = roundTrip(timestamps, values);
+
+        /* after the header, a regular cadence with a constant value costs two bits per point */
+        assertTrue("chunk too large: " + chunk.length, chunk.length < 32 + size / 4);
+    }
+
+    @Test
+    public void testIrregular() {
+        final Random random = new Random(0x4242L);
+        final int size = 1000;
+        final long[] timestamps = new long[size];
+        final double[] values = new double[size];
+
+        long timestamp = 0L;
+
+        for (int i = 0; i < size; i++) {
+            /* mix deltas from every bucket, including ones that need the full 64 bits */
+            switch (i % 5) {
+                case 0:
+                    timestamp += random.nextInt(100);
+                    break;
+                case 1:
+                    timestamp += random.nextInt(5000);
+                    break;
+                case 2:
+                    timestamp += random.nextInt(Integer.MAX_VALUE);
+                    break;
+                case 3:
+                    timestamp += 1L << 40;
+                    break;
+                default:
+                    timestamp += 1L;
+                    break;
+            }
+
+            timestamps[i] = timestamp;
+            values[i] = random.nextGaussian() * 1000D;
+        }
+
+        roundTrip(timestamps, values);
+    }
+
+    @Test
+    public void testSpecialValues() {
+        roundTrip(new long[]{1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L}, new double[]{
+            Double.NaN, 0D, -0D, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+            Double.MIN_VALUE, Double.MAX_VALUE, Double.NaN
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncated() {
+        final byte[] chunk = PointChunkCodec.encode(new long[]{1L, 2L}, new double[]{1D, 2D}, 2);
+        final byte[] truncated = new byte[chunk.length - 10];
+        System.arraycopy(chunk, 0, truncated, 0, truncated.length);
+        PointChunkCodec.decode(truncated, (t, v) -> {
+        });
+    }
+
+    private byte[] roundTrip(final long[] timestamps, final double[] values) {
+        final byte[] chunk = PointChunkCodec.encode(timestamps, values, timestamps.length);
+
+        assertEquals(timestamps.length, PointChunkCodec.size(chunk));
+
+        final long[] decodedTimestamps = new long[timestamps.length];
+        final long[] decodedValues = new long[values.length];
+        final int[] index = {0};
+
+        PointChunkCodec.decode(chunk, (t, v) -> {
+            decodedTimestamps[index[0]] = t;
+            decodedValues[index[0]++] = Double.doubleToRawLongBits(v);
+        });
+
+        final long[] expectedValues = new long[values.length];
+
+        for (int i = 0; i < values.length; i++) {
+            expectedValues[i] = Double.doubleToRawLongBits(values[i]);
+        }
+
+        assertEquals(timestamps.length, index[0]);
+        assertArrayEquals(timestamps, decodedTimestamps);
+        assertArrayEquals(expectedValues, decodedValues);
+        return chunk;
+    }
+}
@@ -0,0 +1,95 @@
+package com.spotify.heroic.metric.bigtable.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.bigtable.v2.Mutation;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ByteString;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.TinyAsync;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class MutationBufferTest {
+    private final AsyncFramework async = TinyAsync.builder().build();
+
+    private final ByteString a = ByteString.copyFromUtf8("a");
+    private final ByteString b = ByteString.copyFromUtf8("b");
+
+    @Test
+    public void testMergeSameRow() {
+        final MutationBuffer buffer = new MutationBuffer(10);
+
+        final ResolvableFuture<Void> f1 = async.future();
+        final ResolvableFuture<Void> f2 = async.future();
+        final ResolvableFuture<Void> f3 = async.future();
+
+        buffer.add("t", a, cells(1, 2), 10, f1);
+        buffer.add("t", b, cells(3), 20, f2);
+        buffer.add("t", a, cells(4), 30, f3);
+
+        assertEquals(3, buffer.writes());
+        assertEquals(60, buffer.bytes());
+
+        final Map<String, List<MutationBuffer.MergedRow>> drained = buffer.drain();
+        final List<MutationBuffer.MergedRow> rows = drained.get("t");
+
+        assertEquals(2, rows.size());
+
+        final MutationBuffer.MergedRow first = rows.get(0);
+        assertEquals(a, first.getRowKey());
+        assertEquals(cells(1, 2, 4), first.getMutations());
+        assertEquals(ImmutableList.of(f1, f3), first.getFutures());
+        assertEquals(40, first.getBytes());
+
+        final MutationBuffer.MergedRow second = rows.get(1);
+        assertEquals(b, second.getRowKey());
+        assertEquals(cells(3), second.getMutations());
+
+        assertEquals(0, buffer.writes());
+        assertEquals(0, buffer.bytes());
+        assertTrue(buffer.drain().isEmpty());
+    }
+
+    @Test
+    public void testSeparateTables() {
+        final MutationBuffer buffer = new MutationBuffer(10);
+
+        buffer.add("t1", a, cells(1), 1, async.future());
+        buffer.add("t2", a, cells(2), 1, async.future());
+
+        final Map<String, List<MutationBuffer.MergedRow>> drained = buffer.drain();
+
+        assertEquals(cells(1), drained.get("t1").get(0).getMutations());
+        assertEquals(cells(2), drained.get("t2").get(0).getMutations());
+    }
+
+    @Test
+    public void testMaxMergedMutations() {
+        final MutationBuffer buffer = new MutationBuffer(3);
+
+        buffer.add("t", a, cells(1, 2), 1, async.future());
+        buffer.add("t", a, cells(3, 4), 1, async.future());
+        buffer.add("t", a, cells(5), 1, async.future());
+
+        final List<MutationBuffer.MergedRow> rows = buffer.drain().get("t");
+
+        assertEquals(2, rows.size());
+        assertEquals(cells(1, 2), rows.get(0).getMutations());
+        assertEquals(cells(3, 4, 5), rows.get(1).getMutations());
+    }
+
+    private List<Mutation> cells(final int... values) {
+        final Mutations.Builder builder = Mutations.builder();
+
+        for (final int v : values) {
+            builder.setCell("points", ByteString.copyFromUtf8("q" + v),
+                ByteString.copyFromUtf8("v" + v));
+        }
+
+        return builder.build().getMutations();
+    }
+}
@@ -21,6 +21,7 @@
 
 package com.spotify.heroic.metric.datastax;
 
+import com.datastax.driver.core.BatchStatement;
 import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.ExecutionInfo;
 import com.datastax.driver.core.PreparedStatement;
@@ -34,6 +35,7 @@ import com.spotify.heroic.QueryOptions;
 import com.spotify.heroic.async.AsyncObservable;
 import com.spotify.heroic.async.AsyncObserver;
 import com.spotify.heroic.common.Groups;
+import com.spotify.heroic.common.Series;
 import com.spotify.heroic.common.Throwing;
 import com.spotify.heroic.lifecycle.LifeCycleRegistry;
 import com.spotify.heroic.lifecycle.LifeCycles;
@@ -55,6 +57,7 @@ import com.spotify.heroic.metric.datastax.schema.Schema;
 import com.spotify.heroic.metric.datastax.schema.Schema.PreparedFetch;
 import com.spotify.heroic.metric.datastax.schema.SchemaBoundStatement;
 import com.spotify.heroic.metric.datastax.schema.SchemaInstance;
+import com.spotify.heroic.statistics.MetricBackendReporter;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
 import eu.toolchain.async.Borrowed;
@@ -67,7 +70,9 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.Callable;
@@ -79,6 +84,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import javax.inject.Inject;
+import javax.inject.Named;
 import lombok.AccessLevel;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
@@ -100,15 +106,26 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
     private final AsyncFramework async;
     private final Managed<Connection> connection;
     private final Groups groups;
+    private final MetricBackendReporter reporter;
+    private final boolean batchWrites;
+    private final int writeBatchSize;
+    private final int writeConcurrency;
 
     @Inject
     public DatastaxBackend(
-        final AsyncFramework async, final Managed<Connection> connection, final Groups groups
+        final AsyncFramework async, final Managed<Connection> connection, final Groups groups,
+        final MetricBackendReporter reporter, @Named("batchWrites") final boolean batchWrites,
+        @Named("writeBatchSize") final int writeBatchSize,
+        @Named("writeConcurrency") final int writeConcurrency
     ) {
         super(async);
         this.async = async;
         this.connection = connection;
         this.groups = groups;
+        this.reporter = reporter;
+        this.batchWrites = batchWrites;
+        this.writeBatchSize = writeBatchSize;
+        this.writeConcurrency = writeConcurrency;
     }
 
     @Override
@@ -159,6 +176,12 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
         });
     }
 
+    /**
+     * Fetch data, handing each page of the result to the consumer as soon as it has been read.
+     * <p>
+     * The next page is prefetched while the current one is converted and consumed, and quotas are
+     * checked for every page.
+     */
     @Override
     public AsyncFuture<FetchData.Result> fetch(
         final FetchData.Request request, final FetchQuotaWatcher watcher,
@@ -177,14 +200,9 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
                 c.schema.ranges(request.getSeries(), request.getRange());
 
             if (request.getType() == MetricType.POINT) {
-                final List<AsyncFuture<FetchData>> fetches =
-                    fetchDataPoints(w, limit, request.getOptions(), prepared, c);
-
                 final List<AsyncFuture<FetchData.Result>> results =
-                    Lists.transform(fetches, fetch -> fetch.directTransform(fetchData -> {
-                        fetchData.getGroups().forEach(metricsConsumer::accept);
-                        return fetchData.getResult();
-                    }));
+                    streamDataPoints(w, limit, request.getOptions(), prepared, c, watcher,
+                        metricsConsumer);
                 return async.collect(results, FetchData.collectResult(FETCH));
             }
 
@@ -442,7 +460,9 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
 
         final MetricCollection g = request.getData();
 
-        if (g.getType() == MetricType.POINT) {
+        if (g.getType() == MetricType.POINT && batchWrites) {
+            batchWrites(c, session, request.getSeries(), g.getDataAs(Point.class), callables);
+        } else if (g.getType() == MetricType.POINT) {
             for (final Point d : g.getDataAs(Point.class)) {
                 final BoundStatement stmt = session.writePoint(request.getSeries(), d);
 
@@ -475,7 +495,46 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
             public WriteMetric end(int resolved, int failed, int cancelled) throws Exception {
                 return new WriteMetric(ImmutableList.of(), ImmutableList.copyOf(q));
             }
-        }, 500);
+        }, writeConcurrency);
+    }
+
+    /**
+     * Group points by the partition they are written to, and write each group as unlogged
+     * batches of at most {@link #writeBatchSize} statements.
+     * <p>
+     * Since every statement in a batch targets the same partition, the batch is applied as a
+     * single mutation and is routed by the token-aware load balancing policy to a replica owning
+     * that partition.
+     */
+    private void batchWrites(
+        final Connection c, final SchemaInstance.WriteSession session, final Series series,
+        final List<Point> points, final List<Callable<AsyncFuture<Long>>> callables
+    ) throws IOException {
+        final Map<ByteBuffer, List<BoundStatement>> partitions = new LinkedHashMap<>();
+
+        for (final Point d : points) {
+            partitions
+                .computeIfAbsent(session.rowKey(series, d), k -> new ArrayList<>())
+                .add(session.writePoint(series, d));
+        }
+
+        for (final List<BoundStatement> partition : partitions.values()) {
+            for (final List<BoundStatement> statements : Lists.partition(partition,
+                writeBatchSize)) {
+                final BatchStatement batch = new BatchStatement(BatchStatement.Type.UNLOGGED);
+                batch.addAll(statements);
+
+                callables.add(() -> {
+                    final long start = System.nanoTime();
+                    return Async.bind(async, c.session.executeAsync(batch)).directTransform(r -> {
+                        final long elapsed = System.nanoTime() - start;
+                        reporter.reportWriteBatch(statements.size(),
+                            TimeUnit.NANOSECONDS.toMillis(elapsed));
+                        return elapsed;
+                    });
+                });
+            }
+        }
     }
 
     private AsyncFuture<QueryTrace> buildTrace(
@@ -555,6 +614,44 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
         return fetches;
     }
 
+    private List<AsyncFuture<FetchData.Result>> streamDataPoints(
+        final QueryTrace.Watch w, final int limit, final QueryOptions options,
+        final List<PreparedFetch> prepared, final Connection c, final FetchQuotaWatcher watcher,
+        final Consumer<MetricCollection> metricsConsumer
+    ) throws Exception {
+        final List<AsyncFuture<FetchData.Result>> fetches = new ArrayList<>(prepared.size());
+
+        for (final Schema.PreparedFetch p : prepared) {
+            final Function<List<ExecutionInfo>, AsyncFuture<QueryTrace>> traceBuilder;
+
+            final Statement stmt;
+
+            if (options.tracing().isEnabled(Tracing.DETAILED)) {
+                stmt = p.fetch(limit).enableTracing();
+                traceBuilder =
+                    info -> buildTrace(c, FETCH_SEGMENT.extend(p.toString()), w.elapsed(), info);
+            } else {
+                stmt = p.fetch(limit);
+                traceBuilder = info -> async.resolved(w.end(FETCH_SEGMENT));
+            }
+
+            options.getFetchSize().ifPresent(stmt::setFetchSize);
+
+            final ResolvableFuture<List<ExecutionInfo>> future = async.future();
+
+            Async
+                .bind(async, c.session.executeAsync(stmt))
+                .onDone(
+                    new PointPageHelper(async, future, p.converter(), watcher, metricsConsumer));
+
+            fetches.add(future
+                .lazyTransform(traceBuilder::apply)
+                .directTransform(FetchData::result));
+        }
+
+        return fetches;
+    }
+
     @RequiredArgsConstructor
     private final class RowFetchHelper<R, T> implements FutureDone<ResultSet> {
         private final List<R> data = new ArrayList<>();
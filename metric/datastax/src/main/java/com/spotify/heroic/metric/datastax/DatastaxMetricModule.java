@@ -71,6 +71,9 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
     public static final boolean DEFAULT_CONFIGURE = false;
     public static final int DEFAULT_FETCH_SIZE = 5000;
     public static final Duration DEFAULT_READ_TIMEOUT = new Duration(30, TimeUnit.SECONDS);
+    public static final boolean DEFAULT_BATCH_WRITES = false;
+    public static final int DEFAULT_WRITE_BATCH_SIZE = 100;
+    public static final int DEFAULT_WRITE_CONCURRENCY = 500;
 
     /* id of backend (defualt will be generated) */
     private final Optional<String> id;
@@ -92,6 +95,12 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
     private final RetryPolicy retryPolicy;
     /* authentication to apply to builder */
     private final DatastaxAuthentication authentication;
+    /* group writes to the same partition into unlogged batches */
+    private final boolean batchWrites;
+    /* the maximum number of writes in a single batch */
+    private final int writeBatchSize;
+    /* the maximum number of write statements in flight for a single write request */
+    private final int writeConcurrency;
 
     @JsonCreator
     public DatastaxMetricModule(
@@ -103,7 +112,10 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
         @JsonProperty("readTimeout") Optional<Duration> readTimeout,
         @JsonProperty("consistencyLevel") Optional<ConsistencyLevel> consistencyLevel,
         @JsonProperty("retryPolicy") Optional<RetryPolicy> retryPolicy,
-        @JsonProperty("authentication") Optional<DatastaxAuthentication> authentication
+        @JsonProperty("authentication") Optional<DatastaxAuthentication> authentication,
+        @JsonProperty("batchWrites") Optional<Boolean> batchWrites,
+        @JsonProperty("writeBatchSize") Optional<Integer> writeBatchSize,
+        @JsonProperty("writeConcurrency") Optional<Integer> writeConcurrency
     ) {
         this.id = id;
         this.groups = groups.orElseGet(Groups::empty).or("heroic");
@@ -115,6 +127,19 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
         this.consistencyLevel = consistencyLevel.orElse(ConsistencyLevel.ONE);
         this.retryPolicy = retryPolicy.orElse(DefaultRetryPolicy.INSTANCE);
         this.authentication = authentication.orElseGet(DatastaxAuthentication.None::new);
+        this.batchWrites = batchWrites.orElse(DEFAULT_BATCH_WRITES);
+        this.writeBatchSize = writeBatchSize.orElse(DEFAULT_WRITE_BATCH_SIZE);
+        this.writeConcurrency = writeConcurrency.orElse(DEFAULT_WRITE_CONCURRENCY);
+
+        if (this.writeBatchSize < 1) {
+            throw new IllegalArgumentException(
+                "writeBatchSize must be positive: " + this.writeBatchSize);
+        }
+
+        if (this.writeConcurrency < 1) {
+            throw new IllegalArgumentException(
+                "writeConcurrency must be positive: " + this.writeConcurrency);
+        }
     }
 
     private static List<InetSocketAddress> convert(Set<String> source) {
@@ -191,6 +216,27 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
             return groups;
         }
 
+        @Provides
+        @DatastaxScope
+        @Named("batchWrites")
+        public boolean batchWrites() {
+            return batchWrites;
+        }
+
+        @Provides
+        @DatastaxScope
+        @Named("writeBatchSize")
+        public int writeBatchSize() {
+            return writeBatchSize;
+        }
+
+        @Provides
+        @DatastaxScope
+        @Named("writeConcurrency")
+        public int writeConcurrency() {
+            return writeConcurrency;
+        }
+
         @Provides
         @DatastaxScope
         public Managed<Connection> connection(
@@ -229,6 +275,9 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
         private Optional<ConsistencyLevel> consistencyLevel = empty();
         private Optional<RetryPolicy> retryPolicy = empty();
         private Optional<DatastaxAuthentication> authentication = empty();
+        private Optional<Boolean> batchWrites = empty();
+        private Optional<Integer> writeBatchSize = empty();
+        private Optional<Integer> writeConcurrency = empty();
 
         public Builder id(String id) {
             this.id = of(id);
@@ -280,9 +329,25 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
             return this;
         }
 
+        public Builder batchWrites(boolean batchWrites) {
+            this.batchWrites = of(batchWrites);
+            return this;
+        }
+
+        public Builder writeBatchSize(int writeBatchSize) {
+            this.writeBatchSize = of(writeBatchSize);
+            return this;
+        }
+
+        public Builder writeConcurrency(int writeConcurrency) {
+            this.writeConcurrency = of(writeConcurrency);
+            return this;
+        }
+
         public DatastaxMetricModule build() {
             return new DatastaxMetricModule(id, groups, seeds, schema, configure, fetchSize,
-                readTimeout, consistencyLevel, retryPolicy, authentication);
+                readTimeout, consistencyLevel, retryPolicy, authentication, batchWrites,
+                writeBatchSize, writeConcurrency);
         }
     }
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.datastax;
+
+import com.datastax.driver.core.ExecutionInfo;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.spotify.heroic.metric.ColumnarPointCollection;
+import com.spotify.heroic.metric.FetchQuotaWatcher;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.Point;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.FutureDone;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.Transform;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Consumes a result set page by page.
+ * <p>
+ * Each page is converted into a single collection and handed to the consumer, while the next page
+ * is already being fetched. Resolves with the execution info of all pages once the result set has
+ * been exhausted. Cancelling the future also cancels the page currently being fetched.
+ */
+class PointPageHelper implements FutureDone<ResultSet> {
+    private final AsyncFramework async;
+    private final ResolvableFuture<List<ExecutionInfo>> future;
+    private final Transform<Row, Point> rowConverter;
+    private final FetchQuotaWatcher watcher;
+    private final Consumer<MetricCollection> consumer;
+
+    private final AtomicReference<AsyncFuture<Void>> nextFetch = new AtomicReference<>();
+
+    PointPageHelper(
+        final AsyncFramework async, final ResolvableFuture<List<ExecutionInfo>> future,
+        final Transform<Row, Point> rowConverter, final FetchQuotaWatcher watcher,
+        final Consumer<MetricCollection> consumer
+    ) {
+        this.async = async;
+        this.future = future;
+        this.rowConverter = rowConverter;
+        this.watcher = watcher;
+        this.consumer = consumer;
+
+        future.onCancelled(() -> {
+            final AsyncFuture<Void> next = nextFetch.get();
+
+            if (next != null) {
+                next.cancel();
+            }
+        });
+    }
+
+    @Override
+    public void failed(Throwable cause) throws Exception {
+        future.fail(cause);
+    }
+
+    @Override
+    public void cancelled() throws Exception {
+        future.cancel();
+    }
+
+    @Override
+    public void resolved(final ResultSet rows) throws Exception {
+        if (future.isDone()) {
+            return;
+        }
+
+        int count = rows.getAvailableWithoutFetching();
+
+        final AsyncFuture<Void> next = rows.isFullyFetched() ? null
+            : Async.bind(async, rows.fetchMoreResults()).directTransform(r -> null);
+
+        if (next != null) {
+            nextFetch.set(next);
+
+            /* cancelled while the fetch was being started */
+            if (future.isDone()) {
+                next.cancel();
+                return;
+            }
+        }
+
+        final ColumnarPointCollection.Builder page = ColumnarPointCollection.builder(count);
+
+        try {
+            while (count-- > 0) {
+                final Point point = rowConverter.transform(rows.one());
+                page.add(point.getTimestamp(), point.getValue());
+            }
+
+            watcher.readData(page.size());
+            consumer.accept(page.build());
+        } catch (final Exception e) {
+            if (next != null) {
+                next.cancel();
+            }
+
+            future.fail(e);
+            return;
+        }
+
+        if (next != null) {
+            next.onDone(new FutureDone<Void>() {
+                @Override
+                public void failed(Throwable cause) throws Exception {
+                    PointPageHelper.this.failed(cause);
+                }
+
+                @Override
+                public void cancelled() throws Exception {
+                    PointPageHelper.this.cancelled();
+                }
+
+                @Override
+                public void resolved(Void result) throws Exception {
+                    PointPageHelper.this.resolved(rows);
+                }
+            });
+
+            return;
+        }
+
+        future.resolve(rows.getAllExecutionInfo());
+    }
+}
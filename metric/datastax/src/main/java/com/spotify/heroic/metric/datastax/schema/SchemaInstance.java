@@ -56,5 +56,10 @@ public interface SchemaInstance {
 
     public static interface WriteSession {
         public BoundStatement writePoint(Series series, Point d) throws IOException;
+
+        /**
+         * Serialized row key of the partition that the given point will be written to.
+         */
+        public ByteBuffer rowKey(Series series, Point d) throws IOException;
     }
 }
@@ -167,6 +167,12 @@ public class LegacySchemaInstance extends AbstractSchemaInstance {
 
             @Override
             public BoundStatement writePoint(Series series, Point d) throws IOException {
+                final int offset = calculateColumnKey(d.getTimestamp());
+                return write.bind(rowKey(series, d), offset, d.getValue());
+            }
+
+            @Override
+            public ByteBuffer rowKey(Series series, Point d) throws IOException {
                 final long base = calculateBaseTimestamp(d.getTimestamp());
 
                 ByteBuffer key = cache.get(base);
@@ -176,8 +182,7 @@ public class LegacySchemaInstance extends AbstractSchemaInstance {
                     cache.put(base, key);
                 }
 
-                final int offset = calculateColumnKey(d.getTimestamp());
-                return write.bind(key, offset, d.getValue());
+                return key;
             }
         };
     }
@@ -89,6 +89,12 @@ public class NextGenSchemaInstance extends AbstractSchemaInstance {
 
             @Override
             public BoundStatement writePoint(Series series, Point d) throws IOException {
+                final int offset = calculateColumnKey(d.getTimestamp());
+                return write.bind(rowKey(series, d), offset, d.getValue());
+            }
+
+            @Override
+            public ByteBuffer rowKey(Series series, Point d) throws IOException {
                 final long base = calculateBaseTimestamp(d.getTimestamp());
 
                 ByteBuffer key = cache.get(base);
@@ -98,8 +104,7 @@ public class NextGenSchemaInstance extends AbstractSchemaInstance {
                     cache.put(base, key);
                 }
 
-                final int offset = calculateColumnKey(d.getTimestamp());
-                return write.bind(key, offset, d.getValue());
+                return key;
             }
         };
     }
@@ -17,7 +17,8 @@ public abstract class AbstractDatastaxBackendIT extends AbstractMetricBackendIT
             final String keyspace = "heroic_it_" + UUID.randomUUID().toString().replace('-', '_');
 
             final DatastaxMetricModule.Builder builder =
-                DatastaxMetricModule.builder().schema(setupSchema(keyspace)).configure(true);
+                DatastaxMetricModule.builder().schema(setupSchema(keyspace)).configure(true)
+                    .batchWrites(batchWrites());
 
             properties.getOptionalString("seed").map(ImmutableSet::of).ifPresent(builder::seeds);
 
@@ -26,4 +27,8 @@ public abstract class AbstractDatastaxBackendIT extends AbstractMetricBackendIT
     }
 
     abstract protected SchemaModule setupSchema(final String keyspace);
+
+    protected boolean batchWrites() {
+        return false;
+    }
 }
@@ -0,0 +1,152 @@
+package com.spotify.heroic.metric.datastax;
+
+import com.datastax.driver.core.ExecutionInfo;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.SettableFuture;
+import com.spotify.heroic.common.QuotaViolationException;
+import com.spotify.heroic.metric.FetchQuotaWatcher;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.Point;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.TinyAsync;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PointPageHelperTest {
+    private final AsyncFramework async = TinyAsync.builder().build();
+
+    private final List<Point> page1 = ImmutableList.of(new Point(1L, 1D), new Point(2L, 2D));
+    private final List<Point> page2 = ImmutableList.of(new Point(3L, 3D));
+
+    @Mock
+    private ResultSet rows;
+
+    @Mock
+    private FetchQuotaWatcher watcher;
+
+    /* rows available without fetching, and the pages which are not yet fetched */
+    private final Deque<Point> available = new ArrayDeque<>();
+    private final Deque<List<Point>> remaining = new ArrayDeque<>();
+
+    private final List<SettableFuture<ResultSet>> fetches = new ArrayList<>();
+    private final List<List<Point>> consumed = new ArrayList<>();
+
+    private ResolvableFuture<List<ExecutionInfo>> future;
+
+    @Before
+    public void setup() {
+        doAnswer(invocation -> available.size()).when(rows).getAvailableWithoutFetching();
+        doAnswer(invocation -> remaining.isEmpty()).when(rows).isFullyFetched();
+        doReturn(ImmutableList.of()).when(rows).getAllExecutionInfo();
+
+        doAnswer(invocation -> {
+            final Row row = mock(Row.class);
+            doReturn(available.poll().getTimestamp()).when(row).getLong(0);
+            return row;
+        }).when(rows).one();
+
+        doAnswer(invocation -> {
+            final SettableFuture<ResultSet> fetch = SettableFuture.create();
+            fetches.add(fetch);
+            return fetch;
+        }).when(rows).fetchMoreResults();
+
+        future = async.future();
+    }
+
+    @Test
+    public void testPages() throws Exception {
+        pages(page1, page2);
+
+        helper().resolved(rows);
+
+        /* the second page is fetched while the first one is being consumed */
+        assertEquals(1, fetches.size());
+        assertEquals(ImmutableList.of(page1), consumed);
+        verify(watcher).readData(2);
+        assertFalse(future.isDone());
+
+        fetchNext();
+
+        assertEquals(ImmutableList.of(page1, page2), consumed);
+        verify(watcher).readData(1);
+        assertEquals(ImmutableList.of(), future.get());
+    }
+
+    @Test
+    public void testQuotaViolation() throws Exception {
+        pages(page1, page2);
+        doThrow(new QuotaViolationException()).when(watcher).readData(anyLong());
+
+        helper().resolved(rows);
+
+        assertTrue(future.isFailed());
+        assertTrue(fetches.get(0).isCancelled());
+        assertEquals(ImmutableList.of(), consumed);
+    }
+
+    @Test
+    public void testFetchFailed() throws Exception {
+        pages(page1, page2);
+
+        helper().resolved(rows);
+        fetches.get(0).setException(new RuntimeException("fetch"));
+
+        assertTrue(future.isFailed());
+        assertEquals(ImmutableList.of(page1), consumed);
+    }
+
+    @Test
+    public void testCancelled() throws Exception {
+        pages(page1, page2);
+
+        helper().resolved(rows);
+        future.cancel();
+
+        assertTrue(fetches.get(0).isCancelled());
+        assertEquals(ImmutableList.of(page1), consumed);
+    }
+
+    private PointPageHelper helper() {
+        return new PointPageHelper(async, future,
+            row -> new Point(row.getLong(0), (double) row.getLong(0)), watcher,
+            this::consume);
+    }
+
+    private void consume(final MetricCollection collection) {
+        consumed.add(ImmutableList.copyOf(collection.getDataAs(Point.class)));
+    }
+
+    @SafeVarargs
+    private final void pages(final List<Point> first, final List<Point>... rest) {
+        available.addAll(first);
+        remaining.addAll(ImmutableList.copyOf(rest));
+    }
+
+    private void fetchNext() {
+        available.addAll(remaining.poll());
+        fetches.get(fetches.size() - 1).set(rows);
+    }
+}
@@ -35,6 +35,7 @@ import io.grpc.Metadata;
 import io.grpc.Status;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.concurrent.Callable;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -122,6 +123,87 @@ public class GrpcRpcClient {
         });
     }
 
+    /**
+     * Perform a request where the response is streamed as a sequence of messages.
+     * <p>
+     * Messages are requested one at a time, so that the next message is only requested once the
+     * previous one has been handled.
+     *
+     * @param handler Handler for each received message.
+     * @param end Called to build the response once the stream has completed successfully.
+     */
+    public <Q, R> AsyncFuture<R> streamingRequest(
+        final GrpcDescriptor<Q, R> endpoint, final Q entity, final CallOptions options,
+        final MessageHandler handler, final Callable<R> end
+    ) {
+        return channel.doto(channel -> {
+            final byte[] body;
+
+            try {
+                body = mapper.writeValueAsBytes(entity);
+            } catch (JsonProcessingException e) {
+                return async.failed(e);
+            }
+
+            final ClientCall<byte[], byte[]> call = channel.newCall(endpoint.descriptor(), options);
+
+            final Metadata metadata = new Metadata();
+
+            final ResolvableFuture<R> future = async.future();
+
+            call.start(new ClientCall.Listener<byte[]>() {
+                @Override
+                public void onMessage(final byte[] message) {
+                    try {
+                        handler.message(message);
+                    } catch (final Exception e) {
+                        future.fail(e);
+                        call.cancel();
+                        return;
+                    }
+
+                    call.request(1);
+                }
+
+                @Override
+                public void onClose(final Status status, final Metadata trailers) {
+                    if (!status.isOk()) {
+                        future.fail(new RuntimeException(
+                            "Request finished with status code (" + status + ")"));
+                        return;
+                    }
+
+                    try {
+                        future.resolve(end.call());
+                    } catch (final Exception e) {
+                        future.fail(e);
+                    }
+                }
+
+                @Override
+                public void onHeaders(final Metadata headers) {
+                }
+
+                @Override
+                public void onReady() {
+                }
+            }, metadata);
+
+            future.onCancelled(call::cancel);
+
+            call.sendMessage(body);
+            call.setMessageCompression(true);
+            call.request(1);
+            call.halfClose();
+
+            return future.onFailed(e -> errors.mark());
+        });
+    }
+
+    public interface MessageHandler {
+        void message(byte[] message) throws Exception;
+    }
+
     public boolean isAlive() {
         return errors.getFiveMinuteRate() < 1.0D;
     }
@@ -0,0 +1,437 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.rpc.grpc;
+
+import static com.spotify.heroic.common.VarInts.readVarLong;
+import static com.spotify.heroic.common.VarInts.unZigZag;
+import static com.spotify.heroic.common.VarInts.writeVarLong;
+import static com.spotify.heroic.common.VarInts.zigZag;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.ResultGroup;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Binary encoding of full query results, sent as a stream of messages.
+ * <p>
+ * Result groups are sent in messages holding at most {@link #maxSamplesPerMessage} samples,
+ * followed by a single message containing everything but the result groups. A group which holds
+ * more samples than that is split into parts over several messages. Points are encoded as
+ * delta-encoded timestamps followed by the raw values, other metric types fall back to the JSON
+ * encoding of their collection.
+ */
+@RequiredArgsConstructor
+public class GrpcRpcFullQueryCodec {
+    static final byte GROUPS = 1;
+    static final byte END = 2;
+
+    static final byte COLLECTION_JSON = 0;
+    static final byte COLLECTION_POINTS = 1;
+
+    /* the part continues the group of the previous part, and has no key, series or cadence */
+    static final byte PART_CONTINUATION = 1;
+    /* the group continues in the next part */
+    static final byte PART_INCOMPLETE = 2;
+
+    private final ObjectMapper mapper;
+    private final int maxSamplesPerMessage;
+
+    /**
+     * Setup an encoder for the given result, which encodes one message at a time.
+     */
+    public Encoder newEncoder(final FullQuery result) {
+        return new Encoder(result);
+    }
+
+    /**
+     * Setup a decoder for a single stream of messages.
+     */
+    public Decoder newDecoder() {
+        return new Decoder();
+    }
+
+    /**
+     * Encodes a full query result into a stream of messages, one message at a time so that only
+     * the message being sent is held in its encoded form.
+     */
+    public class Encoder {
+        private final FullQuery result;
+        private final List<ResultGroup> groups;
+
+        /* the group, and the offset into its samples, to encode next */
+        private int group = 0;
+        private int offset = 0;
+        private boolean ended = false;
+
+        Encoder(final FullQuery result) {
+            this.result = result;
+            this.groups = result.getGroups();
+        }
+
+        public boolean hasNext() {
+            return !ended;
+        }
+
+        public byte[] next() throws IOException {
+            if (ended) {
+                throw new IllegalStateException("no more messages");
+            }
+
+            if (group >= groups.size()) {
+                ended = true;
+                return encodeEnd();
+            }
+
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream out = new DataOutputStream(bytes);
+            final List<byte[]> parts = new ArrayList<>();
+            int samples = 0;
+
+            while (group < groups.size()) {
+                final ResultGroup g = groups.get(group);
+                final int remaining = g.getGroup().size() - offset;
+
+                /* only split groups which would not fit in a message of their own */
+                if (!parts.isEmpty() && remaining > maxSamplesPerMessage - samples) {
+                    break;
+                }
+
+                final int take = Math.min(remaining, maxSamplesPerMessage);
+                parts.add(encodePart(g, offset, offset + take));
+                samples += take;
+
+                if (take < remaining) {
+                    offset += take;
+                    break;
+                }
+
+                group++;
+                offset = 0;
+            }
+
+            out.write(GROUPS);
+            writeVarLong(out, parts.size());
+
+            for (final byte[] part : parts) {
+                out.write(part);
+            }
+
+            out.flush();
+            return bytes.toByteArray();
+        }
+
+        private byte[] encodeEnd() throws IOException {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.write(END);
+            mapper.writeValue(out, new FullQuery(result.getTrace(), result.getErrors(),
+                ImmutableList.of(), result.getStatistics(), result.getLimits()));
+            return out.toByteArray();
+        }
+    }
+
+    private byte[] encodePart(final ResultGroup group, final int from, final int to)
+        throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        final MetricCollection collection = group.getGroup();
+
+        byte flags = 0;
+
+        if (from > 0) {
+            flags |= PART_CONTINUATION;
+        }
+
+        if (to < collection.size()) {
+            flags |= PART_INCOMPLETE;
+        }
+
+        out.write(flags);
+
+        if (from == 0) {
+            writeMap(out, group.getKey());
+
+            writeVarLong(out, group.getSeries().size());
+
+            for (final Series series : group.getSeries()) {
+                writeString(out, series.getKey());
+                writeMap(out, series.getTags());
+            }
+
+            writeVarLong(out, group.getCadence());
+        }
+
+        if (from == 0 && to == collection.size()) {
+            writeCollection(out, collection);
+        } else {
+            writeCollection(out, MetricCollection.build(collection.getType(),
+                collection.getData().subList(from, to)));
+        }
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private void writeCollection(final DataOutputStream out, final MetricCollection collection)
+        throws IOException {
+        if (collection.getType() != MetricType.POINT) {
+            out.write(COLLECTION_JSON);
+            final byte[] json = mapper.writeValueAsBytes(collection);
+            writeVarLong(out, json.length);
+            out.write(json);
+            return;
+        }
+
+        final List<Point> points = collection.getDataAs(Point.class);
+
+        out.write(COLLECTION_POINTS);
+        writeVarLong(out, points.size());
+
+        long last = 0L;
+
+        for (final Point p : points) {
+            writeVarLong(out, zigZag(p.getTimestamp() - last));
+            last = p.getTimestamp();
+        }
+
+        for (final Point p : points) {
+            out.writeDouble(p.getValue());
+        }
+    }
+
+    /**
+     * Decodes a stream of messages back into a full query result.
+     */
+    public class Decoder {
+        private final ImmutableList.Builder<ResultGroup> groups = ImmutableList.builder();
+        private FullQuery end = null;
+
+        /* a group which continues in the next part */
+        private ResultGroup incomplete = null;
+        private final List<List<? extends Metric>> incompleteParts = new ArrayList<>();
+
+        public void message(final byte[] message) throws IOException {
+            final ByteBuffer buffer = ByteBuffer.wrap(message);
+
+            try {
+                final byte type = buffer.get();
+
+                switch (type) {
+                    case GROUPS:
+                        decodeGroups(buffer);
+                        break;
+                    case END:
+                        end = mapper.readValue(message, 1, message.length - 1, FullQuery.class);
+                        break;
+                    default:
+                        throw new IOException("unsupported message type: " + type);
+                }
+            } catch (final BufferUnderflowException e) {
+                throw new IOException("truncated message", e);
+            } catch (final IllegalArgumentException e) {
+                throw new IOException("malformed message", e);
+            }
+        }
+
+        /**
+         * Build the result after all messages have been received.
+         */
+        public FullQuery end() throws IOException {
+            if (end == null) {
+                throw new IOException("stream finished without result");
+            }
+
+            if (incomplete != null) {
+                throw new IOException("stream finished within a group");
+            }
+
+            return new FullQuery(end.getTrace(), end.getErrors(), groups.build(),
+                end.getStatistics(), end.getLimits());
+        }
+
+        private void decodeGroups(final ByteBuffer buffer) throws IOException {
+            final long count = readVarLong(buffer);
+
+            for (long i = 0; i < count; i++) {
+                final byte flags = buffer.get();
+                final ResultGroup group;
+
+                if ((flags & PART_CONTINUATION) != 0) {
+                    if (incomplete == null) {
+                        throw new IOException("continuation without a group");
+                    }
+
+                    group = incomplete;
+                    incompleteParts.add(readCollection(buffer).getData());
+                } else {
+                    if (incomplete != null) {
+                        throw new IOException("group started before previous group completed");
+                    }
+
+                    final Map<String, String> key = readMap(buffer, new LinkedHashMap<>());
+
+                    final long seriesCount = readVarLong(buffer);
+                    final Set<Series> series = new HashSet<>();
+
+                    for (long s = 0; s < seriesCount; s++) {
+                        final String seriesKey = readString(buffer);
+                        series.add(Series.of(seriesKey, readMap(buffer, new TreeMap<>())));
+                    }
+
+                    final long cadence = readVarLong(buffer);
+                    group = new ResultGroup(key, series, readCollection(buffer), cadence);
+                }
+
+                if ((flags & PART_INCOMPLETE) != 0) {
+                    if (incomplete == null) {
+                        incomplete = group;
+                        incompleteParts.add(group.getGroup().getData());
+                    }
+
+                    continue;
+                }
+
+                if (incomplete == null) {
+                    groups.add(group);
+                    continue;
+                }
+
+                /* parts are consecutive slices of the group */
+                final ImmutableList.Builder<Metric> data = ImmutableList.builder();
+                incompleteParts.forEach(data::addAll);
+                final MetricCollection collection =
+                    MetricCollection.build(incomplete.getGroup().getType(), data.build());
+                groups.add(new ResultGroup(incomplete.getKey(), incomplete.getSeries(),
+                    collection, incomplete.getCadence()));
+                incomplete = null;
+                incompleteParts.clear();
+            }
+        }
+
+        private MetricCollection readCollection(final ByteBuffer buffer) throws IOException {
+            final byte encoding = buffer.get();
+
+            if (encoding == COLLECTION_JSON) {
+                final int length = (int) readVarLong(buffer);
+                final MetricCollection collection = mapper.readValue(buffer.array(),
+                    buffer.arrayOffset() + buffer.position(), length, MetricCollection.class);
+                buffer.position(buffer.position() + length);
+                return collection;
+            }
+
+            if (encoding != COLLECTION_POINTS) {
+                throw new IOException("unsupported collection encoding: " + encoding);
+            }
+
+            final int size = (int) readVarLong(buffer);
+            final long[] timestamps = new long[size];
+            final double[] values = new double[size];
+
+            long last = 0L;
+
+            for (int i = 0; i < size; i++) {
+                last += unZigZag(readVarLong(buffer));
+                timestamps[i] = last;
+            }
+
+            for (int i = 0; i < size; i++) {
+                values[i] = buffer.getDouble();
+            }
+
+            return MetricCollection.points(timestamps, values);
+        }
+    }
+
+    private static void writeMap(final DataOutputStream out, final Map<String, String> map)
+        throws IOException {
+        writeVarLong(out, map.size());
+
+        for (final Map.Entry<String, String> e : map.entrySet()) {
+            writeString(out, e.getKey());
+            writeString(out, e.getValue());
+        }
+    }
+
+    private static <M extends Map<String, String>> M readMap(
+        final ByteBuffer buffer, final M map
+    ) throws IOException {
+        final long size = readVarLong(buffer);
+
+        for (long i = 0; i < size; i++) {
+            final String key = readString(buffer);
+            map.put(key, readString(buffer));
+        }
+
+        return map;
+    }
+
+    /**
+     * Strings are nullable, since keys of result groups may map to {@code null}.
+     */
+    private static void writeString(final DataOutputStream out, final String value)
+        throws IOException {
+        if (value == null) {
+            writeVarLong(out, 0L);
+            return;
+        }
+
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    private static String readString(final ByteBuffer buffer) throws IOException {
+        final int length = (int) readVarLong(buffer) - 1;
+
+        if (length < 0) {
+            return null;
+        }
+
+        final String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(),
+            length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+
+
+
+}
@@ -77,8 +77,14 @@ import lombok.extern.slf4j.Slf4j;
 @ToString(of = {})
 @GrpcRpcScope
 public class GrpcRpcProtocol implements RpcProtocol {
+    /**
+     * Capability advertised by nodes which support {@link #METRICS_FULL_QUERY_STREAM}.
+     */
+    public static final String BINARY_FULL_QUERY = "grpc:binary-full-query";
+
     private final AsyncFramework async;
     private final ObjectMapper mapper;
+    private final GrpcRpcFullQueryCodec codec;
     private final ResolvableFuture<InetSocketAddress> bindFuture;
 
     private final int defaultPort;
@@ -92,10 +98,11 @@ public class GrpcRpcProtocol implements RpcProtocol {
         AsyncFramework async, @Named("application/json+internal") ObjectMapper mapper,
         @Named("bindFuture") ResolvableFuture<InetSocketAddress> bindFuture,
         @Named("defaultPort") int defaultPort, @Named("maxFrameSize") int maxFrameSize,
-        @Named("worker") NioEventLoopGroup workerGroup
+        @Named("worker") NioEventLoopGroup workerGroup, GrpcRpcFullQueryCodec codec
     ) {
         this.async = async;
         this.mapper = mapper;
+        this.codec = codec;
         this.bindFuture = bindFuture;
         this.defaultPort = defaultPort;
         this.maxFrameSize = maxFrameSize;
@@ -205,6 +212,13 @@ public class GrpcRpcProtocol implements RpcProtocol {
 
             @Override
             public AsyncFuture<FullQuery> query(final FullQuery.Request request) {
+                if (metadata.hasCapability(BINARY_FULL_QUERY)) {
+                    final GrpcRpcFullQueryCodec.Decoder decoder = codec.newDecoder();
+                    return client.streamingRequest(METRICS_FULL_QUERY_STREAM,
+                        new GroupedQuery<>(group, request), CallOptions.DEFAULT, decoder::message,
+                        decoder::end);
+                }
+
                 return request(METRICS_FULL_QUERY, request);
             }
 
@@ -341,6 +355,16 @@ public class GrpcRpcProtocol implements RpcProtocol {
         }, new TypeReference<FullQuery>() {
         });
 
+    /**
+     * Same as {@link #METRICS_FULL_QUERY}, but the result is sent as a stream of binary messages
+     * encoded by {@link GrpcRpcFullQueryCodec}.
+     */
+    public static final GrpcDescriptor<GroupedQuery<FullQuery.Request>, FullQuery>
+        METRICS_FULL_QUERY_STREAM = descriptor("metrics:fullQueryStream",
+        new TypeReference<GroupedQuery<FullQuery.Request>>() {
+        }, new TypeReference<FullQuery>() {
+        });
+
     public static final GrpcDescriptor<GroupedQuery<WriteMetric.Request>, WriteMetric>
         METRICS_WRITE =
         descriptor("metrics:write", new TypeReference<GroupedQuery<WriteMetric.Request>>() {
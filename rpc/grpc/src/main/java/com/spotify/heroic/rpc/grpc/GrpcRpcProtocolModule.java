@@ -23,6 +23,7 @@ package com.spotify.heroic.rpc.grpc;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spotify.heroic.cluster.RpcProtocolComponent;
 import com.spotify.heroic.cluster.RpcProtocolModule;
 import com.spotify.heroic.lifecycle.LifeCycle;
@@ -52,24 +53,31 @@ public class GrpcRpcProtocolModule implements RpcProtocolModule {
     private static final int DEFAULT_CHILD_THREADS = 100;
     private static final int DEFAULT_MAX_FRAME_SIZE = 10 * 1000000;
     private static final long DEFAULT_SEND_TIMEOUT = 5000;
+    private static final boolean DEFAULT_BINARY_FULL_QUERY = true;
+    private static final int DEFAULT_SAMPLES_PER_MESSAGE = 100000;
 
     private final InetSocketAddress address;
     private final int parentThreads;
     private final int childThreads;
     private final int maxFrameSize;
+    /* advertise and serve streamed, binary encoded full query results */
+    private final boolean binaryFullQuery;
 
     @JsonCreator
     public GrpcRpcProtocolModule(
         @JsonProperty("host") String host, @JsonProperty("port") Integer port,
         @JsonProperty("parentThreads") Integer parentThreads,
         @JsonProperty("childThreads") Integer childThreads,
-        @JsonProperty("maxFrameSize") Integer maxFrameSize
+        @JsonProperty("maxFrameSize") Integer maxFrameSize,
+        @JsonProperty("binaryFullQuery") Boolean binaryFullQuery
     ) {
         this.address = new InetSocketAddress(Optional.ofNullable(host).orElse(DEFAULT_HOST),
             Optional.ofNullable(port).orElse(DEFAULT_PORT));
         this.parentThreads = Optional.ofNullable(parentThreads).orElse(DEFAULT_PARENT_THREADS);
         this.childThreads = Optional.ofNullable(childThreads).orElse(DEFAULT_CHILD_THREADS);
         this.maxFrameSize = Optional.ofNullable(maxFrameSize).orElse(DEFAULT_MAX_FRAME_SIZE);
+        this.binaryFullQuery =
+            Optional.ofNullable(binaryFullQuery).orElse(DEFAULT_BINARY_FULL_QUERY);
     }
 
     @Override
@@ -122,6 +130,21 @@ public class GrpcRpcProtocolModule implements RpcProtocolModule {
             return maxFrameSize;
         }
 
+        @Provides
+        @GrpcRpcScope
+        @Named("binaryFullQuery")
+        boolean binaryFullQuery() {
+            return binaryFullQuery;
+        }
+
+        @Provides
+        @GrpcRpcScope
+        GrpcRpcFullQueryCodec fullQueryCodec(
+            @Named("application/json+internal") ObjectMapper mapper
+        ) {
+            return new GrpcRpcFullQueryCodec(mapper, DEFAULT_SAMPLES_PER_MESSAGE);
+        }
+
         @Provides
         @GrpcRpcScope
         @Named("boss")
@@ -162,6 +185,7 @@ public class GrpcRpcProtocolModule implements RpcProtocolModule {
         private int parentThreads = DEFAULT_PARENT_THREADS;
         private int childThreads = DEFAULT_CHILD_THREADS;
         private int maxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+        private boolean binaryFullQuery = DEFAULT_BINARY_FULL_QUERY;
 
         public Builder host(final String host) {
             this.host = host;
@@ -188,8 +212,14 @@ public class GrpcRpcProtocolModule implements RpcProtocolModule {
             return this;
         }
 
+        public Builder binaryFullQuery(final boolean binaryFullQuery) {
+            this.binaryFullQuery = binaryFullQuery;
+            return this;
+        }
+
         public GrpcRpcProtocolModule build() {
-            return new GrpcRpcProtocolModule(host, port, parentThreads, childThreads, maxFrameSize);
+            return new GrpcRpcProtocolModule(host, port, parentThreads, childThreads, maxFrameSize,
+                binaryFullQuery);
         }
     }
 }
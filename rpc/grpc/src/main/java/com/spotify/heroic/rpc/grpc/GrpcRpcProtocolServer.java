@@ -22,11 +22,13 @@
 package com.spotify.heroic.rpc.grpc;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableSet;
 import com.spotify.heroic.cluster.NodeMetadata;
 import com.spotify.heroic.lifecycle.LifeCycleRegistry;
 import com.spotify.heroic.lifecycle.LifeCycles;
 import com.spotify.heroic.metadata.MetadataBackend;
 import com.spotify.heroic.metadata.MetadataManager;
+import com.spotify.heroic.metric.FullQuery;
 import com.spotify.heroic.metric.MetricBackend;
 import com.spotify.heroic.metric.MetricBackendGroup;
 import com.spotify.heroic.metric.MetricManager;
@@ -36,7 +38,9 @@ import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
 import eu.toolchain.async.FutureDone;
 import eu.toolchain.async.ResolvableFuture;
+import io.grpc.Metadata;
 import io.grpc.Server;
+import io.grpc.ServerCall;
 import io.grpc.ServerCallHandler;
 import io.grpc.ServerServiceDefinition;
 import io.grpc.Status;
@@ -73,6 +77,8 @@ public class GrpcRpcProtocolServer implements LifeCycles {
     private final NioEventLoopGroup bossGroup;
     private final NioEventLoopGroup workerGroup;
     private final GrpcRpcContainer container;
+    private final GrpcRpcFullQueryCodec codec;
+    private final boolean binaryFullQuery;
 
     private final AtomicReference<Server> server = new AtomicReference<>();
 
@@ -84,7 +90,8 @@ public class GrpcRpcProtocolServer implements LifeCycles {
         @Named("bindFuture") ResolvableFuture<InetSocketAddress> bindFuture,
         @Named("grpcBindAddress") InetSocketAddress address,
         @Named("maxFrameSize") int maxFrameSize, @Named("boss") NioEventLoopGroup bossGroup,
-        @Named("worker") NioEventLoopGroup workerGroup
+        @Named("worker") NioEventLoopGroup workerGroup, GrpcRpcFullQueryCodec codec,
+        @Named("binaryFullQuery") boolean binaryFullQuery
     ) {
         this.async = async;
         this.metrics = metrics;
@@ -97,13 +104,18 @@ public class GrpcRpcProtocolServer implements LifeCycles {
         this.maxFrameSize = maxFrameSize;
         this.bossGroup = bossGroup;
         this.workerGroup = workerGroup;
+        this.codec = codec;
+        this.binaryFullQuery = binaryFullQuery;
         this.container = setupContainer();
     }
 
     private GrpcRpcContainer setupContainer() {
         final GrpcRpcContainer container = new GrpcRpcContainer();
 
-        container.register(GrpcRpcProtocol.METADATA, empty -> async.resolved(localMetadata));
+        final NodeMetadata advertised = binaryFullQuery ? localMetadata.withCapabilities(
+            ImmutableSet.of(GrpcRpcProtocol.BINARY_FULL_QUERY)) : localMetadata;
+
+        container.register(GrpcRpcProtocol.METADATA, empty -> async.resolved(advertised));
 
         container.register(GrpcRpcProtocol.METRICS_FULL_QUERY,
             g -> g.apply(metrics, MetricBackendGroup::query));
@@ -207,9 +219,143 @@ public class GrpcRpcProtocolServer implements LifeCycles {
             builder.addMethod(spec.descriptor(), handler);
         }
 
+        if (binaryFullQuery) {
+            builder.addMethod(GrpcRpcProtocol.METRICS_FULL_QUERY_STREAM.descriptor(),
+                fullQueryStreamHandler());
+        }
+
         return builder.build();
     }
 
+    /**
+     * Handler for streamed full queries, where the result is sent as a sequence of binary encoded
+     * messages.
+     */
+    private ServerCallHandler<byte[], byte[]> fullQueryStreamHandler() {
+        return (method, call, headers) -> {
+            /* a single request message */
+            call.request(1);
+            return new FullQueryStream(call);
+        };
+    }
+
+    /**
+     * A single streamed full query.
+     * <p>
+     * Messages are encoded and sent only while the call is ready to take them, and sending resumes
+     * once the transport signals readiness again, so that the flow control of the client bounds
+     * what is buffered.
+     */
+    private class FullQueryStream extends ServerCall.Listener<byte[]> {
+        private final UUID id = UUID.randomUUID();
+        private final ServerCall<byte[]> call;
+
+        private byte[] request = null;
+        private volatile AsyncFuture<FullQuery> future = null;
+
+        /* guarded by this */
+        private GrpcRpcFullQueryCodec.Encoder encoder = null;
+        private boolean closed = false;
+
+        FullQueryStream(final ServerCall<byte[]> call) {
+            this.call = call;
+        }
+
+        @Override
+        public void onMessage(final byte[] message) {
+            request = message;
+        }
+
+        @Override
+        public void onHalfClose() {
+            log.trace("{}: Received streaming request: {}", id, request);
+
+            final AsyncFuture<FullQuery> future;
+
+            try {
+                final GrpcRpcProtocol.GroupedQuery<FullQuery.Request> query = mapper.readValue(
+                    request, GrpcRpcProtocol.METRICS_FULL_QUERY_STREAM.queryType());
+                future = query.apply(metrics, MetricBackendGroup::query);
+            } catch (final Exception e) {
+                log.error("{}: Failed to handle request (sent {})", id, Status.INTERNAL, e);
+                close(Status.INTERNAL);
+                return;
+            }
+
+            this.future = future;
+
+            future.onDone(new FutureDone<FullQuery>() {
+                @Override
+                public void failed(final Throwable cause) throws Exception {
+                    log.error("{}: Request failed", id, cause);
+                    close(Status.fromThrowable(cause));
+                }
+
+                @Override
+                public void resolved(final FullQuery result) throws Exception {
+                    synchronized (FullQueryStream.this) {
+                        encoder = codec.newEncoder(result);
+                        call.sendHeaders(new Metadata());
+                    }
+
+                    send();
+                }
+
+                @Override
+                public void cancelled() throws Exception {
+                    close(Status.CANCELLED.withDescription("Request cancelled"));
+                }
+            });
+        }
+
+        @Override
+        public void onReady() {
+            send();
+        }
+
+        @Override
+        public void onCancel() {
+            final AsyncFuture<FullQuery> future = this.future;
+
+            if (future != null) {
+                future.cancel();
+            }
+
+            synchronized (this) {
+                closed = true;
+            }
+        }
+
+        private synchronized void send() {
+            if (encoder == null || closed) {
+                return;
+            }
+
+            try {
+                while (call.isReady() && encoder.hasNext()) {
+                    call.sendMessage(encoder.next());
+                }
+            } catch (final Exception e) {
+                log.error("{}: Failed to encode result", id, e);
+                close(Status.INTERNAL);
+                return;
+            }
+
+            if (!encoder.hasNext()) {
+                close(Status.OK);
+            }
+        }
+
+        private synchronized void close(final Status status) {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            call.close(status, new Metadata());
+        }
+    }
+
     private ServerCallHandler<byte[], byte[]> serverCallHandlerFor(
         final GrpcEndpointHandle<Object, Object> spec
     ) {
@@ -0,0 +1,160 @@
+package com.spotify.heroic.rpc.grpc;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.HeroicMappers;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.common.Statistics;
+import com.spotify.heroic.grammar.QueryParser;
+import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.QueryError;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.ResultGroup;
+import com.spotify.heroic.metric.ResultLimits;
+import com.spotify.heroic.metric.Spread;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class GrpcRpcFullQueryCodecTest {
+    private final ObjectMapper mapper = HeroicMappers.json(mock(QueryParser.class));
+    private final GrpcRpcFullQueryCodec codec = new GrpcRpcFullQueryCodec(mapper, 3);
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final Map<String, String> key = Collections.singletonMap("host", null);
+
+        final ResultGroup points = new ResultGroup(key,
+            ImmutableSet.of(Series.of("a", ImmutableMap.of("host", "x")), Series.of("b")),
+            MetricCollection.points(ImmutableList.of(new Point(-10L, 1D), new Point(20L, 2.5D),
+                new Point(Long.MAX_VALUE, Double.NaN))), 10L);
+
+        final ResultGroup spreads = new ResultGroup(ImmutableMap.of("role", "db"),
+            ImmutableSet.of(Series.of("c")),
+            MetricCollection.spreads(ImmutableList.of(new Spread(10L, 2L, 3D, 5D, 1D, 2D))), 0L);
+
+        final FullQuery result = new FullQuery(QueryTrace.PASSIVE,
+            ImmutableList.of(QueryError.fromMessage("error")), ImmutableList.of(points, spreads),
+            Statistics.empty(), ResultLimits.of());
+
+        final List<byte[]> messages = encode(result);
+        /* points, spreads, and the final message */
+        assertEquals(3, messages.size());
+
+        final FullQuery decoded = decode(messages);
+
+        assertEquals(result.getErrors(), decoded.getErrors());
+        assertGroupsEqual(result.getGroups(), decoded.getGroups());
+    }
+
+    @Test
+    public void testSplitLargeGroups() throws Exception {
+        final ImmutableList.Builder<Point> points = ImmutableList.builder();
+
+        for (int i = 0; i < 7; i++) {
+            /* duplicate timestamps across part boundaries keep their order */
+            points.add(new Point(i / 2, i));
+        }
+
+        final ResultGroup small = new ResultGroup(ImmutableMap.of("role", "db"),
+            ImmutableSet.of(Series.of("a")),
+            MetricCollection.points(ImmutableList.of(new Point(1L, 1D))), 0L);
+
+        final ResultGroup large = new ResultGroup(ImmutableMap.of("role", "web"),
+            ImmutableSet.of(Series.of("b"), Series.of("c")),
+            MetricCollection.points(points.build()), 10L);
+
+        final ResultGroup spreads = new ResultGroup(ImmutableMap.of(),
+            ImmutableSet.of(Series.of("d")), MetricCollection.spreads(ImmutableList.of(
+            new Spread(1L, 2L, 3D, 5D, 1D, 2D), new Spread(2L, 2L, 3D, 5D, 1D, 2D),
+            new Spread(3L, 2L, 3D, 5D, 1D, 2D), new Spread(4L, 2L, 3D, 5D, 1D, 2D))), 0L);
+
+        final FullQuery result = new FullQuery(QueryTrace.PASSIVE, ImmutableList.of(),
+            ImmutableList.of(small, large, spreads), Statistics.empty(), ResultLimits.of());
+
+        final List<byte[]> messages = encode(result);
+        /* small, large in three parts, spreads in two parts, and the final message */
+        assertEquals(7, messages.size());
+
+        assertGroupsEqual(result.getGroups(), decode(messages).getGroups());
+    }
+
+    @Test(expected = IOException.class)
+    public void testEndWithinGroup() throws Exception {
+        final ResultGroup large = new ResultGroup(ImmutableMap.of(), ImmutableSet.of(),
+            MetricCollection.points(ImmutableList.of(new Point(1L, 1D), new Point(2L, 1D),
+                new Point(3L, 1D), new Point(4L, 1D))), 0L);
+
+        final List<byte[]> messages = encode(
+            new FullQuery(QueryTrace.PASSIVE, ImmutableList.of(), ImmutableList.of(large),
+                Statistics.empty(), ResultLimits.of()));
+
+        final GrpcRpcFullQueryCodec.Decoder decoder = codec.newDecoder();
+        decoder.message(messages.get(0));
+        decoder.message(messages.get(messages.size() - 1));
+        decoder.end();
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        final FullQuery result = FullQuery.empty(QueryTrace.PASSIVE, ResultLimits.of());
+
+        final List<byte[]> messages = encode(result);
+        assertEquals(1, messages.size());
+        assertEquals(ImmutableList.of(), decode(messages).getGroups());
+    }
+
+    @Test(expected = IOException.class)
+    public void testMissingEnd() throws Exception {
+        final GrpcRpcFullQueryCodec.Decoder decoder = codec.newDecoder();
+        decoder.end();
+    }
+
+    private void assertGroupsEqual(
+        final List<ResultGroup> expected, final List<ResultGroup> actual
+    ) {
+        assertEquals(expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            final ResultGroup e = expected.get(i);
+            final ResultGroup a = actual.get(i);
+
+            assertEquals(e.getKey(), a.getKey());
+            assertEquals(e.getSeries(), a.getSeries());
+            assertEquals(e.getCadence(), a.getCadence());
+            assertEquals(e.getGroup().getType(), a.getGroup().getType());
+            assertEquals(e.getGroup().getData(), a.getGroup().getData());
+        }
+    }
+
+    private List<byte[]> encode(final FullQuery result) throws IOException {
+        final GrpcRpcFullQueryCodec.Encoder encoder = codec.newEncoder(result);
+        final List<byte[]> messages = new ArrayList<>();
+
+        while (encoder.hasNext()) {
+            messages.add(encoder.next());
+        }
+
+        return messages;
+    }
+
+    private FullQuery decode(final List<byte[]> messages) throws IOException {
+        final GrpcRpcFullQueryCodec.Decoder decoder = codec.newDecoder();
+
+        for (final byte[] message : messages) {
+            decoder.message(message);
+        }
+
+        return decoder.end();
+    }
+}
@@ -29,6 +29,7 @@ import com.spotify.heroic.statistics.HeroicReporter;
 import com.spotify.heroic.statistics.IngestionManagerReporter;
 import com.spotify.heroic.statistics.MetadataBackendReporter;
 import com.spotify.heroic.statistics.MetricBackendReporter;
+import com.spotify.heroic.statistics.QueryReporter;
 import com.spotify.heroic.statistics.SuggestBackendReporter;
 import com.spotify.metrics.core.SemanticMetricRegistry;
 import lombok.RequiredArgsConstructor;
@@ -80,6 +81,11 @@ public class SemanticHeroicReporter implements HeroicReporter {
         return new SemanticApiReporter(registry);
     }
 
+    @Override
+    public QueryReporter newQueryReporter() {
+        return new SemanticQueryReporter(registry);
+    }
+
     @Override
     public void registerShards(Set<Map<String, String>> knownShards) {
         final Set<ClusteredManager> clustered;
@@ -22,6 +22,8 @@
 package com.spotify.heroic.statistics.semantic;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
 import com.spotify.heroic.QueryOptions;
 import com.spotify.heroic.async.AsyncObservable;
 import com.spotify.heroic.common.Groups;
@@ -45,6 +47,7 @@ import eu.toolchain.async.AsyncFuture;
 
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import lombok.RequiredArgsConstructor;
@@ -59,6 +62,7 @@ public class SemanticMetricBackendReporter implements MetricBackendReporter {
     private final FutureReporter fetch;
     private final FutureReporter deleteKey;
     private final FutureReporter countKey;
+    private final FutureReporter compactKey;
     private final FutureReporter fetchRow;
 
     private final FutureReporter findSeries;
@@ -76,6 +80,30 @@ public class SemanticMetricBackendReporter implements MetricBackendReporter {
      */
     private final Counter sampleSizeAccumulated;
 
+    /*
+     * Cells streamed into aggregations without being materialized, and the heap usage this avoided
+     * as estimated from a fixed size per cell.
+     */
+    private final Meter streamedCells;
+    private final Meter streamedBytesAvoidedEstimate;
+
+    /*
+     * Buffered writes, and the rows they were merged into when flushed.
+     */
+    private final Meter flushedMutations;
+    private final Meter flushedRows;
+    private final Histogram flushMerged;
+    private final Histogram flushBatchSize;
+    private final Histogram flushBytes;
+    private final Histogram flushLatency;
+    private final Meter writeBackPressure;
+
+    /*
+     * Writes which were grouped into a single batch statement.
+     */
+    private final Histogram writeBatchSize;
+    private final Histogram writeBatchLatency;
+
     public SemanticMetricBackendReporter(SemanticMetricRegistry registry) {
         final MetricId base = MetricId.build().tagged("component", COMPONENT);
 
@@ -89,6 +117,8 @@ public class SemanticMetricBackendReporter implements MetricBackendReporter {
             base.tagged("what", "delete-key", "unit", Units.DELETE));
         this.countKey = new SemanticFutureReporter(registry,
             base.tagged("what", "count-key", "unit", Units.QUERY));
+        this.compactKey = new SemanticFutureReporter(registry,
+            base.tagged("what", "compact-key", "unit", Units.QUERY));
         this.fetchRow = new SemanticFutureReporter(registry,
             base.tagged("what", "fetch-row", "unit", Units.QUERY));
 
@@ -101,6 +131,29 @@ public class SemanticMetricBackendReporter implements MetricBackendReporter {
             registry.counter(base.tagged("what", "sample-size-live", "unit", Units.SAMPLE));
         sampleSizeAccumulated =
             registry.counter(base.tagged("what", "sample-size-accumulated", "unit", Units.SAMPLE));
+
+        streamedCells =
+            registry.meter(base.tagged("what", "streamed-cells", "unit", Units.SAMPLE));
+        streamedBytesAvoidedEstimate = registry.meter(
+            base.tagged("what", "streamed-bytes-avoided-estimate", "unit", Units.BYTE));
+
+        flushedMutations =
+            registry.meter(base.tagged("what", "write-flush-mutations", "unit", Units.WRITE));
+        flushedRows = registry.meter(base.tagged("what", "write-flush-rows", "unit", Units.ROW));
+        flushMerged =
+            registry.histogram(base.tagged("what", "write-flush-merged", "unit", Units.RATIO));
+        flushBatchSize =
+            registry.histogram(base.tagged("what", "write-flush-batch-size", "unit", Units.ROW));
+        flushBytes =
+            registry.histogram(base.tagged("what", "write-flush-bytes", "unit", Units.BYTE));
+        flushLatency = registry.histogram(
+            base.tagged("what", "write-flush-latency", "unit", Units.MILLISECOND));
+        writeBackPressure =
+            registry.meter(base.tagged("what", "write-back-pressure", "unit", Units.WRITE));
+        writeBatchSize =
+            registry.histogram(base.tagged("what", "write-batch-size", "unit", Units.WRITE));
+        writeBatchLatency = registry.histogram(
+            base.tagged("what", "write-batch-latency", "unit", Units.MILLISECOND));
     }
 
     @Override
@@ -142,6 +195,41 @@ public class SemanticMetricBackendReporter implements MetricBackendReporter {
         return queryMetrics.setup();
     }
 
+    @Override
+    public void reportStreamedFetch(final long cells, final long estimatedBytesAvoided) {
+        streamedCells.mark(cells);
+        streamedBytesAvoidedEstimate.mark(estimatedBytesAvoided);
+    }
+
+    @Override
+    public void reportWriteFlush(final long mutations, final long rows, final long bytes) {
+        flushedMutations.mark(mutations);
+        flushedRows.mark(rows);
+        flushBatchSize.update(rows);
+        flushBytes.update(bytes);
+
+        if (mutations > 0) {
+            /* percentage of buffered mutations that were merged into another row */
+            flushMerged.update((mutations - rows) * 100 / mutations);
+        }
+    }
+
+    @Override
+    public void reportWriteFlushLatency(final long millis) {
+        flushLatency.update(millis);
+    }
+
+    @Override
+    public void reportWriteBackPressure() {
+        writeBackPressure.mark();
+    }
+
+    @Override
+    public void reportWriteBatch(final long writes, final long millis) {
+        writeBatchSize.update(writes);
+        writeBatchLatency.update(millis);
+    }
+
     @RequiredArgsConstructor
     private class InstrumentedMetricBackend implements MetricBackend {
         private final MetricBackend delegate;
@@ -176,6 +264,14 @@ public class SemanticMetricBackendReporter implements MetricBackendReporter {
             return delegate.fetch(request, watcher, metricsConsumer).onDone(fetch.setup());
         }
 
+        @Override
+        public AsyncFuture<FetchData.Result> fetchBatch(
+            final List<FetchData.Request> requests, final FetchQuotaWatcher watcher,
+            final BiConsumer<FetchData.Request, MetricCollection> metricsConsumer
+        ) {
+            return delegate.fetchBatch(requests, watcher, metricsConsumer).onDone(fetch.setup());
+        }
+
         @Override
         public Iterable<BackendEntry> listEntries() {
             return delegate.listEntries();
@@ -217,6 +313,11 @@ public class SemanticMetricBackendReporter implements MetricBackendReporter {
             return delegate.countKey(key, options).onDone(countKey.setup());
         }
 
+        @Override
+        public AsyncFuture<Long> compactKey(final BackendKey key, final QueryOptions options) {
+            return delegate.compactKey(key, options).onDone(compactKey.setup());
+        }
+
         @Override
         public AsyncFuture<MetricCollection> fetchRow(final BackendKey key) {
             return delegate.fetchRow(key).onDone(fetchRow.setup());
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.statistics.semantic;
+
+import com.codahale.metrics.Meter;
+import com.spotify.heroic.statistics.QueryReporter;
+import com.spotify.metrics.core.MetricId;
+import com.spotify.metrics.core.SemanticMetricRegistry;
+import lombok.ToString;
+
+@ToString(of = {})
+public class SemanticQueryReporter implements QueryReporter {
+    private static final String COMPONENT = "query-cache";
+
+    private final Meter cacheHit;
+    private final Meter cacheMiss;
+    private final Meter cacheEviction;
+
+    public SemanticQueryReporter(final SemanticMetricRegistry registry) {
+        final MetricId base = MetricId.build().tagged("component", COMPONENT);
+
+        cacheHit = registry.meter(base.tagged("what", "cache-hit", "unit", Units.HIT));
+        cacheMiss = registry.meter(base.tagged("what", "cache-miss", "unit", Units.MISS));
+        cacheEviction =
+            registry.meter(base.tagged("what", "cache-eviction", "unit", Units.EVICTION));
+    }
+
+    @Override
+    public void reportCacheHit() {
+        cacheHit.mark();
+    }
+
+    @Override
+    public void reportCacheMiss() {
+        cacheMiss.mark();
+    }
+
+    @Override
+    public void reportCacheEviction() {
+        cacheEviction.mark();
+    }
+}
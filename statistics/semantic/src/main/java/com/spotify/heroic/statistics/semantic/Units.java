@@ -33,7 +33,11 @@ final class Units {
     public static final String BYTE = "B";
     public static final String MILLISECOND = "ms";
     public static final String DROP = "drop";
+    public static final String HIT = "hit";
+    public static final String MISS = "miss";
+    public static final String EVICTION = "eviction";
     public static final String COUNT = "count";
     public static final String SAMPLE = "sample";
+    public static final String ROW = "row";
     public static final String RATIO = "%";
 }
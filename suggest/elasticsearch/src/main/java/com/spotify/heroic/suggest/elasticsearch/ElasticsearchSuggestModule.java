@@ -24,11 +24,8 @@ package com.spotify.heroic.suggest.elasticsearch;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.hash.HashCode;
-import com.google.common.util.concurrent.RateLimiter;
 import com.spotify.heroic.ExtraParameters;
 import com.spotify.heroic.common.DynamicModuleId;
 import com.spotify.heroic.common.Groups;
@@ -37,17 +34,18 @@ import com.spotify.heroic.dagger.PrimaryComponent;
 import com.spotify.heroic.elasticsearch.BackendType;
 import com.spotify.heroic.elasticsearch.Connection;
 import com.spotify.heroic.elasticsearch.ConnectionModule;
-import com.spotify.heroic.elasticsearch.DefaultRateLimitedCache;
-import com.spotify.heroic.elasticsearch.DisabledRateLimitedCache;
 import com.spotify.heroic.elasticsearch.RateLimitedCache;
+import com.spotify.heroic.elasticsearch.RateLimitedCaches;
 import com.spotify.heroic.lifecycle.LifeCycle;
 import com.spotify.heroic.lifecycle.LifeCycleManager;
 import com.spotify.heroic.suggest.SuggestBackend;
 import com.spotify.heroic.suggest.SuggestModule;
+import com.spotify.heroic.time.Clock;
 import dagger.Component;
 import dagger.Lazy;
 import dagger.Module;
 import dagger.Provides;
+import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.Managed;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
@@ -58,7 +56,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -72,6 +69,7 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
 
     private static final double DEFAULT_WRITES_PER_SECOND = 3000d;
     private static final long DEFAULT_WRITES_CACHE_DURATION_MINUTES = 240L;
+    private static final long DEFAULT_WRITE_CACHE_CAPACITY = 10_000_000L;
     public static final String DEFAULT_GROUP = "elasticsearch";
     public static final String DEFAULT_TEMPLATE_NAME = "heroic-suggest";
     public static final String DEFAULT_BACKEND_TYPE = "default";
@@ -82,6 +80,8 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
     private final ConnectionModule connection;
     private final double writesPerSecond;
     private final long writeCacheDurationMinutes;
+    private final Optional<String> writeCacheFile;
+    private final long writeCacheCapacity;
     private final String templateName;
     private final String backendType;
     private final boolean configure;
@@ -107,6 +107,8 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
         @JsonProperty("connection") Optional<ConnectionModule> connection,
         @JsonProperty("writesPerSecond") Optional<Double> writesPerSecond,
         @JsonProperty("writeCacheDurationMinutes") Optional<Long> writeCacheDurationMinutes,
+        @JsonProperty("writeCacheFile") Optional<String> writeCacheFile,
+        @JsonProperty("writeCacheCapacity") Optional<Long> writeCacheCapacity,
         @JsonProperty("templateName") Optional<String> templateName,
         @JsonProperty("backendType") Optional<String> backendType,
         @JsonProperty("configure") Optional<Boolean> configure
@@ -117,6 +119,8 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
         this.writesPerSecond = writesPerSecond.orElse(DEFAULT_WRITES_PER_SECOND);
         this.writeCacheDurationMinutes =
             writeCacheDurationMinutes.orElse(DEFAULT_WRITES_CACHE_DURATION_MINUTES);
+        this.writeCacheFile = writeCacheFile;
+        this.writeCacheCapacity = writeCacheCapacity.orElse(DEFAULT_WRITE_CACHE_CAPACITY);
         this.templateName = templateName.orElse(DEFAULT_TEMPLATE_NAME);
         this.backendType = backendType.orElse(DEFAULT_BACKEND_TYPE);
         this.type = backendType.map(this::lookupBackendType).orElse(defaultSetup);
@@ -185,19 +189,11 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
 
         @Provides
         @ElasticsearchScope
-        public RateLimitedCache<Pair<String, HashCode>> writeCache() {
-            final Cache<Pair<String, HashCode>, Boolean> cache = CacheBuilder
-                .newBuilder()
-                .concurrencyLevel(4)
-                .expireAfterWrite(writeCacheDurationMinutes, TimeUnit.MINUTES)
-                .build();
-
-            if (writesPerSecond <= 0d) {
-                return new DisabledRateLimitedCache<>(cache.asMap());
-            }
-
-            return new DefaultRateLimitedCache<>(cache.asMap(),
-                RateLimiter.create(writesPerSecond));
+        public RateLimitedCache<Pair<String, HashCode>> writeCache(
+            final AsyncFramework async, final Clock clock
+        ) {
+            return RateLimitedCaches.writeCache(async, clock, writesPerSecond,
+                writeCacheDurationMinutes, writeCacheFile, writeCacheCapacity);
         }
 
         @Provides
@@ -209,9 +205,11 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
         @Provides
         @ElasticsearchScope
         public LifeCycle life(
-            LifeCycleManager manager, Lazy<SuggestBackendKV> kv
+            LifeCycleManager manager, Lazy<SuggestBackendKV> kv,
+            RateLimitedCache<Pair<String, HashCode>> writeCache
         ) {
-            return manager.build(kv.get());
+            return LifeCycle.combined(
+                ImmutableList.of(manager.build(kv.get()), manager.build(writeCache)));
         }
     }
 
@@ -230,6 +228,8 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
         private Optional<ConnectionModule> connection = empty();
         private Optional<Double> writesPerSecond = empty();
         private Optional<Long> writeCacheDurationMinutes = empty();
+        private Optional<String> writeCacheFile = empty();
+        private Optional<Long> writeCacheCapacity = empty();
         private Optional<String> templateName = empty();
         private Optional<String> backendType = empty();
         private Optional<Boolean> configure = empty();
@@ -264,6 +264,17 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
             return this;
         }
 
+        public Builder writeCacheFile(final String writeCacheFile) {
+            checkNotNull(writeCacheFile, "writeCacheFile");
+            this.writeCacheFile = of(writeCacheFile);
+            return this;
+        }
+
+        public Builder writeCacheCapacity(final long writeCacheCapacity) {
+            this.writeCacheCapacity = of(writeCacheCapacity);
+            return this;
+        }
+
         public Builder templateName(final String templateName) {
             checkNotNull(templateName, "templateName");
             this.templateName = of(templateName);
@@ -283,7 +294,8 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
 
         public ElasticsearchSuggestModule build() {
             return new ElasticsearchSuggestModule(id, groups, connection, writesPerSecond,
-                writeCacheDurationMinutes, templateName, backendType, configure);
+                writeCacheDurationMinutes, writeCacheFile, writeCacheCapacity, templateName,
+                backendType, configure);
         }
     }
 }
@@ -63,6 +63,7 @@ import eu.toolchain.async.Managed;
 import lombok.ToString;
 import org.apache.commons.lang3.tuple.Pair;
 import org.elasticsearch.action.index.IndexRequest.OpType;
+import org.elasticsearch.action.index.IndexRequestBuilder;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchType;
@@ -106,6 +107,7 @@ import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+import static com.spotify.heroic.elasticsearch.RateLimitedCaches.releaseOn;
 import static com.spotify.heroic.suggest.elasticsearch.ElasticsearchSuggestUtils.loadJsonResource;
 import static com.spotify.heroic.suggest.elasticsearch.ElasticsearchSuggestUtils.variables;
 import static org.elasticsearch.index.query.FilterBuilders.andFilter;
@@ -554,6 +556,7 @@ public class SuggestBackendKV extends AbstractElasticsearchBackend
                 }
 
                 final String seriesId = s.hash();
+                final List<AsyncFuture<WriteSuggest>> indexWrites = new ArrayList<>();
 
                 final XContentBuilder series = XContentFactory.jsonBuilder();
 
@@ -561,12 +564,14 @@ public class SuggestBackendKV extends AbstractElasticsearchBackend
                 buildContext(series, s);
                 series.endObject();
 
-                writes.add(bind(c
+                final IndexRequestBuilder seriesRequest = c
                     .index(index, SERIES_TYPE)
                     .setId(seriesId)
                     .setSource(series)
-                    .setOpType(OpType.CREATE)
-                    .execute()).directTransform(response -> timer.end()));
+                    .setOpType(OpType.CREATE);
+
+                indexWrites.add(
+                    c.bulkIndex(seriesRequest.request()).directTransform(v -> timer.end()));
 
                 for (final Map.Entry<String, String> e : s.getTags().entrySet()) {
                     final XContentBuilder suggest = XContentFactory.jsonBuilder();
@@ -578,13 +583,18 @@ public class SuggestBackendKV extends AbstractElasticsearchBackend
 
                     final String suggestId = seriesId + ":" + Integer.toHexString(e.hashCode());
 
-                    writes.add(bind(c
+                    final IndexRequestBuilder tagRequest = c
                         .index(index, TAG_TYPE)
                         .setId(suggestId)
                         .setSource(suggest)
-                        .setOpType(OpType.CREATE)
-                        .execute()).directTransform(response -> timer.end()));
+                        .setOpType(OpType.CREATE);
+
+                    indexWrites.add(
+                        c.bulkIndex(tagRequest.request()).directTransform(v -> timer.end()));
                 }
+
+                writes.add(
+                    releaseOn(writeCache, key, async.collect(indexWrites, WriteSuggest.reduce())));
             }
 
             return async.collect(writes, WriteSuggest.reduce());
@@ -593,7 +603,9 @@ public class SuggestBackendKV extends AbstractElasticsearchBackend
 
     @Override
     public Statistics getStatistics() {
-        return Statistics.of(WRITE_CACHE_SIZE, writeCache.size());
+        return Statistics
+            .of(WRITE_CACHE_SIZE, writeCache.size())
+            .merge(writeCache.getStatistics());
     }
 
     private AsyncFuture<Void> start() {
@@ -0,0 +1,115 @@
+package com.spotify.heroic.suggest.elasticsearch;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Groups;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.elasticsearch.Connection;
+import com.spotify.heroic.elasticsearch.RateLimitedCache;
+import com.spotify.heroic.statistics.SuggestBackendReporter;
+import com.spotify.heroic.suggest.WriteSuggest;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.Managed;
+import eu.toolchain.async.ManagedAction;
+import eu.toolchain.async.TinyAsync;
+import org.apache.commons.lang3.tuple.Pair;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.client.Client;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SuggestBackendKVTest {
+    private final AsyncFramework async = TinyAsync.builder().build();
+
+    private final Series series = Series.of("key", ImmutableMap.of("a", "1", "b", "2"));
+
+    @Mock
+    private Managed<Connection> managed;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private Client client;
+
+    @Mock
+    private SuggestBackendReporter reporter;
+
+    @Mock
+    private RateLimitedCache<Pair<String, HashCode>> writeCache;
+
+    private final List<IndexRequest> indexed = new ArrayList<>();
+
+    private SuggestBackendKV backend;
+
+    @Before
+    public void setup() throws Exception {
+        doAnswer(invocation -> invocation
+            .getArgumentAt(0, ManagedAction.class)
+            .action(connection)).when(managed).doto(any(ManagedAction.class));
+
+        doReturn(new String[]{"index"}).when(connection).writeIndices();
+        doAnswer(invocation -> new IndexRequestBuilder(client, invocation.getArgumentAt(0,
+            String.class)).setType(invocation.getArgumentAt(1, String.class))).when(connection)
+            .index(anyString(), anyString());
+
+        doAnswer(invocation -> {
+            indexed.add(invocation.getArgumentAt(0, IndexRequest.class));
+            return async.resolved();
+        }).when(connection).bulkIndex(any(IndexRequest.class));
+
+        doReturn(true).when(writeCache).acquire(any());
+
+        backend = new SuggestBackendKV(async, managed, reporter, writeCache, Groups.empty(), false);
+    }
+
+    @Test
+    public void testWriteThroughBulk() throws Exception {
+        final WriteSuggest result =
+            backend.write(new WriteSuggest.Request(series, new DateRange(0L, 0L))).get();
+
+        assertEquals(0, result.getErrors().size());
+
+        /* one series document, and one document per tag */
+        assertEquals(3, indexed.size());
+        assertEquals(SuggestBackendKV.SERIES_TYPE, indexed.get(0).type());
+        assertEquals(series.hash(), indexed.get(0).id());
+        assertEquals(SuggestBackendKV.TAG_TYPE, indexed.get(1).type());
+        assertEquals(SuggestBackendKV.TAG_TYPE, indexed.get(2).type());
+
+        /* the write cache remembers the series once every document has been written */
+        verify(writeCache).release(Pair.of("index", series.getHashCode()), true);
+
+        /* nothing is written outside of the bulk indexer */
+        verify(client, never()).index(any(IndexRequest.class), any(ActionListener.class));
+        verify(client, never()).index(any(IndexRequest.class));
+    }
+
+    @Test
+    public void testRateLimited() throws Exception {
+        doReturn(false).when(writeCache).acquire(any());
+
+        backend.write(new WriteSuggest.Request(series, new DateRange(0L, 0L))).get();
+
+        assertEquals(0, indexed.size());
+        verify(reporter).reportWriteDroppedByRateLimit();
+    }
+}
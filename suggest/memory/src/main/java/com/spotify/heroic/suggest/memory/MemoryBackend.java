@@ -28,6 +28,7 @@ import com.spotify.heroic.common.Grouped;
 import com.spotify.heroic.common.Groups;
 import com.spotify.heroic.common.OptionalLimit;
 import com.spotify.heroic.common.Series;
+import com.spotify.heroic.filter.CompiledFilter;
 import com.spotify.heroic.filter.Filter;
 import com.spotify.heroic.suggest.KeySuggest;
 import com.spotify.heroic.suggest.SuggestBackend;
@@ -52,7 +53,6 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
-import java.util.TreeSet;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -64,6 +64,7 @@ import java.util.stream.Stream;
 @ToString(of = {})
 public class MemoryBackend implements SuggestBackend, Grouped {
     private static final float SCORE = 1.0f;
+    private static final int TAG_VALUE_STRIPES = 16;
 
     private final SortedMap<String, Set<String>> keys = new TreeMap<>();
     private final SortedMap<String, Set<TagId>> tagKeys = new TreeMap<>();
@@ -71,7 +72,7 @@ public class MemoryBackend implements SuggestBackend, Grouped {
 
     private final HashMap<String, KeyDocument> keyIndex = new HashMap<>();
     private final HashMap<TagId, TagDocument> tagIndex = new HashMap<>();
-    private final SortedSet<Series> series = new TreeSet<>();
+    private final TagValueIndex tagValueIndex = new TagValueIndex(TAG_VALUE_STRIPES);
 
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
 
@@ -91,66 +92,36 @@ public class MemoryBackend implements SuggestBackend, Grouped {
 
     @Override
     public AsyncFuture<TagValuesSuggest> tagValuesSuggest(TagValuesSuggest.Request request) {
-        final Map<String, Set<String>> counts = new HashMap<>();
-
+        final OptionalLimit limit = request.getLimit();
         final OptionalLimit groupLimit = request.getGroupLimit();
 
-        try (final Stream<Series> series = lookupSeries(request.getFilter())) {
-            series.forEach(s -> {
-                for (final Map.Entry<String, String> e : s.getTags().entrySet()) {
-                    Set<String> c = counts.get(e.getKey());
-
-                    if (c == null) {
-                        c = new HashSet<>();
-                        counts.put(e.getKey(), c);
-                    }
-
-                    if (groupLimit.isGreaterOrEqual(c.size())) {
-                        continue;
-                    }
+        final SortedMap<String, SortedSet<String>> values = tagValueIndex.values(
+            request.getFilter(), ImmutableSet.copyOf(request.getExclude()), groupLimit);
 
-                    c.add(e.getValue());
-                }
-            });
-        }
-
-        final List<TagValuesSuggest.Suggestion> suggestions = ImmutableList.copyOf(request
-            .getLimit()
-            .limitStream(counts.entrySet().stream())
+        final List<TagValuesSuggest.Suggestion> suggestions = ImmutableList.copyOf(limit
+            .limitStream(values.entrySet().stream())
             .map(e -> new TagValuesSuggest.Suggestion(e.getKey(),
-                ImmutableSortedSet.copyOf(e.getValue()), false))
+                groupLimit.limitSortedSet(e.getValue()),
+                groupLimit.isGreater(e.getValue().size())))
             .iterator());
 
-        return async.resolved(TagValuesSuggest.of(suggestions, false));
+        return async.resolved(TagValuesSuggest.of(suggestions, limit.isGreater(values.size())));
     }
 
     @Override
     public AsyncFuture<TagKeyCount> tagKeyCount(final TagKeyCount.Request request) {
-        final Map<String, Set<String>> counts = new HashMap<>();
-
-        try (final Stream<Series> series = lookupSeries(request.getFilter())) {
-            series.forEach(s -> {
-                for (final Map.Entry<String, String> e : s.getTags().entrySet()) {
-                    Set<String> c = counts.get(e.getKey());
-
-                    if (c == null) {
-                        c = new HashSet<>();
-                        counts.put(e.getKey(), c);
-                    }
+        final OptionalLimit limit = request.getLimit();
 
-                    c.add(e.getValue());
-                }
-            });
-        }
+        final SortedMap<String, SortedSet<String>> values =
+            tagValueIndex.values(request.getFilter(), ImmutableSet.of(), OptionalLimit.empty());
 
-        final List<TagKeyCount.Suggestion> suggestions = ImmutableList.copyOf(request
-            .getLimit()
-            .limitStream(counts.entrySet().stream())
+        final List<TagKeyCount.Suggestion> suggestions = ImmutableList.copyOf(limit
+            .limitStream(values.entrySet().stream())
             .map(e -> new TagKeyCount.Suggestion(e.getKey(), (long) e.getValue().size(),
                 Optional.empty()))
             .iterator());
 
-        return async.resolved(TagKeyCount.of(suggestions, false));
+        return async.resolved(TagKeyCount.of(suggestions, limit.isGreater(values.size())));
     }
 
     @Override
@@ -222,13 +193,14 @@ public class MemoryBackend implements SuggestBackend, Grouped {
     public AsyncFuture<WriteSuggest> write(final WriteSuggest.Request request) {
         final Series s = request.getSeries();
 
+        /* striped, and guarded separately to keep writes from blocking tag value suggestions */
+        tagValueIndex.add(s);
+
         final Lock l = lock.writeLock();
 
         l.lock();
 
         try {
-            series.add(s);
-
             keyIndex.put(s.getKey(), new KeyDocument(s.getKey(), s));
 
             for (final String t : analyze(s.getKey())) {
@@ -313,21 +285,17 @@ public class MemoryBackend implements SuggestBackend, Grouped {
     }
 
     private Stream<KeyDocument> lookupKeys(final Filter filter) {
+        final CompiledFilter compiled = CompiledFilter.of(filter);
         final Lock l = lock.readLock();
         l.lock();
-        return keyIndex.values().stream().filter(e -> filter.apply(e.series)).onClose(l::unlock);
+        return keyIndex.values().stream().filter(e -> compiled.apply(e.series)).onClose(l::unlock);
     }
 
     private Stream<TagDocument> lookupTags(final Filter filter) {
+        final CompiledFilter compiled = CompiledFilter.of(filter);
         final Lock l = lock.readLock();
         l.lock();
-        return tagIndex.values().stream().filter(e -> filter.apply(e.series)).onClose(l::unlock);
-    }
-
-    private Stream<Series> lookupSeries(final Filter filter) {
-        final Lock l = lock.readLock();
-        l.lock();
-        return series.stream().filter(filter::apply).onClose(l::unlock);
+        return tagIndex.values().stream().filter(e -> compiled.apply(e.series)).onClose(l::unlock);
     }
 
     @Data
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2017 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.suggest.memory;
+
+import com.spotify.heroic.common.OptionalLimit;
+import com.spotify.heroic.common.RoaringBitmap;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.common.SeriesIndex;
+import com.spotify.heroic.filter.Filter;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-key value dictionaries over written series, with a posting list of series for every value.
+ * <p>
+ * Series are spread over a number of stripes, each a {@link SeriesIndex} guarded by its own lock,
+ * so that a write only contends with the reads of the stripe that it lands in.
+ */
+class TagValueIndex {
+    private final Stripe[] stripes;
+
+    TagValueIndex(final int stripes) {
+        this.stripes = new Stripe[stripes];
+
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Add the given series to the index.
+     *
+     * @return {@code true} if the series was not already indexed.
+     */
+    boolean add(final Series s) {
+        final Stripe stripe = stripes[Math.floorMod(s.hashCode(), stripes.length)];
+        final Lock l = stripe.lock.writeLock();
+
+        l.lock();
+
+        try {
+            return stripe.index.add(s);
+        } finally {
+            l.unlock();
+        }
+    }
+
+    /**
+     * Collect the values of every tag key among the series matching the given filter.
+     * <p>
+     * Values are collected for a key until there are more than {@code groupLimit} of them, so that
+     * the caller can tell if the values for that key were limited.
+     *
+     * @param filter Filter which series must match.
+     * @param exclude Tag keys to leave out.
+     * @param groupLimit Limit for the number of values per key.
+     * @return The values of each tag key.
+     */
+    SortedMap<String, SortedSet<String>> values(
+        final Filter filter, final Set<String> exclude, final OptionalLimit groupLimit
+    ) {
+        final SortedMap<String, SortedSet<String>> result = new TreeMap<>();
+
+        for (final Stripe stripe : stripes) {
+            final Lock l = stripe.lock.readLock();
+
+            l.lock();
+
+            try {
+                collect(stripe.index, filter, exclude, groupLimit, result);
+            } finally {
+                l.unlock();
+            }
+        }
+
+        return result;
+    }
+
+    private void collect(
+        final SeriesIndex index, final Filter filter, final Set<String> exclude,
+        final OptionalLimit groupLimit, final SortedMap<String, SortedSet<String>> result
+    ) {
+        final RoaringBitmap matches = index.lookup(filter);
+
+        if (matches.isEmpty()) {
+            return;
+        }
+
+        final int cardinality = matches.cardinality();
+        int dictionaries = 0;
+
+        for (final String key : index.tagKeys()) {
+            dictionaries += index.tagValues(key).size();
+        }
+
+        /* few matching series, walking their tags is cheaper than probing every value */
+        if (cardinality < dictionaries) {
+            matches.forEach(id -> {
+                for (final Map.Entry<String, String> e : index.get(id).getTags().entrySet()) {
+                    if (exclude.contains(e.getKey())) {
+                        continue;
+                    }
+
+                    final SortedSet<String> values =
+                        result.computeIfAbsent(e.getKey(), k -> new TreeSet<>());
+
+                    if (!groupLimit.isGreater(values.size())) {
+                        values.add(e.getValue());
+                    }
+                }
+            });
+
+            return;
+        }
+
+        /* every series matches, so every value of every key is present */
+        final boolean everything = cardinality == index.size();
+
+        for (final String key : index.tagKeys()) {
+            if (exclude.contains(key)) {
+                continue;
+            }
+
+            final NavigableMap<String, RoaringBitmap> dictionary = index.tagValues(key);
+
+            SortedSet<String> values = result.get(key);
+
+            for (final Map.Entry<String, RoaringBitmap> e : dictionary.entrySet()) {
+                if (values != null && groupLimit.isGreater(values.size())) {
+                    break;
+                }
+
+                if (everything || RoaringBitmap.intersects(matches, e.getValue())) {
+                    if (values == null) {
+                        values = new TreeSet<>();
+                        result.put(key, values);
+                    }
+
+                    values.add(e.getKey());
+                }
+            }
+        }
+    }
+
+    private static class Stripe {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final SeriesIndex index = new SeriesIndex();
+    }
+}
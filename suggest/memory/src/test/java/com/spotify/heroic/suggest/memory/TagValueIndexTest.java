@@ -0,0 +1,107 @@
+package com.spotify.heroic.suggest.memory;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.common.OptionalLimit;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.filter.AndFilter;
+import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.filter.HasTagFilter;
+import com.spotify.heroic.filter.MatchKeyFilter;
+import com.spotify.heroic.filter.MatchTagFilter;
+import com.spotify.heroic.filter.NotFilter;
+import com.spotify.heroic.filter.TrueFilter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TagValueIndexTest {
+    private final List<Series> series = new ArrayList<>();
+    private final TagValueIndex index = new TagValueIndex(4);
+
+    @Before
+    public void setup() {
+        final Random random = new Random(0x1234);
+
+        for (int i = 0; i < 2000; i++) {
+            final Map<String, String> tags = new HashMap<>();
+            tags.put("host", "host" + random.nextInt(500));
+            tags.put("role", "role" + random.nextInt(5));
+
+            if (random.nextBoolean()) {
+                tags.put("site", "site" + random.nextInt(3));
+            }
+
+            final Series s = Series.of("key" + random.nextInt(3), tags);
+            series.add(s);
+            index.add(s);
+        }
+    }
+
+    @Test
+    public void testAddIsIdempotent() {
+        assertFalse(index.add(series.get(0)));
+        assertTrue(index.add(Series.of("other", ImmutableMap.of("role", "other"))));
+    }
+
+    @Test
+    public void testValuesMatchScan() {
+        final List<Filter> filters = ImmutableList.of(TrueFilter.get(), new MatchKeyFilter("key0"),
+            new MatchTagFilter("host", "host1"), new HasTagFilter("site"),
+            new AndFilter(ImmutableList.of(new MatchTagFilter("role", "role1"),
+                new NotFilter(new MatchTagFilter("site", "site0")))),
+            new MatchTagFilter("role", "missing"));
+
+        for (final Filter filter : filters) {
+            assertEquals(filter.toString(), scan(filter, ImmutableSet.of()),
+                index.values(filter, ImmutableSet.of(), OptionalLimit.empty()));
+            assertEquals(filter.toString(), scan(filter, ImmutableSet.of("host")),
+                index.values(filter, ImmutableSet.of("host"), OptionalLimit.empty()));
+        }
+    }
+
+    @Test
+    public void testGroupLimit() {
+        final SortedMap<String, SortedSet<String>> values =
+            index.values(TrueFilter.get(), ImmutableSet.of(), OptionalLimit.of(3));
+
+        /* one more value than the limit is collected, to tell that the values were limited */
+        assertEquals(4, values.get("host").size());
+        assertEquals(4, values.get("role").size());
+        assertEquals(3, values.get("site").size());
+    }
+
+    private SortedMap<String, SortedSet<String>> scan(
+        final Filter filter, final Set<String> exclude
+    ) {
+        final SortedMap<String, SortedSet<String>> result = new TreeMap<>();
+
+        for (final Series s : series) {
+            if (!filter.apply(s)) {
+                continue;
+            }
+
+            for (final Map.Entry<String, String> e : s.getTags().entrySet()) {
+                if (!exclude.contains(e.getKey())) {
+                    result.computeIfAbsent(e.getKey(), k -> new TreeSet<>()).add(e.getValue());
+                }
+            }
+        }
+
+        return result;
+    }
+}